@@ -0,0 +1,135 @@
+package com.example.benchmarks;
+
+import com.example.SensorData;
+import com.example.stream.EncodedReading;
+import com.example.websocket.DeflateCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * 每1000条读数推送给N个会话的CPU开销（每次操作的耗时）和线路字节数（TearDown时打印）
+ * - plain：逐条发送JSON文本帧，不压缩
+ * - perSessionDeflate：逐条发送，每个会话一个保留上下文的Deflater（Tomcat协商permessage-deflate时的做法）
+ * - jsonBatch：batch=true，1000条读数拼成一条JSON数组，所有会话共享
+ * - sharedDeflateBatch：encoding=deflate，JSON数组用预置字典压缩一次，所有会话共享
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompressionBenchmark {
+
+    private static final int READINGS = 1000;
+
+    @Param({"1", "100"})
+    private int sessions;
+
+    private EncodedReading[] readings;
+    private Deflater[] deflaters;
+    private DeflateCodec codec;
+    private final byte[] buffer = new byte[64 * 1024];
+
+    // 最近一次操作写到线路上的字节数
+    private long wireBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SensorData[] data = Fixtures.readings(READINGS);
+        readings = new EncodedReading[READINGS];
+        for (int i = 0; i < READINGS; i++) {
+            readings[i] = new EncodedReading(i, data[i]);
+            readings[i].json();
+        }
+        deflaters = new Deflater[sessions];
+        for (int i = 0; i < sessions; i++) {
+            deflaters[i] = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        }
+        codec = new DeflateCodec();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(BenchmarkParams params) {
+        String mode = params.getBenchmark().substring(params.getBenchmark().lastIndexOf('.') + 1);
+        System.out.printf("%n%s: 每%d条读数、%d个会话的线路字节数=%d（每会话%d）%n",
+                mode, READINGS, sessions, wireBytes, wireBytes / sessions);
+        for (Deflater deflater : deflaters) {
+            deflater.end();
+        }
+        codec.close();
+    }
+
+    @Benchmark
+    public long plain() {
+        long bytes = 0;
+        for (EncodedReading reading : readings) {
+            bytes += (long) reading.json().length * sessions;
+        }
+        wireBytes = bytes;
+        return bytes;
+    }
+
+    @Benchmark
+    public long perSessionDeflate() {
+        long bytes = 0;
+        for (EncodedReading reading : readings) {
+            byte[] json = reading.json();
+            for (Deflater deflater : deflaters) {
+                deflater.setInput(json);
+                int length;
+                do {
+                    length = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    bytes += length;
+                } while (length == buffer.length);
+                // permessage-deflate去掉每条消息末尾的00 00 FF FF
+                bytes -= 4;
+            }
+        }
+        wireBytes = bytes;
+        return bytes;
+    }
+
+    @Benchmark
+    public long jsonBatch() {
+        long bytes = (long) batch().length * sessions;
+        wireBytes = bytes;
+        return bytes;
+    }
+
+    @Benchmark
+    public long sharedDeflateBatch() {
+        long bytes = (long) codec.compress(batch()).length * sessions;
+        wireBytes = bytes;
+        return bytes;
+    }
+
+    private byte[] batch() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(READINGS * 128);
+        out.write('[');
+        for (int i = 0; i < READINGS; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.writeBytes(readings[i].json());
+        }
+        out.write(']');
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.benchmarks;
+
+import com.example.SensorData;
+import com.example.SensorType;
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.TaskInfo;
+import org.apache.flink.api.common.functions.RichFunction;
+import org.apache.flink.api.common.functions.util.RuntimeUDFContext;
+import org.apache.flink.metrics.groups.UnregisteredMetricsGroup;
+
+import java.lang.reflect.Field;
+import java.util.HashMap;
+
+/**
+ * 基准测试共用的数据和工具
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    /**
+     * 与模拟器输出一致的读数样本
+     */
+    static SensorData[] readings(int count) {
+        SensorType[] types = {SensorType.TEMPERATURE, SensorType.HUMIDITY, SensorType.PRESSURE};
+        SensorData[] data = new SensorData[count];
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < count; i++) {
+            SensorType type = types[i % types.length];
+            data[i] = new SensorData(type.label() + "-sensor-" + (i % 32), now + i, 20.0 + (i % 100) * 0.37, type);
+        }
+        return data;
+    }
+
+    /**
+     * 绕过Spring直接构造组件时，为@Value字段注入默认值
+     */
+    static void setField(Object target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("无法设置字段 " + name, e);
+        }
+    }
+
+    /**
+     * 脱离作业直接调用open()时，为函数提供单个子任务的运行时上下文（指标不注册）
+     */
+    static void runtimeContext(RichFunction function) {
+        function.setRuntimeContext(new RuntimeUDFContext(new TaskInfo("benchmark", 1, 0, 1, 0),
+                Fixtures.class.getClassLoader(), new ExecutionConfig(), new HashMap<>(), new HashMap<>(),
+                UnregisteredMetricsGroup.createOperatorMetricGroup()));
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.benchmarks;
+
+import com.example.SensorData;
+import com.example.payload.HttpPayloadEncoder;
+import com.example.payload.Payload;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.StringEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP请求体的编码开销（每条读数的纳秒数）和字节数
+ * legacyStringEntity为旧HttpSender的方式（writeValueAsString + StringEntity）；
+ * single为逐条发送，batch为100条一个请求体；字节数在结束时打印
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HttpPayloadBenchmark {
+
+    private static final int BATCH = 100;
+
+    @Param({"json", "binary"})
+    public String format;
+
+    @Param({"none", "gzip", "zstd"})
+    public String compression;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private HttpPayloadEncoder encoder;
+    private SensorData[] readings;
+    private List<List<SensorData>> batches;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        // 阈值设为0，单条读数也压缩，展示压缩对小请求体的影响
+        encoder = new HttpPayloadEncoder(HttpPayloadEncoder.parse(HttpPayloadEncoder.Format.class, format),
+                HttpPayloadEncoder.parse(HttpPayloadEncoder.Compression.class, compression), 0, 4);
+        readings = Fixtures.readings(1024);
+        batches = List.of(Arrays.asList(readings).subList(0, BATCH), Arrays.asList(readings).subList(512, 512 + BATCH));
+    }
+
+    @Benchmark
+    public HttpEntity legacyStringEntity() throws Exception {
+        return new StringEntity(objectMapper.writeValueAsString(readings[cursor++ & 1023]));
+    }
+
+    @Benchmark
+    public int single() throws Exception {
+        try (Payload payload = encoder.encode(readings[cursor++ & 1023])) {
+            return payload.entity() != null ? payload.wireBytes() : 0;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int batch() throws Exception {
+        try (Payload payload = encoder.encode(batches.get(cursor++ & 1))) {
+            return payload.entity() != null ? payload.wireBytes() : 0;
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        int legacy = 0;
+        int single = 0;
+        for (int i = 0; i < 100; i++) {
+            legacy += objectMapper.writeValueAsString(readings[i]).length();
+            try (Payload payload = encoder.encode(readings[i])) {
+                single += payload.wireBytes();
+            }
+        }
+        try (Payload payload = encoder.encode(batches.get(0))) {
+            System.out.printf("%n%s/%s 每条字节数: 旧方式 %.1f, 逐条 %.1f, 批量 %.1f%n", format, compression,
+                    legacy / 100.0, single / 100.0, payload.wireBytes() / (double) BATCH);
+        }
+        encoder.close();
+    }
+}
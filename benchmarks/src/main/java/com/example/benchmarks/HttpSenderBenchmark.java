@@ -0,0 +1,101 @@
+package com.example.benchmarks;
+
+import com.example.HttpSender;
+import com.example.SensorData;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.flink.configuration.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * HttpSender对本地桩服务器的单条读数送达开销（每条读数的微秒数）
+ * map()只申请并发许可并异步提交，所以每次调用提交一批读数后等待桩服务器全部收到，
+ * 测得的是编码、连接复用和请求往返在自适应并发下的送达速率，而不只是提交和反压的速率。
+ * 桩服务器读完请求体后立即返回204。并发限制从初始值4逐步增长，预热时间较长，稳态前的迭代明显偏慢
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OperationsPerInvocation(HttpSenderBenchmark.BATCH)
+public class HttpSenderBenchmark {
+
+    static final int BATCH = 256;
+
+    // 送达等待超时，超时说明有读数转入了溢出队列，结果不可信
+    private static final long DELIVERY_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private HttpSender sender;
+    private SensorData[] readings;
+    private int cursor;
+    private long submitted;
+    private final AtomicLong received = new AtomicLong();
+
+    @Setup
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 128);
+        server.createContext("/sensor-data", exchange -> {
+            try (InputStream body = exchange.getRequestBody()) {
+                body.readAllBytes();
+            }
+            received.incrementAndGet();
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        serverExecutor = Executors.newFixedThreadPool(4);
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        String endpoint = "http://127.0.0.1:" + server.getAddress().getPort() + "/sensor-data";
+        sender = new HttpSender(endpoint, 3, 5000);
+        Fixtures.runtimeContext(sender);
+        sender.open(new Configuration());
+        readings = Fixtures.readings(1024);
+    }
+
+    @Benchmark
+    public long send() throws Exception {
+        for (int i = 0; i < BATCH; i++) {
+            sender.map(readings[cursor++ & 1023]);
+        }
+        submitted += BATCH;
+        long deadline = System.nanoTime() + DELIVERY_TIMEOUT_NANOS;
+        while (received.get() < submitted) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("读数未全部送达: " + received.get() + "/" + submitted);
+            }
+            LockSupport.parkNanos(10_000);
+        }
+        return received.get();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        sender.close();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.benchmarks;
+
+import com.example.SensorData;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SensorData的Jackson编解码开销
+ * 两个SensorData record已合并为com.example.SensorData，这里覆盖推送（字符串）、HTTP（字节）和解析三条路径
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonEncodingBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private SensorData[] readings;
+    private byte[] encoded;
+    private int cursor;
+
+    @Setup
+    public void setUp() throws Exception {
+        writer = objectMapper.writerFor(SensorData.class);
+        reader = objectMapper.readerFor(SensorData.class);
+        readings = Fixtures.readings(1024);
+        encoded = objectMapper.writeValueAsBytes(readings[0]);
+    }
+
+    /**
+     * WebSocket推送和旧HttpSender使用的方式
+     */
+    @Benchmark
+    public String mapperWriteString() throws Exception {
+        return objectMapper.writeValueAsString(readings[cursor++ & 1023]);
+    }
+
+    @Benchmark
+    public byte[] mapperWriteBytes() throws Exception {
+        return objectMapper.writeValueAsBytes(readings[cursor++ & 1023]);
+    }
+
+    @Benchmark
+    public byte[] typedWriterBytes() throws Exception {
+        return writer.writeValueAsBytes(readings[cursor++ & 1023]);
+    }
+
+    @Benchmark
+    public SensorData readBytes() throws Exception {
+        return reader.readValue(encoded);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.benchmarks;
+
+import com.example.SensorData;
+import com.example.kafka.EmbeddedKafkaBroker;
+import com.example.kafka.KafkaLog;
+import com.example.kafka.KafkaLogSettings;
+import com.example.kafka.SensorRecordSchema;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kafka写入对进程内代理的单条读数开销，与{@link HttpSenderBenchmark}同为每条读数的微秒数，可直接对比
+ * 每次调用写入1000条读数后等待全部确认（exactly-once时为提交事务），相当于每1000条一个检查点；
+ * 生产者参数与{@link KafkaLog#sink}一致
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KafkaSinkBenchmark {
+
+    private static final int BATCH = 1000;
+
+    @Param({"none", "lz4", "zstd"})
+    public String compression;
+
+    @Param({"at-least-once", "exactly-once"})
+    public String guarantee;
+
+    private EmbeddedKafkaBroker broker;
+    private KafkaProducer<byte[], byte[]> producer;
+    private SensorRecordSchema schema;
+    private SensorData[] readings;
+    private boolean transactional;
+
+    @Setup
+    public void setUp() throws Exception {
+        broker = new EmbeddedKafkaBroker();
+        broker.createTopic("readings", 3);
+        KafkaLogSettings settings = new KafkaLogSettings(broker.bootstrapServers(), "readings", compression,
+                guarantee, "benchmark", 20, 256 * 1024, 60_000, "benchmark");
+        Properties properties = KafkaLog.producerProperties(settings);
+        properties.setProperty(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.bootstrapServers());
+        transactional = settings.exactlyOnce();
+        if (transactional) {
+            properties.setProperty(ProducerConfig.TRANSACTIONAL_ID_CONFIG, "benchmark-" + compression);
+        }
+        producer = new KafkaProducer<>(properties, new ByteArraySerializer(), new ByteArraySerializer());
+        if (transactional) {
+            producer.initTransactions();
+        }
+        schema = new SensorRecordSchema("readings");
+        readings = Fixtures.readings(BATCH);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void send() {
+        if (transactional) {
+            producer.beginTransaction();
+        }
+        for (SensorData data : readings) {
+            producer.send(schema.serialize(data, null, null));
+        }
+        if (transactional) {
+            producer.commitTransaction();
+        } else {
+            producer.flush();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        for (Map.Entry<MetricName, ? extends Metric> metric : producer.metrics().entrySet()) {
+            if (metric.getKey().group().equals("producer-metrics")
+                    && metric.getKey().name().equals("compression-rate-avg")) {
+                System.out.printf("%n%s/%s 压缩后/压缩前: %s%n", compression, guarantee, metric.getValue().metricValue());
+            }
+        }
+        producer.close();
+        broker.close();
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.benchmarks;
+
+import com.example.SensorData;
+import com.example.logging.LogSampler;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.apache.logging.log4j.core.config.builder.api.ConfigurationBuilder;
+import org.apache.logging.log4j.core.config.builder.api.ConfigurationBuilderFactory;
+import org.apache.logging.log4j.core.config.builder.impl.BuiltConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 数据路径上每条读数的日志开销（纳秒），加-prof gc可看每条的分配
+ * 日志写入target/logging-benchmark.log，格式与log4j2-spring.xml相同
+ * - perRecordInfoSync / perRecordInfoAsync：旧HttpSender的逐条INFO，同步Logger和全部异步Logger（应用的配置）
+ *   异步时后台线程跟不上，队列写满后按log4j2.component.properties丢弃INFO，测得的是入队或丢弃的开销
+ * - sampledDebug：DEBUG打开时经LogSampler每1000条记录一条
+ * - disabledDebugEager / disabledDebugGuarded：DEBUG关闭时，参数里直接调用getFormattedTimestamp()和先判断级别
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoggingBenchmark {
+
+    private static final String SYNC_SELECTOR =
+            "-Dlog4j2.contextSelector=org.apache.logging.log4j.core.selector.ClassLoaderContextSelector";
+
+    private Logger info;
+    private Logger debug;
+    private LogSampler sampler;
+    private SensorData[] readings;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        ConfigurationBuilder<BuiltConfiguration> builder = ConfigurationBuilderFactory.newConfigurationBuilder();
+        builder.add(builder.newAppender("File", "RandomAccessFile")
+                .addAttribute("fileName", "target/logging-benchmark.log")
+                .addAttribute("append", false)
+                .addAttribute("immediateFlush", false)
+                .add(builder.newLayout("PatternLayout")
+                        .addAttribute("pattern", "%d{yyyy-MM-dd HH:mm:ss.SSS} %5p %pid --- [%15.15t] %-40.40c{1.} : %m%n%xwEx")));
+        builder.add(builder.newLogger("bench.debug", Level.DEBUG).addAttribute("additivity", true));
+        builder.add(builder.newRootLogger(Level.INFO).add(builder.newAppenderRef("File")));
+        Configurator.reconfigure(builder.build());
+
+        info = LoggerFactory.getLogger("bench.info");
+        debug = LoggerFactory.getLogger("bench.debug");
+        LogSampler.configure(1000, Integer.MAX_VALUE);
+        sampler = LogSampler.sampled("bench.sampled");
+        readings = Fixtures.readings(1024);
+        System.out.println("LoggerContext: " + LogManager.getContext(false).getClass().getSimpleName());
+    }
+
+    @TearDown
+    public void tearDown() {
+        ((LoggerContext) LogManager.getContext(false)).stop();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = SYNC_SELECTOR)
+    public void perRecordInfoSync() {
+        SensorData data = readings[cursor++ & 1023];
+        info.info("成功发送传感器数据: {}, 响应: {}", data.deviceId(), 200);
+    }
+
+    @Benchmark
+    public void perRecordInfoAsync() {
+        SensorData data = readings[cursor++ & 1023];
+        info.info("成功发送传感器数据: {}, 响应: {}", data.deviceId(), 200);
+    }
+
+    @Benchmark
+    public void sampledDebug() {
+        SensorData data = readings[cursor++ & 1023];
+        if (debug.isDebugEnabled()) {
+            long skipped = sampler.sample();
+            if (skipped >= 0) {
+                debug.debug("成功发送传感器数据: {}, 响应: {} (此前省略 {} 条)", data.deviceId(), 200, skipped);
+            }
+        }
+    }
+
+    @Benchmark
+    public void disabledDebugEager() {
+        SensorData data = readings[cursor++ & 1023];
+        info.debug("发送传感器数据到 {} 个WebSocket客户端: {}, 时间: {}", 1, data.deviceId(), data.getFormattedTimestamp());
+    }
+
+    @Benchmark
+    public void disabledDebugGuarded() {
+        SensorData data = readings[cursor++ & 1023];
+        if (info.isDebugEnabled()) {
+            info.debug("发送传感器数据到 {} 个WebSocket客户端: {}, 时间: {}", 1, data.deviceId(), data.getFormattedTimestamp());
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.benchmarks;
+
+import com.example.monitoring.SensorMetricsService;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SensorMetricsService各指标方法的开销
+ * 其中多数方法每次调用都会按名称查找或注册meter
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(2)
+public class MetricsServiceBenchmark {
+
+    private SensorMetricsService metricsService;
+
+    @Setup
+    public void setUp() {
+        metricsService = new SensorMetricsService(new SimpleMeterRegistry());
+        Fixtures.setField(metricsService, "exceptionThreshold", 10);
+        Fixtures.setField(metricsService, "queueSizeThreshold", 100);
+    }
+
+    @Benchmark
+    public void incrementProcessedMessages() {
+        metricsService.incrementProcessedMessages();
+    }
+
+    @Benchmark
+    public void updateQueueSize() {
+        metricsService.updateQueueSize(42);
+    }
+
+    @Benchmark
+    public void recordSensorValue() {
+        metricsService.recordSensorValue(23.5);
+    }
+
+    @Benchmark
+    public void recordException() {
+        metricsService.recordException("BenchmarkException");
+    }
+
+    @Benchmark
+    public long timerSample() {
+        Timer.Sample sample = metricsService.startTimer();
+        return metricsService.stopTimer(sample, "sensor.benchmark.timer", "stage", "bench");
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.benchmarks;
+
+import com.example.SensorData;
+import com.example.ingest.IngestService;
+import com.example.monitoring.DataCacheEndpoint;
+import com.example.monitoring.ExceptionStatsEndpoint;
+import com.example.monitoring.MessageQueueEndpoint;
+import com.example.monitoring.SensorDataMonitoringAdapter;
+import com.example.monitoring.SensorMetricsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SensorDataMonitoringAdapter.processSensorData的开销
+ * 单线程基线与多线程争用（最近记录的同步块、阻塞队列、指标）对比
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MonitoringAdapterBenchmark {
+
+    private SensorDataMonitoringAdapter adapter;
+    private SensorData[] readings;
+
+    @Setup
+    public void setUp() {
+        SensorMetricsService metricsService = new SensorMetricsService(new SimpleMeterRegistry());
+        Fixtures.setField(metricsService, "exceptionThreshold", 10);
+        Fixtures.setField(metricsService, "queueSizeThreshold", 100);
+        MessageQueueEndpoint queueEndpoint = new MessageQueueEndpoint(metricsService);
+        Fixtures.setField(queueEndpoint, "queueSizeThreshold", 100);
+        adapter = new SensorDataMonitoringAdapter(metricsService, new DataCacheEndpoint(metricsService),
+                queueEndpoint, new ExceptionStatsEndpoint(metricsService, new IngestService()));
+        readings = Fixtures.readings(1024);
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void processSingleThread(Cursor cursor) {
+        adapter.processSensorData(readings[cursor.next++ & 1023]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void processContended4(Cursor cursor) {
+        adapter.processSensorData(readings[cursor.next++ & 1023]);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void processContendedMax(Cursor cursor) {
+        adapter.processSensorData(readings[cursor.next++ & 1023]);
+    }
+}
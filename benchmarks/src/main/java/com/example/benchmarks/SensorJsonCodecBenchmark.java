@@ -0,0 +1,86 @@
+package com.example.benchmarks;
+
+import com.example.SensorData;
+import com.example.payload.PayloadBuffer;
+import com.example.payload.SensorJsonCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 编码100万条读数的总耗时（毫秒）：ObjectMapper与{@link SensorJsonCodec}流式编码对比
+ * - mapperString：writeValueAsString再转UTF-8，推送早期的方式
+ * - mapperBytes：writeValueAsBytes，EncodedReading原来的方式
+ * - streamingBytes：流式编码为独立字节数组（EncodedReading现在的方式）
+ * - streamingBuffer：每1000条流式编码进复用的缓冲区（HTTP批量和文件分支的方式）
+ * 读数循环使用1024条样本；内存分配可加-prof gc观察
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SensorJsonCodecBenchmark {
+
+    private static final int RECORDS = 1_000_000;
+    private static final int BATCH = 1000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private SensorData[] readings;
+    private List<List<SensorData>> batches;
+    private PayloadBuffer buffer;
+
+    @Setup
+    public void setUp() {
+        readings = Fixtures.readings(1024);
+        batches = List.of(Arrays.asList(readings).subList(0, BATCH), Arrays.asList(readings).subList(24, 24 + BATCH));
+        buffer = new PayloadBuffer(256 * 1024);
+    }
+
+    @Benchmark
+    public void mapperString(Blackhole blackhole) throws Exception {
+        for (int i = 0; i < RECORDS; i++) {
+            blackhole.consume(objectMapper.writeValueAsString(readings[i & 1023]).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Benchmark
+    public void mapperBytes(Blackhole blackhole) throws Exception {
+        for (int i = 0; i < RECORDS; i++) {
+            blackhole.consume(objectMapper.writeValueAsBytes(readings[i & 1023]));
+        }
+    }
+
+    @Benchmark
+    public void streamingBytes(Blackhole blackhole) {
+        for (int i = 0; i < RECORDS; i++) {
+            blackhole.consume(SensorJsonCodec.encode(readings[i & 1023]));
+        }
+    }
+
+    @Benchmark
+    public int streamingBuffer() throws Exception {
+        int bytes = 0;
+        for (int i = 0; i < RECORDS / BATCH; i++) {
+            buffer.reset();
+            SensorJsonCodec.encode(batches.get(i & 1), buffer);
+            bytes += buffer.size();
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.loadtest;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 在独立JVM中启动被测应用，使服务端CPU和GC不受客户端干扰
+ * 类路径来自构建时生成的类路径文件，通过@参数文件传给java，避免命令行过长
+ */
+final class AppProcess {
+
+    private final LoadTestConfig config;
+    private final String httpEndpoint;
+    private final int port;
+    private final Path logFile;
+    private Process process;
+
+    AppProcess(LoadTestConfig config, String httpEndpoint, Path logFile) throws IOException {
+        this.config = config;
+        this.httpEndpoint = httpEndpoint;
+        this.port = freePort();
+        this.logFile = logFile;
+    }
+
+    void start() throws IOException {
+        Path classpathFile = Paths.get(config.appClasspathFile);
+        if (!Files.exists(classpathFile)) {
+            throw new IOException("找不到类路径文件 " + classpathFile.toAbsolutePath()
+                    + "，请先执行 mvn -f benchmarks/pom.xml package");
+        }
+        Path argFile = Files.createTempFile("loadtest-app", ".args");
+        argFile.toFile().deleteOnExit();
+        String classpath = Files.readString(classpathFile).trim();
+        Files.writeString(argFile, "-cp \"" + classpath.replace("\\", "\\\\") + "\"");
+
+        Path savepoints = Files.createTempDirectory("loadtest-savepoints");
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-Xmx" + config.appHeap);
+        command.add("-Xms" + config.appHeap);
+        command.add("@" + argFile);
+        command.add(config.mainClass);
+        command.add("--server.port=" + port);
+        command.add("--sensor.http.endpoint=" + httpEndpoint);
+        command.add("--sensor.source.rate=" + config.rate);
+        command.add("--sensor.device.count=" + config.devices);
+        command.add("--sensor.flink.savepoint-dir=" + savepoints.toUri());
+        command.add("--simulator.enabled=false");
+        command.add("--logging.level.root=WARN");
+        command.add("--logging.level.com.example=WARN");
+        command.addAll(config.appArgs);
+
+        Files.createDirectories(logFile.getParent());
+        process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(logFile.toFile())
+                .start();
+    }
+
+    boolean isAlive() {
+        return process != null && process.isAlive();
+    }
+
+    long pid() {
+        return process.pid();
+    }
+
+    int getPort() {
+        return port;
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + port;
+    }
+
+    Path getLogFile() {
+        return logFile;
+    }
+
+    /**
+     * 先请求优雅关闭（排空队列并生成保存点），超时后强制结束
+     */
+    void stop(ServerProbe probe) throws InterruptedException {
+        if (!isAlive()) {
+            return;
+        }
+        probe.requestShutdown();
+        if (!process.waitFor(60, TimeUnit.SECONDS)) {
+            process.destroy();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.loadtest;
+
+import com.example.concurrent.VirtualThreads;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * WebSocket客户端群
+ * 使用JDK HttpClient的异步WebSocket，连接本身不占线程；回调运行在虚拟线程（JDK 21+）或小线程池上
+ * 每条消息按读数时间戳计算端到端延迟（数据源生成 → 客户端收到）
+ */
+final class ClientSwarm {
+
+    // 每个HttpClient一个选择器线程，分摊到多个客户端实例上
+    private static final int CONNECTIONS_PER_HTTP_CLIENT = 500;
+    private static final String TIMESTAMP_FIELD = "\"timestamp\":";
+
+    private final URI uri;
+    private final int clients;
+    private final int connectConcurrency;
+    private final ExecutorService executor = newExecutor();
+    private final List<HttpClient> httpClients = new ArrayList<>();
+    private final List<WebSocket> sockets = new ArrayList<>();
+    private final Recorder latencies = new Recorder(3_600_000L, 3);
+    private final LongAdder received = new LongAdder();
+    private final LongAdder parseErrors = new LongAdder();
+    private final LongAdder connectFailures = new LongAdder();
+    private final LongAdder closedByServer = new LongAdder();
+    private volatile boolean recording;
+
+    ClientSwarm(URI uri, int clients, int connectConcurrency) {
+        this.uri = uri;
+        this.clients = clients;
+        this.connectConcurrency = connectConcurrency;
+    }
+
+    /**
+     * 限制同时进行的握手数量，建立全部连接
+     *
+     * @return 成功建立的连接数
+     */
+    int connect(long timeoutSeconds) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(connectConcurrency);
+        List<CompletableFuture<WebSocket>> futures = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            if (i % CONNECTIONS_PER_HTTP_CLIENT == 0) {
+                httpClients.add(HttpClient.newBuilder().executor(executor).build());
+            }
+            HttpClient client = httpClients.get(httpClients.size() - 1);
+            inFlight.acquire();
+            CompletableFuture<WebSocket> future = client.newWebSocketBuilder()
+                    .connectTimeout(Duration.ofSeconds(30))
+                    .buildAsync(uri, new Listener())
+                    .whenComplete((socket, error) -> {
+                        inFlight.release();
+                        if (error != null) {
+                            connectFailures.increment();
+                        }
+                    });
+            futures.add(future);
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                    .get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            // 失败的连接已计入connectFailures
+        }
+        for (CompletableFuture<WebSocket> future : futures) {
+            if (future.isDone() && !future.isCompletedExceptionally()) {
+                sockets.add(future.join());
+            }
+        }
+        return sockets.size();
+    }
+
+    /**
+     * 开始统计：丢弃预热期间的延迟样本
+     */
+    void startRecording() {
+        latencies.reset();
+        recording = true;
+    }
+
+    Histogram stopRecording() {
+        recording = false;
+        return latencies.getIntervalHistogram();
+    }
+
+    long getReceived() {
+        return received.sum();
+    }
+
+    long getParseErrors() {
+        return parseErrors.sum();
+    }
+
+    long getConnectFailures() {
+        return connectFailures.sum();
+    }
+
+    long getClosedByServer() {
+        return closedByServer.sum();
+    }
+
+    int getConnected() {
+        return sockets.size();
+    }
+
+    void close() {
+        List<CompletableFuture<WebSocket>> closing = new ArrayList<>();
+        for (WebSocket socket : sockets) {
+            closing.add(socket.sendClose(WebSocket.NORMAL_CLOSURE, "load test finished")
+                    .exceptionally(e -> socket));
+        }
+        try {
+            CompletableFuture.allOf(closing.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            sockets.forEach(WebSocket::abort);
+        }
+        executor.shutdownNow();
+    }
+
+    private void onMessage(CharSequence message) {
+        long now = System.currentTimeMillis();
+        received.increment();
+        if (!recording) {
+            return;
+        }
+        long timestamp = parseTimestamp(message);
+        if (timestamp < 0) {
+            parseErrors.increment();
+            return;
+        }
+        latencies.recordValue(Math.max(0, Math.min(now - timestamp, 3_600_000L)));
+    }
+
+    /**
+     * 只取出timestamp字段，避免在客户端做完整的JSON解析
+     */
+    static long parseTimestamp(CharSequence message) {
+        String text = message.toString();
+        int index = text.indexOf(TIMESTAMP_FIELD);
+        if (index < 0) {
+            return -1;
+        }
+        int i = index + TIMESTAMP_FIELD.length();
+        while (i < text.length() && text.charAt(i) == ' ') {
+            i++;
+        }
+        long value = 0;
+        int start = i;
+        for (; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return i > start ? value : -1;
+    }
+
+    /**
+     * 每个连接一个监听器，拼接分片后的文本帧
+     */
+    /**
+     * JDK 21+ 上每任务一个虚拟线程，更低版本回退到固定大小的守护线程池
+     */
+    private static ExecutorService newExecutor() {
+        if (VirtualThreads.available()) {
+            return VirtualThreads.newExecutor("ws-client-");
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2, r -> {
+            Thread thread = new Thread(r, "ws-client-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private final class Listener implements WebSocket.Listener {
+        private StringBuilder partial;
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            webSocket.request(1);
+            if (!last) {
+                if (partial == null) {
+                    partial = new StringBuilder();
+                }
+                partial.append(data);
+                return null;
+            }
+            if (partial != null) {
+                partial.append(data);
+                onMessage(partial);
+                partial = null;
+            } else {
+                onMessage(data);
+            }
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+            closedByServer.increment();
+            return null;
+        }
+    }
+}
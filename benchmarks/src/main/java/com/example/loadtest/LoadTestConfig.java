@@ -0,0 +1,103 @@
+package com.example.loadtest;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 压测参数，命令行格式为 --key=value
+ * 以 --app. 开头的参数原样转发给被测应用（去掉 app. 前缀）
+ */
+final class LoadTestConfig {
+
+    int clients = 2000;
+    int rate = 1000;
+    int devices = 100;
+    int warmupSeconds = 10;
+    int durationSeconds = 60;
+    long stubLatencyMs = 0;
+    double stubErrorRate = 0.0;
+    String appHeap = "1g";
+    String appClasspathFile = "target/app.classpath";
+    String mainClass = "com.example.SensorApplication";
+    Path outputDir = Paths.get("target", "loadtest");
+    int startupTimeoutSeconds = 120;
+    int connectConcurrency = 200;
+    final List<String> appArgs = new ArrayList<>();
+
+    static LoadTestConfig parse(String[] args) {
+        LoadTestConfig config = new LoadTestConfig();
+        for (String arg : args) {
+            if (arg.equals("--help") || arg.equals("-h")) {
+                printUsage();
+                System.exit(0);
+            }
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("无法识别的参数: " + arg);
+            }
+            String key = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (key.startsWith("app.")) {
+                config.appArgs.add("--" + key.substring(4) + "=" + value);
+                continue;
+            }
+            switch (key) {
+                case "clients" -> config.clients = Integer.parseInt(value);
+                case "rate" -> config.rate = Integer.parseInt(value);
+                case "devices" -> config.devices = Integer.parseInt(value);
+                case "warmup" -> config.warmupSeconds = Integer.parseInt(value);
+                case "duration" -> config.durationSeconds = Integer.parseInt(value);
+                case "stub-latency" -> config.stubLatencyMs = Long.parseLong(value);
+                case "stub-error-rate" -> config.stubErrorRate = Double.parseDouble(value);
+                case "app-heap" -> config.appHeap = value;
+                case "app-classpath-file" -> config.appClasspathFile = value;
+                case "main-class" -> config.mainClass = value;
+                case "output" -> config.outputDir = Paths.get(value);
+                case "startup-timeout" -> config.startupTimeoutSeconds = Integer.parseInt(value);
+                case "connect-concurrency" -> config.connectConcurrency = Integer.parseInt(value);
+                default -> throw new IllegalArgumentException("无法识别的参数: " + arg);
+            }
+        }
+        if (config.stubErrorRate < 0 || config.stubErrorRate > 1) {
+            throw new IllegalArgumentException("stub-error-rate必须在0到1之间");
+        }
+        return config;
+    }
+
+    Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("clients", clients);
+        map.put("rate", rate);
+        map.put("devices", devices);
+        map.put("warmupSeconds", warmupSeconds);
+        map.put("durationSeconds", durationSeconds);
+        map.put("stubLatencyMs", stubLatencyMs);
+        map.put("stubErrorRate", stubErrorRate);
+        map.put("appHeap", appHeap);
+        map.put("appArgs", appArgs);
+        return map;
+    }
+
+    static void printUsage() {
+        System.out.println("""
+                端到端压测：启动被测应用和本地HTTP桩服务器，用大量WebSocket客户端接收推送并统计延迟
+
+                用法: java -cp benchmarks/target/benchmarks.jar com.example.loadtest.LoadTestMain [选项]
+
+                  --clients=N              WebSocket客户端数 (默认 2000)
+                  --rate=N                 数据源目标速率，条/秒 (默认 1000)
+                  --devices=N              设备数 (默认 100)
+                  --warmup=S               预热秒数，不计入统计 (默认 10)
+                  --duration=S             统计时长秒数 (默认 60)
+                  --stub-latency=MS        桩服务器每个请求的延迟 (默认 0)
+                  --stub-error-rate=R      桩服务器返回500的比例，0~1 (默认 0)
+                  --app-heap=SIZE          被测应用的-Xmx (默认 1g)
+                  --app-classpath-file=F   被测应用的类路径文件 (默认 target/app.classpath)
+                  --output=DIR             结果目录 (默认 target/loadtest)
+                  --app.<属性>=<值>         转发给被测应用的Spring属性
+                """);
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.loadtest;
+
+import com.example.concurrent.VirtualThreads;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 端到端压测入口
+ * 1. 启动HTTP桩服务器（模拟sensor.http.endpoint，可配置延迟和错误率）
+ * 2. 在独立JVM中启动应用，等待健康检查和Flink作业就绪
+ * 3. 建立WebSocket客户端群，预热后在统计窗口内记录延迟、吞吐和丢弃
+ * 4. 优雅关闭应用，输出报告并写入JSON
+ * 全部在本机回环地址上运行，不需要外部网络
+ */
+public final class LoadTestMain {
+
+    private LoadTestMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.parse(args);
+        System.exit(run(config) != null ? 0 : 1);
+    }
+
+    /**
+     * 执行一次完整压测，报告写入输出目录
+     *
+     * @return 报告内容，压测失败时返回null
+     */
+    static Map<String, Object> run(LoadTestConfig config) throws Exception {
+        String runId = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Files.createDirectories(config.outputDir);
+
+        StubHttpServer stub = new StubHttpServer(config.stubLatencyMs, config.stubErrorRate);
+        stub.start();
+        log("HTTP桩服务器: %s (延迟 %d ms, 错误率 %.3f)", stub.endpoint(), config.stubLatencyMs, config.stubErrorRate);
+
+        AppProcess app = new AppProcess(config, stub.endpoint(), config.outputDir.resolve("app-" + runId + ".log"));
+        ServerProbe probe = new ServerProbe("http://127.0.0.1:" + app.getPort());
+        ClientSwarm swarm = null;
+        Map<String, Object> result = null;
+        try {
+            app.start();
+            log("被测应用已启动: pid=%d, 端口=%d, 日志=%s", app.pid(), app.getPort(), app.getLogFile());
+            awaitReady(app, probe, config.startupTimeoutSeconds);
+
+            swarm = new ClientSwarm(URI.create("ws://127.0.0.1:" + app.getPort() + "/wx-socket"),
+                    config.clients, config.connectConcurrency);
+            long connectStart = System.nanoTime();
+            int connected = swarm.connect(config.startupTimeoutSeconds);
+            log("已建立 %d/%d 个WebSocket连接，用时 %d ms (虚拟线程: %s)", connected, config.clients,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - connectStart), VirtualThreads.available());
+
+            log("预热 %d 秒...", config.warmupSeconds);
+            Thread.sleep(TimeUnit.SECONDS.toMillis(config.warmupSeconds));
+
+            ServerProbe.Snapshot before = probe.snapshot();
+            long stubAcceptedBefore = stub.getAccepted();
+            long stubFailedBefore = stub.getFailed();
+            long receivedBefore = swarm.getReceived();
+            swarm.startRecording();
+            long windowStart = System.nanoTime();
+
+            log("统计 %d 秒...", config.durationSeconds);
+            double cpuSum = 0;
+            double cpuMax = 0;
+            int cpuSamples = 0;
+            long deadline = windowStart + TimeUnit.SECONDS.toNanos(config.durationSeconds);
+            while (System.nanoTime() < deadline && app.isAlive()) {
+                Thread.sleep(1000);
+                double cpu = probe.processCpuUsage();
+                cpuSum += cpu;
+                cpuMax = Math.max(cpuMax, cpu);
+                cpuSamples++;
+            }
+
+            Histogram histogram = swarm.stopRecording();
+            double elapsedSeconds = (System.nanoTime() - windowStart) / 1e9;
+            ServerProbe.Snapshot after = probe.snapshot();
+            long received = swarm.getReceived() - receivedBefore;
+            String jobState = probe.jobState();
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("runId", runId);
+            report.put("config", config.toMap());
+            report.put("javaVersion", System.getProperty("java.version"));
+            report.put("virtualThreads", VirtualThreads.available());
+            report.put("elapsedSeconds", round(elapsedSeconds));
+            report.put("flinkJobState", jobState);
+            report.put("clients", clients(config, swarm));
+            report.put("latencyMs", latency(histogram));
+            report.put("throughput", throughput(before, after, received, elapsedSeconds,
+                    stub.getAccepted() - stubAcceptedBefore, stub.getFailed() - stubFailedBefore));
+            report.put("drops", drops(config, before, after, received, swarm.getConnected(), elapsedSeconds,
+                    stub.getAccepted() - stubAcceptedBefore));
+            report.put("server", server(before, after, cpuSum, cpuMax, cpuSamples, elapsedSeconds));
+
+            Path reportFile = config.outputDir.resolve("loadtest-" + runId + ".json");
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(reportFile.toFile(), report);
+            print(report);
+            log("结果已写入 %s", reportFile);
+            result = report;
+        } catch (Exception e) {
+            log("压测失败: %s (应用日志: %s)", e.getMessage(), app.getLogFile());
+        } finally {
+            if (swarm != null) {
+                swarm.close();
+            }
+            app.stop(probe);
+            stub.stop();
+        }
+        return result;
+    }
+
+    private static void awaitReady(AppProcess app, ServerProbe probe, int timeoutSeconds) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        while (System.nanoTime() < deadline) {
+            if (!app.isAlive()) {
+                throw new IllegalStateException("被测应用启动失败");
+            }
+            if (probe.isHealthy()) {
+                String state = probe.jobState();
+                if ("RUNNING".equals(state) || "DISABLED".equals(state)) {
+                    log("被测应用就绪，Flink作业状态: %s", state);
+                    return;
+                }
+                if ("FAILED".equals(state)) {
+                    throw new IllegalStateException("Flink作业启动失败");
+                }
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException("等待被测应用就绪超时");
+    }
+
+    private static Map<String, Object> clients(LoadTestConfig config, ClientSwarm swarm) {
+        Map<String, Object> clients = new LinkedHashMap<>();
+        clients.put("requested", config.clients);
+        clients.put("connected", swarm.getConnected());
+        clients.put("connectFailures", swarm.getConnectFailures());
+        clients.put("closedByServer", swarm.getClosedByServer());
+        clients.put("parseErrors", swarm.getParseErrors());
+        return clients;
+    }
+
+    private static Map<String, Object> latency(Histogram histogram) {
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("samples", histogram.getTotalCount());
+        latency.put("mean", round(histogram.getMean()));
+        latency.put("p50", histogram.getValueAtPercentile(50));
+        latency.put("p90", histogram.getValueAtPercentile(90));
+        latency.put("p99", histogram.getValueAtPercentile(99));
+        latency.put("p999", histogram.getValueAtPercentile(99.9));
+        latency.put("max", histogram.getMaxValue());
+        return latency;
+    }
+
+    private static Map<String, Object> throughput(ServerProbe.Snapshot before, ServerProbe.Snapshot after,
+                                                  long received, double seconds, long stubAccepted, long stubFailed) {
+        Map<String, Object> throughput = new LinkedHashMap<>();
+        throughput.put("httpAcceptedPerSecond", round(stubAccepted / seconds));
+        throughput.put("httpFailedPerSecond", round(stubFailed / seconds));
+        throughput.put("readingsPerSecond", round((after.bridgeConsumed() - before.bridgeConsumed()) / seconds));
+        throughput.put("serverMessagesPerSecond", round((after.messagesSent() - before.messagesSent()) / seconds));
+        throughput.put("clientMessagesPerSecond", round(received / seconds));
+        return throughput;
+    }
+
+    /**
+     * 丢弃和积压分段统计：
+     * 数据源/HTTP发送未达到目标速率的部分、桥接队列丢弃、桥接队列积压增长、推送后客户端未收到的部分
+     */
+    private static Map<String, Object> drops(LoadTestConfig config, ServerProbe.Snapshot before,
+                                             ServerProbe.Snapshot after, long received, int connected,
+                                             double seconds, long httpAccepted) {
+        long consumed = after.bridgeConsumed() - before.bridgeConsumed();
+        long bridgeDropped = after.bridgeDropped() - before.bridgeDropped();
+        long expectedFromSource = Math.round(config.rate * seconds);
+        Map<String, Object> drops = new LinkedHashMap<>();
+        drops.put("sourceShortfall", Math.max(0, expectedFromSource - httpAccepted));
+        drops.put("bridgeDropped", bridgeDropped);
+        drops.put("bridgeBacklogGrowth", httpAccepted - consumed - bridgeDropped);
+        drops.put("clientShortfall", Math.max(0, consumed * connected - received));
+        return drops;
+    }
+
+    private static Map<String, Object> server(ServerProbe.Snapshot before, ServerProbe.Snapshot after,
+                                              double cpuSum, double cpuMax, int cpuSamples, double seconds) {
+        Map<String, Object> server = new LinkedHashMap<>();
+        int cores = Runtime.getRuntime().availableProcessors();
+        server.put("cores", cores);
+        server.put("cpuUsageAvg", round(cpuSamples > 0 ? cpuSum / cpuSamples : 0));
+        server.put("cpuUsageMax", round(cpuMax));
+        if (!Double.isNaN(after.processCpuSeconds())) {
+            server.put("cpuSeconds", round(after.processCpuSeconds() - before.processCpuSeconds()));
+        }
+        server.put("gcCount", after.gcCount() - before.gcCount());
+        server.put("gcPauseTotalMs", round((after.gcTotalSeconds() - before.gcTotalSeconds()) * 1000));
+        server.put("gcPauseMaxMs", round(after.gcMaxSeconds() * 1000));
+        server.put("gcPauseFraction", round((after.gcTotalSeconds() - before.gcTotalSeconds()) / seconds));
+        server.put("activeConnections", after.activeConnections());
+        // 只统计平台线程，虚拟线程不计入
+        server.put("threadsLive", after.threadsLive());
+        server.put("threadsPeak", after.threadsPeak());
+        server.put("heapUsedMb", round(after.heapUsedBytes() / 1048576.0));
+        server.put("nonHeapUsedMb", round(after.nonHeapUsedBytes() / 1048576.0));
+        return server;
+    }
+
+    @SuppressWarnings("unchecked")
+    static void print(Map<String, Object> report) {
+        System.out.println();
+        System.out.println("==================== 压测结果 ====================");
+        for (Map.Entry<String, Object> entry : report.entrySet()) {
+            if (entry.getValue() instanceof Map<?, ?> section) {
+                System.out.println(entry.getKey() + ":");
+                ((Map<String, Object>) section).forEach((key, value) ->
+                        System.out.printf("  %-26s %s%n", key, value));
+            } else {
+                System.out.printf("%-28s %s%n", entry.getKey(), entry.getValue());
+            }
+        }
+        System.out.println("==================================================");
+    }
+
+    static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    static void log(String format, Object... args) {
+        System.out.printf("[%s] %s%n", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_TIME),
+                String.format(format, args));
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * 通过Actuator和状态接口读取被测应用的运行指标
+ */
+final class ServerProbe {
+
+    private final String baseUrl;
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    ServerProbe(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    /**
+     * 服务端计数的快照
+     */
+    record Snapshot(long bridgeConsumed, long bridgeDropped, long messagesSent, int activeConnections,
+                    long gcCount, double gcTotalSeconds, double gcMaxSeconds, double processCpuSeconds,
+                    long threadsLive, long threadsPeak, long heapUsedBytes, long nonHeapUsedBytes) {
+    }
+
+    JsonNode get(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(10))
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException("GET " + path + " 返回 " + response.statusCode());
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+    boolean isHealthy() {
+        try {
+            return "UP".equals(get("/actuator/health").path("status").asText());
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    String jobState() throws IOException, InterruptedException {
+        return get("/actuator/flink-job").path("state").asText();
+    }
+
+    Snapshot snapshot() throws IOException, InterruptedException {
+        JsonNode status = get("/api/simulator/status");
+        JsonNode bridge = status.path("bridge");
+        JsonNode websocket = status.path("websocket");
+        JsonNode gc = get("/actuator/metrics/jvm.gc.pause");
+        return new Snapshot(
+                bridge.path("consumed").asLong(),
+                bridge.path("dropped").asLong(),
+                websocket.path("messagesSent").asLong(),
+                websocket.path("activeConnections").asInt(),
+                (long) statistic(gc, "COUNT"),
+                statistic(gc, "TOTAL_TIME"),
+                statistic(gc, "MAX"),
+                processCpuSeconds(),
+                (long) statistic(get("/actuator/metrics/jvm.threads.live"), "VALUE"),
+                (long) statistic(get("/actuator/metrics/jvm.threads.peak"), "VALUE"),
+                (long) statistic(get("/actuator/metrics/jvm.memory.used?tag=area:heap"), "VALUE"),
+                (long) statistic(get("/actuator/metrics/jvm.memory.used?tag=area:nonheap"), "VALUE"));
+    }
+
+    /**
+     * 进程CPU使用率（0~1，按全部核心归一化）
+     */
+    double processCpuUsage() throws IOException, InterruptedException {
+        return statistic(get("/actuator/metrics/process.cpu.usage"), "VALUE");
+    }
+
+    private double processCpuSeconds() throws IOException, InterruptedException {
+        try {
+            return statistic(get("/actuator/metrics/process.cpu.time"), "VALUE") / 1e9;
+        } catch (IOException e) {
+            // 旧版Micrometer没有process.cpu.time
+            return Double.NaN;
+        }
+    }
+
+    void requestShutdown() {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/shutdown"))
+                    .timeout(Duration.ofSeconds(10))
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .build();
+            client.send(request, HttpResponse.BodyHandlers.discarding());
+        } catch (IOException e) {
+            // 应用可能已经退出
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static double statistic(JsonNode metric, String name) {
+        for (JsonNode measurement : metric.path("measurements")) {
+            if (name.equals(measurement.path("statistic").asText())) {
+                return measurement.path("value").asDouble();
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.loadtest;
+
+import com.example.concurrent.VirtualThreads;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * sensor.http.endpoint的本地桩服务器
+ * 每个请求按配置延迟后返回204，按错误率返回500
+ */
+final class StubHttpServer {
+
+    static final String PATH = "/sensor/push";
+
+    private final long latencyMs;
+    private final double errorRate;
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private HttpServer server;
+    private ExecutorService executor;
+
+    StubHttpServer(long latencyMs, double errorRate) {
+        this.latencyMs = latencyMs;
+        this.errorRate = errorRate;
+    }
+
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        server.createContext(PATH, exchange -> {
+            try (InputStream body = exchange.getRequestBody()) {
+                body.readAllBytes();
+            }
+            if (latencyMs > 0) {
+                try {
+                    Thread.sleep(latencyMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                failed.increment();
+                exchange.sendResponseHeaders(500, -1);
+            } else {
+                accepted.increment();
+                exchange.sendResponseHeaders(204, -1);
+            }
+            exchange.close();
+        });
+        executor = newExecutor();
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    String endpoint() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + PATH;
+    }
+
+    long getAccepted() {
+        return accepted.sum();
+    }
+
+    long getFailed() {
+        return failed.sum();
+    }
+
+    void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * JDK 21+ 上每任务一个虚拟线程，更低版本回退到固定大小的守护线程池
+     */
+    private static ExecutorService newExecutor() {
+        if (VirtualThreads.available()) {
+            return VirtualThreads.newExecutor("http-stub-");
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2, r -> {
+            Thread thread = new Thread(r, "http-stub-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 服务端线程模式的对比压测：Tomcat平台线程、Tomcat虚拟线程（sensor.threads.virtual）和响应式服务端（reactive配置文件，
+ * WebFlux + Reactor Netty事件循环）
+ * 对每种模式和每个客户端数各执行一次{@link LoadTestMain}压测，汇总服务端线程数、内存（连接密度）和尾延迟
+ * 虚拟线程模式要求用JDK 21+运行（被测应用使用同一个java），更低版本上应用回退到平台线程，结果只作对照
+ *
+ * 除以下参数外，其余参数与LoadTestMain相同：
+ *   --client-counts=N,N   客户端数列表 (默认 1000,10000)
+ *   --modes=M,M           模式列表，platform、virtual、reactive (默认 platform,virtual,reactive)
+ */
+public final class ThreadModeBenchmark {
+
+    // 10k个WebSocket连接超过Tomcat默认的8192个连接上限
+    private static final int MAX_CONNECTIONS = 20_000;
+
+    private static final List<String> MODES = List.of("platform", "virtual", "reactive");
+
+    private ThreadModeBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<Integer> clientCounts = List.of(1_000, 10_000);
+        List<String> modes = MODES;
+        List<String> loadTestArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--client-counts=")) {
+                clientCounts = new ArrayList<>();
+                for (String count : arg.substring("--client-counts=".length()).split(",")) {
+                    clientCounts.add(Integer.parseInt(count.trim()));
+                }
+            } else if (arg.startsWith("--modes=")) {
+                modes = List.of(arg.substring("--modes=".length()).split(","));
+                for (String mode : modes) {
+                    if (!MODES.contains(mode)) {
+                        throw new IllegalArgumentException("未知的模式: " + mode);
+                    }
+                }
+            } else {
+                loadTestArgs.add(arg);
+            }
+        }
+        if (modes.contains("virtual") && Runtime.version().feature() < 21) {
+            LoadTestMain.log("警告: 当前JDK %s 不支持虚拟线程，virtual模式的应用会回退到平台线程",
+                    System.getProperty("java.version"));
+        }
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        LoadTestConfig base = LoadTestConfig.parse(loadTestArgs.toArray(new String[0]));
+        for (int clients : clientCounts) {
+            for (String mode : modes) {
+                List<String> runArgs = new ArrayList<>(loadTestArgs);
+                runArgs.add("--clients=" + clients);
+                runArgs.add("--connect-concurrency=" + Math.max(base.connectConcurrency, clients / 20));
+                runArgs.add("--app.sensor.threads.virtual=" + "virtual".equals(mode));
+                if ("reactive".equals(mode)) {
+                    // Reactor Netty没有连接数上限
+                    runArgs.add("--app.spring.profiles.active=reactive");
+                } else {
+                    runArgs.add("--app.server.tomcat.max-connections=" + MAX_CONNECTIONS);
+                }
+                LoadTestMain.log("==== 模式 %s, 客户端 %d ====", mode, clients);
+                Map<String, Object> report = LoadTestMain.run(LoadTestConfig.parse(runArgs.toArray(new String[0])));
+                rows.add(summarize(mode, clients, report));
+            }
+        }
+
+        String runId = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("javaVersion", System.getProperty("java.version"));
+        result.put("runs", rows);
+        Files.createDirectories(base.outputDir);
+        Path file = base.outputDir.resolve("thread-modes-" + runId + ".json");
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), result);
+        print(rows);
+        LoadTestMain.log("对比结果已写入 %s", file);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> summarize(String mode, int clients, Map<String, Object> report) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("mode", mode);
+        row.put("clients", clients);
+        if (report == null) {
+            row.put("failed", true);
+            return row;
+        }
+        Map<String, Object> connected = (Map<String, Object>) report.get("clients");
+        Map<String, Object> server = (Map<String, Object>) report.get("server");
+        Map<String, Object> latency = (Map<String, Object>) report.get("latencyMs");
+        Map<String, Object> throughput = (Map<String, Object>) report.get("throughput");
+        row.put("connected", connected.get("connected"));
+        row.put("threadsLive", server.get("threadsLive"));
+        row.put("threadsPeak", server.get("threadsPeak"));
+        row.put("heapUsedMb", server.get("heapUsedMb"));
+        row.put("nonHeapUsedMb", server.get("nonHeapUsedMb"));
+        row.put("cpuUsageAvg", server.get("cpuUsageAvg"));
+        row.put("p50", latency.get("p50"));
+        row.put("p99", latency.get("p99"));
+        row.put("p999", latency.get("p999"));
+        row.put("max", latency.get("max"));
+        row.put("clientMessagesPerSecond", throughput.get("clientMessagesPerSecond"));
+        return row;
+    }
+
+    private static void print(List<Map<String, Object>> rows) {
+        System.out.println();
+        System.out.printf("%-9s %7s %9s %8s %8s %9s %10s %7s %7s %7s %7s %12s%n", "mode", "clients", "connected",
+                "threads", "peak", "heapMb", "nonHeapMb", "cpu", "p50", "p99", "p999", "clientMsg/s");
+        for (Map<String, Object> row : rows) {
+            if (row.containsKey("failed")) {
+                System.out.printf("%-9s %7s 压测失败%n", row.get("mode"), row.get("clients"));
+                continue;
+            }
+            System.out.printf("%-9s %7s %9s %8s %8s %9s %10s %7s %7s %7s %7s %12s%n", row.get("mode"),
+                    row.get("clients"), row.get("connected"), row.get("threadsLive"), row.get("threadsPeak"),
+                    row.get("heapUsedMb"), row.get("nonHeapUsedMb"), row.get("cpuUsageAvg"), row.get("p50"),
+                    row.get("p99"), row.get("p999"), row.get("clientMessagesPerSecond"));
+        }
+    }
+}
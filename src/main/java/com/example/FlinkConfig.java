@@ -1,23 +1,43 @@
 package com.example;
 
+import com.example.bridge.SensorBridgeConsumer;
+import com.example.bridge.SensorBridgeSink;
+import com.example.cluster.DevicePartitioner;
+import com.example.kafka.KafkaLog;
+import com.example.kafka.KafkaLogSettings;
+import com.example.payload.HttpPayloadEncoder;
+import com.example.resilience.HttpPushPolicy;
+import com.example.sink.BranchPolicy;
+import com.example.sink.BranchWriter;
+import com.example.sink.FileBranchWriter;
+import com.example.sink.IsolatedSink;
+import com.example.sink.LogBranchWriter;
+import com.example.sink.SinkRoute;
+import com.example.sink.SpillBranchWriter;
+import org.apache.flink.api.common.eventtime.WatermarkStrategy;
+import org.apache.flink.runtime.jobgraph.SavepointConfigOptions;
 import org.apache.flink.streaming.api.datastream.DataStream;
+import org.apache.flink.streaming.api.datastream.DataStreamSink;
+import org.apache.flink.streaming.api.datastream.SingleOutputStreamOperator;
 import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment;
-import org.apache.flink.streaming.api.functions.sink.SinkFunction;
+import org.apache.flink.streaming.api.functions.sink.DiscardingSink;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.scheduling.annotation.EnableAsync;
 
-import javax.annotation.PostConstruct;
-import javax.annotation.PreDestroy;
-import java.util.concurrent.CompletableFuture;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
 
 /**
  * Flink配置类
- * 集成Spring Boot和Flink流处理
+ * 集成Spring Boot和Flink流处理，负责组装作业拓扑
+ * 作业通过桥接Sink把读数交给Spring端，不直接引用任何Spring Bean；作业的提交和停止由FlinkJobManager管理
+ * 各Sink分支（websocket、http、kafka、file、log、spill）并列地从数据源取读数，HTTP延迟不影响WebSocket推送
  */
 @Configuration
 @EnableAsync
@@ -27,6 +47,9 @@ public class FlinkConfig {
     @Value("${sensor.device.count:3}")
     private int numberOfDevices;
     
+    @Value("${sensor.source.rate:0}")
+    private int sourceRate;
+    
     @Value("${sensor.http.endpoint:http://your-api.com/sensor/push}")
     private String httpEndpoint;
     
@@ -36,70 +59,243 @@ public class FlinkConfig {
     @Value("${sensor.http.timeout:5000}")
     private int httpTimeout;
     
+    // 请求体格式（json或binary）、压缩（none、gzip、zstd）和压缩的最小字节数
+    @Value("${sensor.http.payload.format:json}")
+    private String payloadFormat;
+    
+    @Value("${sensor.http.payload.compression:none}")
+    private String payloadCompression;
+    
+    @Value("${sensor.http.payload.min-compress-bytes:512}")
+    private int minCompressBytes;
+    
+    @Value("${sensor.http.breaker.failure-threshold:5}")
+    private int breakerFailureThreshold;
+    
+    @Value("${sensor.http.breaker.open-duration:10000}")
+    private long breakerOpenDurationMs;
+    
+    @Value("${sensor.http.breaker.half-open-probes:1}")
+    private int breakerHalfOpenProbes;
+    
+    @Value("${sensor.http.limit.initial:4}")
+    private int initialConcurrency;
+    
+    @Value("${sensor.http.limit.min:1}")
+    private int minConcurrency;
+    
+    @Value("${sensor.http.limit.max:64}")
+    private int maxConcurrency;
+    
+    @Value("${sensor.http.spill.capacity:100000}")
+    private int spillCapacity;
+    
+    @Value("${sensor.http.spill.replay-rate:200}")
+    private int replayRate;
+    
+    @Value("${sensor.http.spill.dir:}")
+    private String spillDirectory;
+    
+    @Value("${sensor.http.spill.segment-records:65536}")
+    private int spillSegmentRecords;
+    
+    @Value("${sensor.threads.virtual:false}")
+    private boolean virtualThreads;
+    
+    @Value("${sensor.bridge.host:127.0.0.1}")
+    private String bridgeHost;
+    
+    @Value("${sensor.bridge.offer-timeout:50}")
+    private long bridgeOfferTimeoutMs;
+    
+    @Value("${sensor.bridge.flush-interval:5}")
+    private long bridgeFlushIntervalMs;
+    
+    // 读数来源：simulator（模拟设备）或kafka（从sensor.kafka.source-topic读取）
+    @Value("${sensor.source.type:simulator}")
+    private String sourceType;
+    
+    // 启用的Sink分支，每个分支直接从数据源取读数，互不串联
+    @Value("${sensor.sinks:websocket,http}")
+    private String[] sinks;
+    
+    @Value("${sensor.kafka.bootstrap-servers:localhost:9092}")
+    private String kafkaBootstrapServers;
+    
+    @Value("${sensor.kafka.topic:sensor-readings}")
+    private String kafkaTopic;
+    
+    @Value("${sensor.kafka.source-topic:sensor-readings-in}")
+    private String kafkaSourceTopic;
+    
+    @Value("${sensor.kafka.compression:lz4}")
+    private String kafkaCompression;
+    
+    @Value("${sensor.kafka.delivery-guarantee:exactly-once}")
+    private String kafkaDeliveryGuarantee;
+    
+    @Value("${sensor.kafka.transactional-id-prefix:flink-sensor}")
+    private String kafkaTransactionalIdPrefix;
+    
+    @Value("${sensor.kafka.linger-ms:20}")
+    private int kafkaLingerMs;
+    
+    @Value("${sensor.kafka.batch-size:262144}")
+    private int kafkaBatchSize;
+    
+    @Value("${sensor.kafka.transaction-timeout:600000}")
+    private long kafkaTransactionTimeoutMs;
+    
+    @Value("${sensor.kafka.group-id:flink-sensor}")
+    private String kafkaGroupId;
+    
+    @Value("${sensor.kafka.checkpoint-interval:10000}")
+    private long checkpointIntervalMs;
+    
+    // 各分支的路由、并行度、缓冲和失败策略（sensor.sinks.<分支>.*）
     @Autowired
-    private WebSocketSensorService webSocketService;
+    private Environment environment;
     
-    private StreamExecutionEnvironment env;
-    private CompletableFuture<Void> flinkFuture;
+    @Autowired
+    private SensorBridgeConsumer bridgeConsumer;
     
-    /**
-     * 初始化并启动Flink环境
-     */
-    @PostConstruct
-    public void init() {
-        LOG.info("初始化Flink环境...");
-        startFlinkEnvironment();
-    }
+    @Autowired
+    private DevicePartitioner devicePartitioner;
+    
+    public static final String JOB_NAME = "Sensor Data Simulator with WebSocket";
     
     /**
-     * 在应用关闭时停止Flink环境
+     * 创建并组装作业环境
+     * 
+     * @param parallelism 作业并行度，小于1时使用默认值
+     * @param restoreSavepoint 恢复所用的保存点路径，为null时从头启动
      */
-    @PreDestroy
-    public void cleanup() {
-        LOG.info("关闭Flink环境...");
-        if (env != null) {
-            env.close();
+    public StreamExecutionEnvironment createEnvironment(int parallelism, String restoreSavepoint) {
+        LOG.info("组装Flink作业: 并行度={}, 恢复保存点={}", parallelism, restoreSavepoint);
+        org.apache.flink.configuration.Configuration configuration = new org.apache.flink.configuration.Configuration();
+        if (restoreSavepoint != null) {
+            configuration.set(SavepointConfigOptions.SAVEPOINT_PATH, restoreSavepoint);
+        }
+        StreamExecutionEnvironment env = StreamExecutionEnvironment.getExecutionEnvironment(configuration);
+        SensorDataSerializer.configure(env.getConfig());
+        if (parallelism > 0) {
+            env.setParallelism(parallelism);
+        }
+        
+        boolean kafkaSource = "kafka".equalsIgnoreCase(sourceType);
+        List<String> branches = Arrays.stream(sinks).map(String::trim).filter(name -> !name.isEmpty())
+                .map(name -> name.toLowerCase(Locale.ROOT)).distinct().toList();
+        boolean kafkaOutput = branches.contains("kafka");
+        if (kafkaSource && kafkaOutput && kafkaSourceTopic.equals(kafkaTopic)) {
+            throw new IllegalStateException("Kafka来源主题与输出主题相同，读数会循环写回: " + kafkaTopic);
+        }
+        // Kafka事务在检查点完成时提交，Source的消费位点也随检查点保存
+        if ((kafkaOutput && kafkaSettings(kafkaTopic).exactlyOnce()) || kafkaSource) {
+            env.enableCheckpointing(checkpointIntervalMs);
+        }
+        
+        DataStream<SensorData> sensorStream;
+        if (kafkaSource) {
+            sensorStream = env.fromSource(KafkaLog.source(kafkaSettings(kafkaSourceTopic)),
+                            WatermarkStrategy.noWatermarks(), "kafka-source")
+                    .uid("kafka-source");
+        } else {
+            // 配置传感器数据源，多实例部署时只生成归属本节点的设备
+            sensorStream = env.addSource(
+                            new SensorSource(numberOfDevices, sourceRate, devicePartitioner.getOwnershipChannel()))
+                    .name("sensor-source")
+                    .uid("sensor-source");
         }
+        
+        for (String branch : branches) {
+            addBranch(sensorStream, branch);
+        }
+        LOG.info("Sink分支: {}", branches);
+        
+        return env;
     }
     
     /**
-     * 配置并启动Flink流处理环境
+     * 添加一个Sink分支：按路由规则过滤后写出，分支的算子不向上游反压（kafka分支除外），慢或失败的分支不拖慢其他分支
      */
-    private void startFlinkEnvironment() {
-        env = StreamExecutionEnvironment.getExecutionEnvironment();
-        
-        // 配置传感器数据源
-        DataStream<SensorData> sensorStream = env.addSource(new SensorSource(numberOfDevices))
-                .name("sensor-source")
-                .uid("sensor-source");
-        
-        // 配置HTTP发送器
-        DataStream<SensorData> httpSenderStream = sensorStream
-                .map(new HttpSender(httpEndpoint, maxRetries, httpTimeout))
-                .name("http-sender")
-                .uid("http-sender");
-        
-        // 添加WebSocket发送接收器
-        httpSenderStream.addSink(new SinkFunction<SensorData>() {
-            @Override
-            public void invoke(SensorData value, Context context) {
-                webSocketService.sendSensorData(value);
+    private void addBranch(DataStream<SensorData> sensorStream, String branch) {
+        SinkRoute route = SinkRoute.parse(branchProperty(branch, "route", ""));
+        int branchParallelism = Integer.parseInt(branchProperty(branch, "parallelism", "0"));
+        DataStream<SensorData> routed = route.matchesAll() ? sensorStream
+                : sensorStream.filter(route).name(branch + "-route").uid(branch + "-route");
+        DataStreamSink<SensorData> sink;
+        switch (branch) {
+            case "websocket" -> {
+                // 桥接接收器，WebSocket推送在Spring端的消费线程上进行
+                SensorBridgeSink bridgeSink = bridgeConsumer.isSocketMode()
+                        ? SensorBridgeSink.socket(bridgeHost, bridgeConsumer.getPort(), bridgeFlushIntervalMs)
+                        : SensorBridgeSink.local(bridgeConsumer.getChannel(), bridgeOfferTimeoutMs);
+                sink = routed.addSink(bridgeSink).name("websocket-sink").uid("websocket-sink");
             }
-        }).name("websocket-sink").uid("websocket-sink");
-        
-        // 异步执行Flink作业
-        flinkFuture = CompletableFuture.runAsync(() -> {
-            try {
-                LOG.info("启动Flink传感器数据模拟器...");
-                env.execute("Sensor Data Simulator with WebSocket");
-            } catch (Exception e) {
-                LOG.error("Flink作业执行失败: {}", e.getMessage(), e);
+            case "http" -> {
+                // HTTP发送器自带溢出队列和熔断器，不反压时达到并发限制的读数转入溢出队列
+                SingleOutputStreamOperator<SensorData> sender = routed
+                        .map(new HttpSender(httpEndpoint, maxRetries, httpTimeout, httpPushPolicy(
+                                Boolean.parseBoolean(branchProperty(branch, "backpressure", "false"))),
+                                HttpPayloadEncoder.parse(HttpPayloadEncoder.Format.class, payloadFormat),
+                                HttpPayloadEncoder.parse(HttpPayloadEncoder.Compression.class, payloadCompression),
+                                minCompressBytes))
+                        .name("http-sender")
+                        .uid("http-sender");
+                if (branchParallelism > 0) {
+                    sender.setParallelism(branchParallelism);
+                }
+                sink = sender.addSink(new DiscardingSink<>()).name("http-sink").uid("http-sink");
             }
-        });
+            // 写入Kafka，批量、压缩和事务由生产者完成；不丢数据，生产者阻塞时对上游反压
+            case "kafka" -> sink = routed.sinkTo(KafkaLog.sink(kafkaSettings(kafkaTopic)))
+                    .name("kafka-sink").uid("kafka-sink");
+            case "file", "log", "spill" -> sink = routed
+                    .addSink(new IsolatedSink(branch, branchWriter(branch), branchPolicy(branch)))
+                    .name(branch + "-sink").uid(branch + "-sink");
+            default -> throw new IllegalArgumentException("未知的Sink分支: " + branch);
+        }
+        if (branchParallelism > 0) {
+            sink.setParallelism(branchParallelism);
+        }
     }
     
-    @Bean
-    public StreamExecutionEnvironment streamExecutionEnvironment() {
-        return env;
+    private BranchWriter branchWriter(String branch) {
+        return switch (branch) {
+            case "file" -> new FileBranchWriter(branchProperty(branch, "dir", "/tmp/flink-sensor/sinks/file"),
+                    Long.parseLong(branchProperty(branch, "roll-bytes", "67108864")));
+            case "spill" -> new SpillBranchWriter(branchProperty(branch, "dir", "/tmp/flink-sensor/sinks/spill"),
+                    Integer.parseInt(branchProperty(branch, "segment-records", "65536")),
+                    Long.parseLong(branchProperty(branch, "log-capacity", "10000000")));
+            default -> new LogBranchWriter();
+        };
+    }
+    
+    private BranchPolicy branchPolicy(String branch) {
+        BranchPolicy defaults = BranchPolicy.defaults();
+        return new BranchPolicy(
+                Integer.parseInt(branchProperty(branch, "capacity", String.valueOf(defaults.capacity()))),
+                Integer.parseInt(branchProperty(branch, "batch-size", String.valueOf(defaults.batchSize()))),
+                BranchPolicy.parse(BranchPolicy.Overflow.class,
+                        branchProperty(branch, "overflow", defaults.overflow().name())),
+                BranchPolicy.parse(BranchPolicy.Failure.class,
+                        branchProperty(branch, "failure", defaults.failure().name())),
+                Integer.parseInt(branchProperty(branch, "max-retries", String.valueOf(defaults.maxRetries()))),
+                Long.parseLong(branchProperty(branch, "retry-backoff", String.valueOf(defaults.retryBackoffMs()))));
+    }
+    
+    private String branchProperty(String branch, String key, String defaultValue) {
+        return environment.getProperty("sensor.sinks." + branch + "." + key, defaultValue);
+    }
+    
+    private KafkaLogSettings kafkaSettings(String topic) {
+        return new KafkaLogSettings(kafkaBootstrapServers, topic, kafkaCompression, kafkaDeliveryGuarantee,
+                kafkaTransactionalIdPrefix, kafkaLingerMs, kafkaBatchSize, kafkaTransactionTimeoutMs, kafkaGroupId);
+    }
+    
+    private HttpPushPolicy httpPushPolicy(boolean backpressure) {
+        return new HttpPushPolicy(breakerFailureThreshold, breakerOpenDurationMs, breakerHalfOpenProbes,
+                initialConcurrency, minConcurrency, maxConcurrency, spillCapacity, replayRate,
+                spillDirectory, spillSegmentRecords, virtualThreads, backpressure);
     }
-} 
\ No newline at end of file
+}
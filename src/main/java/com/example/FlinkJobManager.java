@@ -0,0 +1,292 @@
+package com.example;
+
+import com.example.bridge.SensorBridgeConsumer;
+import com.example.monitoring.ExceptionStatsEndpoint;
+import org.apache.flink.core.execution.JobClient;
+import org.apache.flink.core.execution.SavepointFormatType;
+import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 内嵌Flink作业的生命周期管理
+ * - Web服务器就绪后才在独立线程上异步提交作业，WebSocket无需等待Mini-Cluster预热
+ * - 通过JobClient跟踪作业状态，作业失败会记录到异常统计
+ * - 关闭时先带保存点停止作业，再在超时时间内排空桥接队列
+ * - 支持暂停、恢复和调整并行度（均基于保存点）
+ */
+@Component
+public class FlinkJobManager implements SmartLifecycle {
+    private static final Logger LOG = LoggerFactory.getLogger(FlinkJobManager.class);
+
+    /**
+     * 作业状态
+     */
+    public enum JobState {
+        DISABLED, STOPPED, STARTING, RUNNING, STOPPING, PAUSED, FAILED
+    }
+
+    @Value("${sensor.flink.embedded:true}")
+    private boolean embedded;
+
+    @Value("${sensor.flink.parallelism:1}")
+    private int defaultParallelism;
+
+    @Value("${sensor.flink.savepoint-dir:file:///tmp/flink-sensor/savepoints}")
+    private String savepointDir;
+
+    @Value("${sensor.flink.drain-timeout:30000}")
+    private long drainTimeoutMs;
+
+    private final FlinkConfig flinkConfig;
+    private final SensorBridgeConsumer bridgeConsumer;
+    private final ExceptionStatsEndpoint exceptionStatsEndpoint;
+
+    // 所有控制操作在同一线程上串行执行；Flink按线程上下文类加载器加载用户代码，需与应用类加载器一致
+    private final ExecutorService control = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "flink-job-control");
+        thread.setDaemon(true);
+        thread.setContextClassLoader(FlinkJobManager.class.getClassLoader());
+        return thread;
+    });
+
+    private volatile JobClient jobClient;
+    private volatile JobState state = JobState.STOPPED;
+    private volatile int parallelism;
+    private volatile String lastSavepoint;
+    private volatile String lastFailure;
+    private volatile long submittedAt;
+    private volatile boolean lifecycleRunning;
+
+    public FlinkJobManager(FlinkConfig flinkConfig, SensorBridgeConsumer bridgeConsumer,
+                           ExceptionStatsEndpoint exceptionStatsEndpoint) {
+        this.flinkConfig = flinkConfig;
+        this.bridgeConsumer = bridgeConsumer;
+        this.exceptionStatsEndpoint = exceptionStatsEndpoint;
+    }
+
+    @Override
+    public void start() {
+        lifecycleRunning = true;
+        if (!embedded) {
+            state = JobState.DISABLED;
+            LOG.info("未启用内嵌Flink作业，等待外部作业通过桥接套接字推送数据 (端口: {})", bridgeConsumer.getPort());
+            return;
+        }
+        parallelism = defaultParallelism;
+        control.submit(() -> submit(null, parallelism));
+    }
+
+    @Override
+    public void stop(Runnable callback) {
+        control.submit(() -> {
+            try {
+                shutdownJob();
+            } finally {
+                lifecycleRunning = false;
+                callback.run();
+            }
+        });
+    }
+
+    @Override
+    public void stop() {
+        stop(() -> {
+        });
+    }
+
+    @Override
+    public boolean isRunning() {
+        return lifecycleRunning;
+    }
+
+    /**
+     * 最后启动、最先停止：Web服务器先就绪，关闭时作业先于Web服务器停止，剩余帧还能发出去
+     */
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * 兜底：生命周期未正常停止时，在销毁阶段带保存点停止作业
+     * 与其他控制操作一样在控制线程上执行，排在可能仍在进行的stop之后，不会并发停止同一个作业
+     */
+    @PreDestroy
+    public void destroy() {
+        await(control.submit(() -> {
+            if (jobClient != null && state == JobState.RUNNING) {
+                shutdownJob();
+            }
+        }));
+        control.shutdownNow();
+    }
+
+    /**
+     * 暂停作业：带保存点停止，恢复时从该保存点继续
+     */
+    public Map<String, Object> pause() {
+        return await(control.submit(() -> {
+            if (state == JobState.RUNNING && stopWithSavepoint()) {
+                state = JobState.PAUSED;
+            }
+        }));
+    }
+
+    /**
+     * 从最近的保存点恢复作业
+     */
+    public Map<String, Object> resume() {
+        return await(control.submit(() -> {
+            if (state == JobState.PAUSED || state == JobState.STOPPED || state == JobState.FAILED) {
+                submit(lastSavepoint, parallelism);
+            }
+        }));
+    }
+
+    /**
+     * 调整并行度：带保存点停止后以新的并行度恢复
+     */
+    public Map<String, Object> rescale(int newParallelism) {
+        if (newParallelism < 1) {
+            throw new IllegalArgumentException("并行度必须大于0");
+        }
+        return await(control.submit(() -> {
+            if (state == JobState.RUNNING && !stopWithSavepoint()) {
+                return;
+            }
+            if (state != JobState.DISABLED) {
+                submit(lastSavepoint, newParallelism);
+            }
+        }));
+    }
+
+    private void submit(String savepoint, int newParallelism) {
+        state = JobState.STARTING;
+        try {
+            StreamExecutionEnvironment env = flinkConfig.createEnvironment(newParallelism, savepoint);
+            LOG.info("提交Flink作业: 并行度={}, 保存点={}", newParallelism, savepoint);
+            JobClient client = env.executeAsync(FlinkConfig.JOB_NAME);
+            jobClient = client;
+            parallelism = newParallelism;
+            submittedAt = System.currentTimeMillis();
+            lastFailure = null;
+            state = JobState.RUNNING;
+            client.getJobExecutionResult().whenComplete((result, error) -> onJobTerminated(client, error));
+            LOG.info("Flink作业已提交: {}", client.getJobID());
+        } catch (Exception e) {
+            onJobTerminated(null, e);
+        }
+    }
+
+    private void onJobTerminated(JobClient client, Throwable error) {
+        if (client != null && client != jobClient) {
+            return;
+        }
+        // 主动停止（包括保存点失败后改为取消）的作业随后报告的结束或取消错误不是作业失败
+        if (state == JobState.STOPPING || state == JobState.PAUSED || state == JobState.STOPPED) {
+            return;
+        }
+        if (error != null) {
+            state = JobState.FAILED;
+            lastFailure = error.getMessage();
+            LOG.error("Flink作业执行失败: {}", error.getMessage(), error);
+            exceptionStatsEndpoint.recordException("FlinkJobFailure", error.getMessage(), null);
+        } else {
+            state = JobState.STOPPED;
+            LOG.info("Flink作业已结束");
+        }
+    }
+
+    /**
+     * 带保存点停止当前作业，超时或失败时取消作业
+     *
+     * @return 是否成功生成保存点
+     */
+    private boolean stopWithSavepoint() {
+        JobClient client = jobClient;
+        if (client == null) {
+            return false;
+        }
+        state = JobState.STOPPING;
+        try {
+            String path = client.stopWithSavepoint(false, savepointDir, SavepointFormatType.CANONICAL)
+                    .get(drainTimeoutMs, TimeUnit.MILLISECONDS);
+            lastSavepoint = path;
+            LOG.info("Flink作业已带保存点停止: {}", path);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            LOG.warn("带保存点停止作业失败，改为取消作业: {}", e.getMessage());
+        }
+        try {
+            client.cancel().get(drainTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            LOG.warn("取消Flink作业失败: {}", e.getMessage());
+        }
+        state = JobState.STOPPED;
+        return false;
+    }
+
+    /**
+     * 停止作业并排空桥接队列中已发布但尚未推送的读数
+     */
+    private void shutdownJob() {
+        if (state == JobState.RUNNING) {
+            LOG.info("关闭Flink作业...");
+            stopWithSavepoint();
+        }
+        if (state != JobState.DISABLED) {
+            state = JobState.STOPPED;
+        }
+        if (!bridgeConsumer.awaitDrained(drainTimeoutMs)) {
+            LOG.warn("桥接队列在 {} ms 内未排空，剩余 {} 条读数", drainTimeoutMs, bridgeConsumer.getStats().get("queued"));
+        }
+    }
+
+    private Map<String, Object> await(Future<?> future) {
+        try {
+            future.get(drainTimeoutMs * 2 + 10_000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            LOG.warn("Flink作业控制操作未完成: {}", e.getMessage());
+        }
+        return getStatus();
+    }
+
+    /**
+     * 获取作业状态
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        JobClient client = jobClient;
+        status.put("state", state.name());
+        status.put("embedded", embedded);
+        status.put("parallelism", parallelism);
+        status.put("jobId", client != null ? client.getJobID().toString() : null);
+        status.put("submittedAt", submittedAt);
+        status.put("lastSavepoint", lastSavepoint);
+        status.put("lastFailure", lastFailure);
+        status.put("drainTimeoutMs", drainTimeoutMs);
+        return status;
+    }
+
+    public JobState getState() {
+        return state;
+    }
+}
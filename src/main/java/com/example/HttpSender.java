@@ -1,106 +1,413 @@
 package com.example;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.concurrent.VirtualThreads;
+import com.example.logging.LogSampler;
+import com.example.payload.HttpPayloadEncoder;
+import com.example.payload.Payload;
+import com.example.resilience.AdaptiveConcurrencyLimit;
+import com.example.resilience.CircuitBreaker;
+import com.example.resilience.HttpPushPolicy;
+import com.example.resilience.HttpPushRegistry;
+import com.example.resilience.HttpPushStats;
+import com.example.spill.SpillQueue;
+import com.example.spill.SpillQueues;
 import org.apache.flink.api.common.functions.RichMapFunction;
+import org.apache.flink.api.common.state.ListState;
+import org.apache.flink.api.common.state.ListStateDescriptor;
 import org.apache.flink.configuration.Configuration;
+import org.apache.flink.runtime.state.FunctionInitializationContext;
+import org.apache.flink.runtime.state.FunctionSnapshotContext;
+import org.apache.flink.streaming.api.checkpoint.CheckpointedFunction;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * HTTP发送器类，负责将传感器数据推送到HTTP端点
+ * - 发送在独立线程上异步进行，读数立即交给下游，WebSocket推送不受端点延迟影响
+ * - 并发数由自适应限制（Vegas）根据端点延迟调整，达到限制时阻塞上游形成反压（或按策略直接转入溢出队列）
+ * - 端点持续失败时熔断器打开，读数转入本地溢出队列而不是让作业失败；恢复后按速率重放
+ * - 溢出队列可以是内存队列（随检查点保存）或磁盘溢出日志（自身持久化，可承受长时间故障）
+ * - 发送中的读数写入检查点，作业重启或调整并行度后继续投递
+ * - 请求体按配置编码为JSON或紧凑二进制并可压缩，直接写入复用的缓冲区发送；端点返回415时降级编码后重发
  */
-public class HttpSender extends RichMapFunction<SensorData, SensorData> {
+public class HttpSender extends RichMapFunction<SensorData, SensorData> implements CheckpointedFunction {
     private static final Logger LOG = LoggerFactory.getLogger(HttpSender.class);
+    // 逐条日志：成功只在DEBUG下采样记录（总数见sensor.http.sent），失败限速记录
+    private static final LogSampler SENT_LOG = LogSampler.sampled("http.sent");
+    private static final LogSampler FAILURE_LOG = LogSampler.rateLimited("http.failure");
+    private static final LogSampler SPILL_DROP_LOG = LogSampler.rateLimited("http.spill.dropped");
     private static final long serialVersionUID = 1L;
-    
+
+    private static final long REPLAY_IDLE_MS = 50;
+    private static final long CLOSE_TIMEOUT_MS = 10_000;
+
+    /**
+     * 单次发送结果
+     */
+    private enum Outcome {
+        SUCCESS, REJECTED, FAILED
+    }
+
     private final String endpoint;
     private final int maxRetries;
     private final int timeout; // 毫秒
-    
+    private final HttpPushPolicy policy;
+    private final HttpPayloadEncoder.Format payloadFormat;
+    private final HttpPayloadEncoder.Compression payloadCompression;
+    private final int minCompressBytes;
+
     private transient CloseableHttpClient httpClient;
-    private transient ObjectMapper objectMapper;
-    
+    private transient HttpPayloadEncoder encoder;
+    private transient CircuitBreaker breaker;
+    private transient AdaptiveConcurrencyLimit limit;
+    private transient SpillQueue spill;
+    private transient HttpPushStats stats;
+    private transient ExecutorService senders;
+    private transient Thread replayer;
+    private transient volatile boolean running;
+
+    // 已提交但尚未完成的读数，检查点时一并保存
+    private transient Map<Long, SensorData> inFlight;
+    private transient AtomicLong sequence;
+    // 重放线程从溢出队列取出读数并登记为发送中、与检查点读取溢出队列和发送中的读数，两者在这把锁内互斥
+    private transient Object handover;
+
+    private transient ListState<SensorData> spillState;
+    private transient List<SensorData> restored;
+
     public HttpSender(String endpoint, int maxRetries, int timeout) {
+        this(endpoint, maxRetries, timeout, HttpPushPolicy.defaults());
+    }
+
+    public HttpSender(String endpoint, int maxRetries, int timeout, HttpPushPolicy policy) {
+        this(endpoint, maxRetries, timeout, policy, HttpPayloadEncoder.Format.JSON,
+                HttpPayloadEncoder.Compression.NONE, 0);
+    }
+
+    /**
+     * @param payloadFormat 请求体格式
+     * @param payloadCompression 请求体压缩
+     * @param minCompressBytes 小于该字节数的请求体不压缩
+     */
+    public HttpSender(String endpoint, int maxRetries, int timeout, HttpPushPolicy policy,
+                      HttpPayloadEncoder.Format payloadFormat, HttpPayloadEncoder.Compression payloadCompression,
+                      int minCompressBytes) {
         this.endpoint = endpoint;
-        this.maxRetries = maxRetries;
+        this.maxRetries = Math.max(1, maxRetries);
         this.timeout = timeout;
+        this.policy = policy;
+        this.payloadFormat = payloadFormat;
+        this.payloadCompression = payloadCompression;
+        this.minCompressBytes = minCompressBytes;
     }
-    
+
     @Override
-    public void open(Configuration parameters) {
-        // 配置HTTP客户端，设置连接超时和请求超时
+    public void initializeState(FunctionInitializationContext context) throws Exception {
+        spillState = context.getOperatorStateStore()
+                .getListState(new ListStateDescriptor<>("http-spill", SensorDataSerializer.INSTANCE));
+        restored = new ArrayList<>();
+        if (context.isRestored()) {
+            for (SensorData data : spillState.get()) {
+                restored.add(data);
+            }
+        }
+    }
+
+    @Override
+    public void snapshotState(FunctionSnapshotContext context) throws Exception {
+        List<SensorData> pending;
+        synchronized (handover) {
+            pending = new ArrayList<>(spill.checkpointContents());
+            pending.addAll(inFlight.values());
+        }
+        spillState.update(pending);
+    }
+
+    @Override
+    public void open(Configuration parameters) throws IOException {
+        // 配置HTTP客户端，设置连接超时和请求超时；连接池大小与并发上限一致
         RequestConfig requestConfig = RequestConfig.custom()
                 .setConnectTimeout(timeout)
                 .setSocketTimeout(timeout)
+                .setConnectionRequestTimeout(timeout)
                 .build();
-                
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(policy.maxLimit());
+        connectionManager.setDefaultMaxPerRoute(policy.maxLimit());
+
         httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
                 .setDefaultRequestConfig(requestConfig)
                 .build();
-                
-        objectMapper = new ObjectMapper();
+
+        encoder = new HttpPayloadEncoder(payloadFormat, payloadCompression, minCompressBytes, policy.maxLimit());
+
+        int subtask = getRuntimeContext().getIndexOfThisSubtask();
+        breaker = new CircuitBreaker("http-sender-" + subtask, policy.failureThreshold(),
+                policy.openDurationMs(), policy.halfOpenProbes());
+        limit = new AdaptiveConcurrencyLimit(policy.initialLimit(), policy.minLimit(), policy.maxLimit());
+        spill = SpillQueues.forSubtask(policy.spillDirectory(), subtask,
+                getRuntimeContext().getNumberOfParallelSubtasks(), policy.spillSegmentRecords(), policy.spillCapacity());
+        stats = new HttpPushStats(breaker, limit, spill);
+        inFlight = new ConcurrentHashMap<>();
+        sequence = new AtomicLong();
+        handover = new Object();
+        if (restored != null) {
+            restored.forEach(spill::offer);
+            if (!restored.isEmpty()) {
+                LOG.info("从检查点恢复 {} 条待重放的读数", restored.size());
+            }
+            restored = null;
+        }
+
+        getRuntimeContext().getMetricGroup().gauge("breakerState", () -> breaker.getState().code());
+        getRuntimeContext().getMetricGroup().gauge("concurrencyLimit", limit::getLimit);
+        getRuntimeContext().getMetricGroup().gauge("spillSize", spill::size);
+        HttpPushRegistry.register(stats);
+
+        running = true;
+        if (policy.virtualThreads() && VirtualThreads.available()) {
+            // 每个请求一个虚拟线程，阻塞在网络I/O上时不占用平台线程
+            senders = VirtualThreads.newExecutor("http-sender-" + subtask + "-");
+            LOG.info("HTTP推送使用虚拟线程 (子任务: {})", subtask);
+        } else {
+            AtomicInteger threadCounter = new AtomicInteger();
+            senders = Executors.newFixedThreadPool(policy.maxLimit(), r -> {
+                Thread thread = new Thread(r, "http-sender-" + subtask + "-" + threadCounter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        replayer = new Thread(this::replayLoop, "http-sender-replay-" + subtask);
+        replayer.setDaemon(true);
+        replayer.start();
     }
-    
+
     @Override
     public SensorData map(SensorData sensorData) throws Exception {
-        int attempts = 0;
-        boolean success = false;
-        Exception lastException = null;
-        
-        // 实现重试逻辑
-        while (attempts < maxRetries && !success) {
-            attempts++;
+        if (!breaker.tryAcquire()) {
+            spill(sensorData);
+            return sensorData;
+        }
+        // 达到并发限制时等待，阻塞期间Flink对上游施加反压；不允许反压时直接转入溢出队列
+        if (!limit.acquire(policy.backpressure() ? timeout : 0)) {
+            breaker.release();
+            spill(sensorData);
+            return sensorData;
+        }
+        submit(sensorData);
+        return sensorData; // 返回原始数据，允许下游处理
+    }
+
+    /**
+     * 重放循环：熔断器允许时从溢出队列按速率取出读数重新发送
+     * 半开状态下重放的读数同时充当探测请求。读数出队时即登记为发送中再等待并发许可，
+     * 等待期间的检查点仍能保存它（磁盘溢出日志出队时已推进读游标）
+     */
+    private void replayLoop() {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, policy.replayRatePerSecond());
+        while (running) {
             try {
-                sendData(sensorData);
-                success = true;
-            } catch (Exception e) {
-                lastException = e;
-                LOG.warn("发送失败，尝试 {}/{}，错误: {}", attempts, maxRetries, e.getMessage());
-                
-                if (attempts < maxRetries) {
-                    // 指数退避策略，每次重试等待时间增加
-                    Thread.sleep(1000 * attempts);
+                if (spill.size() == 0 || !breaker.tryAcquire()) {
+                    Thread.sleep(REPLAY_IDLE_MS);
+                    continue;
+                }
+                long id = sequence.incrementAndGet();
+                SensorData data;
+                synchronized (handover) {
+                    data = spill.poll();
+                    if (data != null) {
+                        inFlight.put(id, data);
+                    }
                 }
+                if (data == null) {
+                    breaker.release();
+                    continue;
+                }
+                if (!limit.acquire(timeout)) {
+                    breaker.release();
+                    synchronized (handover) {
+                        spill.pushBack(data);
+                        inFlight.remove(id);
+                    }
+                    continue;
+                }
+                dispatch(id, data, true);
+                LockSupport.parkNanos(intervalNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
             }
         }
-        
-        if (!success && lastException != null) {
-            LOG.error("达到最大重试次数，数据发送失败: {}", sensorData);
-            throw new IOException("发送传感器数据失败，已重试 " + maxRetries + " 次", lastException);
+    }
+
+    /**
+     * 在发送线程上投递，调用前已获得熔断器和并发许可
+     */
+    private void submit(SensorData sensorData) {
+        long id = sequence.incrementAndGet();
+        inFlight.put(id, sensorData);
+        dispatch(id, sensorData, false);
+    }
+
+    /**
+     * 投递已登记为发送中的读数
+     */
+    private void dispatch(long id, SensorData sensorData, boolean replay) {
+        try {
+            senders.execute(() -> {
+                try {
+                    deliver(sensorData, replay);
+                } finally {
+                    inFlight.remove(id);
+                }
+            });
+        } catch (RuntimeException e) {
+            // 关闭过程中提交被拒绝；先放回溢出队列再移出发送中，检查点任何时候都能看到它
+            limit.onDropped();
+            breaker.release();
+            spill(sensorData);
+            inFlight.remove(id);
         }
-        
-        return sensorData; // 返回原始数据，允许下游处理
     }
-    
-    private void sendData(SensorData sensorData) throws IOException {
+
+    /**
+     * 最多尝试maxRetries次，熔断器打开后不再立即重试；仍失败的读数转入溢出队列等待重放
+     */
+    private void deliver(SensorData sensorData, boolean replay) {
+        for (int attempt = 1; attempt <= maxRetries; attempt++) {
+            long start = System.nanoTime();
+            Outcome outcome = sendData(sensorData);
+            if (outcome != Outcome.FAILED) {
+                limit.onSuccess(System.nanoTime() - start);
+                breaker.onSuccess();
+                if (outcome == Outcome.SUCCESS) {
+                    stats.recordSent();
+                    if (replay) {
+                        stats.recordReplayed();
+                    }
+                } else {
+                    stats.recordRejected();
+                }
+                return;
+            }
+            stats.recordFailed();
+            breaker.onFailure();
+            if (!breaker.isClosed()) {
+                break;
+            }
+        }
+        limit.onDropped();
+        spill(sensorData);
+    }
+
+    private Outcome sendData(SensorData sensorData) {
         HttpPost httpPost = new HttpPost(endpoint);
-        httpPost.setHeader("Content-Type", "application/json");
-        
-        String jsonData = objectMapper.writeValueAsString(sensorData);
-        httpPost.setEntity(new StringEntity(jsonData));
-        
-        try (CloseableHttpResponse response = httpClient.execute(httpPost)) {
-            int statusCode = response.getStatusLine().getStatusCode();
-            if (statusCode >= 200 && statusCode < 300) {
-                LOG.info("成功发送传感器数据: {}, 响应: {}", sensorData.deviceId(), statusCode);
-            } else {
-                throw new IOException("HTTP 错误: " + statusCode);
+
+        try (Payload payload = encoder.encode(sensorData)) {
+            httpPost.setEntity(payload.entity());
+
+            try (CloseableHttpResponse response = httpClient.execute(httpPost)) {
+                int statusCode = response.getStatusLine().getStatusCode();
+                EntityUtils.consumeQuietly(response.getEntity());
+                if (statusCode >= 200 && statusCode < 300) {
+                    stats.recordSentBytes(payload.wireBytes());
+                    if (LOG.isDebugEnabled()) {
+                        long skipped = SENT_LOG.sample();
+                        if (skipped >= 0) {
+                            LOG.debug("成功发送传感器数据: {}, 响应: {} (此前省略 {} 条)", sensorData.deviceId(), statusCode, skipped);
+                        }
+                    }
+                    return Outcome.SUCCESS;
+                }
+                if (statusCode == 415 && encoder.downgrade()) {
+                    // 端点不接受当前的请求体编码，降级后重发，不计为失败
+                    LOG.warn("端点不接受 {} (Content-Encoding: {})，改用 {} / {}", payload.contentType(),
+                            payload.contentEncoding(), encoder.getFormat(), encoder.getCompression());
+                    return sendData(sensorData);
+                }
+                if (statusCode >= 400 && statusCode < 500 && statusCode != 429) {
+                    // 端点正常但拒绝该读数，重试也不会成功
+                    logFailure("端点拒绝传感器数据: {}, 响应: {} (此前省略 {} 条)", sensorData.deviceId(), statusCode);
+                    return Outcome.REJECTED;
+                }
+                logFailure("发送失败，设备: {}，HTTP 错误: {} (此前省略 {} 条)", sensorData.deviceId(), statusCode);
+                return Outcome.FAILED;
+            }
+        } catch (IOException e) {
+            logFailure("发送失败，设备: {}，错误: {} (此前省略 {} 条)", sensorData.deviceId(), e.getMessage());
+            return Outcome.FAILED;
+        }
+    }
+
+    /**
+     * 端点故障时每条读数都会失败，限速记录，失败总数见sensor.http.failures
+     */
+    private static void logFailure(String message, String deviceId, Object detail) {
+        if (LOG.isWarnEnabled()) {
+            long skipped = FAILURE_LOG.sample();
+            if (skipped >= 0) {
+                LOG.warn(message, deviceId, detail, skipped);
+            }
+        }
+    }
+
+    private void spill(SensorData sensorData) {
+        stats.recordSpilled();
+        if (!spill.offer(sensorData) && LOG.isWarnEnabled()) {
+            long skipped = SPILL_DROP_LOG.sample();
+            if (skipped >= 0) {
+                LOG.warn("溢出队列已满或读数无法写入，丢弃读数 (容量: {}，此前省略 {} 条)", policy.spillCapacity(), skipped);
             }
         }
     }
-    
+
     @Override
     public void close() throws Exception {
+        running = false;
+        if (replayer != null) {
+            replayer.interrupt();
+            replayer.join(CLOSE_TIMEOUT_MS);
+        }
+        if (senders != null) {
+            senders.shutdown();
+            if (!senders.awaitTermination(CLOSE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                senders.shutdownNow();
+            }
+        }
+        if (stats != null) {
+            HttpPushRegistry.unregister(stats);
+        }
         if (httpClient != null) {
             httpClient.close();
         }
+        if (encoder != null) {
+            encoder.close();
+        }
+        if (spill != null) {
+            if (spill.size() > 0) {
+                LOG.info("关闭时溢出队列中还有 {} 条读数", spill.size());
+            }
+            spill.close();
+        }
     }
-} 
\ No newline at end of file
+}
@@ -1,7 +1,10 @@
 package com.example;
 
-import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import org.apache.flink.api.common.typeinfo.TypeInfo;
 
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
@@ -11,27 +14,33 @@ import java.util.Objects;
 
 /**
  * 传感器数据模型类（使用Java Record）
- * 包含设备ID、时间戳和数值
+ * 包含设备ID、时间戳、数值和传感器类型，是数据源、Flink作业、监控和WebSocket推送共用的唯一读数模型
+ * 类型与单位以{@link SensorType}字典编码保存
  */
+@TypeInfo(SensorDataTypeInfo.Factory.class)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonPropertyOrder({"deviceId", "value", "unit", "type", "timestamp"})
 public record SensorData(
         @JsonProperty("deviceId")
         @NotBlank(message = "设备ID不能为空")
         String deviceId,
 
         @JsonProperty("timestamp")
-        @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSXXX", timezone = "UTC")
         @Min(value = 0, message = "时间戳必须是正数")
         long timestamp,
 
         @JsonProperty("value")
         @Min(value = 0, message = "数值必须是正数")
-        double value
+        double value,
+
+        @JsonProperty("type")
+        SensorType type
 ) implements Serializable {
 
     /**
      * 显式的序列化版本UID
      */
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
 
     /**
      * Record的全参构造函数和toString()方法已由Java自动生成
@@ -42,18 +51,44 @@ public record SensorData(
         if (timestamp < 0) {
             throw new IllegalArgumentException("时间戳必须是正数");
         }
+        if (type == null) {
+            type = SensorType.GENERIC;
+        }
+    }
+
+    /**
+     * 兼容旧调用方式，类型未知时使用GENERIC
+     */
+    public SensorData(String deviceId, long timestamp, double value) {
+        this(deviceId, timestamp, value, SensorType.GENERIC);
     }
 
     /**
      * 创建一个带有当前时间戳的SensorData实例
      */
     public static SensorData now(String deviceId, double value) {
-        return new SensorData(deviceId, System.currentTimeMillis(), value);
+        return new SensorData(deviceId, System.currentTimeMillis(), value, SensorType.GENERIC);
+    }
+
+    /**
+     * 创建一个带有当前时间戳和类型的SensorData实例
+     */
+    public static SensorData now(String deviceId, double value, SensorType type) {
+        return new SensorData(deviceId, System.currentTimeMillis(), value, type);
+    }
+
+    /**
+     * 单位由类型字典决定
+     */
+    @JsonProperty("unit")
+    public String unit() {
+        return type.unit();
     }
 
     /**
      * 获取格式化的ISO-8601时间字符串
      */
+    @JsonIgnore
     public String getFormattedTimestamp() {
         return Instant.ofEpochMilli(timestamp).toString();
     }
@@ -67,6 +102,7 @@ public record SensorData(
                 "deviceId='" + deviceId + '\'' +
                 ", timestamp=" + timestamp + " (" + getFormattedTimestamp() + ")" +
                 ", value=" + value +
+                ", type=" + type.label() +
                 '}';
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,84 @@
+package com.example;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.typeinfo.TypeInfoFactory;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+
+import java.lang.reflect.Type;
+import java.util.Map;
+
+/**
+ * SensorData的Flink类型信息
+ * 通过{@link SensorData}上的@TypeInfo注解自动生效，所有算子之间都使用{@link SensorDataSerializer}
+ */
+public class SensorDataTypeInfo extends TypeInformation<SensorData> {
+    private static final long serialVersionUID = 1L;
+
+    public static final SensorDataTypeInfo INSTANCE = new SensorDataTypeInfo();
+
+    @Override
+    public boolean isBasicType() {
+        return false;
+    }
+
+    @Override
+    public boolean isTupleType() {
+        return false;
+    }
+
+    @Override
+    public int getArity() {
+        return 1;
+    }
+
+    @Override
+    public int getTotalFields() {
+        return 1;
+    }
+
+    @Override
+    public Class<SensorData> getTypeClass() {
+        return SensorData.class;
+    }
+
+    @Override
+    public boolean isKeyType() {
+        return false;
+    }
+
+    @Override
+    public TypeSerializer<SensorData> createSerializer(ExecutionConfig config) {
+        return SensorDataSerializer.INSTANCE;
+    }
+
+    @Override
+    public String toString() {
+        return "SensorData";
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof SensorDataTypeInfo;
+    }
+
+    @Override
+    public int hashCode() {
+        return SensorData.class.hashCode();
+    }
+
+    @Override
+    public boolean canEqual(Object obj) {
+        return obj instanceof SensorDataTypeInfo;
+    }
+
+    /**
+     * 供@TypeInfo注解使用的工厂
+     */
+    public static class Factory extends TypeInfoFactory<SensorData> {
+        @Override
+        public TypeInformation<SensorData> createTypeInfo(Type type, Map<String, TypeInformation<?>> genericParameters) {
+            return INSTANCE;
+        }
+    }
+}
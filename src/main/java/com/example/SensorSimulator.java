@@ -1,5 +1,6 @@
 package com.example;
 
+import com.example.bridge.SensorBridgeSink;
 import org.apache.flink.streaming.api.datastream.DataStream;
 import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment;
 import org.apache.flink.streaming.api.functions.sink.PrintSinkFunction;
@@ -9,6 +10,7 @@ import org.slf4j.LoggerFactory;
 /**
  * 传感器模拟器主应用程序
  * 生成传感器数据并发送到HTTP端点
+ * 可独立提交到Flink集群运行，指定桥接地址后把读数推送给Spring节点的桥接套接字
  */
 public class SensorSimulator {
     private static final Logger LOG = LoggerFactory.getLogger(SensorSimulator.class);
@@ -19,13 +21,17 @@ public class SensorSimulator {
     private static final int HTTP_TIMEOUT = 5000; // HTTP超时时间（毫秒）
     private static final String HTTP_ENDPOINT = "http://your-api.com/sensor/push"; // HTTP端点URL
     
+    private static final long BRIDGE_FLUSH_INTERVAL = 5; // 桥接发送缓冲刷新间隔（毫秒）
+    
     public static void main(String[] args) throws Exception {
-        // 解析命令行参数，如果有的话
+        // 解析命令行参数，如果有的话: [HTTP端点] [桥接地址 host:port]
         String endpoint = args.length > 0 ? args[0] : HTTP_ENDPOINT;
+        String bridgeAddress = args.length > 1 ? args[1] : null;
         LOG.info("使用HTTP端点: {}", endpoint);
         
         // 创建Flink流处理环境
         final StreamExecutionEnvironment env = StreamExecutionEnvironment.getExecutionEnvironment();
+        SensorDataSerializer.configure(env.getConfig());
         
         // 添加传感器数据源
         DataStream<SensorData> sensorStream = env.addSource(new SensorSource(NUMBER_OF_DEVICES))
@@ -38,10 +44,21 @@ public class SensorSimulator {
                 .name("http-sender")
                 .uid("http-sender");
         
-        // 添加一个打印接收器，用于调试
-        httpSenderStream.addSink(new PrintSinkFunction<>())
-                .name("print-sink")
-                .uid("print-sink");
+        if (bridgeAddress != null) {
+            // 推送到Spring节点的桥接套接字
+            int separator = bridgeAddress.lastIndexOf(':');
+            String host = bridgeAddress.substring(0, separator);
+            int port = Integer.parseInt(bridgeAddress.substring(separator + 1));
+            LOG.info("使用桥接地址: {}:{}", host, port);
+            httpSenderStream.addSink(SensorBridgeSink.socket(host, port, BRIDGE_FLUSH_INTERVAL))
+                    .name("websocket-sink")
+                    .uid("websocket-sink");
+        } else {
+            // 添加一个打印接收器，用于调试
+            httpSenderStream.addSink(new PrintSinkFunction<>())
+                    .name("print-sink")
+                    .uid("print-sink");
+        }
         
         LOG.info("开始执行传感器模拟器...");
         env.execute("Sensor Data Simulator");
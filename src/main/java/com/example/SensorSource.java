@@ -1,25 +1,54 @@
 package com.example;
 
+import com.example.cluster.DeviceOwnership;
+import com.example.logging.LogSampler;
 import org.apache.flink.streaming.api.functions.source.RichSourceFunction;
 import org.apache.flink.configuration.Configuration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 传感器数据源，生成模拟传感器数据
+ * 默认每秒为每个设备生成一条数据；指定目标速率时按速率在设备间轮流生成（用于压测）
+ * 多实例部署时只生成哈希环上归属本节点的设备（{@link DeviceOwnership}），目标速率为每个节点的速率
  */
 public class SensorSource extends RichSourceFunction<SensorData> {
     private static final Logger LOG = LoggerFactory.getLogger(SensorSource.class);
+    private static final LogSampler EMIT_LOG = LogSampler.sampled("source.emit");
     private static final long serialVersionUID = 1L;
     
+    // 落后超过这么多时间的配额直接放弃，避免下游恢复后突发补发
+    private static final long MAX_BACKLOG_NANOS = TimeUnit.SECONDS.toNanos(1);
+    
     private final int numberOfDevices;
+    private final int ratePerSecond;
+    private final String ownershipChannel;
     private volatile boolean isRunning = true;
     private transient Random random;
+    // 最近一次查到的归属快照及据此计算的设备归属，快照替换后重新计算
+    private transient DeviceOwnership ownership;
+    private transient boolean[] owned;
     
     public SensorSource(int numberOfDevices) {
+        this(numberOfDevices, 0);
+    }
+    
+    public SensorSource(int numberOfDevices, int ratePerSecond) {
+        this(numberOfDevices, ratePerSecond, null);
+    }
+    
+    /**
+     * @param numberOfDevices 设备数量
+     * @param ratePerSecond 所有设备合计每秒生成的读数，小于等于0时每秒为每个设备生成一条
+     * @param ownershipChannel 设备归属的登记名称，为null时生成全部设备
+     */
+    public SensorSource(int numberOfDevices, int ratePerSecond, String ownershipChannel) {
         this.numberOfDevices = numberOfDevices;
+        this.ratePerSecond = ratePerSecond;
+        this.ownershipChannel = ownershipChannel;
     }
     
     @Override
@@ -29,20 +58,16 @@ public class SensorSource extends RichSourceFunction<SensorData> {
     
     @Override
     public void run(SourceContext<SensorData> ctx) throws Exception {
+        if (ratePerSecond > 0) {
+            runAtRate(ctx);
+            return;
+        }
         while (isRunning) {
             // 为每个设备生成一条数据
             for (int i = 1; i <= numberOfDevices; i++) {
-                String deviceId = "device_" + i;
-                long timestamp = System.currentTimeMillis();
-                // 生成一个正态分布的值，均值为20，标准差为5
-                // 确保值始终为正数
-                double value = Math.max(0.1, 20 + random.nextGaussian() * 5);
-                
-                // 使用新的Record构造方式创建SensorData
-                SensorData data = new SensorData(deviceId, timestamp, value);
-                ctx.collect(data);
-                
-                LOG.debug("生成传感器数据: {}", data);
+                if (owns(i)) {
+                    emit(ctx, i);
+                }
             }
             
             // 每秒生成一次数据
@@ -50,8 +75,85 @@ public class SensorSource extends RichSourceFunction<SensorData> {
         }
     }
     
+    /**
+     * 按目标速率生成：根据已用时间计算应生成的条数，补齐后休眠1毫秒
+     */
+    private void runAtRate(SourceContext<SensorData> ctx) throws InterruptedException {
+        long start = System.nanoTime();
+        long emitted = 0;
+        int device = 0;
+        while (isRunning) {
+            long elapsed = System.nanoTime() - start;
+            long due = elapsed * ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+            long backlog = due - emitted;
+            if (backlog > ratePerSecond * MAX_BACKLOG_NANOS / TimeUnit.SECONDS.toNanos(1)) {
+                LOG.debug("数据源落后 {} 条，放弃积压的配额", backlog);
+                emitted = due;
+                continue;
+            }
+            for (; emitted < due && isRunning; emitted++) {
+                // 跳过不归属本节点的设备，一个也不归属时放弃本轮配额
+                int tries = 0;
+                while (!owns(device + 1) && tries++ < numberOfDevices) {
+                    device = (device + 1) % numberOfDevices;
+                }
+                if (tries > numberOfDevices) {
+                    emitted = due;
+                    break;
+                }
+                emit(ctx, device + 1);
+                device = (device + 1) % numberOfDevices;
+            }
+            Thread.sleep(1);
+        }
+    }
+    
+    /**
+     * 设备是否归属本节点，只在归属快照替换后重新计算
+     */
+    private boolean owns(int deviceIndex) {
+        DeviceOwnership current = DeviceOwnership.lookup(ownershipChannel);
+        if (current == null) {
+            return true;
+        }
+        if (current != ownership) {
+            boolean[] next = new boolean[numberOfDevices];
+            for (int i = 0; i < numberOfDevices; i++) {
+                next[i] = current.owns(deviceId(i + 1));
+            }
+            owned = next;
+            ownership = current;
+        }
+        return owned[deviceIndex - 1];
+    }
+    
+    private static String deviceId(int deviceIndex) {
+        return "device_" + deviceIndex;
+    }
+    
+    private void emit(SourceContext<SensorData> ctx, int deviceIndex) {
+        String deviceId = deviceId(deviceIndex);
+        long timestamp = System.currentTimeMillis();
+        // 生成一个正态分布的值，均值为20，标准差为5
+        // 确保值始终为正数
+        double value = Math.max(0.1, 20 + random.nextGaussian() * 5);
+        
+        // 使用新的Record构造方式创建SensorData，数据源模拟的是温度读数
+        SensorData data = new SensorData(deviceId, timestamp, value, SensorType.TEMPERATURE);
+        synchronized (ctx.getCheckpointLock()) {
+            ctx.collect(data);
+        }
+        
+        if (LOG.isDebugEnabled()) {
+            long skipped = EMIT_LOG.sample();
+            if (skipped >= 0) {
+                LOG.debug("生成传感器数据: {} (此前省略 {} 条)", data, skipped);
+            }
+        }
+    }
+    
     @Override
     public void cancel() {
         isRunning = false;
     }
-} 
\ No newline at end of file
+}
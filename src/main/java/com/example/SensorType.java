@@ -0,0 +1,85 @@
+package com.example;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * 传感器类型字典
+ * 类型和单位以固定编码驻留，读数中只保存枚举引用，不再逐条携带字符串
+ */
+public enum SensorType {
+    GENERIC((byte) 0, "generic", ""),
+    TEMPERATURE((byte) 1, "temperature", "°C"),
+    HUMIDITY((byte) 2, "humidity", "%"),
+    PRESSURE((byte) 3, "pressure", "hPa");
+
+    private static final SensorType[] BY_CODE = new SensorType[values().length];
+
+    static {
+        for (SensorType type : values()) {
+            BY_CODE[type.code] = type;
+        }
+    }
+
+    private final byte code;
+    private final String label;
+    private final String unit;
+
+    SensorType(byte code, String label, String unit) {
+        this.code = code;
+        this.label = label;
+        this.unit = unit;
+    }
+
+    /**
+     * 稳定的字典编码，用于二进制编码和跨进程传输
+     */
+    public byte code() {
+        return code;
+    }
+
+    @JsonValue
+    public String label() {
+        return label;
+    }
+
+    public String unit() {
+        return unit;
+    }
+
+    /**
+     * 根据字典编码查找类型，未知编码归为GENERIC
+     */
+    public static SensorType fromCode(int code) {
+        return code >= 0 && code < BY_CODE.length ? BY_CODE[code] : GENERIC;
+    }
+
+    /**
+     * 根据类型名称查找类型，未知名称归为GENERIC
+     */
+    @JsonCreator
+    public static SensorType fromLabel(String label) {
+        if (label != null) {
+            for (SensorType type : values()) {
+                if (type.label.equalsIgnoreCase(label)) {
+                    return type;
+                }
+            }
+        }
+        return GENERIC;
+    }
+
+    /**
+     * 根据设备ID前缀推断传感器类型
+     */
+    public static SensorType forDeviceId(String deviceId) {
+        if (deviceId.startsWith("temp")) {
+            return TEMPERATURE;
+        } else if (deviceId.startsWith("humid")) {
+            return HUMIDITY;
+        } else if (deviceId.startsWith("pressure")) {
+            return PRESSURE;
+        }
+        return GENERIC;
+    }
+}
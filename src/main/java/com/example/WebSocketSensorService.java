@@ -1,6 +1,12 @@
 package com.example;
 
+import com.example.cluster.ClusterFanout;
+import com.example.fleet.FleetIndex;
+import com.example.history.TimeSeriesStore;
+import com.example.logging.LogSampler;
 import com.example.monitoring.SensorDataMonitoringAdapter;
+import com.example.stream.EncodedReading;
+import com.example.stream.StreamFanout;
 import com.example.websocket.SensorWebSocketHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,39 +16,67 @@ import org.springframework.stereotype.Service;
 /**
  * WebSocket传感器服务类
  * 负责将传感器数据发送到WebSocket客户端
+ * Flink作业和Spring模拟器产生的读数都经由此处进入历史存储、监控和广播
  */
 @Service
 public class WebSocketSensorService {
     private static final Logger LOG = LoggerFactory.getLogger(WebSocketSensorService.class);
+    private static final LogSampler BROADCAST_LOG = LogSampler.sampled("websocket.broadcast");
     
     private final SensorWebSocketHandler webSocketHandler;
     private final SensorDataMonitoringAdapter monitoringAdapter;
+    private final TimeSeriesStore timeSeriesStore;
+    private final FleetIndex fleetIndex;
+    private final StreamFanout streamFanout;
+    private final ClusterFanout clusterFanout;
     
     @Autowired
     public WebSocketSensorService(SensorWebSocketHandler webSocketHandler, 
-                                 SensorDataMonitoringAdapter monitoringAdapter) {
+                                 SensorDataMonitoringAdapter monitoringAdapter,
+                                 TimeSeriesStore timeSeriesStore,
+                                 FleetIndex fleetIndex,
+                                 StreamFanout streamFanout,
+                                 ClusterFanout clusterFanout) {
         this.webSocketHandler = webSocketHandler;
         this.monitoringAdapter = monitoringAdapter;
+        this.timeSeriesStore = timeSeriesStore;
+        this.fleetIndex = fleetIndex;
+        this.streamFanout = streamFanout;
+        this.clusterFanout = clusterFanout;
     }
     
     /**
      * 发送传感器数据到WebSocket客户端
      */
     public void sendSensorData(SensorData sensorData) {
-        // 首先更新监控指标
+        // 写入历史时间序列
+        timeSeriesStore.append(sensorData);
+        fleetIndex.update(sensorData);
+        
+        // 更新监控指标
         monitoringAdapter.processSensorData(sensorData);
         
+        // 写入共享扇出缓冲区并推送给SSE和长轮询客户端，编码结果由各类连接共用
+        EncodedReading reading = streamFanout.publish(sensorData);
+        
+        // 多实例部署时发布给其他节点，由它们推送给各自的会话
+        clusterFanout.publish(reading);
+        
         // 获取当前连接的客户端数量
         int activeClients = webSocketHandler.getActiveSessionCount();
         
         if (activeClients > 0) {
-            LOG.debug("发送传感器数据到 {} 个WebSocket客户端: {}, 时间: {}", 
-                    activeClients, sensorData.deviceId(), sensorData.getFormattedTimestamp());
+            // 时间在采样命中时才格式化
+            if (LOG.isDebugEnabled()) {
+                long skipped = BROADCAST_LOG.sample();
+                if (skipped >= 0) {
+                    LOG.debug("发送传感器数据到 {} 个WebSocket客户端: {}, 时间: {} (此前省略 {} 条)",
+                            activeClients, sensorData.deviceId(), sensorData.getFormattedTimestamp(), skipped);
+                }
+            }
             
             // 将传感器数据广播到所有连接的客户端
-            webSocketHandler.broadcastSensorData(sensorData);
-        } else {
-            LOG.debug("没有活跃的WebSocket客户端连接，跳过数据广播");
+            webSocketHandler.broadcast(reading);
         }
     }
     
@@ -51,7 +85,7 @@ public class WebSocketSensorService {
      */
     public Object getMonitoringStats() {
         return new MonitoringStats(
-                webSocketHandler.getStats(),
+                webSocketHandler.getConnectionStats(),
                 monitoringAdapter.getLatestDataByDevice().size(),
                 monitoringAdapter.getQueueSize(),
                 monitoringAdapter.getProcessedCount()
@@ -0,0 +1,177 @@
+package com.example.bridge;
+
+import com.example.SensorData;
+import com.example.WebSocketSensorService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 桥接队列的Spring端消费者
+ * 在独立线程上批量取出Flink作业发布的读数，交给WebSocketSensorService做监控和广播
+ */
+@Component
+public class SensorBridgeConsumer {
+    private static final Logger LOG = LoggerFactory.getLogger(SensorBridgeConsumer.class);
+
+    private static final int SPIN_TRIES = 100;
+    private static final long IDLE_PARK_NANOS = 1_000_000;
+
+    private final WebSocketSensorService sensorService;
+
+    @Value("${sensor.bridge.mode:local}")
+    private String mode;
+
+    @Value("${sensor.bridge.channel:sensor}")
+    private String channel;
+
+    @Value("${sensor.bridge.capacity:8192}")
+    private int capacity;
+
+    @Value("${sensor.bridge.batch-size:256}")
+    private int batchSize;
+
+    @Value("${sensor.bridge.consumers:1}")
+    private int consumerThreads;
+
+    @Value("${sensor.bridge.bind-address:127.0.0.1}")
+    private String bindAddress;
+
+    @Value("${sensor.bridge.port:9750}")
+    private int port;
+
+    private SensorRingBuffer ringBuffer;
+    private SensorBridgeServer server;
+    private final List<Thread> workers = new ArrayList<>();
+    private final AtomicLong consumedCount = new AtomicLong(0);
+    private final AtomicLong batchCount = new AtomicLong(0);
+    private volatile boolean running;
+
+    public SensorBridgeConsumer(WebSocketSensorService sensorService) {
+        this.sensorService = sensorService;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        ringBuffer = new SensorRingBuffer(capacity);
+        SensorBridgeRegistry.register(channel, ringBuffer);
+
+        if (isSocketMode()) {
+            server = new SensorBridgeServer(bindAddress, port, ringBuffer);
+            server.start();
+        }
+
+        running = true;
+        for (int i = 0; i < consumerThreads; i++) {
+            Thread worker = new Thread(this::drainLoop, "sensor-bridge-consumer-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+        LOG.info("桥接消费者已启动: 模式={}, 通道={}, 容量={}, 批大小={}, 线程数={}",
+                mode, channel, ringBuffer.capacity(), batchSize, consumerThreads);
+    }
+
+    /**
+     * 消费循环：有数据时批量处理，空闲时先自旋、再让出CPU、最后短暂休眠
+     */
+    private void drainLoop() {
+        int idle = 0;
+        while (running || ringBuffer.size() > 0) {
+            int drained = ringBuffer.drain(this::deliver, batchSize);
+            if (drained > 0) {
+                consumedCount.addAndGet(drained);
+                batchCount.incrementAndGet();
+                idle = 0;
+            } else if (!running) {
+                break;
+            } else if (idle < SPIN_TRIES) {
+                idle++;
+                Thread.onSpinWait();
+            } else if (idle < SPIN_TRIES * 2) {
+                idle++;
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    private void deliver(SensorData data) {
+        try {
+            sensorService.sendSensorData(data);
+        } catch (Exception e) {
+            LOG.error("处理桥接读数失败: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (server != null) {
+            server.stop();
+        }
+        for (Thread worker : workers) {
+            worker.join(5000);
+        }
+        SensorBridgeRegistry.unregister(channel, ringBuffer);
+        LOG.info("桥接消费者已停止，共处理 {} 条读数", consumedCount.get());
+    }
+
+    /**
+     * 等待队列中已发布的读数处理完毕
+     *
+     * @return 超时前是否已排空
+     */
+    public boolean awaitDrained(long timeoutMs) {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (ringBuffer.size() > 0) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            LockSupport.parkNanos(IDLE_PARK_NANOS * 10);
+        }
+        return true;
+    }
+
+    public boolean isSocketMode() {
+        return "socket".equalsIgnoreCase(mode);
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    public int getPort() {
+        return server != null ? server.getLocalPort() : port;
+    }
+
+    /**
+     * 获取桥接统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("mode", mode);
+        stats.put("channel", channel);
+        stats.put("capacity", ringBuffer.capacity());
+        stats.put("queued", ringBuffer.size());
+        stats.put("dropped", ringBuffer.getDroppedCount());
+        stats.put("consumed", consumedCount.get());
+        stats.put("batches", batchCount.get());
+        if (server != null) {
+            stats.put("connections", server.getConnectionCount());
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.bridge;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 进程内桥接通道注册表
+ * Spring端消费者按通道名登记环形队列，同一JVM内运行的Flink Sink按名称查找，两端不互相持有对象引用
+ */
+public final class SensorBridgeRegistry {
+
+    private static final Map<String, SensorRingBuffer> CHANNELS = new ConcurrentHashMap<>();
+
+    private SensorBridgeRegistry() {
+    }
+
+    public static void register(String channel, SensorRingBuffer buffer) {
+        CHANNELS.put(channel, buffer);
+    }
+
+    public static void unregister(String channel, SensorRingBuffer buffer) {
+        CHANNELS.remove(channel, buffer);
+    }
+
+    /**
+     * 查找通道，未登记时返回null
+     */
+    public static SensorRingBuffer lookup(String channel) {
+        return CHANNELS.get(channel);
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.bridge;
+
+import com.example.SensorData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 桥接套接字服务端
+ * 接收远端Flink作业发来的定长帧并放入环形队列；队列满时暂停读取，由TCP把背压传回发送端
+ */
+public class SensorBridgeServer {
+    private static final Logger LOG = LoggerFactory.getLogger(SensorBridgeServer.class);
+
+    private final String bindAddress;
+    private final int port;
+    private final SensorRingBuffer ringBuffer;
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean running;
+    private ServerSocket serverSocket;
+
+    public SensorBridgeServer(String bindAddress, int port, SensorRingBuffer ringBuffer) {
+        this.bindAddress = bindAddress;
+        this.port = port;
+        this.ringBuffer = ringBuffer;
+    }
+
+    public void start() throws IOException {
+        serverSocket = new ServerSocket();
+        serverSocket.bind(new InetSocketAddress(bindAddress, port));
+        running = true;
+
+        Thread acceptor = new Thread(this::acceptLoop, "sensor-bridge-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        LOG.info("桥接套接字服务已启动: {}:{}", bindAddress, serverSocket.getLocalPort());
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                connections.add(socket);
+                Thread reader = new Thread(() -> readLoop(socket), "sensor-bridge-reader-" + socket.getPort());
+                reader.setDaemon(true);
+                reader.start();
+                LOG.info("桥接连接已建立: {}", socket.getRemoteSocketAddress());
+            } catch (IOException e) {
+                if (running) {
+                    LOG.warn("接受桥接连接失败: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void readLoop(Socket socket) {
+        byte[] bytes = new byte[SensorFrameCodec.FRAME_SIZE];
+        ByteBuffer frame = ByteBuffer.wrap(bytes);
+        try (DataInputStream input = new DataInputStream(socket.getInputStream())) {
+            while (running) {
+                input.readFully(bytes);
+                frame.clear();
+                SensorData data = SensorFrameCodec.decode(frame);
+                while (!ringBuffer.offer(data)) {
+                    if (!running) {
+                        return;
+                    }
+                    LockSupport.parkNanos(100_000);
+                }
+            }
+        } catch (EOFException e) {
+            LOG.info("桥接连接已关闭: {}", socket.getRemoteSocketAddress());
+        } catch (IOException | IllegalArgumentException e) {
+            if (running) {
+                LOG.warn("桥接连接读取失败 {}: {}", socket.getRemoteSocketAddress(), e.getMessage());
+            }
+        } finally {
+            connections.remove(socket);
+        }
+    }
+
+    public int getLocalPort() {
+        return serverSocket != null ? serverSocket.getLocalPort() : -1;
+    }
+
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    public void stop() {
+        running = false;
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+            for (Socket socket : connections) {
+                socket.close();
+            }
+        } catch (IOException e) {
+            LOG.warn("关闭桥接套接字服务失败: {}", e.getMessage());
+        }
+    }
+}
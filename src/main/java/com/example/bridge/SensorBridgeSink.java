@@ -0,0 +1,226 @@
+package com.example.bridge;
+
+import com.example.SensorData;
+import com.example.logging.LogSampler;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.streaming.api.functions.sink.RichSinkFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Flink到Spring的桥接Sink
+ * - LOCAL模式：写入同一JVM内按通道名登记的无锁环形队列
+ * - SOCKET模式：以定长帧写入本机或远端的桥接套接字，作业可运行在独立的Flink集群上
+ * Sink本身只做入队，WebSocket推送和监控处理都在Spring端的消费线程上完成
+ */
+public class SensorBridgeSink extends RichSinkFunction<SensorData> {
+    private static final Logger LOG = LoggerFactory.getLogger(SensorBridgeSink.class);
+    private static final long serialVersionUID = 1L;
+    private static final LogSampler ENCODE_FAILURE_LOG = LogSampler.rateLimited("bridge.encode-failure");
+
+    /**
+     * 桥接模式
+     */
+    public enum Mode {
+        LOCAL, SOCKET
+    }
+
+    private static final long RECONNECT_INTERVAL_MS = 1000;
+
+    private final Mode mode;
+    private final String channel;
+    private final String host;
+    private final int port;
+    private final long offerTimeoutMs;
+    private final long flushIntervalMs;
+
+    private transient SensorRingBuffer ringBuffer;
+    private transient Counter droppedCounter;
+
+    private transient Socket socket;
+    private transient OutputStream output;
+    private transient ByteBuffer frame;
+    private transient ScheduledExecutorService flusher;
+    private transient long lastConnectAttempt;
+
+    private SensorBridgeSink(Mode mode, String channel, String host, int port,
+                             long offerTimeoutMs, long flushIntervalMs) {
+        this.mode = mode;
+        this.channel = channel;
+        this.host = host;
+        this.port = port;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    /**
+     * 进程内桥接，队列满时最多等待offerTimeoutMs毫秒后丢弃
+     */
+    public static SensorBridgeSink local(String channel, long offerTimeoutMs) {
+        return new SensorBridgeSink(Mode.LOCAL, channel, null, 0, offerTimeoutMs, 0);
+    }
+
+    /**
+     * 跨进程桥接，每flushIntervalMs毫秒至少刷新一次发送缓冲
+     */
+    public static SensorBridgeSink socket(String host, int port, long flushIntervalMs) {
+        return new SensorBridgeSink(Mode.SOCKET, null, host, port, 0, flushIntervalMs);
+    }
+
+    @Override
+    public void open(Configuration parameters) throws Exception {
+        droppedCounter = getRuntimeContext().getMetricGroup().counter("bridgeDropped");
+
+        if (mode == Mode.LOCAL) {
+            ringBuffer = awaitChannel();
+            getRuntimeContext().getMetricGroup().gauge("bridgeQueueSize", () -> ringBuffer.size());
+        } else {
+            frame = ByteBuffer.allocate(SensorFrameCodec.FRAME_SIZE);
+            connect();
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "sensor-bridge-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void invoke(SensorData value, Context context) {
+        if (mode == Mode.LOCAL) {
+            publishLocal(value);
+        } else {
+            publishSocket(value);
+        }
+    }
+
+    private void publishLocal(SensorData value) {
+        if (ringBuffer.offer(value)) {
+            return;
+        }
+        // 队列已满：短暂退避，给消费线程追赶的机会，超时后丢弃
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(offerTimeoutMs);
+        while (System.nanoTime() < deadline) {
+            LockSupport.parkNanos(50_000);
+            if (ringBuffer.offer(value)) {
+                return;
+            }
+        }
+        if (!ringBuffer.offerOrDrop(value)) {
+            droppedCounter.inc();
+        }
+    }
+
+    private synchronized void publishSocket(SensorData value) {
+        if (output == null && !reconnect()) {
+            droppedCounter.inc();
+            return;
+        }
+        try {
+            frame.clear();
+            SensorFrameCodec.encode(value, frame);
+            output.write(frame.array(), 0, SensorFrameCodec.FRAME_SIZE);
+        } catch (IllegalArgumentException e) {
+            // 无法编码的读数（设备ID超过帧的容量）只丢弃这一条，不让整个作业失败
+            droppedCounter.inc();
+            if (LOG.isWarnEnabled()) {
+                long skipped = ENCODE_FAILURE_LOG.sample();
+                if (skipped >= 0) {
+                    LOG.warn("丢弃无法编码的读数: {} (此前省略 {} 条)", e.getMessage(), skipped);
+                }
+            }
+        } catch (IOException e) {
+            LOG.warn("桥接套接字写入失败: {}", e.getMessage());
+            droppedCounter.inc();
+            closeSocket();
+        }
+    }
+
+    /**
+     * 等待Spring端登记通道，避免作业先于消费者启动
+     */
+    private SensorRingBuffer awaitChannel() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        SensorRingBuffer buffer;
+        while ((buffer = SensorBridgeRegistry.lookup(channel)) == null) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("桥接通道未登记: " + channel);
+            }
+            Thread.sleep(100);
+        }
+        return buffer;
+    }
+
+    private void connect() throws IOException {
+        lastConnectAttempt = System.currentTimeMillis();
+        Socket newSocket = new Socket();
+        newSocket.setTcpNoDelay(true);
+        newSocket.connect(new InetSocketAddress(host, port), 5000);
+        socket = newSocket;
+        output = new BufferedOutputStream(newSocket.getOutputStream(), SensorFrameCodec.FRAME_SIZE * 256);
+        LOG.info("已连接桥接套接字 {}:{}", host, port);
+    }
+
+    private boolean reconnect() {
+        if (System.currentTimeMillis() - lastConnectAttempt < RECONNECT_INTERVAL_MS) {
+            return false;
+        }
+        try {
+            connect();
+            return true;
+        } catch (IOException e) {
+            LOG.warn("桥接套接字重连失败 {}:{}: {}", host, port, e.getMessage());
+            return false;
+        }
+    }
+
+    private synchronized void flushQuietly() {
+        if (output == null) {
+            return;
+        }
+        try {
+            output.flush();
+        } catch (IOException e) {
+            LOG.warn("桥接套接字刷新失败: {}", e.getMessage());
+            closeSocket();
+        }
+    }
+
+    private void closeSocket() {
+        try {
+            if (socket != null) {
+                socket.close();
+            }
+        } catch (IOException ignored) {
+            // 关闭失败无需处理
+        }
+        socket = null;
+        output = null;
+    }
+
+    @Override
+    public void close() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        if (mode == Mode.SOCKET) {
+            flushQuietly();
+            synchronized (this) {
+                closeSocket();
+            }
+        }
+    }
+}
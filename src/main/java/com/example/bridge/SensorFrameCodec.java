@@ -0,0 +1,83 @@
+package com.example.bridge;
+
+import com.example.SensorData;
+import com.example.SensorType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 读数的定长二进制帧编码
+ * 帧布局（64字节）：时间戳(8) | 数值(8) | 类型编码(1) | 设备ID长度(1) | 设备ID(UTF-8, 最多46字节, 其余补零)
+ * 定长帧无需额外分隔符，可直接用于套接字传输和顺序文件存储
+ */
+public final class SensorFrameCodec {
+
+    public static final int FRAME_SIZE = 64;
+    public static final int MAX_DEVICE_ID_BYTES = FRAME_SIZE - 18;
+
+    private SensorFrameCodec() {
+    }
+
+    /**
+     * 设备ID的UTF-8编码是否放得进一帧（最多MAX_DEVICE_ID_BYTES字节），不分配临时数组
+     */
+    public static boolean fits(String deviceId) {
+        int bytes = 0;
+        for (int i = 0; i < deviceId.length() && bytes <= MAX_DEVICE_ID_BYTES; i++) {
+            char c = deviceId.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < deviceId.length()
+                    && Character.isLowSurrogate(deviceId.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                // 不成对的代理字符编码为'?'
+                bytes += 1;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes <= MAX_DEVICE_ID_BYTES;
+    }
+
+    /**
+     * 将读数写入buffer的当前位置，写入后position前进FRAME_SIZE
+     */
+    public static void encode(SensorData data, ByteBuffer buffer) {
+        byte[] id = data.deviceId().getBytes(StandardCharsets.UTF_8);
+        if (id.length > MAX_DEVICE_ID_BYTES) {
+            throw new IllegalArgumentException("设备ID过长: " + data.deviceId());
+        }
+        int start = buffer.position();
+        buffer.putLong(data.timestamp());
+        buffer.putDouble(data.value());
+        buffer.put(data.type().code());
+        buffer.put((byte) id.length);
+        buffer.put(id);
+        for (int i = start + 18 + id.length; i < start + FRAME_SIZE; i++) {
+            buffer.put((byte) 0);
+        }
+    }
+
+    /**
+     * 从buffer的当前位置读取一帧，读取后position前进FRAME_SIZE
+     */
+    public static SensorData decode(ByteBuffer buffer) {
+        int start = buffer.position();
+        long timestamp = buffer.getLong();
+        double value = buffer.getDouble();
+        SensorType type = SensorType.fromCode(buffer.get());
+        int idLength = buffer.get() & 0xFF;
+        if (idLength > MAX_DEVICE_ID_BYTES) {
+            throw new IllegalArgumentException("无效的帧: 设备ID长度 " + idLength);
+        }
+        byte[] id = new byte[idLength];
+        buffer.get(id);
+        buffer.position(start + FRAME_SIZE);
+        return new SensorData(new String(id, StandardCharsets.UTF_8), timestamp, value, type);
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.bridge;
+
+import com.example.SensorData;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * 有界无锁环形队列（多生产者/多消费者）
+ * 每个槽位带一个序号，生产者和消费者各自CAS推进游标，不使用任何锁
+ */
+public class SensorRingBuffer {
+
+    private final int mask;
+    private final SensorData[] slots;
+    private final AtomicLongArray sequences;
+
+    // 生产者游标和消费者游标
+    private final AtomicLong tail = new AtomicLong(0);
+    private final AtomicLong head = new AtomicLong(0);
+
+    private final AtomicLong dropped = new AtomicLong(0);
+
+    public SensorRingBuffer(int requestedCapacity) {
+        if (requestedCapacity < 2) {
+            throw new IllegalArgumentException("队列容量必须大于1");
+        }
+        int capacity = Integer.highestOneBit(requestedCapacity - 1) << 1;
+        this.mask = capacity - 1;
+        this.slots = new SensorData[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 尝试放入一条读数，队列已满时立即返回false
+     */
+    public boolean offer(SensorData data) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long sequence = sequences.get(index);
+            long diff = sequence - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots[index] = data;
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * 放入读数，队列已满时记为丢弃
+     */
+    public boolean offerOrDrop(SensorData data) {
+        if (offer(data)) {
+            return true;
+        }
+        dropped.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * 取出一条读数，队列为空时返回null
+     */
+    public SensorData poll() {
+        long position = head.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long sequence = sequences.get(index);
+            long diff = sequence - (position + 1);
+            if (diff == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    SensorData data = slots[index];
+                    slots[index] = null;
+                    sequences.lazySet(index, position + mask + 1);
+                    return data;
+                }
+                position = head.get();
+            } else if (diff < 0) {
+                return null;
+            } else {
+                position = head.get();
+            }
+        }
+    }
+
+    /**
+     * 批量取出最多maxElements条读数交给consumer，返回实际取出的数量
+     */
+    public int drain(Consumer<SensorData> consumer, int maxElements) {
+        int count = 0;
+        SensorData data;
+        while (count < maxElements && (data = poll()) != null) {
+            consumer.accept(data);
+            count++;
+        }
+        return count;
+    }
+
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity()));
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+}
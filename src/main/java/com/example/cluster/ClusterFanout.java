@@ -0,0 +1,193 @@
+package com.example.cluster;
+
+import com.example.SensorData;
+import com.example.stream.EncodedReading;
+import com.example.stream.StreamFanout;
+import com.example.websocket.SensorWebSocketHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 多实例扇出
+ * 会话只保存在所连接的节点上，多个实例部署在负载均衡之后时，每个节点把本地产生的读数经{@link ClusterTransport}发布给其他节点，
+ * 收到的读数按来源序号去重后写入本节点的扇出缓冲区并推送给本节点的会话（WebSocket、SSE、长轮询和响应式服务端）；
+ * 其他节点的读数不再转发，也不写入本节点的历史存储和监控指标
+ *
+ * 模式：none（默认，不启用）、in-process（同一JVM内的节点）、tcp（经TCP直连的节点）
+ */
+@Component
+public class ClusterFanout {
+    private static final Logger LOG = LoggerFactory.getLogger(ClusterFanout.class);
+
+    private final StreamFanout streamFanout;
+    private final SensorWebSocketHandler webSocketHandler;
+    private final SequenceDeduplicator deduplicator = new SequenceDeduplicator();
+
+    @Value("${sensor.cluster.mode:none}")
+    private String mode;
+
+    @Value("${sensor.cluster.node-id:}")
+    private String nodeId;
+
+    @Value("${sensor.cluster.topic:sensor}")
+    private String topic;
+
+    @Value("${sensor.cluster.bind-address:127.0.0.1}")
+    private String bindAddress;
+
+    @Value("${sensor.cluster.port:9760}")
+    private int port;
+
+    @Value("${sensor.cluster.peers:}")
+    private String peers;
+
+    @Value("${sensor.cluster.max-queued:8192}")
+    private int maxQueued;
+
+    // 本次启动的标识，节点重启后序号从头开始，接收方据此区分
+    private final long epoch = ThreadLocalRandom.current().nextLong();
+    private ClusterTransport transport;
+    // 心跳和退出通知的接收者（设备分区）
+    private volatile Consumer<ClusterMessage> controlListener;
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public ClusterFanout(StreamFanout streamFanout, SensorWebSocketHandler webSocketHandler) {
+        this.streamFanout = streamFanout;
+        this.webSocketHandler = webSocketHandler;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (nodeId == null || nodeId.isBlank()) {
+            nodeId = UUID.randomUUID().toString().substring(0, 8);
+        }
+        switch (mode.toLowerCase()) {
+            case "none":
+                return;
+            case "in-process":
+                transport = new InProcessTransport(topic);
+                break;
+            case "tcp":
+                TcpLoopbackTransport tcp = new TcpLoopbackTransport(bindAddress, port, maxQueued);
+                transport = tcp;
+                for (InetSocketAddress peer : TcpLoopbackTransport.parsePeers(peers)) {
+                    tcp.addPeer(peer);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("不支持的集群模式: " + mode);
+        }
+        transport.start(this::receive);
+        LOG.info("多实例扇出已启动: 模式={}, 节点={}", mode, nodeId);
+    }
+
+    /**
+     * 把本地产生的读数发布给其他节点
+     */
+    public void publish(EncodedReading reading) {
+        if (transport == null) {
+            return;
+        }
+        // 扇出缓冲区的序号也分配给了其他节点的读数，这里使用本节点发布的连续序号，接收方才能统计缺口
+        transport.publish(ClusterMessage.reading(nodeId, epoch, published.incrementAndGet(), reading.data()));
+    }
+
+    /**
+     * 发送心跳或退出通知，未启用时忽略
+     */
+    public void sendControl(ClusterMessage message) {
+        if (transport != null) {
+            transport.publish(message);
+        }
+    }
+
+    /**
+     * 设置心跳和退出通知的接收者，在传输的接收线程中回调
+     */
+    public void setControlListener(Consumer<ClusterMessage> listener) {
+        this.controlListener = listener;
+    }
+
+    private void receive(ClusterMessage message) {
+        if (message.epoch() == epoch && message.node().equals(nodeId)) {
+            return;
+        }
+        if (message.kind() != ClusterMessage.Kind.READING) {
+            Consumer<ClusterMessage> listener = controlListener;
+            if (listener != null) {
+                listener.accept(message);
+            }
+            return;
+        }
+        if (!deduplicator.accept(message.node(), message.epoch(), message.sequence())) {
+            return;
+        }
+        try {
+            deliver(message.data());
+            received.incrementAndGet();
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            LOG.error("处理节点 {} 的读数失败: {}", message.node(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 推送给本节点的会话，与本地读数走同一条扇出路径
+     */
+    private void deliver(SensorData data) {
+        EncodedReading reading = streamFanout.publish(data);
+        if (webSocketHandler.getActiveSessionCount() > 0) {
+            webSocketHandler.broadcast(reading);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (transport != null) {
+            transport.close();
+        }
+    }
+
+    public boolean isEnabled() {
+        return transport != null;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("mode", mode);
+        stats.put("nodeId", nodeId);
+        stats.put("published", published.get());
+        stats.put("received", received.get());
+        stats.put("failed", failed.get());
+        stats.put("duplicates", deduplicator.duplicates());
+        stats.put("gaps", deduplicator.gaps());
+        stats.put("origins", deduplicator.origins());
+        if (transport != null) {
+            stats.put("transport", transport.getStats());
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.cluster;
+
+import com.example.SensorData;
+import com.example.bridge.SensorFrameCodec;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 节点间交换的消息：读数，或维护成员关系的心跳和退出通知
+ * node和epoch标识发出消息的节点进程（epoch每次启动重新生成，节点重启后序号从头开始也不会被当作重复）；
+ * 读数的sequence为来源节点发布的连续序号，接收方据此去重并统计缺口；心跳的members为发送方当前哈希环上的节点
+ *
+ * 帧布局：长度(4) | 类型(1) | 节点ID长度(1) | 节点ID(UTF-8) | epoch(8) | 内容
+ * - READING：sequence(8) | 读数定长帧(64)
+ * - HEARTBEAT：节点数(2) | 每个节点：ID长度(1) | ID(UTF-8)
+ * - LEAVE：无
+ */
+public record ClusterMessage(Kind kind, String node, long epoch, long sequence, SensorData data, List<String> members) {
+
+    public enum Kind {
+        READING, HEARTBEAT, LEAVE
+    }
+
+    static final int MAX_NODE_BYTES = 255;
+    static final int MAX_FRAME_SIZE = 64 * 1024;
+
+    public static ClusterMessage reading(String node, long epoch, long sequence, SensorData data) {
+        return new ClusterMessage(Kind.READING, node, epoch, sequence, data, List.of());
+    }
+
+    public static ClusterMessage heartbeat(String node, long epoch, List<String> members) {
+        return new ClusterMessage(Kind.HEARTBEAT, node, epoch, 0, null, List.copyOf(members));
+    }
+
+    public static ClusterMessage leave(String node, long epoch) {
+        return new ClusterMessage(Kind.LEAVE, node, epoch, 0, null, List.of());
+    }
+
+    /**
+     * 编码为带长度前缀的帧，同一帧发给所有对端
+     */
+    public byte[] encode() {
+        byte[] id = nodeBytes(node);
+        List<byte[]> memberIds = new ArrayList<>(members.size());
+        int length = 2 + id.length + 8;
+        switch (kind) {
+            case READING:
+                length += 8 + SensorFrameCodec.FRAME_SIZE;
+                break;
+            case HEARTBEAT:
+                length += 2;
+                for (String member : members) {
+                    byte[] memberId = nodeBytes(member);
+                    memberIds.add(memberId);
+                    length += 1 + memberId.length;
+                }
+                break;
+            default:
+                break;
+        }
+        if (length > MAX_FRAME_SIZE) {
+            throw new IllegalArgumentException("集群帧过大: " + length);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(4 + length);
+        buffer.putInt(length);
+        buffer.put((byte) kind.ordinal());
+        buffer.put((byte) id.length);
+        buffer.put(id);
+        buffer.putLong(epoch);
+        if (kind == Kind.READING) {
+            buffer.putLong(sequence);
+            SensorFrameCodec.encode(data, buffer);
+        } else if (kind == Kind.HEARTBEAT) {
+            buffer.putShort((short) memberIds.size());
+            for (byte[] memberId : memberIds) {
+                buffer.put((byte) memberId.length);
+                buffer.put(memberId);
+            }
+        }
+        return buffer.array();
+    }
+
+    private static byte[] nodeBytes(String node) {
+        byte[] id = node.getBytes(StandardCharsets.UTF_8);
+        if (id.length == 0 || id.length > MAX_NODE_BYTES) {
+            throw new IllegalArgumentException("无效的节点ID: " + node);
+        }
+        return id;
+    }
+
+    /**
+     * 从输入流读取一帧
+     *
+     * @throws IOException 连接断开（包括帧中途断开）或帧无效
+     */
+    public static ClusterMessage read(DataInputStream input) throws IOException {
+        int length = input.readInt();
+        if (length < 11 || length > MAX_FRAME_SIZE) {
+            throw new IOException("无效的集群帧长度: " + length);
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        try {
+            return decode(ByteBuffer.wrap(bytes));
+        } catch (RuntimeException e) {
+            throw new IOException("无效的集群帧: " + e.getMessage(), e);
+        }
+    }
+
+    private static ClusterMessage decode(ByteBuffer buffer) {
+        int kindIndex = buffer.get();
+        if (kindIndex < 0 || kindIndex >= Kind.values().length) {
+            throw new IllegalArgumentException("未知的消息类型 " + kindIndex);
+        }
+        Kind kind = Kind.values()[kindIndex];
+        String node = readNode(buffer);
+        long epoch = buffer.getLong();
+        switch (kind) {
+            case READING:
+                long sequence = buffer.getLong();
+                return reading(node, epoch, sequence, SensorFrameCodec.decode(buffer));
+            case HEARTBEAT:
+                int count = buffer.getShort() & 0xFFFF;
+                List<String> members = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    members.add(readNode(buffer));
+                }
+                return heartbeat(node, epoch, members);
+            default:
+                return leave(node, epoch);
+        }
+    }
+
+    private static String readNode(ByteBuffer buffer) {
+        int length = buffer.get() & 0xFF;
+        byte[] id = new byte[length];
+        buffer.get(id);
+        return new String(id, StandardCharsets.UTF_8);
+    }
+}
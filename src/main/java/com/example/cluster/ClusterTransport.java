@@ -0,0 +1,28 @@
+package com.example.cluster;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 节点间交换读数的发布/订阅传输
+ * 每个节点把本地产生的读数发布给其他节点，并接收其他节点的读数；传输不保证只投递一次，重复由接收方按序号去重
+ */
+public interface ClusterTransport extends Closeable {
+
+    /**
+     * 开始接收其他节点的读数，receiver在传输的接收线程中回调，不应阻塞
+     */
+    void start(Consumer<ClusterMessage> receiver) throws IOException;
+
+    /**
+     * 发布一条本地读数，不阻塞调用线程
+     */
+    void publish(ClusterMessage message);
+
+    Map<String, Object> getStats();
+
+    @Override
+    void close();
+}
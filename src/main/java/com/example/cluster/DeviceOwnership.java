@@ -0,0 +1,63 @@
+package com.example.cluster;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 设备归属的快照：本节点在当前哈希环上拥有哪些设备
+ * 不可变，成员变化时整体替换；按名称登记在进程内，同一JVM内运行的Flink数据源按名称查找，
+ * 通过比较快照对象判断归属是否变化，只在变化时重新计算设备列表
+ */
+public final class DeviceOwnership {
+
+    private static final Map<String, DeviceOwnership> CHANNELS = new ConcurrentHashMap<>();
+
+    private final ConsistentHashRing ring;
+    private final String self;
+    private final boolean active;
+
+    /**
+     * @param active 为false时本节点不拥有任何设备（等待其他节点确认加入，或正在退出）
+     */
+    DeviceOwnership(ConsistentHashRing ring, String self, boolean active) {
+        this.ring = ring;
+        this.self = self;
+        this.active = active;
+    }
+
+    public boolean owns(String deviceId) {
+        return active && self.equals(ring.owner(deviceId));
+    }
+
+    public String owner(String deviceId) {
+        return ring.owner(deviceId);
+    }
+
+    public Set<String> members() {
+        return ring.nodes();
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    ConsistentHashRing ring() {
+        return ring;
+    }
+
+    static void publish(String channel, DeviceOwnership ownership) {
+        CHANNELS.put(channel, ownership);
+    }
+
+    static void unregister(String channel) {
+        CHANNELS.remove(channel);
+    }
+
+    /**
+     * 查找当前快照，未登记（未启用多实例）时返回null，表示拥有全部设备
+     */
+    public static DeviceOwnership lookup(String channel) {
+        return channel != null ? CHANNELS.get(channel) : null;
+    }
+}
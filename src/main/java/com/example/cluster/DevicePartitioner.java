@@ -0,0 +1,211 @@
+package com.example.cluster;
+
+import com.example.stream.StreamFanout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 多实例部署时按一致性哈希环在节点间划分设备，每个设备只由一个节点生成读数
+ * 节点经{@link ClusterFanout}的传输定期发送心跳，心跳携带发送方哈希环上的节点；超过member-timeout未收到心跳的节点、
+ * 发出退出通知的节点从环上移除，其设备按环转给相邻节点
+ *
+ * 避免同一设备由两个节点同时生成：
+ * - 节点启动后等待一个member-timeout，先收到已有节点的心跳再参与分配
+ * - 已有节点一收到新节点的心跳就把归属新节点的设备让出；新节点要等所有节点的心跳都包含自己（已让出）后才开始生成
+ * - 正常退出时先停止生成，再发出退出通知
+ * 归属变化期间设备可能最多停顿一个心跳间隔
+ *
+ * 设备状态交接：各节点的读数经多实例扇出到达所有节点，这里记录每个设备最近一次读数的数值，
+ * 接管设备的节点从该值继续生成（包括原节点异常退出的情况）
+ */
+@Component
+public class DevicePartitioner {
+    private static final Logger LOG = LoggerFactory.getLogger(DevicePartitioner.class);
+
+    private final ClusterFanout clusterFanout;
+    private final StreamFanout streamFanout;
+
+    @Value("${sensor.cluster.topic:sensor}")
+    private String channel;
+
+    @Value("${sensor.cluster.virtual-nodes:128}")
+    private int virtualNodes;
+
+    @Value("${sensor.cluster.member-timeout:5000}")
+    private long memberTimeout;
+
+    /**
+     * 其他节点最近一次心跳
+     */
+    private static final class Member {
+        final long epoch;
+        volatile long lastSeen;
+        volatile Set<String> view = Set.of();
+
+        Member(long epoch) {
+            this.epoch = epoch;
+        }
+    }
+
+    private final Map<String, Member> members = new ConcurrentHashMap<>();
+    // 每个设备最近一次读数的数值，接管设备时从这里继续
+    private final Map<String, Double> lastValues = new ConcurrentHashMap<>();
+    private final AtomicLong rebalances = new AtomicLong();
+
+    private volatile DeviceOwnership ownership;
+    private volatile boolean leaving;
+    private long startedAt;
+
+    public DevicePartitioner(ClusterFanout clusterFanout, StreamFanout streamFanout) {
+        this.clusterFanout = clusterFanout;
+        this.streamFanout = streamFanout;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!clusterFanout.isEnabled()) {
+            return;
+        }
+        startedAt = System.currentTimeMillis();
+        streamFanout.addListener(reading -> lastValues.put(reading.data().deviceId(), reading.data().value()));
+        clusterFanout.setControlListener(this::onControl);
+        rebuild();
+        LOG.info("设备分区已启动: 节点={}, 虚拟节点数={}, {}毫秒后参与分配",
+                clusterFanout.getNodeId(), virtualNodes, memberTimeout);
+    }
+
+    /**
+     * 本节点是否负责生成该设备的读数，未启用多实例时总是true
+     */
+    public boolean owns(String deviceId) {
+        DeviceOwnership current = ownership;
+        return current == null || current.owns(deviceId);
+    }
+
+    /**
+     * 设备最近一次读数的数值（可能由其他节点生成），没有时返回fallback
+     */
+    public double lastValue(String deviceId, double fallback) {
+        Double value = lastValues.get(deviceId);
+        return value != null ? value : fallback;
+    }
+
+    /**
+     * Flink数据源查找设备归属所用的名称，未启用多实例时为null
+     */
+    public String getOwnershipChannel() {
+        return ownership != null ? channel : null;
+    }
+
+    @Scheduled(fixedDelayString = "${sensor.cluster.heartbeat-interval:1000}")
+    public void heartbeat() {
+        DeviceOwnership current = ownership;
+        if (current == null || leaving) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        members.entrySet().removeIf(entry -> {
+            boolean expired = now - entry.getValue().lastSeen > memberTimeout;
+            if (expired) {
+                LOG.warn("节点 {} 超过 {} 毫秒未发送心跳，移出哈希环", entry.getKey(), memberTimeout);
+            }
+            return expired;
+        });
+        rebuild();
+        clusterFanout.sendControl(ClusterMessage.heartbeat(clusterFanout.getNodeId(), clusterFanout.getEpoch(),
+                new ArrayList<>(ownership.members())));
+    }
+
+    private void onControl(ClusterMessage message) {
+        if (message.kind() == ClusterMessage.Kind.LEAVE) {
+            if (members.remove(message.node()) != null) {
+                LOG.info("节点 {} 已退出", message.node());
+            }
+        } else {
+            Member member = members.compute(message.node(), (node, existing) ->
+                    existing != null && existing.epoch == message.epoch() ? existing : new Member(message.epoch()));
+            member.view = Set.copyOf(message.members());
+            member.lastSeen = System.currentTimeMillis();
+        }
+        rebuild();
+    }
+
+    /**
+     * 按当前成员重建哈希环和本节点的归属快照，成员集合和参与状态都未变化时保留原快照
+     */
+    private synchronized void rebuild() {
+        String self = clusterFanout.getNodeId();
+        Set<String> nodes = new TreeSet<>(members.keySet());
+        nodes.add(self);
+        boolean active = isReady(self);
+        DeviceOwnership current = ownership;
+        if (current != null && current.members().equals(nodes) && current.isActive() == active) {
+            return;
+        }
+        ConsistentHashRing ring = current != null && current.members().equals(nodes)
+                ? current.ring() : new ConsistentHashRing(nodes, virtualNodes);
+        ownership = new DeviceOwnership(ring, self, active);
+        DeviceOwnership.publish(channel, ownership);
+        if (current != null && !current.members().equals(nodes)) {
+            rebalances.incrementAndGet();
+            LOG.info("哈希环成员变化: {} -> {}", current.members(), nodes);
+        }
+        if (current != null && current.isActive() != active) {
+            LOG.info("本节点{}生成读数，哈希环成员: {}", active ? "开始" : "停止", nodes);
+        }
+    }
+
+    /**
+     * 启动等待期已过、未在退出，且所有节点的心跳都包含本节点
+     */
+    private boolean isReady(String self) {
+        if (leaving || System.currentTimeMillis() - startedAt < memberTimeout) {
+            return false;
+        }
+        for (Member member : members.values()) {
+            if (!member.view.contains(self)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (ownership == null) {
+            return;
+        }
+        leaving = true;
+        rebuild();
+        clusterFanout.sendControl(ClusterMessage.leave(clusterFanout.getNodeId(), clusterFanout.getEpoch()));
+        DeviceOwnership.unregister(channel);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        DeviceOwnership current = ownership;
+        stats.put("enabled", current != null);
+        if (current != null) {
+            stats.put("active", current.isActive());
+            stats.put("members", current.members());
+            stats.put("virtualNodes", virtualNodes);
+            stats.put("rebalances", rebalances.get());
+            stats.put("trackedDevices", lastValues.size());
+            stats.put("ownedDevices", lastValues.keySet().stream().filter(current::owns).count());
+        }
+        return stats;
+    }
+}
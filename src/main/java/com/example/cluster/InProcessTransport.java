@@ -0,0 +1,66 @@
+package com.example.cluster;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 进程内传输：同一JVM中订阅同一主题的节点互相投递，代替外部消息代理，用于单进程内的多节点测试
+ * 投递在发布线程中同步完成
+ */
+public class InProcessTransport implements ClusterTransport {
+
+    private static final Map<String, Set<InProcessTransport>> TOPICS = new ConcurrentHashMap<>();
+
+    private final String topic;
+    private volatile Consumer<ClusterMessage> receiver;
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+
+    public InProcessTransport(String topic) {
+        this.topic = topic;
+    }
+
+    @Override
+    public void start(Consumer<ClusterMessage> receiver) {
+        this.receiver = receiver;
+        TOPICS.computeIfAbsent(topic, key -> ConcurrentHashMap.newKeySet()).add(this);
+    }
+
+    @Override
+    public void publish(ClusterMessage message) {
+        published.incrementAndGet();
+        Set<InProcessTransport> members = TOPICS.get(topic);
+        if (members == null) {
+            return;
+        }
+        for (InProcessTransport member : members) {
+            if (member != this) {
+                member.receiver.accept(message);
+                delivered.incrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        Set<InProcessTransport> members = TOPICS.get(topic);
+        stats.put("topic", topic);
+        stats.put("members", members != null ? members.size() : 0);
+        stats.put("published", published.get());
+        stats.put("delivered", delivered.get());
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        TOPICS.computeIfPresent(topic, (key, members) -> {
+            members.remove(this);
+            return members.isEmpty() ? null : members;
+        });
+    }
+}
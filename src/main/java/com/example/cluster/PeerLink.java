@@ -0,0 +1,147 @@
+package com.example.cluster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 到一个对端的出站连接
+ * 发布线程只把帧放入有界队列，队列满时丢弃新帧并计数；写出线程批量写出，队列空时才刷新，
+ * 连接断开后按退避间隔重连，断开时正在写的帧重连后重发（对端可能已收到，由序号去重）
+ */
+final class PeerLink {
+    private static final Logger LOG = LoggerFactory.getLogger(PeerLink.class);
+
+    private static final long MIN_BACKOFF_MILLIS = 100;
+    private static final long MAX_BACKOFF_MILLIS = 5000;
+    private static final int CONNECT_TIMEOUT_MILLIS = 2000;
+
+    private final InetSocketAddress address;
+    private final BlockingQueue<byte[]> queue;
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong reconnects = new AtomicLong();
+
+    private volatile boolean running;
+    private volatile Socket socket;
+    private Thread writer;
+
+    PeerLink(InetSocketAddress address, int maxQueued) {
+        this.address = address;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, maxQueued));
+    }
+
+    void start() {
+        running = true;
+        writer = new Thread(this::writeLoop, "sensor-cluster-peer-" + address.getPort());
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    void offer(byte[] frame) {
+        if (!queue.offer(frame)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private void writeLoop() {
+        long backoff = MIN_BACKOFF_MILLIS;
+        byte[] frame = null;
+        while (running) {
+            try (Socket connection = new Socket()) {
+                connection.connect(address, CONNECT_TIMEOUT_MILLIS);
+                connection.setTcpNoDelay(true);
+                socket = connection;
+                backoff = MIN_BACKOFF_MILLIS;
+                LOG.info("集群对端已连接: {}", address);
+                OutputStream output = new BufferedOutputStream(connection.getOutputStream(), 64 * 1024);
+                while (running) {
+                    if (frame == null) {
+                        frame = queue.poll();
+                        if (frame == null) {
+                            output.flush();
+                            frame = queue.poll(1, TimeUnit.SECONDS);
+                            if (frame == null) {
+                                continue;
+                            }
+                        }
+                    }
+                    output.write(frame);
+                    frame = null;
+                    sent.incrementAndGet();
+                }
+                output.flush();
+            } catch (IOException e) {
+                if (running) {
+                    if (socket != null) {
+                        LOG.warn("集群对端连接断开 {}: {}", address, e.getMessage());
+                        reconnects.incrementAndGet();
+                    }
+                    sleep(backoff);
+                    backoff = Math.min(MAX_BACKOFF_MILLIS, backoff * 2);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                socket = null;
+            }
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    boolean isConnected() {
+        return socket != null;
+    }
+
+    InetSocketAddress address() {
+        return address;
+    }
+
+    long sent() {
+        return sent.get();
+    }
+
+    long dropped() {
+        return dropped.get();
+    }
+
+    long reconnects() {
+        return reconnects.get();
+    }
+
+    int queued() {
+        return queue.size();
+    }
+
+    void close() {
+        running = false;
+        Socket current = socket;
+        try {
+            if (current != null) {
+                current.close();
+            }
+        } catch (IOException e) {
+            LOG.debug("关闭集群对端连接失败: {}", e.getMessage());
+        }
+        if (writer != null) {
+            writer.interrupt();
+        }
+    }
+}
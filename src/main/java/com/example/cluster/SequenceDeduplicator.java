@@ -0,0 +1,76 @@
+package com.example.cluster;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按来源节点的序号去重
+ * 来源节点的多个发布线程可能让相邻序号乱序到达，因此每个来源保存已接受的最大序号和其下WINDOW个序号的位图（滑动窗口）：
+ * 窗口内已置位或早于窗口的序号视为重复；窗口滑过仍未收到的序号计为缺口（来源节点的发送队列满或连接断开时丢失）
+ */
+final class SequenceDeduplicator {
+
+    static final int WINDOW = 64;
+
+    private record Origin(String node, long epoch) {
+    }
+
+    /**
+     * 位i表示序号highest - i已收到
+     */
+    private static final class Window {
+        long highest;
+        long seen;
+    }
+
+    private final Map<Origin, Window> windows = new ConcurrentHashMap<>();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong gaps = new AtomicLong();
+
+    /**
+     * @return 第一次收到该序号时返回true
+     */
+    boolean accept(String node, long epoch, long sequence) {
+        Window window = windows.computeIfAbsent(new Origin(node, epoch), key -> new Window());
+        synchronized (window) {
+            if (window.highest == 0) {
+                // 节点中途加入：第一条之前的序号视为已收到，不计缺口
+                window.highest = sequence;
+                window.seen = -1L;
+                return true;
+            }
+            long shift = sequence - window.highest;
+            if (shift > 0) {
+                if (shift >= WINDOW) {
+                    gaps.addAndGet(WINDOW - Long.bitCount(window.seen) + shift - WINDOW);
+                    window.seen = 1L;
+                } else {
+                    gaps.addAndGet(shift - Long.bitCount(window.seen >>> (WINDOW - shift)));
+                    window.seen = (window.seen << shift) | 1L;
+                }
+                window.highest = sequence;
+                return true;
+            }
+            long bit = -shift;
+            if (bit >= WINDOW || (window.seen & (1L << bit)) != 0) {
+                duplicates.incrementAndGet();
+                return false;
+            }
+            window.seen |= 1L << bit;
+            return true;
+        }
+    }
+
+    int origins() {
+        return windows.size();
+    }
+
+    long duplicates() {
+        return duplicates.get();
+    }
+
+    long gaps() {
+        return gaps.get();
+    }
+}
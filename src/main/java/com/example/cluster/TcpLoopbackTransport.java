@@ -0,0 +1,182 @@
+package com.example.cluster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * TCP传输：节点两两直连（全连接），每个节点监听一个端口接收对端的帧，并为每个对端维护一条出站连接
+ * 不依赖外部消息代理，同一主机上的多个JVM用不同端口即可组成集群；每条读数只编码一次，同一帧写给所有对端
+ */
+public class TcpLoopbackTransport implements ClusterTransport {
+    private static final Logger LOG = LoggerFactory.getLogger(TcpLoopbackTransport.class);
+
+    private final String bindAddress;
+    private final int port;
+    private final int maxQueued;
+    private final List<PeerLink> peers = new CopyOnWriteArrayList<>();
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicLong received = new AtomicLong();
+
+    private volatile boolean running;
+    private ServerSocket serverSocket;
+    private Consumer<ClusterMessage> receiver;
+
+    /**
+     * @param port 监听端口，0表示随机端口
+     * @param maxQueued 每个对端的发送队列容量（帧）
+     */
+    public TcpLoopbackTransport(String bindAddress, int port, int maxQueued) {
+        this.bindAddress = bindAddress;
+        this.port = port;
+        this.maxQueued = maxQueued;
+    }
+
+    /**
+     * 解析对端列表，格式为逗号分隔的host:port
+     */
+    public static List<InetSocketAddress> parsePeers(String peers) {
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        if (peers == null || peers.isBlank()) {
+            return addresses;
+        }
+        for (String peer : peers.split(",")) {
+            String trimmed = peer.trim();
+            int colon = trimmed.lastIndexOf(':');
+            if (colon <= 0 || colon == trimmed.length() - 1) {
+                throw new IllegalArgumentException("无效的对端地址: " + trimmed);
+            }
+            addresses.add(InetSocketAddress.createUnresolved(trimmed.substring(0, colon),
+                    Integer.parseInt(trimmed.substring(colon + 1))));
+        }
+        return addresses;
+    }
+
+    @Override
+    public void start(Consumer<ClusterMessage> receiver) throws IOException {
+        this.receiver = receiver;
+        serverSocket = new ServerSocket();
+        serverSocket.bind(new InetSocketAddress(bindAddress, port));
+        running = true;
+
+        Thread acceptor = new Thread(this::acceptLoop, "sensor-cluster-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        LOG.info("集群TCP传输已启动: {}:{}", bindAddress, serverSocket.getLocalPort());
+    }
+
+    /**
+     * 添加对端，出站连接在后台建立，对端未启动时按退避间隔重试
+     */
+    public void addPeer(InetSocketAddress address) {
+        PeerLink link = new PeerLink(address.isUnresolved()
+                ? new InetSocketAddress(address.getHostString(), address.getPort()) : address, maxQueued);
+        peers.add(link);
+        link.start();
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.add(socket);
+                Thread reader = new Thread(() -> readLoop(socket), "sensor-cluster-reader-" + socket.getPort());
+                reader.setDaemon(true);
+                reader.start();
+                LOG.info("集群入站连接已建立: {}", socket.getRemoteSocketAddress());
+            } catch (IOException e) {
+                if (running) {
+                    LOG.warn("接受集群连接失败: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void readLoop(Socket socket) {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 64 * 1024))) {
+            while (running) {
+                ClusterMessage message = ClusterMessage.read(input);
+                received.incrementAndGet();
+                receiver.accept(message);
+            }
+        } catch (EOFException e) {
+            LOG.info("集群入站连接已关闭: {}", socket.getRemoteSocketAddress());
+        } catch (IOException | IllegalArgumentException e) {
+            if (running) {
+                LOG.warn("集群连接读取失败 {}: {}", socket.getRemoteSocketAddress(), e.getMessage());
+            }
+        } finally {
+            connections.remove(socket);
+        }
+    }
+
+    @Override
+    public void publish(ClusterMessage message) {
+        if (peers.isEmpty()) {
+            return;
+        }
+        byte[] frame = message.encode();
+        for (PeerLink peer : peers) {
+            peer.offer(frame);
+        }
+    }
+
+    public int getLocalPort() {
+        return serverSocket != null ? serverSocket.getLocalPort() : -1;
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        List<Map<String, Object>> peerStats = new ArrayList<>();
+        for (PeerLink peer : peers) {
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("address", peer.address().getHostString() + ":" + peer.address().getPort());
+            entry.put("connected", peer.isConnected());
+            entry.put("sent", peer.sent());
+            entry.put("dropped", peer.dropped());
+            entry.put("queued", peer.queued());
+            entry.put("reconnects", peer.reconnects());
+            peerStats.add(entry);
+        }
+        stats.put("port", getLocalPort());
+        stats.put("peers", peerStats);
+        stats.put("inboundConnections", connections.size());
+        stats.put("received", received.get());
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        for (PeerLink peer : peers) {
+            peer.close();
+        }
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+            for (Socket socket : connections) {
+                socket.close();
+            }
+        } catch (IOException e) {
+            LOG.warn("关闭集群TCP传输失败: {}", e.getMessage());
+        }
+    }
+}
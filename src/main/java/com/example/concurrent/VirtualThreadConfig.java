@@ -0,0 +1,30 @@
+package com.example.concurrent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 虚拟线程模式（sensor.threads.virtual=true，需要JDK 21+）
+ * Tomcat的请求处理（REST、Actuator、WebSocket握手和入站消息）改为每个请求一个虚拟线程；
+ * WebSocket写出线程和HTTP推送线程由各自的组件按同一属性切换
+ */
+@Configuration
+@ConditionalOnProperty(name = "sensor.threads.virtual", havingValue = "true")
+public class VirtualThreadConfig {
+    private static final Logger LOG = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        if (!VirtualThreads.available()) {
+            LOG.warn("已配置虚拟线程模式，但当前JDK {} 不支持虚拟线程，继续使用平台线程",
+                    System.getProperty("java.version"));
+            return protocolHandler -> { };
+        }
+        LOG.info("虚拟线程模式已启用：Tomcat请求处理、WebSocket写出和HTTP推送使用虚拟线程");
+        return protocolHandler -> protocolHandler.setExecutor(VirtualThreads.newExecutor("tomcat-handler-"));
+    }
+}
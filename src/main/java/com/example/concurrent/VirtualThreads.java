@@ -0,0 +1,83 @@
+package com.example.concurrent;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 虚拟线程的反射入口
+ * 应用按Java 17编译，JDK 21+上运行时通过反射使用Thread.ofVirtual()；更低版本上{@link #available()}返回false，
+ * 调用方回退到平台线程
+ */
+public final class VirtualThreads {
+
+    private static final Method OF_VIRTUAL;
+    private static final Method NAME;
+    private static final Method FACTORY;
+    private static final Method PER_TASK_EXECUTOR;
+
+    static {
+        Method ofVirtual = null;
+        Method name = null;
+        Method factory = null;
+        Method perTaskExecutor = null;
+        try {
+            // JDK 19/20中虚拟线程是预览特性，不启用预览时调用会失败
+            if (Runtime.version().feature() < 21) {
+                throw new NoSuchMethodException("Thread.ofVirtual");
+            }
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            name = builder.getMethod("name", String.class, long.class);
+            factory = builder.getMethod("factory");
+            perTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+        } catch (ReflectiveOperationException e) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+        PER_TASK_EXECUTOR = perTaskExecutor;
+    }
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * 当前JDK是否支持虚拟线程
+     */
+    public static boolean available() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * 创建虚拟线程工厂，线程名为prefix加序号
+     *
+     * @throws IllegalStateException 当前JDK不支持虚拟线程
+     */
+    public static ThreadFactory newThreadFactory(String prefix) {
+        if (!available()) {
+            throw new IllegalStateException("当前JDK不支持虚拟线程: " + System.getProperty("java.version"));
+        }
+        try {
+            Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), prefix, 0L);
+            return (ThreadFactory) FACTORY.invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("无法创建虚拟线程工厂", e);
+        }
+    }
+
+    /**
+     * 创建每个任务一个虚拟线程的执行器
+     *
+     * @throws IllegalStateException 当前JDK不支持虚拟线程
+     */
+    public static ExecutorService newExecutor(String prefix) {
+        try {
+            return (ExecutorService) PER_TASK_EXECUTOR.invoke(null, newThreadFactory(prefix));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("无法创建虚拟线程执行器", e);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.controller;
+
+import com.example.SensorType;
+import com.example.fleet.FleetQuery;
+import com.example.fleet.FleetQueryEngine;
+import com.example.fleet.FleetResult;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 跨设备查询API
+ */
+@RestController
+@RequestMapping("/api/fleet")
+public class FleetController {
+
+    private final FleetQueryEngine engine;
+
+    public FleetController(FleetQueryEngine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * 在全部设备上过滤、分组汇总并返回Top-K，例如最近一小时最高温度最高的20个设备：
+     * /api/fleet/query?metric=max&window=3600000&type=temperature&limit=20
+     *
+     * @param metric 设备指标：latest（默认）、min、max、avg、count
+     * @param window 时间窗口（毫秒），默认0只看最新读数
+     * @param type 传感器类型，可重复，默认不限
+     * @param prefix 设备ID前缀
+     * @param min 指标下限
+     * @param max 指标上限
+     * @param groupBy none（默认）或type
+     * @param limit 返回的设备数
+     * @param order desc（默认）返回指标最高的设备，asc返回最低的
+     */
+    @GetMapping("/query")
+    public ResponseEntity<FleetResult> query(@RequestParam(defaultValue = "latest") String metric,
+                                             @RequestParam(defaultValue = "0") long window,
+                                             @RequestParam(required = false) List<String> type,
+                                             @RequestParam(required = false) String prefix,
+                                             @RequestParam(required = false) Double min,
+                                             @RequestParam(required = false) Double max,
+                                             @RequestParam(defaultValue = "none") String groupBy,
+                                             @RequestParam(defaultValue = "20") int limit,
+                                             @RequestParam(defaultValue = "desc") String order) {
+        if (window < 0 || limit < 0 || !("none".equals(groupBy) || "type".equals(groupBy))
+                || !("desc".equals(order) || "asc".equals(order))) {
+            return ResponseEntity.badRequest().build();
+        }
+        FleetQuery.Metric parsed;
+        try {
+            parsed = FleetQuery.Metric.parse(metric);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (parsed != FleetQuery.Metric.LATEST && window == 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        Set<SensorType> types = EnumSet.noneOf(SensorType.class);
+        if (type != null) {
+            for (String label : type) {
+                SensorType sensorType = SensorType.fromLabel(label);
+                // fromLabel把未知名称归为GENERIC，这里要求名称精确匹配
+                if (!sensorType.label().equalsIgnoreCase(label)) {
+                    return ResponseEntity.badRequest().build();
+                }
+                types.add(sensorType);
+            }
+        }
+        FleetQuery query = new FleetQuery(parsed, window, types, prefix, min, max, "type".equals(groupBy), limit,
+                "asc".equals(order));
+        return ResponseEntity.ok(engine.execute(query));
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.controller;
+
+import com.example.SensorData;
+import com.example.ingest.IngestLimiter;
+import com.example.ingest.IngestService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 设备上报读数的API
+ * 请求体为一条读数或读数数组（字段与推送的读数相同，timestamp可省略），经过按设备和全局的限速后进入处理队列
+ */
+@RestController
+@RequestMapping("/api/ingest")
+public class IngestController {
+
+    private final IngestService ingestService;
+    private final ObjectMapper objectMapper;
+
+    public IngestController(IngestService ingestService, ObjectMapper objectMapper) {
+        this.ingestService = ingestService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 上报读数
+     *
+     * @return 202及准入和拒绝的条数；全部未通过校验（设备ID为空或过长、数值不是有限数）时返回400；
+     * 全部被拒绝时返回429，Retry-After为设备令牌补充的间隔
+     */
+    @PostMapping
+    public ResponseEntity<IngestService.IngestResult> ingest(@RequestBody JsonNode body) {
+        List<SensorData> readings = new ArrayList<>();
+        try {
+            if (body.isArray()) {
+                if (body.size() > ingestService.getMaxBatch()) {
+                    return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+                }
+                for (JsonNode element : body) {
+                    readings.add(objectMapper.treeToValue(element, SensorData.class));
+                }
+            } else {
+                readings.add(objectMapper.treeToValue(body, SensorData.class));
+            }
+        } catch (JsonProcessingException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (readings.isEmpty() || readings.contains(null)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        IngestService.IngestResult result = ingestService.ingest(readings);
+        Integer invalid = result.rejectedByReason().get(IngestLimiter.Decision.INVALID.label());
+        if (invalid != null && invalid == readings.size()) {
+            return ResponseEntity.badRequest().body(result);
+        }
+        if (result.accepted() == 0) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(ingestService.getRetryAfterSeconds()))
+                    .body(result);
+        }
+        return ResponseEntity.accepted().body(result);
+    }
+}
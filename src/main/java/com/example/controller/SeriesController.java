@@ -0,0 +1,93 @@
+package com.example.controller;
+
+import com.example.history.Downsampler;
+import com.example.history.SeriesResult;
+import com.example.history.TimeSeriesStore;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 历史时间序列查询API
+ */
+@RestController
+@RequestMapping("/api/series")
+public class SeriesController {
+
+    // 未指定起始时间时默认查询最近一小时
+    private static final long DEFAULT_RANGE_MS = TimeUnit.HOURS.toMillis(1);
+
+    private final TimeSeriesStore store;
+
+    public SeriesController(TimeSeriesStore store) {
+        this.store = store;
+    }
+
+    /**
+     * 有历史数据的设备列表
+     */
+    @GetMapping
+    public ResponseEntity<Set<String>> devices() {
+        return ResponseEntity.ok(store.getDeviceIds());
+    }
+
+    /**
+     * 查询设备在[from, to]内的读数
+     *
+     * @param from 起始时间（毫秒），默认为to之前一小时
+     * @param to 结束时间（毫秒），默认为当前时间
+     * @param step 聚合步长（毫秒），默认0返回原始点；大于0时从不超过步长的最粗预聚合层级读取，
+     *             返回每个桶的min/max/平均值/点数，实际步长见结果中的step
+     */
+    @GetMapping("/{deviceId}")
+    public ResponseEntity<SeriesResult> series(@PathVariable String deviceId,
+                                               @RequestParam(required = false) Long from,
+                                               @RequestParam(required = false) Long to,
+                                               @RequestParam(defaultValue = "0") long step) {
+        long end = to != null ? to : System.currentTimeMillis();
+        long start = from != null ? from : end - DEFAULT_RANGE_MS;
+        if (start > end || step < 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        SeriesResult result = store.query(deviceId, start, end, step);
+        if (result == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * 按图表宽度降采样查询，返回的点数不超过width * pointsPerPixel，与时间范围无关
+     *
+     * @param width 图表宽度（像素）
+     * @param pointsPerPixel 每像素点数
+     * @param algorithm lttb（默认）或m4
+     */
+    @GetMapping("/{deviceId}/downsample")
+    public ResponseEntity<SeriesResult> downsample(@PathVariable String deviceId,
+                                                   @RequestParam(required = false) Long from,
+                                                   @RequestParam(required = false) Long to,
+                                                   @RequestParam(defaultValue = "800") int width,
+                                                   @RequestParam(defaultValue = "1") double pointsPerPixel,
+                                                   @RequestParam(defaultValue = "lttb") String algorithm) {
+        long end = to != null ? to : System.currentTimeMillis();
+        long start = from != null ? from : end - DEFAULT_RANGE_MS;
+        int targetPoints = (int) Math.min(Integer.MAX_VALUE, Math.round(width * pointsPerPixel));
+        if (start > end || width <= 0 || pointsPerPixel <= 0 || targetPoints <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        Downsampler.Algorithm parsed;
+        try {
+            parsed = Downsampler.Algorithm.parse(algorithm);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        SeriesResult result = store.downsample(deviceId, start, end, targetPoints, parsed);
+        if (result == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(result);
+    }
+}
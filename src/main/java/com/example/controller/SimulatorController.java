@@ -1,5 +1,6 @@
 package com.example.controller;
 
+import com.example.bridge.SensorBridgeConsumer;
 import com.example.simulator.SensorDataSimulator;
 import com.example.websocket.SensorWebSocketHandler;
 import org.springframework.http.ResponseEntity;
@@ -17,10 +18,13 @@ public class SimulatorController {
 
     private final SensorDataSimulator simulator;
     private final SensorWebSocketHandler webSocketHandler;
+    private final SensorBridgeConsumer bridgeConsumer;
 
-    public SimulatorController(SensorDataSimulator simulator, SensorWebSocketHandler webSocketHandler) {
+    public SimulatorController(SensorDataSimulator simulator, SensorWebSocketHandler webSocketHandler,
+                               SensorBridgeConsumer bridgeConsumer) {
         this.simulator = simulator;
         this.webSocketHandler = webSocketHandler;
+        this.bridgeConsumer = bridgeConsumer;
     }
 
     /**
@@ -31,6 +35,7 @@ public class SimulatorController {
         Map<String, Object> status = new HashMap<>();
         status.put("simulator", simulator.getStatus());
         status.put("websocket", webSocketHandler.getConnectionStats());
+        status.put("bridge", bridgeConsumer.getStats());
         return ResponseEntity.ok(status);
     }
 
@@ -0,0 +1,69 @@
+package com.example.controller;
+
+import com.example.stream.StreamFanout;
+import com.example.stream.SubscriptionFilter;
+import com.example.websocket.DeflateCodec;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 实时数据流的长轮询接口，与SSE（/api/stream/sse）使用相同的订阅参数；另提供WebSocket压缩批量推送的预置字典
+ * 依赖Servlet异步请求，只在Servlet服务端上提供
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/stream")
+public class StreamController {
+
+    private final StreamFanout fanout;
+
+    public StreamController(StreamFanout fanout) {
+        this.fanout = fanout;
+    }
+
+    /**
+     * 返回since之后的读数；暂时没有时挂起到有新读数或超时，超时返回空列表
+     *
+     * @param since 上次应答中的sequence，首次请求省略
+     * @param timeout 最长等待时间（毫秒）
+     */
+    @GetMapping("/poll")
+    public DeferredResult<ResponseEntity<byte[]>> poll(@RequestParam(required = false) Long since,
+                                                       @RequestParam(required = false) List<String> type,
+                                                       @RequestParam(required = false) List<String> device,
+                                                       @RequestParam(required = false) String prefix,
+                                                       @RequestParam(defaultValue = "${sensor.stream.poll.timeout:25000}") long timeout) {
+        SubscriptionFilter filter;
+        try {
+            filter = SubscriptionFilter.of(type, device, prefix);
+        } catch (IllegalArgumentException e) {
+            DeferredResult<ResponseEntity<byte[]>> result = new DeferredResult<>();
+            result.setResult(ResponseEntity.badRequest().build());
+            return result;
+        }
+        if (timeout <= 0 || (since != null && since < 0)) {
+            DeferredResult<ResponseEntity<byte[]>> result = new DeferredResult<>();
+            result.setResult(ResponseEntity.badRequest().build());
+            return result;
+        }
+        return fanout.poll(since, filter, timeout);
+    }
+
+    /**
+     * WebSocket压缩批量推送（encoding=deflate）使用的预置字典，客户端解压前需先设置该字典
+     */
+    @GetMapping("/dictionary")
+    public ResponseEntity<byte[]> dictionary() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .cacheControl(CacheControl.maxAge(1, TimeUnit.DAYS))
+                .body(DeflateCodec.dictionary());
+    }
+}
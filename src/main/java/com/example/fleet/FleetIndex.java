@@ -0,0 +1,103 @@
+package com.example.fleet;
+
+import com.example.SensorData;
+import com.example.SensorType;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 全部设备的列式索引，为跨设备查询提供连续的原始类型数组
+ * 每个设备分配一个固定槽位，类型、最新值和最新时间戳按槽位保存在并列数组中
+ * 写入只在新设备注册时加锁，查询读取数组快照，不阻塞写入
+ */
+@Component
+public class FleetIndex {
+
+    /**
+     * 按槽位保存的列，扩容时整体替换
+     */
+    static final class Columns {
+        final String[] deviceIds;
+        final byte[] types;
+        final double[] values;
+        final long[] timestamps;
+
+        Columns(int capacity) {
+            this(new String[capacity], new byte[capacity], new double[capacity], new long[capacity]);
+        }
+
+        private Columns(String[] deviceIds, byte[] types, double[] values, long[] timestamps) {
+            this.deviceIds = deviceIds;
+            this.types = types;
+            this.values = values;
+            this.timestamps = timestamps;
+        }
+
+        int capacity() {
+            return deviceIds.length;
+        }
+
+        Columns grow() {
+            int capacity = capacity() * 2;
+            return new Columns(Arrays.copyOf(deviceIds, capacity), Arrays.copyOf(types, capacity),
+                    Arrays.copyOf(values, capacity), Arrays.copyOf(timestamps, capacity));
+        }
+    }
+
+    private final Map<String, Integer> slots = new ConcurrentHashMap<>();
+    private volatile Columns columns = new Columns(1024);
+    // 先发布columns再增加size，读取时先读size，保证快照的容量不小于size
+    private volatile int size;
+
+    /**
+     * 记录设备的最新读数
+     * 扩容复制期间写入旧数组的读数会丢失，由该设备的下一条读数纠正
+     */
+    public void update(SensorData sensorData) {
+        Integer slot = slots.get(sensorData.deviceId());
+        if (slot == null) {
+            slot = register(sensorData.deviceId());
+        }
+        Columns current = columns;
+        current.types[slot] = sensorData.type().code();
+        current.values[slot] = sensorData.value();
+        current.timestamps[slot] = sensorData.timestamp();
+    }
+
+    private synchronized int register(String deviceId) {
+        Integer existing = slots.get(deviceId);
+        if (existing != null) {
+            return existing;
+        }
+        int slot = size;
+        if (slot == columns.capacity()) {
+            columns = columns.grow();
+        }
+        columns.deviceIds[slot] = deviceId;
+        columns.timestamps[slot] = Long.MIN_VALUE;
+        slots.put(deviceId, slot);
+        size = slot + 1;
+        return slot;
+    }
+
+    /**
+     * 当前已注册的设备数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 读取查询用的快照，槽位[0, size)有效
+     */
+    Columns columns() {
+        return columns;
+    }
+
+    static SensorType typeOf(Columns columns, int slot) {
+        return SensorType.fromCode(columns.types[slot]);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.fleet;
+
+import com.example.SensorType;
+
+import java.util.Set;
+
+/**
+ * 跨设备查询条件
+ *
+ * @param metric 每个设备参与过滤和排序的指标
+ * @param window 时间窗口（毫秒），0表示只看最新读数
+ * @param types 只统计这些类型的设备，为空时不限类型
+ * @param devicePrefix 设备ID前缀，为null时不限
+ * @param minValue 指标下限（含），为null时不限
+ * @param maxValue 指标上限（含），为null时不限
+ * @param groupByType 是否按传感器类型分组汇总
+ * @param limit 返回指标最高（或最低）的设备数，0表示不返回设备列表
+ * @param ascending 为true时返回指标最低的设备
+ */
+public record FleetQuery(Metric metric, long window, Set<SensorType> types, String devicePrefix,
+                         Double minValue, Double maxValue, boolean groupByType, int limit, boolean ascending) {
+
+    /**
+     * 设备级指标，由窗口汇总（最小值、最大值、总和、点数）计算
+     */
+    public enum Metric {
+        LATEST, MIN, MAX, AVG, COUNT;
+
+        public static Metric parse(String name) {
+            return name == null ? LATEST : valueOf(name.trim().toUpperCase());
+        }
+
+        /**
+         * @param stats [0]最小值 [1]最大值 [2]总和 [3]点数
+         * @param latest 设备的最新读数
+         */
+        double of(double[] stats, double latest) {
+            switch (this) {
+                case MIN:
+                    return stats[0];
+                case MAX:
+                    return stats[1];
+                case AVG:
+                    return stats[2] / stats[3];
+                case COUNT:
+                    return stats[3];
+                default:
+                    return latest;
+            }
+        }
+
+        public String label() {
+            return name().toLowerCase();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.fleet;
+
+import com.example.SensorType;
+import com.example.history.QueryPlanner;
+import com.example.history.TimeSeriesStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 跨设备查询引擎：过滤、按类型分组汇总和Top-K
+ * 在{@link FleetIndex}的数组快照上按槽位分片，用独立的ForkJoinPool并行扫描，不占用公共池，也不阻塞写入；
+ * 时间窗口内的统计从历史存储的预聚合层级读取，每个设备只访问窗口覆盖的桶
+ */
+@Component
+public class FleetQueryEngine {
+    private static final Logger LOG = LoggerFactory.getLogger(FleetQueryEngine.class);
+
+    private final FleetIndex index;
+    private final TimeSeriesStore timeSeriesStore;
+
+    // 并行度，0表示使用CPU核数
+    @Value("${sensor.fleet.parallelism:0}")
+    private int parallelism;
+
+    // 每个扫描分片的设备数
+    @Value("${sensor.fleet.shard-size:4096}")
+    private int shardSize;
+
+    // 单次查询返回的最大设备数
+    @Value("${sensor.fleet.max-limit:1000}")
+    private int maxLimit;
+
+    private ForkJoinPool pool;
+
+    public FleetQueryEngine(FleetIndex index, TimeSeriesStore timeSeriesStore) {
+        this.index = index;
+        this.timeSeriesStore = timeSeriesStore;
+    }
+
+    @PostConstruct
+    public void start() {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        pool = new ForkJoinPool(threads);
+        LOG.info("跨设备查询引擎已启动 (并行度: {}, 分片大小: {})", threads, shardSize);
+    }
+
+    @PreDestroy
+    public void stop() {
+        pool.shutdownNow();
+    }
+
+    public FleetResult execute(FleetQuery query) {
+        long started = System.nanoTime();
+        long to = System.currentTimeMillis();
+        FleetQuery bounded = query.limit() > maxLimit ? withLimit(query, maxLimit) : query;
+
+        FleetScan.Summarizer summarizer = null;
+        String resolution = "latest";
+        long from = 0;
+        if (bounded.window() > 0) {
+            from = to - bounded.window();
+            QueryPlanner.Plan plan = timeSeriesStore.planWindow(from, to);
+            long windowStart = from;
+            summarizer = (deviceId, stats) -> timeSeriesStore.summarize(deviceId, plan, windowStart, to, stats);
+            resolution = plan.resolution();
+        }
+        return run(pool, index, bounded, from, to, summarizer, shardSize, resolution, started);
+    }
+
+    /**
+     * 在给定的池上执行查询并组装结果
+     */
+    static FleetResult run(ForkJoinPool pool, FleetIndex index, FleetQuery query, long from, long to,
+                           FleetScan.Summarizer summarizer, int shardSize, String resolution, long started) {
+        int size = index.size();
+        FleetIndex.Columns columns = index.columns();
+        FleetScan.Partial partial = pool.invoke(new FleetScan(query, columns, typeMask(query), from, summarizer,
+                Math.max(1, shardSize), 0, size));
+
+        List<FleetResult.Group> groups = new ArrayList<>();
+        for (int group = 0; group < partial.devices.length; group++) {
+            if (partial.devices[group] == 0) {
+                continue;
+            }
+            String key = query.groupByType() ? SensorType.fromCode(group).label() : "all";
+            groups.add(new FleetResult.Group(key, partial.devices[group], partial.readings[group],
+                    partial.mins[group], partial.maxs[group], partial.sums[group] / partial.readings[group]));
+        }
+
+        List<FleetResult.Device> top = new ArrayList<>();
+        double[] keys = new double[partial.top.size()];
+        int[] slots = partial.top.drainDescending(keys);
+        for (int i = 0; i < slots.length; i++) {
+            int slot = slots[i];
+            // 升序查询时堆中保存的是指标的相反数
+            double value = query.ascending() ? -keys[i] : keys[i];
+            top.add(new FleetResult.Device(columns.deviceIds[slot], FleetIndex.typeOf(columns, slot).label(), value,
+                    columns.values[slot], columns.timestamps[slot]));
+        }
+        long elapsedMicros = (System.nanoTime() - started) / 1000;
+        return new FleetResult(query.metric().label(), query.window(), from, to, size, partial.matched,
+                resolution, elapsedMicros, groups, top);
+    }
+
+    private static boolean[] typeMask(FleetQuery query) {
+        if (query.types() == null || query.types().isEmpty()) {
+            return null;
+        }
+        boolean[] mask = new boolean[SensorType.values().length];
+        for (SensorType type : query.types()) {
+            mask[type.code()] = true;
+        }
+        return mask;
+    }
+
+    private static FleetQuery withLimit(FleetQuery query, int limit) {
+        return new FleetQuery(query.metric(), query.window(), query.types(), query.devicePrefix(),
+                query.minValue(), query.maxValue(), query.groupByType(), limit, query.ascending());
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.fleet;
+
+import java.util.List;
+
+/**
+ * 跨设备查询结果
+ *
+ * @param metric 排序和过滤使用的指标
+ * @param scannedDevices 参与扫描的设备数
+ * @param matchedDevices 满足全部条件的设备数
+ * @param resolution 窗口汇总的数据来源（latest/raw/10s/1m/1h）
+ * @param elapsedMicros 查询耗时（微秒）
+ * @param groups 分组汇总，未分组时只有一个all组
+ * @param top 指标最高（或最低）的设备，按指标排序
+ */
+public record FleetResult(String metric, long window, long from, long to, int scannedDevices, long matchedDevices,
+                          String resolution, long elapsedMicros, List<Group> groups, List<Device> top) {
+
+    /**
+     * @param devices 组内满足条件的设备数
+     * @param readings 组内窗口中的读数总数
+     * @param min 组内读数的最小值
+     * @param max 组内读数的最大值
+     * @param avg 组内读数的平均值
+     */
+    public record Group(String key, long devices, long readings, double min, double max, double avg) {
+    }
+
+    /**
+     * @param value 设备的指标值
+     * @param latest 设备的最新读数
+     * @param timestamp 最新读数的时间戳
+     */
+    public record Device(String deviceId, String type, double value, double latest, long timestamp) {
+    }
+}
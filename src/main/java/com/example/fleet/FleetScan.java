@@ -0,0 +1,153 @@
+package com.example.fleet;
+
+import com.example.SensorType;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 跨设备查询的分片扫描任务，按槽位区间二分直到不超过分片大小
+ * 每个分片在原始类型数组上累加分组汇总并维护自己的Top-K堆，合并时逐层归并，扫描期间不共享可变状态
+ */
+final class FleetScan extends RecursiveTask<FleetScan.Partial> {
+
+    /**
+     * 设备窗口汇总的来源
+     */
+    @FunctionalInterface
+    interface Summarizer {
+        /**
+         * @param stats 输出：[0]最小值 [1]最大值 [2]总和 [3]点数
+         * @return 窗口内没有读数时返回false
+         */
+        boolean summarize(String deviceId, double[] stats);
+    }
+
+    /**
+     * 一个分片的扫描结果，分组下标为类型编码，未分组时只有下标0
+     */
+    static final class Partial {
+        final long[] devices;
+        final long[] readings;
+        final double[] sums;
+        final double[] mins;
+        final double[] maxs;
+        final TopK top;
+        long matched;
+
+        Partial(int groups, int limit) {
+            devices = new long[groups];
+            readings = new long[groups];
+            sums = new double[groups];
+            mins = new double[groups];
+            maxs = new double[groups];
+            Arrays.fill(mins, Double.POSITIVE_INFINITY);
+            Arrays.fill(maxs, Double.NEGATIVE_INFINITY);
+            top = new TopK(limit);
+        }
+
+        void add(int group, double[] stats) {
+            devices[group]++;
+            readings[group] += (long) stats[3];
+            sums[group] += stats[2];
+            mins[group] = Math.min(mins[group], stats[0]);
+            maxs[group] = Math.max(maxs[group], stats[1]);
+            matched++;
+        }
+
+        Partial merge(Partial other) {
+            for (int group = 0; group < devices.length; group++) {
+                devices[group] += other.devices[group];
+                readings[group] += other.readings[group];
+                sums[group] += other.sums[group];
+                mins[group] = Math.min(mins[group], other.mins[group]);
+                maxs[group] = Math.max(maxs[group], other.maxs[group]);
+            }
+            matched += other.matched;
+            top.merge(other.top);
+            return this;
+        }
+    }
+
+    private final FleetQuery query;
+    private final FleetIndex.Columns columns;
+    private final boolean[] typeMask;
+    private final long from;
+    private final Summarizer summarizer;
+    private final int shardSize;
+    private final int start;
+    private final int end;
+
+    /**
+     * @param typeMask 按类型编码的过滤掩码，为null时不限类型
+     * @param summarizer 窗口汇总来源，为null时使用最新读数
+     */
+    FleetScan(FleetQuery query, FleetIndex.Columns columns, boolean[] typeMask, long from, Summarizer summarizer,
+              int shardSize, int start, int end) {
+        this.query = query;
+        this.columns = columns;
+        this.typeMask = typeMask;
+        this.from = from;
+        this.summarizer = summarizer;
+        this.shardSize = shardSize;
+        this.start = start;
+        this.end = end;
+    }
+
+    static int groupCount(FleetQuery query) {
+        return query.groupByType() ? SensorType.values().length : 1;
+    }
+
+    @Override
+    protected Partial compute() {
+        if (end - start <= shardSize) {
+            return scan();
+        }
+        int middle = (start + end) >>> 1;
+        FleetScan left = new FleetScan(query, columns, typeMask, from, summarizer, shardSize, start, middle);
+        FleetScan right = new FleetScan(query, columns, typeMask, from, summarizer, shardSize, middle, end);
+        left.fork();
+        Partial partial = right.compute();
+        return left.join().merge(partial);
+    }
+
+    private Partial scan() {
+        Partial partial = new Partial(groupCount(query), query.limit());
+        double[] stats = new double[4];
+        String prefix = query.devicePrefix();
+        Double minValue = query.minValue();
+        Double maxValue = query.maxValue();
+        boolean negate = query.ascending();
+        for (int slot = start; slot < end; slot++) {
+            int type = columns.types[slot];
+            if (typeMask != null && !typeMask[type]) {
+                continue;
+            }
+            // 最新读数早于窗口起点的设备窗口内不会有读数，不必访问历史存储
+            long timestamp = columns.timestamps[slot];
+            if (timestamp < from) {
+                continue;
+            }
+            String deviceId = columns.deviceIds[slot];
+            if (prefix != null && !deviceId.startsWith(prefix)) {
+                continue;
+            }
+            double latest = columns.values[slot];
+            if (summarizer == null) {
+                stats[0] = latest;
+                stats[1] = latest;
+                stats[2] = latest;
+                stats[3] = 1;
+            } else if (!summarizer.summarize(deviceId, stats)) {
+                continue;
+            }
+            double value = query.metric().of(stats, latest);
+            if ((minValue != null && value < minValue) || (maxValue != null && value > maxValue)) {
+                continue;
+            }
+            partial.add(query.groupByType() ? type : 0, stats);
+            partial.top.offer(negate ? -value : value, slot);
+        }
+        return partial;
+    }
+}
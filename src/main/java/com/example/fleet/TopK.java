@@ -0,0 +1,94 @@
+package com.example.fleet;
+
+/**
+ * 保留键最大的k个槽位的小顶堆，键和槽位保存在原始类型数组中
+ * 堆满后新键不大于堆顶时直接返回，绝大多数设备只需一次比较
+ */
+final class TopK {
+    private final double[] keys;
+    private final int[] slots;
+    private int size;
+
+    TopK(int k) {
+        this.keys = new double[k];
+        this.slots = new int[k];
+    }
+
+    void offer(double key, int slot) {
+        if (keys.length == 0 || Double.isNaN(key)) {
+            return;
+        }
+        if (size < keys.length) {
+            keys[size] = key;
+            slots[size] = slot;
+            siftUp(size++);
+        } else if (key > keys[0]) {
+            keys[0] = key;
+            slots[0] = slot;
+            siftDown(0);
+        }
+    }
+
+    void merge(TopK other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.keys[i], other.slots[i]);
+        }
+    }
+
+    /**
+     * 按键从大到小输出槽位，会清空堆
+     *
+     * @param sortedKeys 输出与槽位对应的键，长度不小于{@link #size()}
+     */
+    int[] drainDescending(double[] sortedKeys) {
+        int[] sorted = new int[size];
+        for (int i = size - 1; i >= 0; i--) {
+            sorted[i] = slots[0];
+            sortedKeys[i] = keys[0];
+            size--;
+            keys[0] = keys[size];
+            slots[0] = slots[size];
+            siftDown(0);
+        }
+        return sorted;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (keys[parent] <= keys[index]) {
+                return;
+            }
+            swap(parent, index);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= size) {
+                return;
+            }
+            int smallest = left + 1 < size && keys[left + 1] < keys[left] ? left + 1 : left;
+            if (keys[index] <= keys[smallest]) {
+                return;
+            }
+            swap(index, smallest);
+            index = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        double key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+        int slot = slots[a];
+        slots[a] = slots[b];
+        slots[b] = slot;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.history;
+
+import java.util.Arrays;
+
+/**
+ * 把按时间递增的点或预聚合桶合并为与纪元对齐的步长桶，输出最小值、最大值、平均值和点数
+ * 结果保存在原始类型数组中，达到点数上限时停止
+ */
+final class BucketAggregator implements DeviceSeries.PointConsumer, RollupSeries.BucketConsumer {
+
+    private final long step;
+    private final int maxPoints;
+
+    private long[] starts;
+    private double[] mins;
+    private double[] maxs;
+    private double[] sums;
+    private long[] counts;
+    private int size;
+    private boolean truncated;
+
+    BucketAggregator(long step, int expectedBuckets, int maxPoints) {
+        this.step = step;
+        this.maxPoints = maxPoints;
+        int capacity = Math.max(16, Math.min(expectedBuckets, maxPoints));
+        starts = new long[capacity];
+        mins = new double[capacity];
+        maxs = new double[capacity];
+        sums = new double[capacity];
+        counts = new long[capacity];
+    }
+
+    @Override
+    public boolean accept(long timestamp, double value) {
+        accept(timestamp, value, value, value, 1);
+        return !truncated;
+    }
+
+    @Override
+    public void accept(long start, double min, double max, double sum, long count) {
+        if (truncated || count == 0) {
+            return;
+        }
+        long bucket = Math.floorDiv(start, step) * step;
+        int last = size - 1;
+        if (size > 0 && starts[last] == bucket) {
+            mins[last] = Math.min(mins[last], min);
+            maxs[last] = Math.max(maxs[last], max);
+            sums[last] += sum;
+            counts[last] += count;
+            return;
+        }
+        if (size >= maxPoints) {
+            truncated = true;
+            return;
+        }
+        if (size == starts.length) {
+            int capacity = size * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            mins = Arrays.copyOf(mins, capacity);
+            maxs = Arrays.copyOf(maxs, capacity);
+            sums = Arrays.copyOf(sums, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+        }
+        starts[size] = bucket;
+        mins[size] = min;
+        maxs[size] = max;
+        sums[size] = sum;
+        counts[size] = count;
+        size++;
+    }
+
+    SeriesResult toResult(String deviceId, long from, long to, String resolution) {
+        double[] averages = new double[size];
+        for (int i = 0; i < size; i++) {
+            averages[i] = sums[i] / counts[i];
+        }
+        return new SeriesResult(deviceId, from, to, step, resolution,
+                Arrays.copyOf(starts, size), averages,
+                Arrays.copyOf(mins, size), Arrays.copyOf(maxs, size), Arrays.copyOf(counts, size),
+                truncated);
+    }
+}
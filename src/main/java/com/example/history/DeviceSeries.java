@@ -0,0 +1,292 @@
+package com.example.history;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 单个设备的时间序列：一个可追加的头块加上按时间排序的封存块
+ * 写入时同时增量更新各预聚合层级（{@link RollupTier}），聚合查询不必扫描原始点
+ * 所有方法在实例上同步，写入来自消费线程，查询来自Web线程
+ */
+public class DeviceSeries {
+
+    /**
+     * 按原始类型接收点的回调
+     */
+    @FunctionalInterface
+    public interface PointConsumer {
+        /**
+         * @return 返回false时停止扫描
+         */
+        boolean accept(long timestamp, double value);
+    }
+
+    private final String deviceId;
+    private final int chunkPoints;
+    private final List<SeriesChunk> chunks = new ArrayList<>();
+    // 已写入文件的封存块数量，chunks中此下标之后的块等待刷盘
+    private int persistedChunks;
+    private GorillaEncoder head;
+    private final RollupSeries[] rollups = new RollupSeries[RollupTier.values().length];
+    // 已计入预聚合层级的最后一个时间戳，恢复时只需补算之后的原始点
+    private long rollupTimestamp = Long.MIN_VALUE;
+    private long outOfOrderCount;
+
+    public DeviceSeries(String deviceId, int chunkPoints) {
+        this.deviceId = deviceId;
+        this.chunkPoints = chunkPoints;
+        this.head = new GorillaEncoder(chunkPoints);
+        for (RollupTier tier : RollupTier.values()) {
+            rollups[tier.ordinal()] = new RollupSeries(tier);
+        }
+    }
+
+    /**
+     * 从文件恢复的块，按时间顺序调用
+     */
+    synchronized void restore(SeriesChunk chunk) {
+        chunks.add(chunk);
+        persistedChunks = chunks.size();
+    }
+
+    /**
+     * 追加一个点；早于最后一个点的读数无法追加到压缩流中，直接丢弃
+     *
+     * @return 读数乱序被丢弃时返回false
+     */
+    public synchronized boolean append(long timestamp, double value) {
+        if (timestamp < lastTimestamp()) {
+            outOfOrderCount++;
+            return false;
+        }
+        if (!head.append(timestamp, value)) {
+            sealHead();
+            head.append(timestamp, value);
+        }
+        addToRollups(timestamp, value);
+        return true;
+    }
+
+    private void addToRollups(long timestamp, double value) {
+        for (RollupSeries rollup : rollups) {
+            rollup.add(timestamp, value);
+        }
+        rollupTimestamp = timestamp;
+    }
+
+    /**
+     * 用原始点补算预聚合层级中缺少的部分（快照之后写入的点，或没有快照时的全部点）
+     *
+     * @return 补算的点数
+     */
+    synchronized long rebuildRollups() {
+        long after = rollupTimestamp;
+        long[] rebuilt = new long[1];
+        scan(after == Long.MIN_VALUE ? Long.MIN_VALUE : after + 1, Long.MAX_VALUE, (timestamp, value) -> {
+            addToRollups(timestamp, value);
+            rebuilt[0]++;
+            return true;
+        });
+        return rebuilt[0];
+    }
+
+    /**
+     * 按时间顺序输出某一层级中起始时间在[from, to]内的桶
+     */
+    synchronized void scanRollup(RollupTier tier, long from, long to, RollupSeries.BucketConsumer consumer) {
+        rollups[tier.ordinal()].scan(from, to, consumer);
+    }
+
+    /**
+     * 汇总[from, to]内的读数，结果写入stats：[0]最小值 [1]最大值 [2]总和 [3]点数
+     * tier不为null时从该层级读取，窗口边界按层级分辨率对齐
+     */
+    public synchronized void summarize(RollupTier tier, long from, long to, double[] stats) {
+        stats[0] = Double.POSITIVE_INFINITY;
+        stats[1] = Double.NEGATIVE_INFINITY;
+        stats[2] = 0;
+        stats[3] = 0;
+        if (tier != null) {
+            rollups[tier.ordinal()].scan(from, to, (start, min, max, sum, count) -> {
+                stats[0] = Math.min(stats[0], min);
+                stats[1] = Math.max(stats[1], max);
+                stats[2] += sum;
+                stats[3] += count;
+            });
+            return;
+        }
+        scan(from, to, (timestamp, value) -> {
+            stats[0] = Math.min(stats[0], value);
+            stats[1] = Math.max(stats[1], value);
+            stats[2] += value;
+            stats[3]++;
+            return true;
+        });
+    }
+
+    /**
+     * 移除各层级中早于对应截止时间的桶
+     */
+    synchronized void expireRollups(long[] cutoffs) {
+        for (RollupSeries rollup : rollups) {
+            rollup.expire(cutoffs[rollup.tier().ordinal()]);
+        }
+    }
+
+    synchronized void writeRollups(DataOutput out) throws IOException {
+        out.writeLong(rollupTimestamp);
+        for (RollupSeries rollup : rollups) {
+            rollup.write(out);
+        }
+    }
+
+    synchronized void readRollups(DataInput in) throws IOException {
+        try {
+            rollupTimestamp = in.readLong();
+            for (RollupSeries rollup : rollups) {
+                rollup.read(in);
+            }
+        } catch (IOException e) {
+            // 快照不完整时丢弃已读入的部分，由原始点重建
+            rollupTimestamp = Long.MIN_VALUE;
+            for (RollupTier tier : RollupTier.values()) {
+                rollups[tier.ordinal()] = new RollupSeries(tier);
+            }
+            throw e;
+        }
+    }
+
+    private long lastTimestamp() {
+        if (!head.isEmpty()) {
+            return head.getLastTime();
+        }
+        return chunks.isEmpty() ? Long.MIN_VALUE : chunks.get(chunks.size() - 1).maxTime();
+    }
+
+    private void sealHead() {
+        chunks.add(head.seal());
+        head = new GorillaEncoder(chunkPoints);
+    }
+
+    /**
+     * 按时间顺序扫描[from, to]内的点，跳过不相交的块
+     */
+    public synchronized void scan(long from, long to, PointConsumer consumer) {
+        for (SeriesChunk chunk : chunks) {
+            if (chunk.overlaps(from, to) && !scan(chunk.decoder(), from, to, consumer)) {
+                return;
+            }
+        }
+        if (!head.isEmpty() && head.getLastTime() >= from && head.getFirstTime() <= to) {
+            scan(head.decoder(), from, to, consumer);
+        }
+    }
+
+    private static boolean scan(GorillaDecoder decoder, long from, long to, PointConsumer consumer) {
+        while (decoder.next()) {
+            long timestamp = decoder.timestamp();
+            if (timestamp > to) {
+                return false;
+            }
+            if (timestamp >= from && !consumer.accept(timestamp, decoder.value())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 取出等待写入文件的封存块；flushHead为true时先把未写满的头块也封存
+     */
+    synchronized List<SeriesChunk> takeUnpersisted(boolean flushHead) {
+        if (flushHead && !head.isEmpty()) {
+            sealHead();
+        }
+        List<SeriesChunk> pending = new ArrayList<>(chunks.subList(persistedChunks, chunks.size()));
+        persistedChunks = chunks.size();
+        return pending;
+    }
+
+    /**
+     * 删除最后一个点早于cutoff的封存块
+     *
+     * @return 删除了已写入文件的块时返回true，调用方需要重写文件
+     */
+    synchronized boolean expire(long cutoff) {
+        int expired = 0;
+        while (expired < chunks.size() && chunks.get(expired).maxTime() < cutoff) {
+            expired++;
+        }
+        if (expired == 0) {
+            return false;
+        }
+        chunks.subList(0, expired).clear();
+        boolean rewrite = persistedChunks > 0;
+        persistedChunks = Math.max(0, persistedChunks - expired);
+        return rewrite;
+    }
+
+    /**
+     * 已写入文件的封存块
+     */
+    synchronized List<SeriesChunk> persistedChunks() {
+        return new ArrayList<>(chunks.subList(0, persistedChunks));
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public synchronized long getPointCount() {
+        long points = head.getCount();
+        for (SeriesChunk chunk : chunks) {
+            points += chunk.count();
+        }
+        return points;
+    }
+
+    public synchronized long getSizeInBytes() {
+        long bytes = head.getSizeInBytes();
+        for (SeriesChunk chunk : chunks) {
+            bytes += chunk.getSizeInBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * 预聚合层级占用的字节数（按已分配的数组计算）
+     */
+    public synchronized long getRollupSizeInBytes() {
+        long bytes = 0;
+        for (RollupSeries rollup : rollups) {
+            bytes += rollup.getSizeInBytes();
+        }
+        return bytes;
+    }
+
+    public synchronized int getRollupBucketCount(RollupTier tier) {
+        return rollups[tier.ordinal()].size();
+    }
+
+    public synchronized int getChunkCount() {
+        return chunks.size() + (head.isEmpty() ? 0 : 1);
+    }
+
+    public synchronized long getFirstTimestamp() {
+        if (!chunks.isEmpty()) {
+            return chunks.get(0).minTime();
+        }
+        return head.isEmpty() ? -1 : head.getFirstTime();
+    }
+
+    public synchronized long getLastTimestamp() {
+        return head.isEmpty() && chunks.isEmpty() ? -1 : lastTimestamp();
+    }
+
+    public synchronized long getOutOfOrderCount() {
+        return outOfOrderCount;
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.history;
+
+import java.util.Locale;
+
+/**
+ * 面向图表的可视化降采样，在原始类型数组上单次顺序扫描
+ * - LTTB（Largest-Triangle-Three-Buckets）：按点数等分为桶，每桶保留与前一选中点、后一桶均值构成三角形面积最大的点
+ * - M4：按时间等分为像素列，每列保留首、尾、最小、最大四个点，折线的像素绘制结果与原始数据一致
+ * 两种算法都保留首尾点，峰值和谷值不会被平均掉
+ */
+public final class Downsampler {
+
+    public enum Algorithm {
+        LTTB, M4;
+
+        public static Algorithm parse(String name) {
+            return name == null ? LTTB : valueOf(name.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private Downsampler() {
+    }
+
+    static PointBuffer downsample(Algorithm algorithm, long[] timestamps, double[] values, int size,
+                                 int threshold) {
+        return algorithm == Algorithm.M4
+                ? m4(timestamps, values, size, threshold)
+                : lttb(timestamps, values, size, threshold);
+    }
+
+    /**
+     * LTTB降采样
+     *
+     * @param size 数组中有效的点数
+     * @param threshold 输出的点数，不小于3
+     */
+    static PointBuffer lttb(long[] timestamps, double[] values, int size, int threshold) {
+        if (threshold >= size || threshold < 3) {
+            return copy(timestamps, values, size);
+        }
+        PointBuffer sampled = new PointBuffer(threshold);
+        long origin = timestamps[0];
+        double every = (double) (size - 2) / (threshold - 2);
+
+        int selected = 0;
+        sampled.add(timestamps[0], values[0]);
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            // 下一个桶的均值作为第三个顶点
+            int nextStart = (int) ((bucket + 1) * every) + 1;
+            int nextEnd = Math.min((int) ((bucket + 2) * every) + 1, size);
+            double averageX = 0;
+            double averageY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                averageX += timestamps[i] - origin;
+                averageY += values[i];
+            }
+            int nextLength = nextEnd - nextStart;
+            averageX /= nextLength;
+            averageY /= nextLength;
+
+            int start = (int) (bucket * every) + 1;
+            int end = (int) ((bucket + 1) * every) + 1;
+            double selectedX = timestamps[selected] - origin;
+            double selectedY = values[selected];
+            double maxArea = -1;
+            int maxIndex = start;
+            for (int i = start; i < end; i++) {
+                // 三角形面积的两倍，只用于比较
+                double area = Math.abs((selectedX - averageX) * (values[i] - selectedY)
+                        - (selectedX - (timestamps[i] - origin)) * (averageY - selectedY));
+                if (area > maxArea) {
+                    maxArea = area;
+                    maxIndex = i;
+                }
+            }
+            sampled.add(timestamps[maxIndex], values[maxIndex]);
+            selected = maxIndex;
+        }
+        sampled.add(timestamps[size - 1], values[size - 1]);
+        return sampled;
+    }
+
+    /**
+     * M4降采样，按时间把[首点, 尾点]等分为threshold / 4列
+     *
+     * @param size 数组中有效的点数
+     * @param threshold 输出的最大点数，不小于4
+     */
+    static PointBuffer m4(long[] timestamps, double[] values, int size, int threshold) {
+        int columns = threshold / 4;
+        if (threshold >= size || columns < 1) {
+            return copy(timestamps, values, size);
+        }
+        PointBuffer sampled = new PointBuffer(columns * 4);
+        long origin = timestamps[0];
+        double span = Math.max(1, timestamps[size - 1] - origin);
+
+        int column = -1;
+        int first = 0;
+        int last = 0;
+        int min = 0;
+        int max = 0;
+        for (int i = 0; i < size; i++) {
+            int current = Math.min(columns - 1, (int) ((timestamps[i] - origin) / span * columns));
+            if (current != column) {
+                if (column >= 0) {
+                    emitColumn(sampled, timestamps, values, first, min, max, last);
+                }
+                column = current;
+                first = i;
+                min = i;
+                max = i;
+            }
+            if (values[i] < values[min]) {
+                min = i;
+            }
+            if (values[i] > values[max]) {
+                max = i;
+            }
+            last = i;
+        }
+        emitColumn(sampled, timestamps, values, first, min, max, last);
+        return sampled;
+    }
+
+    /**
+     * 按下标顺序输出一列中的四个点，重复的下标只输出一次
+     */
+    private static void emitColumn(PointBuffer sampled, long[] timestamps, double[] values,
+                                   int first, int min, int max, int last) {
+        int low = Math.min(min, max);
+        int high = Math.max(min, max);
+        sampled.add(timestamps[first], values[first]);
+        if (low != first) {
+            sampled.add(timestamps[low], values[low]);
+        }
+        if (high != low && high != first) {
+            sampled.add(timestamps[high], values[high]);
+        }
+        if (last != high && last != low && last != first) {
+            sampled.add(timestamps[last], values[last]);
+        }
+    }
+
+    private static PointBuffer copy(long[] timestamps, double[] values, int size) {
+        PointBuffer copy = new PointBuffer(size);
+        for (int i = 0; i < size; i++) {
+            copy.add(timestamps[i], values[i]);
+        }
+        return copy;
+    }
+}
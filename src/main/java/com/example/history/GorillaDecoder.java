@@ -0,0 +1,110 @@
+package com.example.history;
+
+/**
+ * {@link GorillaEncoder}位流的顺序解码器，按原始类型逐点读出，不产生装箱对象
+ * <pre>
+ * GorillaDecoder decoder = chunk.decoder();
+ * while (decoder.next()) {
+ *     long t = decoder.timestamp();
+ *     double v = decoder.value();
+ * }
+ * </pre>
+ */
+public final class GorillaDecoder {
+
+    private final long[] words;
+    private final int count;
+
+    private long position;
+    private int index;
+
+    private long timestamp;
+    private long delta;
+    private long valueBits;
+    private int leading;
+    private int trailing;
+
+    GorillaDecoder(long[] words, int count) {
+        this.words = words;
+        this.count = count;
+    }
+
+    /**
+     * 读出下一个点
+     *
+     * @return 没有更多的点时返回false
+     */
+    public boolean next() {
+        if (index >= count) {
+            return false;
+        }
+        if (index == 0) {
+            timestamp = readBits(64);
+            valueBits = readBits(64);
+        } else {
+            delta += readDeltaOfDelta();
+            timestamp += delta;
+            readValue();
+        }
+        index++;
+        return true;
+    }
+
+    public long timestamp() {
+        return timestamp;
+    }
+
+    public double value() {
+        return Double.longBitsToDouble(valueBits);
+    }
+
+    private long readDeltaOfDelta() {
+        if (readBits(1) == 0) {
+            return 0;
+        }
+        if (readBits(1) == 0) {
+            return signed(readBits(7), 7);
+        }
+        if (readBits(1) == 0) {
+            return signed(readBits(9), 9);
+        }
+        if (readBits(1) == 0) {
+            return signed(readBits(12), 12);
+        }
+        return readBits(64);
+    }
+
+    private void readValue() {
+        if (readBits(1) == 0) {
+            return;
+        }
+        if (readBits(1) == 1) {
+            leading = (int) readBits(5);
+            int significant = (int) readBits(6) + 1;
+            trailing = 64 - leading - significant;
+        }
+        valueBits ^= readBits(64 - leading - trailing) << trailing;
+    }
+
+    private static long signed(long value, int bits) {
+        return (value << (64 - bits)) >> (64 - bits);
+    }
+
+    /**
+     * 按高位在前读出n位
+     */
+    private long readBits(int n) {
+        if (n == 0) {
+            return 0;
+        }
+        int word = (int) (position >>> 6);
+        int offset = (int) (position & 63);
+        int free = 64 - offset;
+        long result = (words[word] << offset) >>> (64 - n);
+        if (n > free) {
+            result |= words[word + 1] >>> (64 - (n - free));
+        }
+        position += n;
+        return result;
+    }
+}
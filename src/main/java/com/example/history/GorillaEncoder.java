@@ -0,0 +1,171 @@
+package com.example.history;
+
+import java.util.Arrays;
+
+/**
+ * Gorilla压缩的追加式编码器（时间序列的头块）
+ * - 首个点写入原始的64位时间戳和值
+ * - 时间戳写入二阶差分（delta-of-delta），等间隔采样时每点只占1位
+ * - 值写入与前一个值的XOR，只保存有效位；与上一个有效位窗口重合时省去窗口描述
+ * 位流按高位在前写入long数组，写满固定点数后封存为不可变的{@link SeriesChunk}
+ */
+public final class GorillaEncoder {
+
+    private final int capacity;
+
+    private long[] words = new long[16];
+    private long bitCount;
+    private int count;
+
+    private long firstTime;
+    private long lastTime;
+    private long lastDelta;
+    private long lastValueBits;
+    private int lastLeading = -1;
+    private int lastTrailing;
+
+    /**
+     * @param capacity 块内最多保存的点数
+     */
+    public GorillaEncoder(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("块容量必须大于1");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * 追加一个点，时间戳必须不早于上一个点
+     *
+     * @return 块已满时返回false
+     */
+    public boolean append(long timestamp, double value) {
+        if (count >= capacity) {
+            return false;
+        }
+        long valueBits = Double.doubleToRawLongBits(value);
+        if (count == 0) {
+            firstTime = timestamp;
+            writeBits(timestamp, 64);
+            writeBits(valueBits, 64);
+        } else {
+            long delta = timestamp - lastTime;
+            writeDeltaOfDelta(delta - lastDelta);
+            writeValue(valueBits ^ lastValueBits);
+            lastDelta = delta;
+        }
+        lastTime = timestamp;
+        lastValueBits = valueBits;
+        count++;
+        return true;
+    }
+
+    private void writeDeltaOfDelta(long dod) {
+        if (dod == 0) {
+            writeBits(0, 1);
+        } else if (dod >= -64 && dod <= 63) {
+            writeBits(0b10, 2);
+            writeBits(dod, 7);
+        } else if (dod >= -256 && dod <= 255) {
+            writeBits(0b110, 3);
+            writeBits(dod, 9);
+        } else if (dod >= -2048 && dod <= 2047) {
+            writeBits(0b1110, 4);
+            writeBits(dod, 12);
+        } else {
+            writeBits(0b1111, 4);
+            writeBits(dod, 64);
+        }
+    }
+
+    private void writeValue(long xor) {
+        if (xor == 0) {
+            writeBits(0, 1);
+            return;
+        }
+        int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+        int trailing = Long.numberOfTrailingZeros(xor);
+        if (lastLeading >= 0 && leading >= lastLeading && trailing >= lastTrailing) {
+            // 有效位落在上一个窗口内，沿用窗口
+            writeBits(0b10, 2);
+            writeBits(xor >>> lastTrailing, 64 - lastLeading - lastTrailing);
+        } else {
+            int significant = 64 - leading - trailing;
+            writeBits(0b11, 2);
+            writeBits(leading, 5);
+            writeBits(significant - 1, 6);
+            writeBits(xor >>> trailing, significant);
+            lastLeading = leading;
+            lastTrailing = trailing;
+        }
+    }
+
+    /**
+     * 按高位在前写入value的低n位
+     */
+    private void writeBits(long value, int n) {
+        if (n == 0) {
+            return;
+        }
+        int index = (int) (bitCount >>> 6);
+        if (index + 1 >= words.length) {
+            words = Arrays.copyOf(words, words.length * 2);
+        }
+        int free = 64 - (int) (bitCount & 63);
+        if (n < 64) {
+            value &= (1L << n) - 1;
+        }
+        if (n <= free) {
+            words[index] |= value << (free - n);
+        } else {
+            int rest = n - free;
+            words[index] |= value >>> rest;
+            words[index + 1] |= value << (64 - rest);
+        }
+        bitCount += n;
+    }
+
+    /**
+     * 当前内容的解码器，调用方需保证解码期间没有并发追加
+     */
+    public GorillaDecoder decoder() {
+        return new GorillaDecoder(words, count);
+    }
+
+    /**
+     * 封存为不可变块，数组裁剪到实际使用的长度
+     */
+    public SeriesChunk seal() {
+        if (count == 0) {
+            throw new IllegalStateException("空块不能封存");
+        }
+        return new SeriesChunk(firstTime, lastTime, count, Arrays.copyOf(words, (int) ((bitCount + 63) >>> 6)));
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public boolean isFull() {
+        return count >= capacity;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getFirstTime() {
+        return firstTime;
+    }
+
+    public long getLastTime() {
+        return lastTime;
+    }
+
+    /**
+     * 已写入的压缩字节数
+     */
+    public long getSizeInBytes() {
+        return (bitCount + 7) >>> 3;
+    }
+}
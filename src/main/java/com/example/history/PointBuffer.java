@@ -0,0 +1,51 @@
+package com.example.history;
+
+import java.util.Arrays;
+
+/**
+ * 按原始类型保存查询结果的可增长数组
+ */
+final class PointBuffer {
+
+    private long[] timestamps;
+    private double[] values;
+    private int size;
+
+    PointBuffer(int initialCapacity) {
+        timestamps = new long[Math.max(16, initialCapacity)];
+        values = new double[timestamps.length];
+    }
+
+    void add(long timestamp, double value) {
+        if (size == timestamps.length) {
+            timestamps = Arrays.copyOf(timestamps, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        timestamps[size] = timestamp;
+        values[size] = value;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * 内部数组，有效长度为size()，只在不再追加时读取
+     */
+    long[] timestampArray() {
+        return timestamps;
+    }
+
+    double[] valueArray() {
+        return values;
+    }
+
+    long[] timestamps() {
+        return Arrays.copyOf(timestamps, size);
+    }
+
+    double[] values() {
+        return Arrays.copyOf(values, size);
+    }
+}
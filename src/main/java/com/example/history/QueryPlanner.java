@@ -0,0 +1,50 @@
+package com.example.history;
+
+/**
+ * 聚合查询的层级选择
+ * 选取分辨率不超过步长的最粗层级，返回的点数只和步长有关，与扫描的原始点数无关；
+ * 步长不是该层分辨率的整数倍时向上取整，保证每个输出桶由完整的层级桶组成
+ */
+public final class QueryPlanner {
+
+    /**
+     * 查询计划
+     *
+     * @param tier 读取的层级，null表示扫描原始点
+     * @param step 实际使用的步长（毫秒）
+     */
+    public record Plan(RollupTier tier, long step) {
+
+        public String resolution() {
+            return tier != null ? tier.label() : "raw";
+        }
+    }
+
+    private QueryPlanner() {
+    }
+
+    /**
+     * @param step 请求的步长（毫秒），大于0
+     * @param from 查询起始时间
+     * @param now 当前时间
+     * @param retentionMillis 各层级的保留时长，下标与{@link RollupTier#ordinal()}对应；层级未覆盖起始时间时改用更粗的层级
+     */
+    public static Plan plan(long step, long from, long now, long[] retentionMillis) {
+        RollupTier chosen = null;
+        for (RollupTier tier : RollupTier.values()) {
+            if (tier.resolution() <= step) {
+                chosen = tier;
+            }
+        }
+        if (chosen == null) {
+            return new Plan(null, step);
+        }
+        // 细层级的数据已过期时退到更粗的层级，步长随之放大
+        while (chosen.ordinal() < RollupTier.values().length - 1
+                && from < now - retentionMillis[chosen.ordinal()]) {
+            chosen = RollupTier.values()[chosen.ordinal() + 1];
+        }
+        long resolution = chosen.resolution();
+        return new Plan(chosen, (step + resolution - 1) / resolution * resolution);
+    }
+}
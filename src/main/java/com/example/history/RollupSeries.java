@@ -0,0 +1,149 @@
+package com.example.history;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * 单个设备在一个预聚合层级上的桶序列
+ * 桶按时间递增保存在并列的原始类型数组中，写入时只更新最后一个桶或追加新桶
+ * 数组按需增长，过期的桶从头部移出，不为没有读数的时间段占用空间
+ * 不是线程安全的，由所属的{@link DeviceSeries}同步
+ */
+final class RollupSeries {
+
+    /**
+     * 按原始类型接收桶的回调
+     */
+    @FunctionalInterface
+    interface BucketConsumer {
+        void accept(long start, double min, double max, double sum, long count);
+    }
+
+    // 每个桶占用的字节数：起始时间、最小值、最大值、总和、点数
+    static final int BUCKET_BYTES = 8 + 8 + 8 + 8 + 4;
+
+    private final RollupTier tier;
+    private long[] starts = new long[16];
+    private double[] mins = new double[16];
+    private double[] maxs = new double[16];
+    private double[] sums = new double[16];
+    private int[] counts = new int[16];
+    private int first;
+    private int end;
+
+    RollupSeries(RollupTier tier) {
+        this.tier = tier;
+    }
+
+    /**
+     * 把一个点计入所在的桶，时间戳不早于上一个点
+     */
+    void add(long timestamp, double value) {
+        long start = tier.bucketOf(timestamp);
+        int last = end - 1;
+        if (end > first && starts[last] == start) {
+            mins[last] = Math.min(mins[last], value);
+            maxs[last] = Math.max(maxs[last], value);
+            sums[last] += value;
+            counts[last]++;
+            return;
+        }
+        append(start, value, value, value, 1);
+    }
+
+    private void append(long start, double min, double max, double sum, int count) {
+        if (end == starts.length) {
+            if (first > starts.length / 2) {
+                compact();
+            } else {
+                grow();
+            }
+        }
+        starts[end] = start;
+        mins[end] = min;
+        maxs[end] = max;
+        sums[end] = sum;
+        counts[end] = count;
+        end++;
+    }
+
+    private void compact() {
+        int size = end - first;
+        System.arraycopy(starts, first, starts, 0, size);
+        System.arraycopy(mins, first, mins, 0, size);
+        System.arraycopy(maxs, first, maxs, 0, size);
+        System.arraycopy(sums, first, sums, 0, size);
+        System.arraycopy(counts, first, counts, 0, size);
+        first = 0;
+        end = size;
+    }
+
+    private void grow() {
+        int capacity = starts.length * 2;
+        starts = Arrays.copyOf(starts, capacity);
+        mins = Arrays.copyOf(mins, capacity);
+        maxs = Arrays.copyOf(maxs, capacity);
+        sums = Arrays.copyOf(sums, capacity);
+        counts = Arrays.copyOf(counts, capacity);
+    }
+
+    /**
+     * 按时间顺序输出起始时间在[from, to]内的桶，二分查找起点
+     */
+    void scan(long from, long to, BucketConsumer consumer) {
+        int index = Arrays.binarySearch(starts, first, end, tier.bucketOf(from));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        for (; index < end && starts[index] <= to; index++) {
+            consumer.accept(starts[index], mins[index], maxs[index], sums[index], counts[index]);
+        }
+    }
+
+    /**
+     * 移除结束时间早于cutoff的桶
+     */
+    void expire(long cutoff) {
+        while (first < end && starts[first] + tier.resolution() <= cutoff) {
+            first++;
+        }
+        if (first == end) {
+            first = 0;
+            end = 0;
+        }
+    }
+
+    RollupTier tier() {
+        return tier;
+    }
+
+    int size() {
+        return end - first;
+    }
+
+    long getSizeInBytes() {
+        return (long) starts.length * BUCKET_BYTES;
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeInt(size());
+        for (int i = first; i < end; i++) {
+            out.writeLong(starts[i]);
+            out.writeDouble(mins[i]);
+            out.writeDouble(maxs[i]);
+            out.writeDouble(sums[i]);
+            out.writeInt(counts[i]);
+        }
+    }
+
+    void read(DataInput in) throws IOException {
+        int size = in.readInt();
+        first = 0;
+        end = 0;
+        for (int i = 0; i < size; i++) {
+            append(in.readLong(), in.readDouble(), in.readDouble(), in.readDouble(), in.readInt());
+        }
+    }
+}
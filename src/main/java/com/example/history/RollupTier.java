@@ -0,0 +1,34 @@
+package com.example.history;
+
+/**
+ * 预聚合层级，每层按固定分辨率保存最小值、最大值、总和和点数
+ * 各层的分辨率依次整除，较粗的层可以由较细的层合并得到
+ */
+public enum RollupTier {
+    TEN_SECONDS("10s", 10_000L),
+    ONE_MINUTE("1m", 60_000L),
+    ONE_HOUR("1h", 3_600_000L);
+
+    private final String label;
+    private final long resolution;
+
+    RollupTier(String label, long resolution) {
+        this.label = label;
+        this.resolution = resolution;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    /**
+     * 桶宽（毫秒）
+     */
+    public long resolution() {
+        return resolution;
+    }
+
+    public long bucketOf(long timestamp) {
+        return Math.floorDiv(timestamp, resolution) * resolution;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.history;
+
+/**
+ * 封存后的Gorilla压缩块，不可变
+ *
+ * @param minTime 块内第一个点的时间戳
+ * @param maxTime 块内最后一个点的时间戳
+ * @param count 点数
+ * @param words 压缩位流
+ */
+public record SeriesChunk(long minTime, long maxTime, int count, long[] words) {
+
+    public GorillaDecoder decoder() {
+        return new GorillaDecoder(words, count);
+    }
+
+    public boolean overlaps(long from, long to) {
+        return maxTime >= from && minTime <= to;
+    }
+
+    public long getSizeInBytes() {
+        return (long) words.length * Long.BYTES;
+    }
+}
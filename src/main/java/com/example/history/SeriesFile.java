@@ -0,0 +1,179 @@
+package com.example.history;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 设备时间序列的块文件，每个设备一个文件，封存块依次追加
+ * 记录格式：魔数(4) | 起始时间(8) | 结束时间(8) | 点数(4) | 位流长度(4, long个数) | 位流
+ * 进程在写入中途退出时文件尾部可能有不完整的记录，读取时截掉
+ * 预聚合层级另存为快照文件，整体替换写入
+ */
+final class SeriesFile {
+    private static final Logger LOG = LoggerFactory.getLogger(SeriesFile.class);
+
+    static final String SUFFIX = ".gorilla";
+    static final String ROLLUP_SUFFIX = ".rollup";
+    private static final int MAGIC = 0x474f5231; // "GOR1"
+    private static final int ROLLUP_MAGIC = 0x524c5031; // "RLP1"
+    private static final int HEADER_SIZE = 4 + 8 + 8 + 4 + 4;
+
+    private SeriesFile() {
+    }
+
+    static Path pathOf(Path directory, String deviceId) {
+        return directory.resolve(URLEncoder.encode(deviceId, StandardCharsets.UTF_8) + SUFFIX);
+    }
+
+    static Path rollupPathOf(Path directory, String deviceId) {
+        return directory.resolve(URLEncoder.encode(deviceId, StandardCharsets.UTF_8) + ROLLUP_SUFFIX);
+    }
+
+    static String deviceIdOf(Path file) {
+        String name = file.getFileName().toString();
+        String encoded = name.substring(0, name.lastIndexOf('.'));
+        return URLDecoder.decode(encoded, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 读出文件中的全部完整块，截掉尾部不完整的记录
+     */
+    static List<SeriesChunk> read(Path file) throws IOException {
+        List<SeriesChunk> chunks = new ArrayList<>();
+        long validLength = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            while (true) {
+                int magic;
+                try {
+                    magic = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (magic != MAGIC) {
+                    LOG.warn("时间序列文件 {} 在偏移 {} 处损坏，忽略之后的内容", file, validLength);
+                    break;
+                }
+                try {
+                    long minTime = in.readLong();
+                    long maxTime = in.readLong();
+                    int count = in.readInt();
+                    int length = in.readInt();
+                    // 每点最多占用145位，超出说明记录头损坏
+                    if (count < 1 || length < 2 || length > count * 3L + 2) {
+                        LOG.warn("时间序列文件 {} 在偏移 {} 处损坏，忽略之后的内容", file, validLength);
+                        break;
+                    }
+                    long[] words = new long[length];
+                    for (int i = 0; i < words.length; i++) {
+                        words[i] = in.readLong();
+                    }
+                    chunks.add(new SeriesChunk(minTime, maxTime, count, words));
+                    validLength += HEADER_SIZE + (long) words.length * Long.BYTES;
+                } catch (EOFException e) {
+                    break;
+                }
+            }
+        }
+        if (validLength < Files.size(file)) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(validLength);
+            }
+        }
+        return chunks;
+    }
+
+    static void append(Path file, List<SeriesChunk> chunks) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            write(out, chunks);
+        }
+    }
+
+    /**
+     * 用给定的块替换文件内容，先写临时文件再原子替换
+     */
+    static void rewrite(Path file, List<SeriesChunk> chunks) throws IOException {
+        if (chunks.isEmpty()) {
+            Files.deleteIfExists(file);
+            return;
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            write(out, chunks);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void write(OutputStream target, List<SeriesChunk> chunks) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(target));
+        for (SeriesChunk chunk : chunks) {
+            out.writeInt(MAGIC);
+            out.writeLong(chunk.minTime());
+            out.writeLong(chunk.maxTime());
+            out.writeInt(chunk.count());
+            out.writeInt(chunk.words().length);
+            for (long word : chunk.words()) {
+                out.writeLong(word);
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * 写出设备的预聚合快照，先写临时文件再原子替换
+     */
+    static void writeRollups(Path file, DeviceSeries series) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(ROLLUP_MAGIC);
+            series.writeRollups(out);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 读入预聚合快照
+     *
+     * @return 快照不存在或损坏时返回false，调用方从原始点重建
+     */
+    static boolean readRollups(Path file, DeviceSeries series) {
+        if (!Files.exists(file)) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != ROLLUP_MAGIC) {
+                throw new IOException("魔数不匹配");
+            }
+            series.readRollups(in);
+            return true;
+        } catch (IOException e) {
+            LOG.warn("预聚合快照 {} 无法读取，将从原始点重建: {}", file, e.getMessage());
+            return false;
+        }
+    }
+
+    static boolean isSeriesFile(Path file) {
+        return file.getFileName().toString().endsWith(SUFFIX);
+    }
+
+    static boolean isRollupFile(Path file) {
+        return file.getFileName().toString().endsWith(ROLLUP_SUFFIX);
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.history;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * 时间序列查询结果，按列输出
+ *
+ * @param deviceId 设备ID
+ * @param from 查询起始时间（毫秒，含）
+ * @param to 查询结束时间（毫秒，含）
+ * @param step 实际使用的聚合步长（毫秒），0表示原始点
+ * @param resolution 数据来源：raw表示原始点，否则为预聚合层级（10s、1m、1h）
+ * @param timestamps 各点的时间戳；聚合时为桶的起始时间
+ * @param values 各点的值；聚合时为桶内平均值
+ * @param min 桶内最小值，原始点查询时不输出
+ * @param max 桶内最大值，原始点查询时不输出
+ * @param count 桶内点数，原始点查询时不输出
+ * @param truncated 点数超过上限被截断时为true
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record SeriesResult(String deviceId, long from, long to, long step, String resolution,
+                           long[] timestamps, double[] values,
+                           double[] min, double[] max, long[] count,
+                           boolean truncated) {
+}
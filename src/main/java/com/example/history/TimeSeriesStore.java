@@ -0,0 +1,394 @@
+package com.example.history;
+
+import com.example.SensorData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 内嵌的按设备时间序列存储
+ * - 每个设备的读数以Gorilla压缩保存在固定点数的块中，写满的块封存
+ * - 封存块定期追加到本地文件，启动时从文件恢复，关闭时连同未写满的头块一起写出
+ * - 写入时增量维护10秒、1分钟、1小时三个预聚合层级，聚合查询由{@link QueryPlanner}选择层级，
+ *   代价与返回的点数成正比而与时间范围内的原始点数无关；各层级有独立的保留时长，定期保存快照
+ * - 超过保留时长的块从内存和文件中删除
+ * 写入只在内存中进行，文件读写都在定时任务和生命周期回调中完成
+ */
+@Component
+public class TimeSeriesStore {
+    private static final Logger LOG = LoggerFactory.getLogger(TimeSeriesStore.class);
+
+    // 降采样的输入点数相对输出点数的倍数
+    private static final int SOURCE_OVERSAMPLING = 4;
+
+    // 窗口汇总时每个窗口至少覆盖的层级桶数，限制窗口边界对齐带来的误差
+    private static final int WINDOW_BUCKETS = 30;
+
+    @Value("${sensor.history.enabled:true}")
+    private boolean enabled;
+
+    // 块文件目录，留空时只保存在内存中
+    @Value("${sensor.history.dir:}")
+    private String directory;
+
+    @Value("${sensor.history.chunk-points:1024}")
+    private int chunkPoints;
+
+    @Value("${sensor.history.retention-hours:72}")
+    private long retentionHours;
+
+    // 单次查询返回的最大点数
+    @Value("${sensor.history.max-points:100000}")
+    private int maxPoints;
+
+    // 降采样单次返回的最大点数
+    @Value("${sensor.history.downsample.max-points:5000}")
+    private int maxDownsamplePoints;
+
+    // 10秒、1分钟、1小时层级的保留时长（小时）
+    @Value("${sensor.history.rollup.retention-hours:24,168,2160}")
+    private long[] rollupRetentionHours;
+
+    // 预聚合快照的写出间隔（毫秒）
+    @Value("${sensor.history.rollup.snapshot-interval:300000}")
+    private long rollupSnapshotInterval;
+
+    private final Map<String, DeviceSeries> series = new ConcurrentHashMap<>();
+    private final AtomicLong appendedCount = new AtomicLong();
+    private Path dataDirectory;
+    private long lastRollupSnapshot;
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (rollupRetentionHours.length != RollupTier.values().length) {
+            throw new IllegalArgumentException("sensor.history.rollup.retention-hours需要为每个层级配置保留时长: "
+                    + RollupTier.values().length);
+        }
+        if (!enabled || directory == null || directory.isBlank()) {
+            return;
+        }
+        dataDirectory = Paths.get(directory);
+        Files.createDirectories(dataDirectory);
+        long points = 0;
+        long rebuilt = 0;
+        try (Stream<Path> files = Files.list(dataDirectory)) {
+            for (Path file : (Iterable<Path>) files.filter(f -> SeriesFile.isSeriesFile(f) || SeriesFile.isRollupFile(f))::iterator) {
+                String deviceId = SeriesFile.deviceIdOf(file);
+                if (series.containsKey(deviceId)) {
+                    continue;
+                }
+                DeviceSeries restored = new DeviceSeries(deviceId, chunkPoints);
+                Path chunkFile = SeriesFile.pathOf(dataDirectory, deviceId);
+                if (Files.exists(chunkFile)) {
+                    for (SeriesChunk chunk : SeriesFile.read(chunkFile)) {
+                        restored.restore(chunk);
+                    }
+                }
+                SeriesFile.readRollups(SeriesFile.rollupPathOf(dataDirectory, deviceId), restored);
+                rebuilt += restored.rebuildRollups();
+                series.put(deviceId, restored);
+                points += restored.getPointCount();
+            }
+        }
+        if (!series.isEmpty()) {
+            LOG.info("时间序列存储从 {} 恢复 {} 个设备共 {} 个点，补算预聚合 {} 个点",
+                    dataDirectory, series.size(), points, rebuilt);
+        }
+        lastRollupSnapshot = System.currentTimeMillis();
+        expire();
+    }
+
+    /**
+     * 写入一条读数
+     */
+    public void append(SensorData data) {
+        if (!enabled) {
+            return;
+        }
+        DeviceSeries deviceSeries = series.computeIfAbsent(data.deviceId(), id -> new DeviceSeries(id, chunkPoints));
+        if (deviceSeries.append(data.timestamp(), data.value())) {
+            appendedCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * 查询[from, to]内的点
+     *
+     * @param step 聚合步长（毫秒），0返回原始点；大于0时按与纪元对齐的桶输出最小值、最大值、平均值和点数，
+     *             由{@link QueryPlanner}选择预聚合层级，步长可能向上取整到层级分辨率的整数倍
+     * @return 设备不存在时返回null
+     */
+    public SeriesResult query(String deviceId, long from, long to, long step) {
+        DeviceSeries deviceSeries = series.get(deviceId);
+        if (deviceSeries == null) {
+            return null;
+        }
+        if (step <= 0) {
+            PointBuffer points = new PointBuffer(256);
+            RawCollector collector = new RawCollector(points, maxPoints);
+            deviceSeries.scan(from, to, collector);
+            return new SeriesResult(deviceId, from, to, 0, "raw", points.timestamps(), points.values(),
+                    null, null, null, collector.truncated);
+        }
+        QueryPlanner.Plan plan = QueryPlanner.plan(step, from, System.currentTimeMillis(), rollupRetentionMillis());
+        BucketAggregator aggregator = new BucketAggregator(plan.step(),
+                (int) Math.min(Integer.MAX_VALUE, (to - from) / plan.step() + 1), maxPoints);
+        if (plan.tier() == null) {
+            deviceSeries.scan(from, to, aggregator);
+        } else {
+            deviceSeries.scanRollup(plan.tier(), from, to, aggregator);
+        }
+        return aggregator.toResult(deviceId, from, to, plan.resolution());
+    }
+
+    /**
+     * 可视化降采样：把[from, to]内的读数降为最多targetPoints个点
+     * 输入点数与时间范围无关：范围较大时先从预聚合层级按targetPoints的4倍取桶，每桶贡献最小值和最大值两个点，
+     * 再在这些点上运行LTTB或M4，峰值和谷值得以保留
+     *
+     * @return 设备不存在时返回null
+     */
+    public SeriesResult downsample(String deviceId, long from, long to, int targetPoints, Downsampler.Algorithm algorithm) {
+        DeviceSeries deviceSeries = series.get(deviceId);
+        if (deviceSeries == null) {
+            return null;
+        }
+        int threshold = Math.max(4, Math.min(targetPoints, maxDownsamplePoints));
+        long sourceStep = (to - from) / ((long) threshold * SOURCE_OVERSAMPLING);
+        PointBuffer source;
+        String resolution;
+        boolean truncated = false;
+        if (sourceStep < RollupTier.TEN_SECONDS.resolution()) {
+            source = new PointBuffer(threshold * SOURCE_OVERSAMPLING);
+            RawCollector collector = new RawCollector(source, maxPoints);
+            deviceSeries.scan(from, to, collector);
+            resolution = "raw";
+            truncated = collector.truncated;
+        } else {
+            QueryPlanner.Plan plan = QueryPlanner.plan(sourceStep, from, System.currentTimeMillis(), rollupRetentionMillis());
+            BucketAggregator aggregator = new BucketAggregator(plan.step(), threshold * SOURCE_OVERSAMPLING, maxPoints);
+            deviceSeries.scanRollup(plan.tier(), from, to, aggregator);
+            SeriesResult buckets = aggregator.toResult(deviceId, from, to, plan.resolution());
+            // 桶内最小值和最大值的先后未知，固定放在桶的起点和中点
+            source = new PointBuffer(buckets.timestamps().length * 2);
+            for (int i = 0; i < buckets.timestamps().length; i++) {
+                source.add(buckets.timestamps()[i], buckets.min()[i]);
+                source.add(buckets.timestamps()[i] + plan.step() / 2, buckets.max()[i]);
+            }
+            resolution = plan.resolution();
+            truncated = buckets.truncated();
+        }
+        PointBuffer sampled = Downsampler.downsample(algorithm, source.timestampArray(), source.valueArray(),
+                source.size(), threshold);
+        return new SeriesResult(deviceId, from, to, 0, resolution, sampled.timestamps(), sampled.values(),
+                null, null, null, truncated);
+    }
+
+    private long[] rollupRetentionMillis() {
+        long[] retention = new long[rollupRetentionHours.length];
+        for (int i = 0; i < retention.length; i++) {
+            retention[i] = TimeUnit.HOURS.toMillis(rollupRetentionHours[i]);
+        }
+        return retention;
+    }
+
+    /**
+     * 为跨设备的窗口汇总选择层级，一次查询只计划一次
+     * 选取的层级使窗口至少覆盖{@value #WINDOW_BUCKETS}个桶，窗口较短时扫描原始点
+     */
+    public QueryPlanner.Plan planWindow(long from, long to) {
+        return QueryPlanner.plan(Math.max(1, (to - from) / WINDOW_BUCKETS), from, System.currentTimeMillis(),
+                rollupRetentionMillis());
+    }
+
+    /**
+     * 按{@link #planWindow}的计划汇总设备在[from, to]内的读数，stats的含义见{@link DeviceSeries#summarize}
+     *
+     * @return 设备不存在或窗口内没有读数时返回false
+     */
+    public boolean summarize(String deviceId, QueryPlanner.Plan plan, long from, long to, double[] stats) {
+        DeviceSeries deviceSeries = series.get(deviceId);
+        if (deviceSeries == null) {
+            return false;
+        }
+        deviceSeries.summarize(plan.tier(), from, to, stats);
+        return stats[3] > 0;
+    }
+
+    /**
+     * 原样收集点，达到上限时停止
+     */
+    private static final class RawCollector implements DeviceSeries.PointConsumer {
+        private final PointBuffer points;
+        private final int maxPoints;
+        private boolean truncated;
+
+        RawCollector(PointBuffer points, int maxPoints) {
+            this.points = points;
+            this.maxPoints = maxPoints;
+        }
+
+        @Override
+        public boolean accept(long timestamp, double value) {
+            if (points.size() >= maxPoints) {
+                truncated = true;
+                return false;
+            }
+            points.add(timestamp, value);
+            return true;
+        }
+    }
+
+    /**
+     * 定期把封存块写入文件、保存预聚合快照并清理过期数据
+     */
+    @Scheduled(fixedDelayString = "${sensor.history.flush-interval:10000}")
+    public synchronized void flush() {
+        if (dataDirectory == null) {
+            expireInMemory();
+            return;
+        }
+        persist(false);
+        expire();
+        if (System.currentTimeMillis() - lastRollupSnapshot >= rollupSnapshotInterval) {
+            snapshotRollups();
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (dataDirectory != null) {
+            persist(true);
+            snapshotRollups();
+            LOG.info("时间序列存储已写出到 {}", dataDirectory);
+        }
+    }
+
+    private void persist(boolean flushHeads) {
+        for (DeviceSeries deviceSeries : series.values()) {
+            List<SeriesChunk> pending = deviceSeries.takeUnpersisted(flushHeads);
+            if (pending.isEmpty()) {
+                continue;
+            }
+            try {
+                SeriesFile.append(SeriesFile.pathOf(dataDirectory, deviceSeries.getDeviceId()), pending);
+            } catch (IOException e) {
+                LOG.error("写入设备 {} 的时间序列失败: {}", deviceSeries.getDeviceId(), e.getMessage(), e);
+            }
+        }
+    }
+
+    private void snapshotRollups() {
+        for (DeviceSeries deviceSeries : series.values()) {
+            try {
+                SeriesFile.writeRollups(SeriesFile.rollupPathOf(dataDirectory, deviceSeries.getDeviceId()), deviceSeries);
+            } catch (IOException e) {
+                LOG.error("保存设备 {} 的预聚合快照失败: {}", deviceSeries.getDeviceId(), e.getMessage(), e);
+            }
+        }
+        lastRollupSnapshot = System.currentTimeMillis();
+    }
+
+    private long retentionCutoff() {
+        return System.currentTimeMillis() - TimeUnit.HOURS.toMillis(retentionHours);
+    }
+
+    private long[] rollupCutoffs() {
+        long now = System.currentTimeMillis();
+        long[] cutoffs = rollupRetentionMillis();
+        for (int i = 0; i < cutoffs.length; i++) {
+            cutoffs[i] = now - cutoffs[i];
+        }
+        return cutoffs;
+    }
+
+    private void expireInMemory() {
+        long cutoff = retentionCutoff();
+        long[] rollupCutoffs = rollupCutoffs();
+        for (DeviceSeries deviceSeries : series.values()) {
+            deviceSeries.expire(cutoff);
+            deviceSeries.expireRollups(rollupCutoffs);
+        }
+    }
+
+    private void expire() {
+        long cutoff = retentionCutoff();
+        long[] rollupCutoffs = rollupCutoffs();
+        for (DeviceSeries deviceSeries : series.values()) {
+            deviceSeries.expireRollups(rollupCutoffs);
+            if (!deviceSeries.expire(cutoff)) {
+                continue;
+            }
+            try {
+                SeriesFile.rewrite(SeriesFile.pathOf(dataDirectory, deviceSeries.getDeviceId()),
+                        deviceSeries.persistedChunks());
+            } catch (IOException e) {
+                LOG.error("清理设备 {} 的过期时间序列失败: {}", deviceSeries.getDeviceId(), e.getMessage(), e);
+            }
+        }
+    }
+
+    public Set<String> getDeviceIds() {
+        return new TreeSet<>(series.keySet());
+    }
+
+    public DeviceSeries getSeries(String deviceId) {
+        return series.get(deviceId);
+    }
+
+    /**
+     * 存储统计：点数、压缩后字节数和每点字节数
+     */
+    public Map<String, Object> getStats() {
+        long points = 0;
+        long bytes = 0;
+        long chunks = 0;
+        long outOfOrder = 0;
+        long rollupBytes = 0;
+        Map<String, Long> rollupBuckets = new TreeMap<>();
+        for (DeviceSeries deviceSeries : series.values()) {
+            points += deviceSeries.getPointCount();
+            bytes += deviceSeries.getSizeInBytes();
+            chunks += deviceSeries.getChunkCount();
+            outOfOrder += deviceSeries.getOutOfOrderCount();
+            rollupBytes += deviceSeries.getRollupSizeInBytes();
+            for (RollupTier tier : RollupTier.values()) {
+                rollupBuckets.merge(tier.label(), (long) deviceSeries.getRollupBucketCount(tier), Long::sum);
+            }
+        }
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("directory", dataDirectory != null ? dataDirectory.toString() : null);
+        stats.put("devices", series.size());
+        stats.put("points", points);
+        stats.put("chunks", chunks);
+        stats.put("compressedBytes", bytes);
+        stats.put("bytesPerPoint", points > 0 ? (double) bytes / points : 0.0);
+        stats.put("appended", appendedCount.get());
+        stats.put("outOfOrderDropped", outOfOrder);
+        stats.put("retentionHours", retentionHours);
+        stats.put("rollupBuckets", rollupBuckets);
+        stats.put("rollupBytes", rollupBytes);
+        stats.put("rollupRetentionHours", rollupRetentionHours);
+        return stats;
+    }
+}
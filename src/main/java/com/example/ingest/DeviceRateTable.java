@@ -0,0 +1,171 @@
+package com.example.ingest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按设备的令牌桶表
+ * 设备ID哈希为64位键，保存在开放寻址（线性探测）的原始类型数组中：每个设备只占一个long键、一个double令牌数和一个long时间戳，
+ * 不为设备创建对象，也不装箱。表分为{@value #SEGMENTS}段，每段一把锁，不同设备的请求大多落在不同段上
+ *
+ * 每段最多容纳maxDevices/段数个设备。写满时清除令牌已补满的设备（与不在表中等价），清除每秒最多一次；
+ * 清除后仍然写满时，新设备共用一个溢出桶，大量伪造的设备ID不会撑大本表，也不会挤占已登记设备的令牌
+ * （下游按设备保存的状态由{@link DeviceRegistry}限制设备数）
+ */
+final class DeviceRateTable {
+
+    private static final int SEGMENTS = 16;
+    private static final long PURGE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final double ratePerNano;
+    private final double burst;
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final TokenBucket overflow;
+
+    DeviceRateTable(double ratePerSecond, double burst, int maxDevices, long now) {
+        if (ratePerSecond <= 0 || burst < 1 || maxDevices < SEGMENTS) {
+            throw new IllegalArgumentException("设备速率必须大于0，突发量至少为1，设备数至少为" + SEGMENTS);
+        }
+        this.ratePerNano = ratePerSecond / 1_000_000_000d;
+        this.burst = burst;
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(maxDevices / SEGMENTS);
+        }
+        this.overflow = new TokenBucket(ratePerSecond, burst, now);
+    }
+
+    /**
+     * 从设备的令牌桶中取一个令牌
+     *
+     * @param key 设备ID的{@link #hash(String)}
+     */
+    boolean tryAcquire(long key, long now) {
+        Segment segment = segments[(int) (key >>> 60)];
+        synchronized (segment) {
+            int slot = segment.find(key);
+            if (segment.keys[slot] == key) {
+                double tokens = Math.min(burst, segment.tokens[slot] + Math.max(0, now - segment.stamps[slot]) * ratePerNano);
+                segment.stamps[slot] = Math.max(now, segment.stamps[slot]);
+                if (tokens < 1) {
+                    segment.tokens[slot] = tokens;
+                    return false;
+                }
+                segment.tokens[slot] = tokens - 1;
+                return true;
+            }
+            if (segment.size >= segment.limit) {
+                if (now - segment.purgedAt < PURGE_INTERVAL_NANOS || !segment.purge(now, ratePerNano, burst)) {
+                    segment.overflowed++;
+                    return overflow.tryAcquire(now, 0);
+                }
+                slot = segment.find(key);
+            }
+            segment.keys[slot] = key;
+            segment.tokens[slot] = burst - 1;
+            segment.stamps[slot] = now;
+            segment.size++;
+            return true;
+        }
+    }
+
+    /**
+     * 表中登记的设备数
+     */
+    int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 因表满而使用溢出桶的次数
+     */
+    long getOverflowed() {
+        long overflowed = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                overflowed += segment.overflowed;
+            }
+        }
+        return overflowed;
+    }
+
+    /**
+     * 64位FNV-1a哈希，再经MurmurHash3的fmix64混合，使高位（选段）和低位（槽位）都均匀分布；0保留为空槽位
+     */
+    static long hash(String deviceId) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < deviceId.length(); i++) {
+            hash ^= deviceId.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash == 0 ? 1 : hash;
+    }
+
+    private static final class Segment {
+        private final int limit;
+        private final int mask;
+        private long[] keys;
+        private double[] tokens;
+        private long[] stamps;
+        private int size;
+        private long purgedAt = Long.MIN_VALUE / 2;
+        private long overflowed;
+
+        Segment(int limit) {
+            this.limit = limit;
+            // 装载因子不超过0.5，线性探测的平均探测长度保持在2以内
+            int capacity = Integer.highestOneBit(Math.max(2, limit) * 2 - 1) << 1;
+            this.mask = capacity - 1;
+            this.keys = new long[capacity];
+            this.tokens = new double[capacity];
+            this.stamps = new long[capacity];
+        }
+
+        /**
+         * 键所在的槽位，不在表中时返回应插入的空槽位
+         */
+        int find(long key) {
+            int slot = (int) key & mask;
+            while (keys[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        /**
+         * 重建本段，只保留令牌未补满的设备
+         *
+         * @return 是否腾出了空位
+         */
+        boolean purge(long now, double ratePerNano, double burst) {
+            purgedAt = now;
+            long[] oldKeys = keys;
+            double[] oldTokens = tokens;
+            long[] oldStamps = stamps;
+            keys = new long[oldKeys.length];
+            tokens = new double[oldKeys.length];
+            stamps = new long[oldKeys.length];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] == 0 || oldTokens[i] + Math.max(0, now - oldStamps[i]) * ratePerNano >= burst) {
+                    continue;
+                }
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                tokens[slot] = oldTokens[i];
+                stamps[slot] = oldStamps[i];
+                size++;
+            }
+            return size < limit;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.ingest;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 通过上报接入的设备ID（64位哈希）集合，容量固定
+ * 准入的读数会在广播、历史存储、机群索引和监控中按设备ID长期保存状态，这些按设备的表不会淘汰设备，
+ * 因此上报接入的设备数必须有上限：集合写满后，不在集合中的设备的读数一律拒绝，伪造的设备ID无法撑大下游的内存。
+ * 设备只增不删，开放寻址（线性探测）的槽位只会从空变为某个键，查找无需加锁；只有首次登记时加锁
+ */
+final class DeviceRegistry {
+
+    private final int limit;
+    private final int mask;
+    private final AtomicLongArray keys;
+    private volatile int size;
+
+    DeviceRegistry(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("设备数上限至少为1");
+        }
+        this.limit = limit;
+        // 装载因子不超过0.5，线性探测的平均探测长度保持在2以内
+        int capacity = Integer.highestOneBit(Math.max(2, limit) * 2 - 1) << 1;
+        this.mask = capacity - 1;
+        this.keys = new AtomicLongArray(capacity);
+    }
+
+    /**
+     * 设备是否已登记
+     */
+    boolean contains(long key) {
+        for (int slot = (int) key & mask; ; slot = (slot + 1) & mask) {
+            long current = keys.get(slot);
+            if (current == key) {
+                return true;
+            }
+            if (current == 0) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 登记设备
+     *
+     * @return 设备已登记或登记成功时返回true，集合已满时返回false
+     */
+    synchronized boolean add(long key) {
+        int slot = (int) key & mask;
+        for (long current = keys.get(slot); current != 0; current = keys.get(slot)) {
+            if (current == key) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (size >= limit) {
+            return false;
+        }
+        keys.set(slot, key);
+        size++;
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isFull() {
+        return size >= limit;
+    }
+}
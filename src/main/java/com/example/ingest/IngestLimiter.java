@@ -0,0 +1,191 @@
+package com.example.ingest;
+
+import com.example.SensorData;
+import com.example.SensorType;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 设备上报读数的准入控制
+ * - 先检查设备数上限：准入过的设备登记在{@link DeviceRegistry}中，登记满maxDevices个设备后，新设备的读数一律拒绝
+ * - 再按设备限速：每个设备一个令牌桶（{@link DeviceRateTable}），单个设备突发上报只消耗自己的令牌
+ * - 再按全局限速：所有设备共用一个令牌桶，按传感器类型的优先级卸载。
+ *   优先级列表中排名第r的类型（共n级）要求全局桶中保留burst * reserve * r / (n - 1)个令牌，
+ *   总量逼近上限时最低优先级的类型最先被拒绝，最高优先级的类型可以用尽全部令牌
+ * 每个读数的结果按原因和类型计数
+ */
+public class IngestLimiter {
+
+    /**
+     * 准入结果
+     */
+    public enum Decision {
+        ADMITTED("admitted"),
+        INVALID("invalid"),
+        TOO_MANY_DEVICES("too-many-devices"),
+        DEVICE_LIMITED("device-limited"),
+        GLOBAL_SHED("global-shed"),
+        QUEUE_FULL("queue-full");
+
+        private final String label;
+
+        Decision(String label) {
+            this.label = label;
+        }
+
+        public String label() {
+            return label;
+        }
+    }
+
+    private final DeviceRegistry registry;
+    private final DeviceRateTable devices;
+    private final TokenBucket global;
+    private final double[] floors = new double[SensorType.values().length];
+    private final LongAdder[][] counts = new LongAdder[Decision.values().length][SensorType.values().length];
+    private final LongSupplier clock;
+
+    /**
+     * @param priority 传感器类型按优先级从高到低排列，未列出的类型排在最后
+     * @param reserve  最低优先级类型需要在全局桶中保留的令牌比例（0~1）
+     */
+    public IngestLimiter(double deviceRate, double deviceBurst, int maxDevices,
+                         double globalRate, double globalBurst, List<SensorType> priority, double reserve) {
+        this(deviceRate, deviceBurst, maxDevices, globalRate, globalBurst, priority, reserve, System::nanoTime);
+    }
+
+    IngestLimiter(double deviceRate, double deviceBurst, int maxDevices,
+                  double globalRate, double globalBurst, List<SensorType> priority, double reserve, LongSupplier clock) {
+        if (globalRate <= 0 || globalBurst < 1 || reserve < 0 || reserve >= 1) {
+            throw new IllegalArgumentException("全局速率必须大于0，突发量至少为1，保留比例在0~1之间");
+        }
+        long now = clock.getAsLong();
+        this.clock = clock;
+        this.registry = new DeviceRegistry(maxDevices);
+        this.devices = new DeviceRateTable(deviceRate, deviceBurst, maxDevices, now);
+        this.global = new TokenBucket(globalRate, globalBurst, now);
+
+        // 未列出的类型并列在最后一级
+        int lowest = priority.containsAll(List.of(SensorType.values())) ? priority.size() - 1 : priority.size();
+        for (SensorType type : SensorType.values()) {
+            int rank = priority.indexOf(type);
+            floors[type.ordinal()] = lowest == 0 ? 0 : globalBurst * reserve * (rank < 0 ? lowest : rank) / lowest;
+        }
+        for (LongAdder[] row : counts) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] = new LongAdder();
+            }
+        }
+    }
+
+    /**
+     * 判断一条读数是否准入，并计数
+     */
+    public Decision admit(SensorData data) {
+        long now = clock.getAsLong();
+        SensorType type = data.type();
+        long key = DeviceRateTable.hash(data.deviceId());
+        boolean registered = registry.contains(key);
+        Decision decision;
+        if (!registered && registry.isFull()) {
+            decision = Decision.TOO_MANY_DEVICES;
+        } else if (!devices.tryAcquire(key, now)) {
+            decision = Decision.DEVICE_LIMITED;
+        } else if (!global.tryAcquire(now, floors[type.ordinal()])) {
+            decision = Decision.GLOBAL_SHED;
+        } else if (!registered && !registry.add(key)) {
+            // 并发登记时集合恰好写满
+            decision = Decision.TOO_MANY_DEVICES;
+        } else {
+            decision = Decision.ADMITTED;
+        }
+        record(decision, type);
+        return decision;
+    }
+
+    private void record(Decision decision, SensorType type) {
+        counts[decision.ordinal()][type.ordinal()].increment();
+    }
+
+    /**
+     * 未通过校验、没有参与限速的读数由调用方记为INVALID
+     */
+    void invalid(SensorType type) {
+        record(Decision.INVALID, type);
+    }
+
+    /**
+     * 准入后未能进入处理队列的读数由调用方改记为QUEUE_FULL
+     */
+    void queueFull(SensorType type) {
+        counts[Decision.ADMITTED.ordinal()][type.ordinal()].decrement();
+        record(Decision.QUEUE_FULL, type);
+    }
+
+    public long count(Decision decision, SensorType type) {
+        return counts[decision.ordinal()][type.ordinal()].sum();
+    }
+
+    public long getAdmitted() {
+        long admitted = 0;
+        for (LongAdder count : counts[Decision.ADMITTED.ordinal()]) {
+            admitted += count.sum();
+        }
+        return admitted;
+    }
+
+    /**
+     * 被拒绝的读数，按原因和类型，不含计数为0的项
+     */
+    public Map<String, Map<String, Long>> getRejected() {
+        Map<String, Map<String, Long>> rejected = new LinkedHashMap<>();
+        for (Decision decision : Decision.values()) {
+            if (decision == Decision.ADMITTED) {
+                continue;
+            }
+            Map<String, Long> byType = new LinkedHashMap<>();
+            for (SensorType type : SensorType.values()) {
+                long count = count(decision, type);
+                if (count > 0) {
+                    byType.put(type.label(), count);
+                }
+            }
+            if (!byType.isEmpty()) {
+                rejected.put(decision.label(), byType);
+            }
+        }
+        return rejected;
+    }
+
+    /**
+     * 准入过读数、登记在设备集合中的设备数
+     */
+    public int getRegisteredDevices() {
+        return registry.size();
+    }
+
+    /**
+     * 登记了令牌桶的设备数
+     */
+    public int getTrackedDevices() {
+        return devices.size();
+    }
+
+    /**
+     * 设备表写满后使用溢出桶的次数
+     */
+    public long getOverflowed() {
+        return devices.getOverflowed();
+    }
+
+    /**
+     * 全局桶中当前可用的令牌数
+     */
+    public double getGlobalAvailable() {
+        return global.available(clock.getAsLong());
+    }
+}
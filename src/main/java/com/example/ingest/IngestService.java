@@ -0,0 +1,168 @@
+package com.example.ingest;
+
+import com.example.SensorData;
+import com.example.SensorType;
+import com.example.bridge.SensorBridgeRegistry;
+import com.example.bridge.SensorFrameCodec;
+import com.example.bridge.SensorRingBuffer;
+import com.example.logging.LogSampler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 设备通过HTTP（/api/ingest）或WebSocket（ingest操作）上报的读数的入口
+ * 设备ID为空或超过{@value SensorFrameCodec#MAX_DEVICE_ID_BYTES}字节（UTF-8）、数值为NaN或无穷大的读数直接拒绝，不消耗令牌；
+ * 其余读数经过{@link IngestLimiter}的按设备和全局限速，准入的读数放入桥接环形队列（sensor.bridge.channel），
+ * 与Flink作业输出的读数走同一条消费路径（广播、历史存储、Sink分支）；上报线程只做限速判断和一次入队，不等待下游处理。
+ * 队列占用超过sensor.ingest.max-queue-fill时拒绝上报的读数，为Flink作业的读数保留余量
+ */
+@Component
+public class IngestService {
+    private static final Logger LOG = LoggerFactory.getLogger(IngestService.class);
+    private static final LogSampler REJECT_LOG = LogSampler.rateLimited("ingest.rejected");
+
+    @Value("${sensor.bridge.channel:sensor}")
+    private String channel;
+
+    @Value("${sensor.ingest.device-rate:10}")
+    private double deviceRate;
+
+    @Value("${sensor.ingest.device-burst:20}")
+    private double deviceBurst;
+
+    @Value("${sensor.ingest.max-devices:65536}")
+    private int maxDevices;
+
+    @Value("${sensor.ingest.global-rate:5000}")
+    private double globalRate;
+
+    @Value("${sensor.ingest.global-burst:10000}")
+    private double globalBurst;
+
+    @Value("${sensor.ingest.priority:temperature,pressure,humidity,generic}")
+    private String[] priority;
+
+    @Value("${sensor.ingest.reserve:0.5}")
+    private double reserve;
+
+    @Value("${sensor.ingest.max-queue-fill:0.5}")
+    private double maxQueueFill;
+
+    @Value("${sensor.ingest.max-batch:1000}")
+    private int maxBatch;
+
+    private IngestLimiter limiter;
+
+    @PostConstruct
+    public void init() {
+        List<SensorType> types = new ArrayList<>();
+        for (String label : priority) {
+            types.add(SensorType.fromLabel(label.trim()));
+        }
+        limiter = new IngestLimiter(deviceRate, deviceBurst, maxDevices, globalRate, globalBurst, types, reserve);
+        LOG.info("设备上报限速: 每设备 {}/s（突发 {}），全局 {}/s（突发 {}），优先级 {}",
+                deviceRate, deviceBurst, globalRate, globalBurst, types);
+    }
+
+    /**
+     * 上报一批读数，逐条校验并判断准入
+     * 未带时间戳的读数使用接收时间，类型为generic的读数按设备ID前缀推断类型
+     */
+    public IngestResult ingest(List<SensorData> readings) {
+        SensorRingBuffer queue = SensorBridgeRegistry.lookup(channel);
+        int queueLimit = queue == null ? 0 : (int) (queue.capacity() * maxQueueFill);
+        int accepted = 0;
+        Map<String, Integer> rejected = new LinkedHashMap<>();
+        long now = System.currentTimeMillis();
+        for (SensorData reading : readings) {
+            SensorData data = normalize(reading, now);
+            if (!isValid(data)) {
+                limiter.invalid(data.type());
+                rejected.merge(IngestLimiter.Decision.INVALID.label(), 1, Integer::sum);
+                continue;
+            }
+            IngestLimiter.Decision decision = limiter.admit(data);
+            if (decision == IngestLimiter.Decision.ADMITTED
+                    && (queue == null || queue.size() >= queueLimit || !queue.offer(data))) {
+                decision = IngestLimiter.Decision.QUEUE_FULL;
+                limiter.queueFull(data.type());
+            }
+            if (decision == IngestLimiter.Decision.ADMITTED) {
+                accepted++;
+            } else {
+                rejected.merge(decision.label(), 1, Integer::sum);
+            }
+        }
+        if (!rejected.isEmpty() && LOG.isWarnEnabled()) {
+            long skipped = REJECT_LOG.sample();
+            if (skipped >= 0) {
+                LOG.warn("拒绝上报的读数: {} (此前省略 {} 条)", rejected, skipped);
+            }
+        }
+        return new IngestResult(accepted, readings.size() - accepted, rejected);
+    }
+
+    /**
+     * 设备ID非空且能放进桥接帧，数值是有限的
+     */
+    private static boolean isValid(SensorData data) {
+        return !data.deviceId().isBlank() && SensorFrameCodec.fits(data.deviceId()) && Double.isFinite(data.value());
+    }
+
+    private static SensorData normalize(SensorData data, long now) {
+        SensorType type = data.type() == SensorType.GENERIC ? SensorType.forDeviceId(data.deviceId()) : data.type();
+        long timestamp = data.timestamp() == 0 ? now : data.timestamp();
+        if (type == data.type() && timestamp == data.timestamp()) {
+            return data;
+        }
+        return new SensorData(data.deviceId(), timestamp, data.value(), type);
+    }
+
+    /**
+     * 单次请求最多上报的读数
+     */
+    public int getMaxBatch() {
+        return maxBatch;
+    }
+
+    /**
+     * 设备令牌桶补充一个令牌所需的秒数（至少1），用作429应答的Retry-After
+     */
+    public long getRetryAfterSeconds() {
+        return Math.max(1, (long) Math.ceil(1 / deviceRate));
+    }
+
+    public IngestLimiter getLimiter() {
+        return limiter;
+    }
+
+    /**
+     * 获取上报统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("admitted", limiter.getAdmitted());
+        stats.put("rejected", limiter.getRejected());
+        stats.put("registeredDevices", limiter.getRegisteredDevices());
+        stats.put("trackedDevices", limiter.getTrackedDevices());
+        stats.put("deviceTableOverflowed", limiter.getOverflowed());
+        stats.put("globalAvailable", (long) limiter.getGlobalAvailable());
+        return stats;
+    }
+
+    /**
+     * 一次上报的结果
+     *
+     * @param rejectedByReason 按原因（invalid、too-many-devices、device-limited、global-shed、queue-full）的拒绝条数
+     */
+    public record IngestResult(int accepted, int rejected, Map<String, Integer> rejectedByReason) {
+    }
+}
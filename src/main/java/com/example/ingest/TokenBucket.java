@@ -0,0 +1,42 @@
+package com.example.ingest;
+
+/**
+ * 单个令牌桶：按rate每秒补充令牌，最多积累burst个
+ * 取令牌时可以指定保留量floor，桶中令牌不足floor + 1时拒绝，用于按优先级提前卸载低优先级的读数
+ */
+final class TokenBucket {
+
+    private final double ratePerNano;
+    private final double burst;
+
+    private double tokens;
+    private long stamp;
+
+    TokenBucket(double ratePerSecond, double burst, long now) {
+        this.ratePerNano = ratePerSecond / 1_000_000_000d;
+        this.burst = burst;
+        this.tokens = burst;
+        this.stamp = now;
+    }
+
+    synchronized boolean tryAcquire(long now, double floor) {
+        refill(now);
+        if (tokens - 1 < floor) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    synchronized double available(long now) {
+        refill(now);
+        return tokens;
+    }
+
+    private void refill(long now) {
+        if (now > stamp) {
+            tokens = Math.min(burst, tokens + (now - stamp) * ratePerNano);
+            stamp = now;
+        }
+    }
+}
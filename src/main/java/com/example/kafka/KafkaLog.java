@@ -0,0 +1,56 @@
+package com.example.kafka;
+
+import com.example.SensorData;
+import org.apache.flink.connector.kafka.sink.KafkaSink;
+import org.apache.flink.connector.kafka.source.KafkaSource;
+import org.apache.flink.connector.kafka.source.enumerator.initializer.OffsetsInitializer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.producer.ProducerConfig;
+
+import java.util.Properties;
+
+/**
+ * Kafka协议日志的Flink Sink和Source
+ * - Sink：按设备ID分区，生产者按linger和批量上限凑批并压缩；exactly-once时每个检查点周期的写入在一个事务中，
+ *   检查点完成后才提交，作业失败恢复后未提交的事务被放弃，不会产生重复
+ * - Source：只读取已提交的事务（read_committed），位点随检查点保存，并在检查点完成时提交到消费组
+ */
+public final class KafkaLog {
+
+    private KafkaLog() {
+    }
+
+    /**
+     * Sink生产者的凑批、压缩和事务超时参数
+     */
+    public static Properties producerProperties(KafkaLogSettings settings) {
+        Properties producer = new Properties();
+        producer.setProperty(ProducerConfig.COMPRESSION_TYPE_CONFIG, settings.compression());
+        producer.setProperty(ProducerConfig.LINGER_MS_CONFIG, String.valueOf(settings.lingerMs()));
+        producer.setProperty(ProducerConfig.BATCH_SIZE_CONFIG, String.valueOf(settings.batchSizeBytes()));
+        producer.setProperty(ProducerConfig.TRANSACTION_TIMEOUT_CONFIG, String.valueOf(settings.transactionTimeoutMs()));
+        return producer;
+    }
+
+    public static KafkaSink<SensorData> sink(KafkaLogSettings settings) {
+        return KafkaSink.<SensorData>builder()
+                .setBootstrapServers(settings.bootstrapServers())
+                .setRecordSerializer(new SensorRecordSchema(settings.topic()))
+                .setDeliveryGuarantee(settings.guarantee())
+                .setTransactionalIdPrefix(settings.transactionalIdPrefix())
+                .setKafkaProducerConfig(producerProperties(settings))
+                .build();
+    }
+
+    public static KafkaSource<SensorData> source(KafkaLogSettings settings) {
+        return KafkaSource.<SensorData>builder()
+                .setBootstrapServers(settings.bootstrapServers())
+                .setTopics(settings.topic())
+                .setGroupId(settings.groupId())
+                .setStartingOffsets(OffsetsInitializer.committedOffsets(OffsetResetStrategy.EARLIEST))
+                .setValueOnlyDeserializer(new SensorRecordSchema(settings.topic()))
+                .setProperty(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed")
+                .build();
+    }
+}
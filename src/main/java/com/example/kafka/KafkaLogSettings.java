@@ -0,0 +1,69 @@
+package com.example.kafka;
+
+import org.apache.flink.connector.base.DeliveryGuarantee;
+
+import java.io.Serializable;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Kafka协议日志的连接、批量、压缩和投递语义参数
+ *
+ * @param bootstrapServers 代理地址，逗号分隔的host:port
+ * @param topic 读数主题
+ * @param compression 批量压缩算法：none、gzip、snappy、lz4、zstd
+ * @param deliveryGuarantee 投递语义：exactly-once（事务，随检查点提交）、at-least-once、none
+ * @param transactionalIdPrefix 事务ID前缀，共用同一代理的多个作业或实例必须互不相同
+ * @param lingerMs 生产者凑批的最长等待时间
+ * @param batchSizeBytes 每个分区的批量上限（字节）
+ * @param transactionTimeoutMs 事务超时，需大于检查点间隔，且不超过代理的transaction.max.timeout.ms
+ * @param groupId Source的消费组，检查点完成时提交位点
+ */
+public record KafkaLogSettings(
+        String bootstrapServers,
+        String topic,
+        String compression,
+        String deliveryGuarantee,
+        String transactionalIdPrefix,
+        int lingerMs,
+        int batchSizeBytes,
+        long transactionTimeoutMs,
+        String groupId
+) implements Serializable {
+
+    private static final Set<String> COMPRESSION_TYPES = Set.of("none", "gzip", "snappy", "lz4", "zstd");
+
+    public KafkaLogSettings {
+        compression = compression.toLowerCase(Locale.ROOT);
+        if (!COMPRESSION_TYPES.contains(compression)) {
+            throw new IllegalArgumentException("不支持的压缩算法: " + compression);
+        }
+        guarantee(deliveryGuarantee);
+    }
+
+    public static KafkaLogSettings defaults(String bootstrapServers, String topic) {
+        return new KafkaLogSettings(bootstrapServers, topic, "lz4", "exactly-once", "flink-sensor",
+                20, 256 * 1024, 600_000, "flink-sensor");
+    }
+
+    public DeliveryGuarantee guarantee() {
+        return guarantee(deliveryGuarantee);
+    }
+
+    public boolean exactlyOnce() {
+        return guarantee() == DeliveryGuarantee.EXACTLY_ONCE;
+    }
+
+    private static DeliveryGuarantee guarantee(String name) {
+        try {
+            return DeliveryGuarantee.valueOf(name.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("不支持的投递语义: " + name, e);
+        }
+    }
+
+    public KafkaLogSettings withCompression(String compression) {
+        return new KafkaLogSettings(bootstrapServers, topic, compression, deliveryGuarantee, transactionalIdPrefix,
+                lingerMs, batchSizeBytes, transactionTimeoutMs, groupId);
+    }
+}
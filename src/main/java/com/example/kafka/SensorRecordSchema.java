@@ -0,0 +1,52 @@
+package com.example.kafka;
+
+import com.example.SensorData;
+import com.example.bridge.SensorFrameCodec;
+import org.apache.flink.api.common.serialization.DeserializationSchema;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.connector.kafka.sink.KafkaRecordSerializationSchema;
+import org.apache.kafka.clients.producer.ProducerRecord;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 读数与Kafka记录的转换
+ * 键为设备ID，同一设备的读数写入同一分区并保持顺序；值为{@link SensorFrameCodec}的64字节定长帧，
+ * 与桥接套接字和溢出日志的格式相同，批量压缩在生产者端进行
+ */
+public class SensorRecordSchema implements KafkaRecordSerializationSchema<SensorData>, DeserializationSchema<SensorData> {
+    private static final long serialVersionUID = 1L;
+
+    private final String topic;
+
+    public SensorRecordSchema(String topic) {
+        this.topic = topic;
+    }
+
+    @Override
+    public ProducerRecord<byte[], byte[]> serialize(SensorData element, KafkaSinkContext context, Long timestamp) {
+        ByteBuffer frame = ByteBuffer.allocate(SensorFrameCodec.FRAME_SIZE);
+        SensorFrameCodec.encode(element, frame);
+        return new ProducerRecord<>(topic, null, element.timestamp(),
+                element.deviceId().getBytes(StandardCharsets.UTF_8), frame.array());
+    }
+
+    @Override
+    public SensorData deserialize(byte[] message) {
+        if (message == null || message.length != SensorFrameCodec.FRAME_SIZE) {
+            throw new IllegalArgumentException("无效的读数记录: 长度 " + (message == null ? 0 : message.length));
+        }
+        return SensorFrameCodec.decode(ByteBuffer.wrap(message));
+    }
+
+    @Override
+    public boolean isEndOfStream(SensorData nextElement) {
+        return false;
+    }
+
+    @Override
+    public TypeInformation<SensorData> getProducedType() {
+        return TypeInformation.of(SensorData.class);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.logging;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 数据路径上逐条日志的采样和限速，按名称在同一JVM内共享（Flink子任务和Spring组件共用）
+ * - 采样：每sample-every条记录一条（第一条总会记录），只用于DEBUG级别的逐条跟踪
+ * - 限速：每秒最多max-per-second条，超出的丢弃；WARN级别的逐条失败日志只限速不采样
+ * - {@link #sample()}返回距上一条记录省略的条数，写进日志里，省略和记录的总数见sensor.log.*指标
+ * 调用方先判断日志级别再调用，级别关闭时不计数，数据路径上没有任何开销
+ */
+public final class LogSampler {
+
+    private static final Map<String, LogSampler> SAMPLERS = new ConcurrentHashMap<>();
+
+    private static volatile long sampleEvery = 1000;
+    private static volatile int maxPerSecond = 5;
+
+    private final boolean sampled;
+    private final AtomicLong seen = new AtomicLong();
+    private final AtomicLong logged = new AtomicLong();
+    private final AtomicLong lastLogged = new AtomicLong();
+    private final AtomicLong window = new AtomicLong();
+    private final AtomicInteger inWindow = new AtomicInteger();
+
+    private LogSampler(boolean sampled) {
+        this.sampled = sampled;
+    }
+
+    /**
+     * 采样加限速，用于逐条的DEBUG日志
+     */
+    public static LogSampler sampled(String name) {
+        return SAMPLERS.computeIfAbsent(name, key -> new LogSampler(true));
+    }
+
+    /**
+     * 只限速，用于逐条的失败日志
+     */
+    public static LogSampler rateLimited(String name) {
+        return SAMPLERS.computeIfAbsent(name, key -> new LogSampler(false));
+    }
+
+    /**
+     * 由Spring配置设置，对已创建的采样器同样生效
+     */
+    public static void configure(long every, int perSecond) {
+        sampleEvery = Math.max(1, every);
+        maxPerSecond = Math.max(1, perSecond);
+    }
+
+    /**
+     * @return 这一条需要记录时返回距上一条记录省略的条数，否则返回-1
+     */
+    public long sample() {
+        long count = seen.incrementAndGet();
+        if (sampled && count != 1 && count % sampleEvery != 0) {
+            return -1;
+        }
+        long second = System.currentTimeMillis() / 1000;
+        long current = window.get();
+        if (current != second && window.compareAndSet(current, second)) {
+            inWindow.set(0);
+        }
+        if (inWindow.incrementAndGet() > maxPerSecond) {
+            return -1;
+        }
+        logged.incrementAndGet();
+        return count - lastLogged.getAndSet(count) - 1;
+    }
+
+    public long getLogged() {
+        return logged.get();
+    }
+
+    public long getSuppressed() {
+        return seen.get() - logged.get();
+    }
+
+    /**
+     * 所有采样器，按名称排序
+     */
+    public static Map<String, LogSampler> all() {
+        return new TreeMap<>(SAMPLERS);
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.monitoring;
 
+import com.example.ingest.IngestService;
 import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
 import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
 import org.springframework.stereotype.Component;
@@ -12,18 +13,20 @@ import java.util.stream.Collectors;
 
 /**
  * 异常统计的Actuator端点
- * 按异常类型分类统计异常次数
+ * 按异常类型分类统计异常次数，另外给出被限速拒绝的上报读数（ingestRejected，按原因和类型）
  */
 @Component
 @Endpoint(id = "exception-stats")
 public class ExceptionStatsEndpoint {
 
     private final SensorMetricsService metricsService;
+    private final IngestService ingestService;
     private final List<ExceptionRecord> recentExceptions = new ArrayList<>();
     private static final int MAX_RECENT_EXCEPTIONS = 20; // 保留最近20条异常记录
 
-    public ExceptionStatsEndpoint(SensorMetricsService metricsService) {
+    public ExceptionStatsEndpoint(SensorMetricsService metricsService, IngestService ingestService) {
         this.metricsService = metricsService;
+        this.ingestService = ingestService;
     }
 
     @ReadOperation
@@ -50,6 +53,9 @@ public class ExceptionStatsEndpoint {
             stats.put("percentages", percentages);
         }
         
+        // 限速拒绝的上报读数不计入异常次数，每条都记为异常会淹没真正的异常
+        stats.put("ingestRejected", ingestService.getLimiter().getRejected());
+        
         // 添加最近的异常记录
         synchronized (recentExceptions) {
             stats.put("recentExceptions", recentExceptions);
@@ -0,0 +1,53 @@
+package com.example.monitoring;
+
+import com.example.FlinkJobManager;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * 内嵌Flink作业的Actuator端点
+ * 提供作业状态查询，以及暂停、恢复和调整并行度操作
+ */
+@Component
+@Endpoint(id = "flink-job")
+public class FlinkJobEndpoint {
+
+    private final FlinkJobManager jobManager;
+
+    public FlinkJobEndpoint(FlinkJobManager jobManager) {
+        this.jobManager = jobManager;
+    }
+
+    @ReadOperation
+    public Map<String, Object> jobStatus() {
+        return jobManager.getStatus();
+    }
+
+    /**
+     * 执行作业控制操作
+     *
+     * @param action pause / resume / rescale
+     * @param parallelism rescale时的目标并行度
+     */
+    @WriteOperation
+    public Map<String, Object> control(String action, @Nullable Integer parallelism) {
+        switch (action) {
+            case "pause":
+                return jobManager.pause();
+            case "resume":
+                return jobManager.resume();
+            case "rescale":
+                if (parallelism == null) {
+                    throw new IllegalArgumentException("rescale操作需要指定parallelism");
+                }
+                return jobManager.rescale(parallelism);
+            default:
+                throw new IllegalArgumentException("不支持的操作: " + action);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.monitoring;
+
+import com.example.resilience.HttpPushRegistry;
+import com.example.resilience.HttpPushStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.function.LongSupplier;
+
+/**
+ * HTTP推送的熔断和自适应并发指标
+ * 数据来自同一JVM内运行的HttpSender子任务（HttpPushRegistry）
+ */
+@Component
+public class HttpPushMetrics implements MeterBinder {
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("sensor.http.breaker.state", () -> HttpPushRegistry.worstBreakerState().code())
+                .description("HTTP推送熔断器状态 (0=关闭, 1=打开, 2=半开)")
+                .register(registry);
+        Gauge.builder("sensor.http.concurrency.limit", () -> HttpPushRegistry.sum(HttpPushStats::getConcurrencyLimit))
+                .description("HTTP推送当前的自适应并发限制（各子任务之和）")
+                .register(registry);
+        Gauge.builder("sensor.http.inflight", () -> HttpPushRegistry.sum(HttpPushStats::getInFlight))
+                .description("正在发送的HTTP请求数")
+                .register(registry);
+        Gauge.builder("sensor.http.spill.size", () -> HttpPushRegistry.sum(HttpPushStats::getSpillSize))
+                .description("溢出缓冲中等待重放的读数")
+                .register(registry);
+
+        counter(registry, "sensor.http.sent", "成功推送的读数", HttpPushRegistry::sentTotal);
+        counter(registry, "sensor.http.sent.bytes", "成功推送的请求体字节数（压缩后）", HttpPushRegistry::sentBytesTotal);
+        counter(registry, "sensor.http.failures", "失败的推送请求", HttpPushRegistry::failedTotal);
+        counter(registry, "sensor.http.rejected", "被端点拒绝（4xx）的读数", HttpPushRegistry::rejectedTotal);
+        counter(registry, "sensor.http.spilled", "转入溢出缓冲的读数", HttpPushRegistry::spilledTotal);
+        counter(registry, "sensor.http.replayed", "重放成功的读数", HttpPushRegistry::replayedTotal);
+        counter(registry, "sensor.http.spill.dropped", "溢出缓冲写满后丢弃的读数", HttpPushRegistry::spillDroppedTotal);
+        counter(registry, "sensor.http.breaker.opens", "熔断器打开次数", HttpPushRegistry::breakerOpensTotal);
+    }
+
+    private void counter(MeterRegistry registry, String name, String description, LongSupplier total) {
+        FunctionCounter.builder(name, this, metrics -> total.getAsLong())
+                .description(description)
+                .register(registry);
+    }
+}
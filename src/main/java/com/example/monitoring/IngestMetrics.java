@@ -0,0 +1,53 @@
+package com.example.monitoring;
+
+import com.example.SensorType;
+import com.example.ingest.IngestLimiter;
+import com.example.ingest.IngestService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+/**
+ * 设备上报读数的准入指标
+ * sensor.ingest.accepted和sensor.ingest.rejected按传感器类型（type）计数，拒绝的读数另按原因（reason）区分：
+ * invalid（设备ID为空或过长、数值不是有限数）、too-many-devices（上报设备数已达上限时的新设备）、device-limited（设备限速）、global-shed（全局限速按优先级卸载）、queue-full（处理队列占用过高）
+ */
+@Component
+public class IngestMetrics implements MeterBinder {
+
+    private final IngestService ingestService;
+
+    public IngestMetrics(IngestService ingestService) {
+        this.ingestService = ingestService;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        IngestLimiter limiter = ingestService.getLimiter();
+        for (SensorType type : SensorType.values()) {
+            for (IngestLimiter.Decision decision : IngestLimiter.Decision.values()) {
+                boolean accepted = decision == IngestLimiter.Decision.ADMITTED;
+                FunctionCounter.Builder<IngestLimiter> builder = FunctionCounter
+                        .builder(accepted ? "sensor.ingest.accepted" : "sensor.ingest.rejected",
+                                limiter, value -> value.count(decision, type))
+                        .description(accepted ? "准入的上报读数" : "被拒绝的上报读数")
+                        .tag("type", type.label());
+                if (!accepted) {
+                    builder.tag("reason", decision.label());
+                }
+                builder.register(registry);
+            }
+        }
+        Gauge.builder("sensor.ingest.registered.devices", limiter, IngestLimiter::getRegisteredDevices)
+                .description("准入过读数的上报设备数，达到sensor.ingest.max-devices后拒绝新设备")
+                .register(registry);
+        Gauge.builder("sensor.ingest.devices", limiter, IngestLimiter::getTrackedDevices)
+                .description("登记了令牌桶的上报设备数")
+                .register(registry);
+        Gauge.builder("sensor.ingest.global.available", limiter, IngestLimiter::getGlobalAvailable)
+                .description("全局令牌桶中当前可用的令牌")
+                .register(registry);
+    }
+}
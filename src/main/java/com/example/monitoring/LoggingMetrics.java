@@ -0,0 +1,43 @@
+package com.example.monitoring;
+
+import com.example.logging.LogSampler;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.function.ToLongFunction;
+
+/**
+ * 数据路径逐条日志的采样配置和计数
+ * 逐条的INFO日志已改为计数（如sensor.http.sent），剩下的逐条DEBUG/WARN日志经过{@link LogSampler}，
+ * 这里给出实际记录和被采样、限速省略的条数
+ */
+@Component
+public class LoggingMetrics implements MeterBinder {
+
+    @Value("${sensor.logging.sample-every:1000}")
+    private long sampleEvery;
+
+    @Value("${sensor.logging.max-per-second:5}")
+    private int maxPerSecond;
+
+    @PostConstruct
+    public void configure() {
+        LogSampler.configure(sampleEvery, maxPerSecond);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        counter(registry, "sensor.log.sampled", "采样后实际记录的逐条日志", LogSampler::getLogged);
+        counter(registry, "sensor.log.suppressed", "被采样或限速省略的逐条日志", LogSampler::getSuppressed);
+    }
+
+    private void counter(MeterRegistry registry, String name, String description, ToLongFunction<LogSampler> value) {
+        FunctionCounter.builder(name, this, metrics -> LogSampler.all().values().stream().mapToLong(value).sum())
+                .description(description)
+                .register(registry);
+    }
+}
@@ -32,6 +32,7 @@ public class MessageQueueEndpoint {
         
         stats.put("currentSize", currentQueueSize);
         stats.put("totalProcessed", metricsService.getTotalMessagesProcessed());
+        stats.put("spilled", metricsService.getSpillSize());
         stats.put("threshold", queueSizeThreshold);
         stats.put("status", getQueueStatus(currentQueueSize));
         stats.put("backpressureDetected", currentQueueSize > queueSizeThreshold);
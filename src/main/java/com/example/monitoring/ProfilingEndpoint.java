@@ -0,0 +1,48 @@
+package com.example.monitoring;
+
+import com.example.profiling.JfrProfiler;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * JFR录制的Actuator端点
+ * 查询录制状态和上一次录制的汇总，开始和停止录制
+ */
+@Component
+@Endpoint(id = "profiling")
+public class ProfilingEndpoint {
+
+    private final JfrProfiler profiler;
+
+    public ProfilingEndpoint(JfrProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    @ReadOperation
+    public Map<String, Object> profilingStatus() {
+        return profiler.status();
+    }
+
+    /**
+     * 执行录制操作
+     *
+     * @param action start / stop
+     * @param seconds start时的录制时长（秒），默认为sensor.profiling.max-duration
+     */
+    @WriteOperation
+    public Map<String, Object> control(String action, @Nullable Integer seconds) throws Exception {
+        switch (action) {
+            case "start":
+                return profiler.start(seconds);
+            case "stop":
+                return profiler.stop();
+            default:
+                throw new IllegalArgumentException("不支持的操作: " + action);
+        }
+    }
+}
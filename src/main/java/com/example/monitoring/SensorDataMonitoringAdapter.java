@@ -1,10 +1,16 @@
 package com.example.monitoring;
 
 import com.example.SensorData;
+import com.example.spill.MappedSpillLog;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Deque;
 import java.util.LinkedList;
 import java.util.Map;
@@ -15,6 +21,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 /**
  * 传感器数据监控适配器
  * 用于监控传感器数据流、缓存和队列状态
+ * 消息队列满时读数写入磁盘溢出日志，队列有空位时再按批次取回，不再直接丢弃
  */
 @Component
 public class SensorDataMonitoringAdapter {
@@ -36,6 +43,22 @@ public class SensorDataMonitoringAdapter {
     private final LinkedBlockingQueue<SensorData> messageQueue = new LinkedBlockingQueue<>(1000);
     private final AtomicInteger processedCount = new AtomicInteger(0);
     
+    // 队列满时的磁盘溢出日志
+    @Value("${sensor.monitoring.spill.dir:}")
+    private String spillDirectory;
+    
+    @Value("${sensor.monitoring.spill.capacity:1000000}")
+    private long spillCapacity;
+    
+    @Value("${sensor.monitoring.spill.segment-records:65536}")
+    private int spillSegmentRecords;
+    
+    // 每次处理时最多从溢出日志取回的读数，控制恢复时的重放速率
+    @Value("${sensor.monitoring.spill.replay-batch:50}")
+    private int spillReplayBatch;
+    
+    private MappedSpillLog spillLog;
+    
     public SensorDataMonitoringAdapter(
             SensorMetricsService metricsService,
             DataCacheEndpoint dataCacheEndpoint,
@@ -47,6 +70,30 @@ public class SensorDataMonitoringAdapter {
         this.exceptionStatsEndpoint = exceptionStatsEndpoint;
     }
     
+    @PostConstruct
+    public void openSpillLog() {
+        if (spillDirectory == null || spillDirectory.isBlank()) {
+            return;
+        }
+        try {
+            spillLog = new MappedSpillLog(Paths.get(spillDirectory), spillSegmentRecords, spillCapacity);
+            metricsService.updateSpillSize(spillLog.size());
+            logger.info("监控队列溢出日志已打开: {} (未读记录: {})", spillDirectory, spillLog.size());
+        } catch (IOException e) {
+            logger.error("无法打开监控队列溢出日志 {}，队列满时将丢弃数据: {}", spillDirectory, e.getMessage(), e);
+        }
+    }
+    
+    @PreDestroy
+    public void closeSpillLog() {
+        if (spillLog != null) {
+            synchronized (spillLog) {
+                spillLog.close();
+                spillLog = null;
+            }
+        }
+    }
+    
     /**
      * 处理传感器数据
      */
@@ -64,10 +111,12 @@ public class SensorDataMonitoringAdapter {
                 }
             }
             
-            // 3. 模拟队列处理（添加到队列）
-            if (messageQueue.offer(sensorData)) {
+            // 3. 模拟队列处理（添加到队列）；溢出日志中还有积压时先追加到日志，保持先后顺序
+            if (!hasSpilled() && messageQueue.offer(sensorData)) {
                 // 更新队列大小
                 messageQueueEndpoint.updateQueueSize(messageQueue.size());
+            } else if (spill(sensorData)) {
+                logger.debug("消息队列已满，传感器数据写入溢出日志: {}", sensorData.deviceId());
             } else {
                 // 队列已满，记录异常
                 logger.warn("消息队列已满，传感器数据被丢弃: {}", sensorData.deviceId());
@@ -81,6 +130,9 @@ public class SensorDataMonitoringAdapter {
             // 4. 模拟处理队列中的消息
             processQueuedMessages();
             
+            // 5. 队列有空位时从溢出日志取回积压的读数
+            replaySpilled();
+            
         } catch (Exception e) {
             // 记录异常
             logger.error("处理传感器数据时出错: {}", e.getMessage(), e);
@@ -114,6 +166,63 @@ public class SensorDataMonitoringAdapter {
         messageQueueEndpoint.updateQueueSize(messageQueue.size());
     }
     
+    private boolean hasSpilled() {
+        MappedSpillLog log = spillLog;
+        return log != null && log.size() > 0;
+    }
+    
+    /**
+     * 写入溢出日志
+     *
+     * @return 未启用溢出日志时返回false
+     */
+    private boolean spill(SensorData sensorData) {
+        MappedSpillLog log = spillLog;
+        if (log == null) {
+            return false;
+        }
+        synchronized (log) {
+            if (spillLog == null) {
+                return false;
+            }
+            if (!log.offer(sensorData)) {
+                exceptionStatsEndpoint.recordException(
+                        "SpillFullException",
+                        "溢出日志已满或读数无法写入，数据被丢弃",
+                        null
+                );
+            }
+            metricsService.updateSpillSize(log.size());
+        }
+        return true;
+    }
+    
+    /**
+     * 按批次把溢出日志中的读数放回队列，每次最多spillReplayBatch条
+     */
+    private void replaySpilled() {
+        MappedSpillLog log = spillLog;
+        if (log == null || log.size() == 0) {
+            return;
+        }
+        synchronized (log) {
+            if (spillLog == null) {
+                return;
+            }
+            for (int i = 0; i < spillReplayBatch && messageQueue.remainingCapacity() > 0; i++) {
+                SensorData data = log.poll();
+                if (data == null || !messageQueue.offer(data)) {
+                    if (data != null) {
+                        log.pushBack(data);
+                    }
+                    break;
+                }
+            }
+            metricsService.updateSpillSize(log.size());
+        }
+        messageQueueEndpoint.updateQueueSize(messageQueue.size());
+    }
+    
     /**
      * 获取堆栈跟踪字符串
      */
@@ -148,6 +257,14 @@ public class SensorDataMonitoringAdapter {
         return messageQueue.size();
     }
     
+    /**
+     * 获取溢出日志中的积压数
+     */
+    public long getSpilledCount() {
+        MappedSpillLog log = spillLog;
+        return log != null ? log.size() : 0;
+    }
+    
     /**
      * 获取已处理消息数
      */
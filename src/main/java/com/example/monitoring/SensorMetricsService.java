@@ -1,7 +1,6 @@
 package com.example.monitoring;
 
 import io.micrometer.core.instrument.*;
-import io.micrometer.core.instrument.binder.MeterBinder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -20,7 +19,7 @@ import java.util.stream.Collectors;
  * 收集WebSocket连接、数据缓存、消息队列和异常等监控指标
  */
 @Service
-public class SensorMetricsService implements MeterBinder {
+public class SensorMetricsService {
     private static final Logger logger = LoggerFactory.getLogger(SensorMetricsService.class);
 
     private final MeterRegistry registry;
@@ -35,6 +34,7 @@ public class SensorMetricsService implements MeterBinder {
     // 消息队列指标
     private final AtomicInteger queueSize = new AtomicInteger(0);
     private final AtomicLong totalMessagesProcessed = new AtomicLong(0);
+    private final AtomicLong spillSize = new AtomicLong(0);
 
     // 异常统计
     private final Map<String, AtomicInteger> exceptionCounters = new ConcurrentHashMap<>();
@@ -54,7 +54,8 @@ public class SensorMetricsService implements MeterBinder {
         registry.gauge("sensor.websocket.connections", activeConnections);
         registry.gauge("sensor.cache.items", cachedItemsCount);
         registry.gauge("sensor.queue.size", queueSize);
-        registry.gauge("sensor.cache.last_update_seconds", this::getCacheLastUpdateSeconds);
+        registry.gauge("sensor.queue.spill.size", spillSize);
+        registry.gauge("sensor.cache.last_update_seconds", this, SensorMetricsService::getCacheLastUpdateSeconds);
         
         Counter.builder("sensor.messages.processed.total")
                 .description("传感器数据处理总数")
@@ -66,11 +67,6 @@ public class SensorMetricsService implements MeterBinder {
                 .register(registry);
     }
 
-    @Override
-    public void bindTo(MeterRegistry registry) {
-        // 已在构造函数中实现绑定
-    }
-
     /**
      * WebSocket连接相关方法
      */
@@ -126,6 +122,17 @@ public class SensorMetricsService implements MeterBinder {
         return queueSize.get();
     }
 
+    /**
+     * 队列满时写入磁盘溢出日志的积压数
+     */
+    public void updateSpillSize(long size) {
+        spillSize.set(size);
+    }
+
+    public long getSpillSize() {
+        return spillSize.get();
+    }
+
     public long getTotalMessagesProcessed() {
         return totalMessagesProcessed.get();
     }
@@ -0,0 +1,28 @@
+package com.example.monitoring;
+
+import com.example.history.TimeSeriesStore;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * 历史时间序列存储的Actuator端点
+ * 提供设备数、点数和压缩后每点占用的字节数
+ */
+@Component
+@Endpoint(id = "series-store")
+public class SeriesStoreEndpoint {
+
+    private final TimeSeriesStore store;
+
+    public SeriesStoreEndpoint(TimeSeriesStore store) {
+        this.store = store;
+    }
+
+    @ReadOperation
+    public Map<String, Object> storeStats() {
+        return store.getStats();
+    }
+}
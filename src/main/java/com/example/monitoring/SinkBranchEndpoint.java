@@ -0,0 +1,35 @@
+package com.example.monitoring;
+
+import com.example.resilience.HttpPushRegistry;
+import com.example.resilience.HttpPushStats;
+import com.example.sink.SinkBranchStats;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Sink分支的Actuator端点
+ * file、log、spill分支给出队列深度、写出、丢弃和重试计数；http分支给出发送和溢出计数
+ */
+@Component
+@Endpoint(id = "sink-branches")
+public class SinkBranchEndpoint {
+
+    @ReadOperation
+    public Map<String, Object> branchStats() {
+        Map<String, Object> stats = new TreeMap<>(SinkBranchStats.snapshot());
+        if (HttpPushRegistry.activeCount() > 0) {
+            stats.put("http", Map.of(
+                    "sent", HttpPushRegistry.sentTotal(),
+                    "sentBytes", HttpPushRegistry.sentBytesTotal(),
+                    "failed", HttpPushRegistry.failedTotal(),
+                    "spilled", HttpPushRegistry.spilledTotal(),
+                    "spillQueued", (long) HttpPushRegistry.sum(HttpPushStats::getSpillSize),
+                    "breakerState", HttpPushRegistry.worstBreakerState().name()));
+        }
+        return stats;
+    }
+}
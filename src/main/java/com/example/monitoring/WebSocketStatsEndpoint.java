@@ -1,5 +1,10 @@
 package com.example.monitoring;
 
+import com.example.cluster.ClusterFanout;
+import com.example.cluster.DevicePartitioner;
+import com.example.reactive.ReactiveSensorWebSocketHandler;
+import com.example.stream.StreamFanout;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
 import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
 import org.springframework.stereotype.Component;
@@ -10,17 +15,27 @@ import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * WebSocket连接统计的Actuator端点
- * 提供WebSocket连接数和会话信息
+ * 提供WebSocket连接数和会话信息，以及SSE/长轮询降级通道的统计；响应式服务端另有reactive一项，多实例扇出启用时另有cluster一项
  */
 @Component
 @Endpoint(id = "websocket-stats")
 public class WebSocketStatsEndpoint {
 
     private final SensorMetricsService metricsService;
+    private final StreamFanout streamFanout;
+    private final ObjectProvider<ReactiveSensorWebSocketHandler> reactiveHandler;
+    private final ClusterFanout clusterFanout;
+    private final DevicePartitioner devicePartitioner;
     private final Map<String, Map<String, Object>> sessionDetails = new ConcurrentHashMap<>();
 
-    public WebSocketStatsEndpoint(SensorMetricsService metricsService) {
+    public WebSocketStatsEndpoint(SensorMetricsService metricsService, StreamFanout streamFanout,
+                                  ObjectProvider<ReactiveSensorWebSocketHandler> reactiveHandler,
+                                  ClusterFanout clusterFanout, DevicePartitioner devicePartitioner) {
         this.metricsService = metricsService;
+        this.streamFanout = streamFanout;
+        this.reactiveHandler = reactiveHandler;
+        this.clusterFanout = clusterFanout;
+        this.devicePartitioner = devicePartitioner;
     }
 
     @ReadOperation
@@ -28,6 +43,13 @@ public class WebSocketStatsEndpoint {
         Map<String, Object> stats = new HashMap<>();
         stats.put("activeConnections", metricsService.getActiveConnectionsCount());
         stats.put("sessions", sessionDetails);
+        stats.put("stream", streamFanout.getStats());
+        reactiveHandler.ifAvailable(handler -> stats.put("reactive", handler.getConnectionStats()));
+        if (clusterFanout.isEnabled()) {
+            Map<String, Object> cluster = clusterFanout.getStats();
+            cluster.put("partition", devicePartitioner.getStats());
+            stats.put("cluster", cluster);
+        }
         return stats;
     }
 
@@ -0,0 +1,205 @@
+package com.example.payload;
+
+import com.example.SensorData;
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdCompressCtx;
+import org.apache.http.entity.ContentType;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * HTTP推送请求体的编码：格式（JSON或紧凑二进制）和可选的压缩（gzip、zstd）
+ * - 请求体直接写入池中的缓冲区，以ByteArrayEntity发送，不经过String和UTF-8复制；缓冲区和压缩器随请求归还复用
+ * - 小于minCompressBytes的请求体不压缩（单条读数压缩后往往更大），压缩只在批量时有收益
+ * - 端点返回415时调用{@link #downgrade()}：先取消压缩，再从二进制退回JSON，之后的请求使用协商后的编码
+ */
+public final class HttpPayloadEncoder implements AutoCloseable {
+
+    /**
+     * 请求体格式
+     */
+    public enum Format {
+        JSON, BINARY
+    }
+
+    /**
+     * 请求体压缩（Content-Encoding）
+     */
+    public enum Compression {
+        NONE, GZIP, ZSTD
+    }
+
+    private static final ContentType JSON = ContentType.APPLICATION_JSON;
+    private static final ContentType BINARY = ContentType.parse(SensorBinaryCodec.CONTENT_TYPE);
+    private static final int ZSTD_LEVEL = 3;
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private final int minCompressBytes;
+    private final int maxPooled;
+    private final ConcurrentLinkedQueue<Payload> pool = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooled = new AtomicInteger();
+
+    private volatile Format format;
+    private volatile Compression compression;
+
+    /**
+     * @param maxPooled 池中最多保留的请求体，通常等于最大并发请求数
+     */
+    public HttpPayloadEncoder(Format format, Compression compression, int minCompressBytes, int maxPooled) {
+        this.format = format;
+        this.compression = compression;
+        this.minCompressBytes = minCompressBytes;
+        this.maxPooled = maxPooled;
+    }
+
+    /**
+     * 解析配置中的名称，如binary、zstd
+     *
+     * @throws IllegalArgumentException 名称未知时抛出
+     */
+    public static <E extends Enum<E>> E parse(Class<E> type, String name) {
+        try {
+            return Enum.valueOf(type, name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("不支持的" + type.getSimpleName() + ": " + name, e);
+        }
+    }
+
+    public Payload encode(SensorData data) throws IOException {
+        Payload payload = acquire();
+        Format current = format;
+        if (current == Format.BINARY) {
+            SensorBinaryCodec.encode(data, payload.body);
+        } else {
+            SensorJsonCodec.encode(data, payload.body);
+        }
+        return finish(payload, current);
+    }
+
+    public Payload encode(List<SensorData> batch) throws IOException {
+        Payload payload = acquire();
+        Format current = format;
+        if (current == Format.BINARY) {
+            SensorBinaryCodec.encode(batch, payload.body);
+        } else {
+            SensorJsonCodec.encode(batch, payload.body);
+        }
+        return finish(payload, current);
+    }
+
+    private Payload finish(Payload payload, Format current) {
+        ContentType contentType = current == Format.BINARY ? BINARY : JSON;
+        Compression codec = compression;
+        if (codec == Compression.NONE || payload.body.size() < minCompressBytes) {
+            payload.complete(contentType, null, false);
+        } else if (codec == Compression.GZIP) {
+            gzip(payload);
+            payload.complete(contentType, "gzip", true);
+        } else {
+            zstd(payload);
+            payload.complete(contentType, "zstd", true);
+        }
+        return payload;
+    }
+
+    /**
+     * gzip格式（RFC 1952）：固定头 + 原始DEFLATE + CRC32和原始长度，Deflater随请求体复用
+     */
+    private static void gzip(Payload payload) {
+        if (payload.deflater == null) {
+            payload.deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            payload.crc = new CRC32();
+        }
+        Deflater deflater = payload.deflater;
+        PayloadBuffer in = payload.body;
+        PayloadBuffer out = payload.compressed;
+        deflater.reset();
+        deflater.setInput(in.array(), 0, in.size());
+        deflater.finish();
+        out.write(GZIP_HEADER, 0, GZIP_HEADER.length);
+        while (!deflater.finished()) {
+            out.ensure(Math.max(64, in.size() / 2));
+            out.advance(deflater.deflate(out.array(), out.size(), out.array().length - out.size()));
+        }
+        CRC32 crc = payload.crc;
+        crc.reset();
+        crc.update(in.array(), 0, in.size());
+        writeIntLE(out, (int) crc.getValue());
+        writeIntLE(out, in.size());
+    }
+
+    private static void zstd(Payload payload) {
+        if (payload.zstd == null) {
+            payload.zstd = new ZstdCompressCtx().setLevel(ZSTD_LEVEL);
+        }
+        PayloadBuffer in = payload.body;
+        PayloadBuffer out = payload.compressed;
+        int bound = (int) Zstd.compressBound(in.size());
+        out.ensure(bound);
+        out.advance(payload.zstd.compressByteArray(out.array(), 0, bound, in.array(), 0, in.size()));
+    }
+
+    private static void writeIntLE(PayloadBuffer out, int value) {
+        out.write(value);
+        out.write(value >>> 8);
+        out.write(value >>> 16);
+        out.write(value >>> 24);
+    }
+
+    private Payload acquire() {
+        Payload payload = pool.poll();
+        if (payload == null) {
+            payload = new Payload(this);
+        } else {
+            pooled.decrementAndGet();
+        }
+        payload.reset();
+        return payload;
+    }
+
+    void release(Payload payload) {
+        if (pooled.incrementAndGet() <= maxPooled) {
+            pool.offer(payload);
+        } else {
+            pooled.decrementAndGet();
+            payload.dispose();
+        }
+    }
+
+    /**
+     * 端点不接受当前编码（415）时降级，返回false表示已是最基本的JSON不压缩
+     */
+    public synchronized boolean downgrade() {
+        if (compression != Compression.NONE) {
+            compression = Compression.NONE;
+            return true;
+        }
+        if (format != Format.JSON) {
+            format = Format.JSON;
+            return true;
+        }
+        return false;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public Compression getCompression() {
+        return compression;
+    }
+
+    @Override
+    public void close() {
+        Payload payload;
+        while ((payload = pool.poll()) != null) {
+            payload.dispose();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.payload;
+
+import com.github.luben.zstd.ZstdCompressCtx;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * 一次编码的请求体，持有编码器池中的缓冲区和压缩器
+ * 请求完成（或放弃）后必须close()归还，之后不能再使用entity()返回的实体
+ */
+public final class Payload implements AutoCloseable {
+
+    private final HttpPayloadEncoder owner;
+    final PayloadBuffer body = new PayloadBuffer(512);
+    final PayloadBuffer compressed = new PayloadBuffer(512);
+    Deflater deflater;
+    CRC32 crc;
+    ZstdCompressCtx zstd;
+
+    private ContentType contentType;
+    private String contentEncoding;
+    private PayloadBuffer output;
+    private int rawBytes;
+
+    Payload(HttpPayloadEncoder owner) {
+        this.owner = owner;
+    }
+
+    void reset() {
+        body.reset();
+        compressed.reset();
+        output = body;
+        contentEncoding = null;
+    }
+
+    void complete(ContentType contentType, String contentEncoding, boolean useCompressed) {
+        this.contentType = contentType;
+        this.contentEncoding = contentEncoding;
+        this.rawBytes = body.size();
+        this.output = useCompressed ? compressed : body;
+    }
+
+    /**
+     * 直接引用池中缓冲区的请求实体，不复制请求体
+     */
+    public HttpEntity entity() {
+        ByteArrayEntity entity = new ByteArrayEntity(output.array(), 0, output.size(), contentType);
+        if (contentEncoding != null) {
+            entity.setContentEncoding(contentEncoding);
+        }
+        return entity;
+    }
+
+    public String contentType() {
+        return contentType.toString();
+    }
+
+    /**
+     * Content-Encoding，未压缩时为null
+     */
+    public String contentEncoding() {
+        return contentEncoding;
+    }
+
+    /**
+     * 压缩前的字节数
+     */
+    public int rawBytes() {
+        return rawBytes;
+    }
+
+    /**
+     * 实际发送的字节数
+     */
+    public int wireBytes() {
+        return output.size();
+    }
+
+    public byte[] toByteArray() {
+        return output.toByteArray();
+    }
+
+    /**
+     * 释放本地压缩器，只在编码器关闭或池已满时调用
+     */
+    void dispose() {
+        if (deflater != null) {
+            deflater.end();
+        }
+        if (zstd != null) {
+            zstd.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        owner.release(this);
+    }
+}
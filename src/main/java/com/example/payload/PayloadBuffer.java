@@ -0,0 +1,94 @@
+package com.example.payload;
+
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * 可复用的字节缓冲区，请求体直接写入其中，随{@link Payload}发送后归还编码器复用
+ * 同时作为OutputStream供Jackson和压缩流写入，非线程安全
+ */
+public final class PayloadBuffer extends OutputStream {
+
+    private byte[] bytes;
+    private int size;
+
+    public PayloadBuffer(int initialCapacity) {
+        bytes = new byte[initialCapacity];
+    }
+
+    void ensure(int extra) {
+        if (size + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+        }
+    }
+
+    @Override
+    public void write(int b) {
+        ensure(1);
+        bytes[size++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] source, int offset, int length) {
+        ensure(length);
+        System.arraycopy(source, offset, bytes, size, length);
+        size += length;
+    }
+
+    /**
+     * 无符号变长整数（每字节7位，高位表示后续还有字节）
+     */
+    public void writeVarLong(long value) {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[size++] = (byte) value;
+    }
+
+    /**
+     * 有符号变长整数，ZigZag映射后绝对值小的数占用的字节少
+     */
+    public void writeZigZag(long value) {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * 8字节小端IEEE 754双精度
+     */
+    public void writeDouble(double value) {
+        ensure(8);
+        long bits = Double.doubleToRawLongBits(value);
+        for (int i = 0; i < 8; i++) {
+            bytes[size++] = (byte) (bits >>> (i * 8));
+        }
+    }
+
+    /**
+     * 压缩器直接写入array()后，按写入的字节数前移
+     */
+    void advance(int count) {
+        size += count;
+    }
+
+    public void reset() {
+        size = 0;
+    }
+
+    public byte[] array() {
+        return bytes;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    int capacity() {
+        return bytes.length;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, size);
+    }
+}
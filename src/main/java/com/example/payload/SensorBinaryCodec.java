@@ -0,0 +1,147 @@
+package com.example.payload;
+
+import com.example.SensorData;
+import com.example.SensorType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 读数的紧凑二进制编码（schema版本1），单条读数和批量使用同一格式
+ * 布局：版本(1) | 条数(varint) | 每条：设备ID长度(varint) | 设备ID(UTF-8) | 类型编码(1) | 时间戳增量(zigzag varint) | 数值(8, 小端double)
+ * 时间戳增量相对上一条读数（第一条相对0），批量中时间接近的读数时间戳只占1~2字节；
+ * 单条读数为设备ID长度加约17字节（如temperature-sensor-1约37字节），同一读数的JSON约107字节
+ */
+public final class SensorBinaryCodec {
+
+    public static final byte VERSION = 1;
+    public static final String CONTENT_TYPE = "application/vnd.sensor.readings+binary;version=1";
+
+    private SensorBinaryCodec() {
+    }
+
+    public static void encode(SensorData data, PayloadBuffer out) {
+        out.write(VERSION);
+        out.writeVarLong(1);
+        writeReading(data, 0, out);
+    }
+
+    public static void encode(List<SensorData> batch, PayloadBuffer out) {
+        out.write(VERSION);
+        out.writeVarLong(batch.size());
+        long previous = 0;
+        for (SensorData data : batch) {
+            writeReading(data, previous, out);
+            previous = data.timestamp();
+        }
+    }
+
+    private static void writeReading(SensorData data, long previousTimestamp, PayloadBuffer out) {
+        String deviceId = data.deviceId();
+        if (isAscii(deviceId)) {
+            out.writeVarLong(deviceId.length());
+            for (int i = 0; i < deviceId.length(); i++) {
+                out.write(deviceId.charAt(i));
+            }
+        } else {
+            byte[] id = deviceId.getBytes(StandardCharsets.UTF_8);
+            out.writeVarLong(id.length);
+            out.write(id, 0, id.length);
+        }
+        out.write(data.type().code());
+        out.writeZigZag(data.timestamp() - previousTimestamp);
+        out.writeDouble(data.value());
+    }
+
+    private static boolean isAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 解码一条消息，供接收端和测试使用
+     *
+     * @throws IllegalArgumentException 版本不支持或数据不完整
+     */
+    public static List<SensorData> decode(byte[] bytes, int offset, int length) {
+        Reader in = new Reader(bytes, offset, offset + length);
+        int version = in.readByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("不支持的编码版本: " + version);
+        }
+        long count = in.readVarLong();
+        if (count < 0 || count > length) {
+            throw new IllegalArgumentException("读数条数无效: " + count);
+        }
+        List<SensorData> readings = new ArrayList<>((int) count);
+        long timestamp = 0;
+        for (long i = 0; i < count; i++) {
+            int idLength = (int) in.readVarLong();
+            String deviceId = in.readString(idLength);
+            SensorType type = SensorType.fromCode(in.readByte());
+            long delta = in.readVarLong();
+            timestamp += (delta >>> 1) ^ -(delta & 1);
+            readings.add(new SensorData(deviceId, timestamp, in.readDouble(), type));
+        }
+        if (in.position != in.end) {
+            throw new IllegalArgumentException("消息末尾有多余的 " + (in.end - in.position) + " 字节");
+        }
+        return readings;
+    }
+
+    private static final class Reader {
+        private final byte[] bytes;
+        private final int end;
+        private int position;
+
+        Reader(byte[] bytes, int position, int end) {
+            this.bytes = bytes;
+            this.position = position;
+            this.end = end;
+        }
+
+        private void require(int count) {
+            if (count < 0 || position + count > end) {
+                throw new IllegalArgumentException("消息不完整");
+            }
+        }
+
+        int readByte() {
+            require(1);
+            return bytes[position++];
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("变长整数过长");
+        }
+
+        String readString(int length) {
+            require(length);
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        double readDouble() {
+            require(8);
+            long bits = 0;
+            for (int i = 0; i < 8; i++) {
+                bits |= (bytes[position++] & 0xFFL) << (i * 8);
+            }
+            return Double.longBitsToDouble(bits);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.payload;
+
+import com.example.SensorData;
+import com.example.SensorType;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * 读数的流式JSON编码，输出与ObjectMapper序列化SensorData一致（字段顺序同{@link SensorData}的@JsonPropertyOrder）
+ * - 直接用JsonGenerator写字段，不经过ObjectMapper的序列化器查找和record访问器反射
+ * - 字段名、类型标签和单位是预先转义的SerializedString，写出时只做字节复制
+ * - double使用Jackson的快速格式化（Schubfach），极少数值的末位表示可能与Double.toString不同，解析后数值相同
+ * - 单条编码为字节数组时复用线程本地的生成器和ByteArrayBuilder，每条只分配结果数组
+ */
+public final class SensorJsonCodec {
+
+    private static final JsonFactory FACTORY = JsonFactory.builder()
+            .enable(StreamWriteFeature.USE_FAST_DOUBLE_WRITER)
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build();
+
+    private static final SerializableString DEVICE_ID = new SerializedString("deviceId");
+    private static final SerializableString VALUE = new SerializedString("value");
+    private static final SerializableString UNIT = new SerializedString("unit");
+    private static final SerializableString TYPE = new SerializedString("type");
+    private static final SerializableString TIMESTAMP = new SerializedString("timestamp");
+
+    private static final SerializableString[] LABELS = new SerializableString[SensorType.values().length];
+    private static final SerializableString[] UNITS = new SerializableString[SensorType.values().length];
+
+    static {
+        for (SensorType type : SensorType.values()) {
+            LABELS[type.ordinal()] = new SerializedString(type.label());
+            UNITS[type.ordinal()] = new SerializedString(type.unit());
+        }
+    }
+
+    private static final ThreadLocal<Writer> WRITER = ThreadLocal.withInitial(Writer::new);
+
+    private SensorJsonCodec() {
+    }
+
+    /**
+     * 单条读数的JSON（UTF-8）
+     */
+    public static byte[] encode(SensorData data) {
+        Writer writer = WRITER.get();
+        try {
+            write(data, writer.generator);
+            writer.generator.flush();
+            byte[] encoded = writer.buffer.toByteArray();
+            writer.buffer.reset();
+            return encoded;
+        } catch (IOException e) {
+            // 生成器可能停在对象中间，丢弃后下次重建
+            WRITER.remove();
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static void encode(SensorData data, OutputStream out) throws IOException {
+        try (JsonGenerator generator = FACTORY.createGenerator(out)) {
+            write(data, generator);
+        }
+    }
+
+    /**
+     * 批量读数编码为JSON数组
+     */
+    public static void encode(List<SensorData> batch, OutputStream out) throws IOException {
+        try (JsonGenerator generator = FACTORY.createGenerator(out)) {
+            generator.writeStartArray(batch, batch.size());
+            for (SensorData data : batch) {
+                write(data, generator);
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    /**
+     * 批量读数编码为JSON Lines，每条读数后跟一个换行
+     */
+    public static void encodeLines(List<SensorData> batch, OutputStream out) throws IOException {
+        try (JsonGenerator generator = FACTORY.createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            for (SensorData data : batch) {
+                write(data, generator);
+                generator.writeRaw('\n');
+            }
+        }
+    }
+
+    /**
+     * 线程本地的缓冲区和长期复用的生成器：每条读数作为一个根值写出，根值之间不加分隔符
+     */
+    private static final class Writer {
+        final ByteArrayBuilder buffer = new ByteArrayBuilder(256);
+        final JsonGenerator generator;
+
+        Writer() {
+            try {
+                generator = FACTORY.createGenerator(buffer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            generator.setRootValueSeparator(null);
+        }
+    }
+
+    public static void write(SensorData data, JsonGenerator generator) throws IOException {
+        int type = data.type().ordinal();
+        generator.writeStartObject(data, 5);
+        generator.writeFieldName(DEVICE_ID);
+        generator.writeString(data.deviceId());
+        generator.writeFieldName(VALUE);
+        generator.writeNumber(data.value());
+        generator.writeFieldName(UNIT);
+        generator.writeString(UNITS[type]);
+        generator.writeFieldName(TYPE);
+        generator.writeString(LABELS[type]);
+        generator.writeFieldName(TIMESTAMP);
+        generator.writeNumber(data.timestamp());
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.profiling;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 持续运行的JFR事件流，把GC停顿、锁竞争、分配采样和CPU占用转为Micrometer指标
+ * 只开启这几类事件，锁等待阈值比按需录制高，分配采样限速更低，可以在生产节点上常开
+ * 锁竞争按监视器的类名打标签（如java.util.LinkedList），具体调用位置用/actuator/profiling录制查看
+ */
+@Component
+public class JfrEventMetrics implements MeterBinder {
+    private static final Logger LOG = LoggerFactory.getLogger(JfrEventMetrics.class);
+
+    @Value("${sensor.profiling.continuous.enabled:true}")
+    private boolean enabled;
+
+    @Value("${sensor.profiling.continuous.monitor-threshold:10}")
+    private long monitorThresholdMs;
+
+    @Value("${sensor.profiling.continuous.allocation-throttle:20/s}")
+    private String allocationThrottle;
+
+    private final AtomicLong jvmCpu = new AtomicLong(Double.doubleToLongBits(0));
+    private final AtomicLong machineCpu = new AtomicLong(Double.doubleToLongBits(0));
+    private RecordingStream stream;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (!enabled) {
+            return;
+        }
+        Counter allocated = Counter.builder("sensor.jfr.allocation.bytes")
+                .description("JFR分配采样估算的堆分配字节数")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("sensor.jfr.cpu.jvm", () -> Double.longBitsToDouble(jvmCpu.get()))
+                .description("JVM进程的CPU占用（0~1，用户态加内核态）")
+                .register(registry);
+        Gauge.builder("sensor.jfr.cpu.machine", () -> Double.longBitsToDouble(machineCpu.get()))
+                .description("整机CPU占用（0~1）")
+                .register(registry);
+
+        try {
+            stream = new RecordingStream();
+            stream.setMaxAge(Duration.ofMinutes(1));
+            stream.enable(RecordingSummary.GARBAGE_COLLECTION);
+            stream.enable(RecordingSummary.MONITOR_ENTER).withThreshold(Duration.ofMillis(monitorThresholdMs));
+            stream.enable(RecordingSummary.ALLOCATION).with("throttle", allocationThrottle);
+            stream.enable("jdk.CPULoad").withPeriod(Duration.ofSeconds(1));
+
+            stream.onEvent(RecordingSummary.GARBAGE_COLLECTION, event -> Timer.builder("sensor.jfr.gc.pause")
+                    .description("GC停顿时间")
+                    .tag("collector", event.getString("name"))
+                    .register(registry)
+                    .record(event.getDuration("sumOfPauses")));
+            stream.onEvent(RecordingSummary.MONITOR_ENTER, event -> Timer.builder("sensor.jfr.monitor.blocked")
+                    .description("等待进入synchronized监视器的时间（超过阈值的等待）")
+                    .tag("monitor", event.getClass("monitorClass").getName())
+                    .register(registry)
+                    .record(event.getDuration()));
+            stream.onEvent(RecordingSummary.ALLOCATION, event -> allocated.increment(event.getLong("weight")));
+            stream.onEvent("jdk.CPULoad", event -> {
+                jvmCpu.set(Double.doubleToLongBits(event.getFloat("jvmUser") + event.getFloat("jvmSystem")));
+                machineCpu.set(Double.doubleToLongBits(event.getFloat("machineTotal")));
+            });
+            stream.startAsync();
+            LOG.info("JFR事件流已启动，锁等待阈值 {} 毫秒，分配采样 {}", monitorThresholdMs, allocationThrottle);
+        } catch (RuntimeException e) {
+            LOG.warn("无法启动JFR事件流，相关指标不可用: {}", e.getMessage());
+            stream = null;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.profiling;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 按需的JFR录制：通过Actuator端点在运行中的节点上开始和停止，停止后汇总分配热点、锁竞争、GC停顿和CPU热点
+ * - 基于JFR的default配置（开销约1%），分配采样按allocation-throttle限速，锁等待超过monitor-threshold才记录
+ * - 同一时间只有一个录制；录制到max-duration自动停止，文件写入dir，只保留最近keep-files个
+ * - 汇总只在停止后读取录制文件时计算一次，之后的查询直接返回
+ */
+@Component
+public class JfrProfiler {
+    private static final Logger LOG = LoggerFactory.getLogger(JfrProfiler.class);
+
+    private static final String RECORDING_NAME = "sensor-profiling";
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    @Value("${sensor.profiling.dir:/tmp/flink-sensor/profiling}")
+    private String directory;
+
+    @Value("${sensor.profiling.settings:default}")
+    private String settings;
+
+    @Value("${sensor.profiling.max-duration:600}")
+    private int maxDurationSeconds;
+
+    @Value("${sensor.profiling.monitor-threshold:1}")
+    private long monitorThresholdMs;
+
+    @Value("${sensor.profiling.allocation-throttle:150/s}")
+    private String allocationThrottle;
+
+    @Value("${sensor.profiling.app-package:com.example}")
+    private String appPackage;
+
+    @Value("${sensor.profiling.top:10}")
+    private int top;
+
+    @Value("${sensor.profiling.keep-files:5}")
+    private int keepFiles;
+
+    private Recording recording;
+    private Path file;
+    private Instant startedAt;
+    private Map<String, Object> summary;
+
+    /**
+     * 创建按本类参数配置的录制，测试中也用它生成录制文件
+     */
+    static Recording newRecording(String settings, Duration monitorThreshold, String allocationThrottle)
+            throws IOException, ParseException {
+        Recording recording = new Recording(Configuration.getConfiguration(settings));
+        recording.setName(RECORDING_NAME);
+        recording.enable(RecordingSummary.ALLOCATION).with("throttle", allocationThrottle).withStackTrace();
+        recording.enable(RecordingSummary.MONITOR_ENTER).withThreshold(monitorThreshold).withStackTrace();
+        recording.enable(RecordingSummary.GARBAGE_COLLECTION);
+        recording.enable(RecordingSummary.EXECUTION_SAMPLE).withPeriod(Duration.ofMillis(20));
+        return recording;
+    }
+
+    /**
+     * 开始录制，已有录制在进行时不做任何事
+     *
+     * @param seconds 录制时长，为空或超过max-duration时取max-duration
+     */
+    public synchronized Map<String, Object> start(@Nullable Integer seconds) throws IOException, ParseException {
+        if (isRecording()) {
+            return status();
+        }
+        Path base = Paths.get(directory);
+        Files.createDirectories(base);
+        cleanUp(base);
+        int duration = seconds == null || seconds <= 0 ? maxDurationSeconds : Math.min(seconds, maxDurationSeconds);
+        file = base.resolve("profile-" + LocalDateTime.now().format(FILE_TIME) + ".jfr");
+        recording = newRecording(settings, Duration.ofMillis(monitorThresholdMs), allocationThrottle);
+        recording.setToDisk(true);
+        recording.setDestination(file);
+        recording.setDuration(Duration.ofSeconds(duration));
+        recording.start();
+        startedAt = Instant.now();
+        summary = null;
+        LOG.info("开始JFR录制，时长 {} 秒，文件: {}", duration, file);
+        return status();
+    }
+
+    /**
+     * 停止录制并汇总，没有进行中的录制时返回上一次的结果
+     */
+    public synchronized Map<String, Object> stop() {
+        if (isRecording()) {
+            recording.stop();
+            LOG.info("停止JFR录制，文件: {}", file);
+        }
+        return status();
+    }
+
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        boolean active = isRecording();
+        status.put("recording", active);
+        if (recording == null) {
+            return status;
+        }
+        status.put("startedAt", startedAt.toString());
+        status.put("file", file.toString());
+        if (active) {
+            status.put("elapsedSeconds", Duration.between(startedAt, Instant.now()).toSeconds());
+            status.put("maxSeconds", recording.getDuration().toSeconds());
+            return status;
+        }
+        status.put("summary", summary());
+        return status;
+    }
+
+    private boolean isRecording() {
+        return recording != null
+                && (recording.getState() == RecordingState.RUNNING || recording.getState() == RecordingState.DELAYED);
+    }
+
+    /**
+     * 录制结束后（手动停止或到时自动停止）第一次查询时读取文件汇总
+     */
+    private Map<String, Object> summary() {
+        if (summary == null) {
+            try {
+                summary = RecordingSummary.summarize(file, appPackage, top);
+            } catch (IOException e) {
+                LOG.warn("读取JFR录制文件失败: {}", file, e);
+                return Map.of("error", String.valueOf(e.getMessage()));
+            } finally {
+                recording.close();
+            }
+        }
+        return summary;
+    }
+
+    private void cleanUp(Path base) throws IOException {
+        try (var files = Files.list(base)) {
+            files.filter(path -> path.getFileName().toString().endsWith(".jfr"))
+                    .sorted((a, b) -> b.getFileName().compareTo(a.getFileName()))
+                    .skip(Math.max(0, keepFiles - 1))
+                    .forEach(path -> {
+                        try {
+                            Files.deleteIfExists(path);
+                        } catch (IOException e) {
+                            LOG.warn("删除旧的JFR录制文件失败: {}", path, e);
+                        }
+                    });
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (recording != null) {
+            recording.close();
+        }
+    }
+}
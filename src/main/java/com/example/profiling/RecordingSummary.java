@@ -0,0 +1,200 @@
+package com.example.profiling;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * JFR录制文件的汇总：分配热点、锁竞争、GC停顿和CPU采样热点
+ * 调用位置取栈上第一个应用包内的帧（如SensorDataMonitoringAdapter.processSensorData:108），
+ * 这样JDK集合类内部的分配和锁也归到应用中的调用处；栈上没有应用帧时取栈顶帧
+ */
+final class RecordingSummary {
+
+    static final String ALLOCATION = "jdk.ObjectAllocationSample";
+    static final String MONITOR_ENTER = "jdk.JavaMonitorEnter";
+    static final String GARBAGE_COLLECTION = "jdk.GarbageCollection";
+    static final String EXECUTION_SAMPLE = "jdk.ExecutionSample";
+
+    private final String appPackage;
+    private final int top;
+
+    private final Map<String, Site> allocations = new HashMap<>();
+    private final Map<String, Site> monitors = new HashMap<>();
+    private final Map<String, Site> cpu = new HashMap<>();
+    private final Map<String, Site> collectors = new TreeMap<>();
+    private long allocationBytes;
+    private long cpuSamples;
+    private long gcCount;
+    private long gcPauseNanos;
+    private long gcMaxPauseNanos;
+
+    private RecordingSummary(String appPackage, int top) {
+        this.appPackage = appPackage;
+        this.top = top;
+    }
+
+    /**
+     * 读取录制文件并汇总
+     *
+     * @param appPackage 应用包名前缀，用于确定调用位置
+     * @param top 每类热点最多返回的条数
+     */
+    static Map<String, Object> summarize(Path file, String appPackage, int top) throws IOException {
+        RecordingSummary summary = new RecordingSummary(appPackage, top);
+        try (RecordingFile recording = new RecordingFile(file)) {
+            while (recording.hasMoreEvents()) {
+                summary.accept(recording.readEvent());
+            }
+        }
+        return summary.toMap();
+    }
+
+    private void accept(RecordedEvent event) {
+        switch (event.getEventType().getName()) {
+            case ALLOCATION -> {
+                long weight = event.getLong("weight");
+                allocationBytes += weight;
+                String site = site(event.getStackTrace());
+                String objectClass = event.getClass("objectClass").getName();
+                allocations.computeIfAbsent(site + " " + objectClass, key -> new Site(site, objectClass)).add(weight);
+            }
+            case MONITOR_ENTER -> {
+                String site = site(event.getStackTrace());
+                String monitorClass = event.getClass("monitorClass").getName();
+                monitors.computeIfAbsent(site + " " + monitorClass, key -> new Site(site, monitorClass))
+                        .add(event.getDuration().toNanos());
+            }
+            case GARBAGE_COLLECTION -> {
+                long pause = event.getDuration("sumOfPauses").toNanos();
+                gcCount++;
+                gcPauseNanos += pause;
+                gcMaxPauseNanos = Math.max(gcMaxPauseNanos, event.getDuration("longestPause").toNanos());
+                collectors.computeIfAbsent(event.getString("name"), name -> new Site(name, null)).add(pause);
+            }
+            case EXECUTION_SAMPLE -> {
+                cpuSamples++;
+                cpu.computeIfAbsent(site(event.getStackTrace()), site -> new Site(site, null)).add(1);
+            }
+            default -> {
+            }
+        }
+    }
+
+    private String site(RecordedStackTrace stackTrace) {
+        if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+            return "未知";
+        }
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        for (RecordedFrame frame : frames) {
+            if (frame.isJavaFrame() && frame.getMethod().getType().getName().startsWith(appPackage)) {
+                return frame(frame);
+            }
+        }
+        return frame(frames.get(0));
+    }
+
+    private static String frame(RecordedFrame frame) {
+        String type = frame.getMethod().getType().getName();
+        return type.substring(type.lastIndexOf('.') + 1) + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+
+    private Map<String, Object> toMap() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+
+        Map<String, Object> allocation = new LinkedHashMap<>();
+        allocation.put("sampledBytes", allocationBytes);
+        allocation.put("top", top(allocations, "objectClass", site -> Map.of(
+                "bytes", site.total,
+                "percent", percent(site.total, allocationBytes),
+                "samples", site.count)));
+        summary.put("allocation", allocation);
+
+        summary.put("contention", top(monitors, "monitor", site -> Map.of(
+                "count", site.count,
+                "totalMs", millis(site.total),
+                "maxMs", millis(site.max))));
+
+        Map<String, Object> gc = new LinkedHashMap<>();
+        gc.put("count", gcCount);
+        gc.put("totalPauseMs", millis(gcPauseNanos));
+        gc.put("maxPauseMs", millis(gcMaxPauseNanos));
+        Map<String, Object> byCollector = new TreeMap<>();
+        collectors.forEach((name, site) -> byCollector.put(name, Map.of(
+                "count", site.count, "totalPauseMs", millis(site.total))));
+        gc.put("collectors", byCollector);
+        summary.put("gc", gc);
+
+        Map<String, Object> execution = new LinkedHashMap<>();
+        execution.put("samples", cpuSamples);
+        execution.put("top", top(cpu, null, site -> Map.of(
+                "samples", site.count,
+                "percent", percent(site.count, cpuSamples))));
+        summary.put("cpu", execution);
+        return summary;
+    }
+
+    /**
+     * 按累计值排序的前top个调用位置
+     *
+     * @param detailName 调用位置附带的类名（对象类型或监视器类型）的字段名，没有时为null
+     */
+    private List<Map<String, Object>> top(Map<String, Site> sites, String detailName,
+                                          Function<Site, Map<String, Object>> values) {
+        List<Site> sorted = new ArrayList<>(sites.values());
+        sorted.sort(Comparator.comparingLong((Site site) -> site.total).reversed());
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Site site : sorted.subList(0, Math.min(top, sorted.size()))) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("site", site.site);
+            if (detailName != null) {
+                entry.put(detailName, site.detail);
+            }
+            entry.putAll(new TreeMap<>(values.apply(site)));
+            result.add(entry);
+        }
+        return result;
+    }
+
+    private static double percent(long part, long total) {
+        return total == 0 ? 0 : Math.round(part * 1000.0 / total) / 10.0;
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+
+    /**
+     * 一个调用位置（或收集器）的累计值（字节、纳秒或样本数）
+     */
+    private static final class Site {
+        final String site;
+        final String detail;
+        long count;
+        long total;
+        long max;
+
+        Site(String site, String detail) {
+            this.site = site;
+            this.detail = detail;
+        }
+
+        void add(long value) {
+            count++;
+            total += value;
+            max = Math.max(max, value);
+        }
+    }
+}
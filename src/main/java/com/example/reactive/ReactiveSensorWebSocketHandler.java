@@ -0,0 +1,141 @@
+package com.example.reactive;
+
+import com.example.history.TimeSeriesStore;
+import com.example.ingest.IngestService;
+import com.example.stream.EncodedReading;
+import com.example.stream.StreamFanout;
+import com.example.stream.SubscriptionFilter;
+import com.example.websocket.WebSocketActions;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.socket.CloseStatus;
+import org.springframework.web.reactive.socket.WebSocketHandler;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 响应式服务端（WebFlux + Reactor Netty）的/wx-socket处理器，消息格式与{@link com.example.websocket.SensorWebSocketHandler}相同
+ * 全部会话订阅同一个读数Flux，每个会话按自己的写出速度请求数据：
+ * 慢客户端跟不上时只保留最新一条（onBackpressureLatest），不阻塞发布线程，也不为每个会话缓存积压的消息；
+ * 消息从Netty的池化直接内存分配，写出后由Netty释放
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSensorWebSocketHandler implements WebSocketHandler {
+    private static final Logger LOG = LoggerFactory.getLogger(ReactiveSensorWebSocketHandler.class);
+
+    private final StreamFanout fanout;
+    private final WebSocketActions actions;
+
+    // 所有会话共享的读数流，只向有需求的订阅者发送；每个会话的onBackpressureLatest始终有需求，积压在会话内处理
+    private final Sinks.Many<EncodedReading> readings = Sinks.many().multicast().directBestEffort();
+
+    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+
+    // 统计信息：matched为匹配订阅条件的读数，sent为交给连接写出的读数，两者之差为背压丢弃的读数
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final AtomicLong messagesMatched = new AtomicLong();
+    private final AtomicLong messagesSent = new AtomicLong();
+
+    public ReactiveSensorWebSocketHandler(StreamFanout fanout, TimeSeriesStore timeSeriesStore,
+                                          IngestService ingestService) {
+        this.fanout = fanout;
+        this.actions = new WebSocketActions(timeSeriesStore, ingestService);
+    }
+
+    @PostConstruct
+    public void init() {
+        fanout.addListener(this::emit);
+        LOG.info("WebSocket由响应式服务端处理 (Reactor Netty)");
+    }
+
+    /**
+     * Sinks不允许并发发送，多个发布线程时在此串行化；没有会话时读数直接丢弃
+     */
+    private synchronized void emit(EncodedReading reading) {
+        readings.tryEmitNext(reading);
+    }
+
+    @Override
+    public Mono<Void> handle(WebSocketSession session) {
+        // 握手URI中的type/device/prefix参数作为初始订阅条件，与Servlet服务端一致
+        SubscriptionFilter initial;
+        try {
+            initial = SubscriptionFilter.fromParameters(
+                    UriComponentsBuilder.fromUri(session.getHandshakeInfo().getUri()).build().getQueryParams());
+        } catch (IllegalArgumentException e) {
+            return session.close(CloseStatus.BAD_DATA.withReason(e.getMessage()));
+        }
+        AtomicReference<SubscriptionFilter> filter = new AtomicReference<>(initial);
+        Sinks.Many<byte[]> replies = Sinks.many().unicast().onBackpressureBuffer();
+
+        Flux<byte[]> data = readings.asFlux()
+                .filter(reading -> filter.get().matches(reading.data()))
+                .doOnNext(reading -> messagesMatched.incrementAndGet())
+                .onBackpressureLatest()
+                .map(EncodedReading::json)
+                .doOnNext(json -> messagesSent.incrementAndGet());
+        // 在发送前最后一步分配缓冲区，取消时不会有未释放的缓冲区滞留在合并队列中
+        Mono<Void> output = session.send(Flux.merge(data, replies.asFlux())
+                .map(payload -> textMessage(session, payload)));
+        Mono<Void> input = session.receive()
+                .map(WebSocketMessage::getPayloadAsText)
+                .doOnNext(payload -> replies.tryEmitNext(
+                        actions.handle(payload, filter::set).getBytes(StandardCharsets.UTF_8)))
+                .then();
+
+        String sessionId = session.getId();
+        sessions.put(sessionId, session);
+        totalConnections.incrementAndGet();
+        LOG.info("新的WebSocket连接已建立: {} (IP: {}, 当前活跃连接数: {})",
+                sessionId, session.getHandshakeInfo().getRemoteAddress(), sessions.size());
+        // 任一方向结束（客户端关闭或写出失败）时结束会话并取消另一方向的订阅
+        return Mono.zip(input, output).then()
+                .doFinally(signal -> {
+                    sessions.remove(sessionId);
+                    LOG.info("WebSocket连接已关闭: {} (剩余活跃连接数: {})", sessionId, sessions.size());
+                });
+    }
+
+    private static WebSocketMessage textMessage(WebSocketSession session, byte[] payload) {
+        DataBuffer buffer = session.bufferFactory().allocateBuffer(payload.length);
+        buffer.write(payload);
+        return new WebSocketMessage(WebSocketMessage.Type.TEXT, buffer);
+    }
+
+    public int getActiveSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * 获取连接统计信息
+     */
+    public Map<String, Object> getConnectionStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long matched = messagesMatched.get();
+        long sent = messagesSent.get();
+        stats.put("activeConnections", sessions.size());
+        stats.put("totalConnections", totalConnections.get());
+        stats.put("messagesSent", sent);
+        stats.put("messagesDropped", Math.max(0, matched - sent));
+        stats.put("pooledDirectMemory", PooledByteBufAllocator.DEFAULT.metric().usedDirectMemory());
+        return stats;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.reactive;
+
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.reactive.handler.SimpleUrlHandlerMapping;
+import org.springframework.web.reactive.socket.server.support.HandshakeWebSocketService;
+import org.springframework.web.reactive.socket.server.support.WebSocketHandlerAdapter;
+import org.springframework.web.reactive.socket.server.upgrade.ReactorNettyRequestUpgradeStrategy;
+import reactor.netty.http.server.WebsocketServerSpec;
+
+import java.util.Map;
+
+/**
+ * 响应式服务端配置，只在spring.main.web-application-type=reactive（reactive配置文件）时生效
+ * - /wx-socket注册到{@link ReactiveSensorWebSocketHandler}
+ * - 服务端使用Reactor Netty，连接使用Netty的池化直接内存分配器
+ * - 入站帧上限按客户端请求（降采样、订阅）的大小设置，不为每个会话预留512KB缓冲区
+ * - 支持permessage-deflate
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveServerConfig {
+
+    // 客户端单帧消息的最大字节数
+    @Value("${sensor.reactive.websocket.max-frame-payload:65536}")
+    private int maxFramePayload;
+
+    // 客户端提出时协商permessage-deflate（保留压缩上下文），重复的键名和设备ID在连接内压缩
+    @Value("${sensor.reactive.websocket.permessage-deflate:true}")
+    private boolean permessageDeflate;
+
+    @Bean
+    public HandlerMapping webSocketHandlerMapping(ReactiveSensorWebSocketHandler handler) {
+        // 优先于注解控制器的映射
+        return new SimpleUrlHandlerMapping(Map.of("/wx-socket", handler), -1);
+    }
+
+    @Bean
+    public WebSocketHandlerAdapter webSocketHandlerAdapter() {
+        ReactorNettyRequestUpgradeStrategy strategy = new ReactorNettyRequestUpgradeStrategy(
+                () -> WebsocketServerSpec.builder()
+                        .maxFramePayloadLength(maxFramePayload)
+                        .compress(permessageDeflate));
+        return new WebSocketHandlerAdapter(new HandshakeWebSocketService(strategy));
+    }
+
+    /**
+     * classpath上同时有默认Servlet服务端使用的Tomcat，Spring Boot会优先选择Tomcat作为响应式服务端，这里显式使用Reactor Netty
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        NettyReactiveWebServerFactory factory = new NettyReactiveWebServerFactory();
+        factory.addServerCustomizers(server -> server
+                .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT));
+        return factory;
+    }
+}
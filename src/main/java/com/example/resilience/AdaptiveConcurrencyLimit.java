@@ -0,0 +1,108 @@
+package com.example.resilience;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于Vegas算法的自适应并发限制
+ * 以观测到的最小往返时间作为无排队基线，估算下游排队深度 queue = limit × (1 − rttNoLoad / rtt)：
+ * - queue ≤ alpha：下游空闲，上调限制
+ * - queue ≥ beta：下游开始排队，下调限制
+ * - 请求失败或超时：按比例快速下调
+ * alpha、beta随限制取对数增长，限制越大调整越保守
+ */
+public class AdaptiveConcurrencyLimit {
+
+    // 每隔这么多个样本重置一次基线，适应下游延迟的长期变化
+    private static final int BASELINE_RESET_SAMPLES = 1000;
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+
+    private double limit;
+    private int inFlight;
+    private long rttNoLoadNanos;
+    private int samples;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("并发限制范围无效: [" + minLimit + ", " + maxLimit + "]");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    public synchronized boolean tryAcquire() {
+        if (inFlight < (int) limit) {
+            inFlight++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 等待并发许可，超时返回false
+     */
+    public synchronized boolean acquire(long timeoutMs) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (inFlight >= (int) limit) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * 请求成功，按往返时间调整限制并归还许可
+     */
+    public synchronized void onSuccess(long rttNanos) {
+        int inFlightAtCompletion = inFlight;
+        inFlight--;
+        notifyAll();
+        if (rttNanos <= 0) {
+            return;
+        }
+        if (rttNoLoadNanos == 0 || rttNanos < rttNoLoadNanos || ++samples >= BASELINE_RESET_SAMPLES) {
+            rttNoLoadNanos = rttNanos;
+            samples = 0;
+        }
+
+        int current = (int) limit;
+        double queue = Math.ceil(current * (1 - (double) rttNoLoadNanos / rttNanos));
+        double step = log10(current);
+        if (queue <= 3 * step) {
+            // 实际并发远低于限制时没有依据上调，避免限制无限膨胀
+            if (inFlightAtCompletion * 2 >= current) {
+                limit = Math.min(maxLimit, current + step);
+            }
+        } else if (queue >= 6 * step) {
+            limit = Math.max(minLimit, current - step);
+        }
+    }
+
+    /**
+     * 请求失败或超时，下调限制并归还许可
+     */
+    public synchronized void onDropped() {
+        inFlight--;
+        limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+        notifyAll();
+    }
+
+    private static double log10(int value) {
+        return Math.max(1, Math.log10(value));
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+}
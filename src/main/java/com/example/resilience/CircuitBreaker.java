@@ -0,0 +1,133 @@
+package com.example.resilience;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 熔断器
+ * - CLOSED：正常放行，连续失败达到阈值后打开
+ * - OPEN：拒绝所有调用，经过openDuration后进入半开
+ * - HALF_OPEN：只放行有限个探测调用，探测成功则关闭，失败则重新打开
+ */
+public class CircuitBreaker {
+    private static final Logger LOG = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    /**
+     * 熔断器状态，code用于指标输出
+     */
+    public enum State {
+        CLOSED(0), OPEN(1), HALF_OPEN(2);
+
+        private final int code;
+
+        State(int code) {
+            this.code = code;
+        }
+
+        public int code() {
+            return code;
+        }
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private final int halfOpenProbes;
+    private final LongSupplier clock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private int probesInFlight;
+    private long openCount;
+
+    public CircuitBreaker(String name, int failureThreshold, long openDurationMs, int halfOpenProbes) {
+        this(name, failureThreshold, openDurationMs, halfOpenProbes, System::nanoTime);
+    }
+
+    CircuitBreaker(String name, int failureThreshold, long openDurationMs, int halfOpenProbes, LongSupplier clock) {
+        if (failureThreshold < 1 || halfOpenProbes < 1) {
+            throw new IllegalArgumentException("失败阈值和半开探测数必须大于0");
+        }
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(openDurationMs);
+        this.halfOpenProbes = halfOpenProbes;
+        this.clock = clock;
+    }
+
+    /**
+     * 申请一次调用许可
+     * 获得许可后必须以onSuccess、onFailure或release之一结束
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (clock.getAsLong() - openedAt < openDurationNanos) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            probesInFlight = 0;
+            LOG.info("熔断器 {} 进入半开状态，开始探测", name);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesInFlight >= halfOpenProbes) {
+                return false;
+            }
+            probesInFlight++;
+        }
+        return true;
+    }
+
+    /**
+     * 归还未使用的许可（获得许可后没有实际发起调用）
+     */
+    public synchronized void release() {
+        if (state == State.HALF_OPEN && probesInFlight > 0) {
+            probesInFlight--;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        if (state == State.HALF_OPEN) {
+            state = State.CLOSED;
+            probesInFlight = 0;
+            LOG.info("熔断器 {} 探测成功，恢复关闭状态", name);
+        }
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (state == State.CLOSED && ++consecutiveFailures >= failureThreshold) {
+            open();
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = clock.getAsLong();
+        consecutiveFailures = 0;
+        probesInFlight = 0;
+        openCount++;
+        LOG.warn("熔断器 {} 打开，{} ms 内拒绝调用", name, TimeUnit.NANOSECONDS.toMillis(openDurationNanos));
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized boolean isClosed() {
+        return state == State.CLOSED;
+    }
+
+    /**
+     * 熔断器累计打开次数
+     */
+    public synchronized long getOpenCount() {
+        return openCount;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.resilience;
+
+import java.io.Serializable;
+
+/**
+ * HTTP推送的熔断、自适应并发和溢出重放参数
+ *
+ * @param failureThreshold 连续失败多少次后打开熔断器
+ * @param openDurationMs 熔断器打开后多久进入半开
+ * @param halfOpenProbes 半开状态允许的探测请求数
+ * @param initialLimit 初始并发限制
+ * @param minLimit 并发限制下限
+ * @param maxLimit 并发限制上限，同时也是发送线程数和连接池大小
+ * @param spillCapacity 溢出队列容量（条）
+ * @param replayRatePerSecond 恢复后每秒最多重放的读数
+ * @param spillDirectory 磁盘溢出日志目录，为空时使用内存队列
+ * @param spillSegmentRecords 磁盘溢出日志每个段的记录数
+ * @param virtualThreads 发送请求是否使用虚拟线程（JDK 21+），并发仍受自适应限制约束
+ * @param backpressure 达到并发限制时是否等待（对上游形成反压）；为false时读数直接转入溢出队列，不拖慢共享数据源的其他Sink分支
+ */
+public record HttpPushPolicy(
+        int failureThreshold,
+        long openDurationMs,
+        int halfOpenProbes,
+        int initialLimit,
+        int minLimit,
+        int maxLimit,
+        int spillCapacity,
+        int replayRatePerSecond,
+        String spillDirectory,
+        int spillSegmentRecords,
+        boolean virtualThreads,
+        boolean backpressure
+) implements Serializable {
+
+    public static HttpPushPolicy defaults() {
+        return new HttpPushPolicy(5, 10_000, 1, 4, 1, 64, 100_000, 200, null, 65_536, false, true);
+    }
+}
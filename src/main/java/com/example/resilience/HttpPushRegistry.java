@@ -0,0 +1,115 @@
+package com.example.resilience;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * 进程内HTTP推送状态注册表
+ * 同一JVM内运行的HttpSender子任务在open时登记、close时注销；
+ * 注销时把计数累加到历史值，作业重启或调整并行度后累计计数不会回退
+ */
+public final class HttpPushRegistry {
+
+    private static final Set<HttpPushStats> ACTIVE = ConcurrentHashMap.newKeySet();
+
+    private static final LongAdder RETIRED_SENT = new LongAdder();
+    private static final LongAdder RETIRED_SENT_BYTES = new LongAdder();
+    private static final LongAdder RETIRED_FAILED = new LongAdder();
+    private static final LongAdder RETIRED_REJECTED = new LongAdder();
+    private static final LongAdder RETIRED_SPILLED = new LongAdder();
+    private static final LongAdder RETIRED_REPLAYED = new LongAdder();
+    private static final LongAdder RETIRED_SPILL_DROPPED = new LongAdder();
+    private static final LongAdder RETIRED_BREAKER_OPENS = new LongAdder();
+
+    private HttpPushRegistry() {
+    }
+
+    public static void register(HttpPushStats stats) {
+        ACTIVE.add(stats);
+    }
+
+    public static void unregister(HttpPushStats stats) {
+        if (ACTIVE.remove(stats)) {
+            RETIRED_SENT.add(stats.sent.sum());
+            RETIRED_SENT_BYTES.add(stats.sentBytes.sum());
+            RETIRED_FAILED.add(stats.failed.sum());
+            RETIRED_REJECTED.add(stats.rejected.sum());
+            RETIRED_SPILLED.add(stats.spilled.sum());
+            RETIRED_REPLAYED.add(stats.replayed.sum());
+            RETIRED_SPILL_DROPPED.add(stats.getSpillDropped());
+            RETIRED_BREAKER_OPENS.add(stats.getBreakerOpenCount());
+        }
+    }
+
+    public static int activeCount() {
+        return ACTIVE.size();
+    }
+
+    /**
+     * 各子任务中最差的熔断器状态：任一打开即为OPEN，否则任一半开即为HALF_OPEN
+     */
+    public static CircuitBreaker.State worstBreakerState() {
+        CircuitBreaker.State worst = CircuitBreaker.State.CLOSED;
+        for (HttpPushStats stats : ACTIVE) {
+            CircuitBreaker.State state = stats.getBreakerState();
+            if (state == CircuitBreaker.State.OPEN) {
+                return state;
+            }
+            if (state == CircuitBreaker.State.HALF_OPEN) {
+                worst = state;
+            }
+        }
+        return worst;
+    }
+
+    public static double sum(ToDoubleFunction<HttpPushStats> gauge) {
+        double total = 0;
+        for (HttpPushStats stats : ACTIVE) {
+            total += gauge.applyAsDouble(stats);
+        }
+        return total;
+    }
+
+    public static long sentTotal() {
+        return RETIRED_SENT.sum() + sumLong(stats -> stats.sent.sum());
+    }
+
+    public static long sentBytesTotal() {
+        return RETIRED_SENT_BYTES.sum() + sumLong(stats -> stats.sentBytes.sum());
+    }
+
+    public static long failedTotal() {
+        return RETIRED_FAILED.sum() + sumLong(stats -> stats.failed.sum());
+    }
+
+    public static long rejectedTotal() {
+        return RETIRED_REJECTED.sum() + sumLong(stats -> stats.rejected.sum());
+    }
+
+    public static long spilledTotal() {
+        return RETIRED_SPILLED.sum() + sumLong(stats -> stats.spilled.sum());
+    }
+
+    public static long replayedTotal() {
+        return RETIRED_REPLAYED.sum() + sumLong(stats -> stats.replayed.sum());
+    }
+
+    public static long spillDroppedTotal() {
+        return RETIRED_SPILL_DROPPED.sum() + sumLong(HttpPushStats::getSpillDropped);
+    }
+
+    public static long breakerOpensTotal() {
+        return RETIRED_BREAKER_OPENS.sum() + sumLong(HttpPushStats::getBreakerOpenCount);
+    }
+
+    private static long sumLong(ToLongFunction<HttpPushStats> counter) {
+        long total = 0;
+        for (HttpPushStats stats : ACTIVE) {
+            total += counter.applyAsLong(stats);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.resilience;
+
+import com.example.spill.SpillQueue;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个HTTP推送子任务的运行状态
+ * 由Flink算子创建并登记到HttpPushRegistry，Spring端据此输出指标
+ */
+public class HttpPushStats {
+
+    private final CircuitBreaker breaker;
+    private final AdaptiveConcurrencyLimit limit;
+    private final SpillQueue spill;
+
+    final LongAdder sent = new LongAdder();
+    final LongAdder failed = new LongAdder();
+    final LongAdder rejected = new LongAdder();
+    final LongAdder spilled = new LongAdder();
+    final LongAdder replayed = new LongAdder();
+    final LongAdder sentBytes = new LongAdder();
+
+    public HttpPushStats(CircuitBreaker breaker, AdaptiveConcurrencyLimit limit, SpillQueue spill) {
+        this.breaker = breaker;
+        this.limit = limit;
+        this.spill = spill;
+    }
+
+    public void recordSent() {
+        sent.increment();
+    }
+
+    /**
+     * 成功请求的请求体字节数（压缩后）
+     */
+    public void recordSentBytes(int bytes) {
+        sentBytes.add(bytes);
+    }
+
+    public void recordFailed() {
+        failed.increment();
+    }
+
+    public void recordRejected() {
+        rejected.increment();
+    }
+
+    public void recordSpilled() {
+        spilled.increment();
+    }
+
+    public void recordReplayed() {
+        replayed.increment();
+    }
+
+    public CircuitBreaker.State getBreakerState() {
+        return breaker.getState();
+    }
+
+    public long getBreakerOpenCount() {
+        return breaker.getOpenCount();
+    }
+
+    public int getConcurrencyLimit() {
+        return limit.getLimit();
+    }
+
+    public int getInFlight() {
+        return limit.getInFlight();
+    }
+
+    public long getSpillSize() {
+        return spill.size();
+    }
+
+    public long getSpillDropped() {
+        return spill.getDroppedCount();
+    }
+}
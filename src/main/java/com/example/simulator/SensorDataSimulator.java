@@ -1,7 +1,9 @@
 package com.example.simulator;
 
-import com.example.websocket.SensorData;
-import com.example.websocket.SensorWebSocketHandler;
+import com.example.SensorData;
+import com.example.SensorType;
+import com.example.WebSocketSensorService;
+import com.example.cluster.DevicePartitioner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -13,14 +15,17 @@ import java.util.Random;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * 传感器数据模拟器，用于生成模拟传感器数据并通过WebSocket发送
+ * 传感器数据模拟器，用于生成模拟传感器数据
+ * 与Flink作业共用WebSocketSensorService的广播路径；多实例部署时只生成归属本节点的设备，
+ * 接管的设备从最近一次读数（可能由其他节点生成）继续变化
  */
 @Component
 @EnableScheduling
 public class SensorDataSimulator {
     private static final Logger logger = LoggerFactory.getLogger(SensorDataSimulator.class);
     
-    private final SensorWebSocketHandler webSocketHandler;
+    private final WebSocketSensorService sensorService;
+    private final DevicePartitioner devicePartitioner;
     private final Random random = new Random();
     
     // 设备配置
@@ -30,13 +35,9 @@ public class SensorDataSimulator {
             "pressure-sensor-1"
     };
     
-    // 传感器类型及其配置
-    private static final String[] SENSOR_TYPES = {
-            "temperature", "humidity", "pressure"
-    };
-    
-    private static final String[] UNITS = {
-            "°C", "%", "hPa"
+    // 传感器类型及其配置（单位由类型字典提供）
+    private static final SensorType[] SENSOR_TYPES = {
+            SensorType.TEMPERATURE, SensorType.HUMIDITY, SensorType.PRESSURE
     };
     
     // 基准值
@@ -66,8 +67,9 @@ public class SensorDataSimulator {
     // 当前值缓存 (用于生成连续变化的数据)
     private final double[] currentValues = new double[DEVICE_IDS.length];
     
-    public SensorDataSimulator(SensorWebSocketHandler webSocketHandler) {
-        this.webSocketHandler = webSocketHandler;
+    public SensorDataSimulator(WebSocketSensorService sensorService, DevicePartitioner devicePartitioner) {
+        this.sensorService = sensorService;
+        this.devicePartitioner = devicePartitioner;
         
         // 初始化当前值
         for (int i = 0; i < DEVICE_IDS.length; i++) {
@@ -89,14 +91,16 @@ public class SensorDataSimulator {
         }
         
         try {
-            // 选择一个随机设备生成数据
-            int deviceIndex = random.nextInt(DEVICE_IDS.length);
+            // 在归属本节点的设备中随机选择一个生成数据
+            int deviceIndex = pickOwnedDevice();
+            if (deviceIndex < 0) {
+                return;
+            }
             String deviceId = DEVICE_IDS[deviceIndex];
             
             // 确定传感器类型和配置
             int typeIndex = getSensorTypeIndex(deviceId);
-            String type = SENSOR_TYPES[typeIndex];
-            String unit = UNITS[typeIndex];
+            SensorType type = SENSOR_TYPES[typeIndex];
             
             // 生成模拟数据 (布朗运动模式: 当前值 + 随机变化)
             double baseValue = BASE_VALUES[typeIndex];
@@ -106,7 +110,7 @@ public class SensorDataSimulator {
             double change = (random.nextDouble() - 0.5) * variationRange * 0.1;
             
             // 计算新值 (限制在合理范围内)
-            double currentValue = currentValues[deviceIndex];
+            double currentValue = devicePartitioner.lastValue(deviceId, currentValues[deviceIndex]);
             double newValue = currentValue + change;
             
             // 确保值在合理范围内 (基准值 ± 变化范围)
@@ -124,10 +128,10 @@ public class SensorDataSimulator {
             currentValues[deviceIndex] = newValue;
             
             // 创建传感器数据对象
-            SensorData sensorData = SensorData.create(deviceId, newValue, unit, type);
+            SensorData sensorData = SensorData.now(deviceId, newValue, type);
             
-            // 通过WebSocket发送数据
-            webSocketHandler.broadcastSensorData(sensorData);
+            // 走与Flink作业相同的监控和广播路径
+            sensorService.sendSensorData(sensorData);
             
             // 计数并记录日志
             int count = dataCounter.incrementAndGet();
@@ -139,6 +143,20 @@ public class SensorDataSimulator {
         }
     }
     
+    /**
+     * 随机选择一个归属本节点的设备，没有时返回-1
+     */
+    private int pickOwnedDevice() {
+        int start = random.nextInt(DEVICE_IDS.length);
+        for (int i = 0; i < DEVICE_IDS.length; i++) {
+            int index = (start + i) % DEVICE_IDS.length;
+            if (devicePartitioner.owns(DEVICE_IDS[index])) {
+                return index;
+            }
+        }
+        return -1;
+    }
+    
     /**
      * 根据设备ID获取传感器类型索引
      */
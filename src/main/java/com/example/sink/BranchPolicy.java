@@ -0,0 +1,70 @@
+package com.example.sink;
+
+import java.io.Serializable;
+import java.util.Locale;
+
+/**
+ * 隔离Sink分支的缓冲和失败处理参数
+ *
+ * @param capacity 分支队列容量（条）
+ * @param batchSize 写出线程每次最多取出的读数
+ * @param overflow 队列写满时的处理方式
+ * @param failure 写出多次重试仍失败时的处理方式
+ * @param maxRetries 每批最多重试次数
+ * @param retryBackoffMs 首次重试前的等待，之后每次翻倍，最长30秒
+ */
+public record BranchPolicy(
+        int capacity,
+        int batchSize,
+        Overflow overflow,
+        Failure failure,
+        int maxRetries,
+        long retryBackoffMs
+) implements Serializable {
+
+    /**
+     * 队列写满时的处理方式
+     */
+    public enum Overflow {
+        // 丢弃队列中最旧的读数，新读数入队
+        DROP_OLDEST,
+        // 丢弃新到的读数
+        DROP_NEWEST,
+        // 等待队列有空位，对上游形成反压（会拖慢共享同一数据源的其他分支）
+        BLOCK
+    }
+
+    /**
+     * 写出失败时的处理方式
+     */
+    public enum Failure {
+        // 丢弃这一批读数并计数，分支继续运行
+        DROP,
+        // 让作业失败，从最近的检查点恢复
+        FAIL
+    }
+
+    public BranchPolicy {
+        capacity = Math.max(1, capacity);
+        batchSize = Math.max(1, Math.min(batchSize, capacity));
+        maxRetries = Math.max(0, maxRetries);
+        retryBackoffMs = Math.max(1, retryBackoffMs);
+    }
+
+    public static BranchPolicy defaults() {
+        return new BranchPolicy(10_000, 500, Overflow.DROP_OLDEST, Failure.DROP, 3, 100);
+    }
+
+    /**
+     * 解析配置中的名称，如drop-oldest、fail
+     *
+     * @throws IllegalArgumentException 名称未知时抛出
+     */
+    public static <E extends Enum<E>> E parse(Class<E> type, String name) {
+        try {
+            return Enum.valueOf(type, name.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("不支持的" + type.getSimpleName() + ": " + name, e);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.sink;
+
+import com.example.SensorData;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 隔离Sink分支的实际写出
+ * 实例随作业序列化分发到各子任务，open之后只在分支自己的写出线程上调用
+ */
+public interface BranchWriter extends Serializable {
+
+    void open(int subtask, int parallelism) throws Exception;
+
+    /**
+     * 写出一批读数，抛出异常时整批按分支的重试和失败策略处理
+     */
+    void write(List<SensorData> batch) throws Exception;
+
+    void close() throws Exception;
+}
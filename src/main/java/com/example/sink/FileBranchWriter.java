@@ -0,0 +1,80 @@
+package com.example.sink;
+
+import com.example.SensorData;
+import com.example.payload.PayloadBuffer;
+import com.example.payload.SensorJsonCodec;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * 把读数以JSON Lines追加到本地文件，每个子任务一个文件 directory/readings-N.jsonl
+ * 文件超过rollBytes后改名为 readings-N-时间戳.jsonl 并新建文件；每批写完后刷新
+ * 每批先流式编码到复用的缓冲区，再一次写入文件
+ */
+public class FileBranchWriter implements BranchWriter {
+    private static final long serialVersionUID = 1L;
+
+    private final String directory;
+    private final long rollBytes;
+
+    private transient PayloadBuffer buffer;
+    private transient Path file;
+    private transient OutputStream output;
+    private transient long size;
+
+    public FileBranchWriter(String directory, long rollBytes) {
+        this.directory = directory;
+        this.rollBytes = rollBytes;
+    }
+
+    @Override
+    public void open(int subtask, int parallelism) throws IOException {
+        buffer = new PayloadBuffer(64 * 1024);
+        Path base = Paths.get(directory);
+        Files.createDirectories(base);
+        file = base.resolve("readings-" + subtask + ".jsonl");
+        openFile();
+    }
+
+    private void openFile() throws IOException {
+        output = new BufferedOutputStream(Files.newOutputStream(file,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND), 64 * 1024);
+        size = Files.size(file);
+    }
+
+    @Override
+    public void write(List<SensorData> batch) throws IOException {
+        buffer.reset();
+        SensorJsonCodec.encodeLines(batch, buffer);
+        output.write(buffer.array(), 0, buffer.size());
+        output.flush();
+        size += buffer.size();
+        if (rollBytes > 0 && size >= rollBytes) {
+            roll();
+        }
+    }
+
+    private void roll() throws IOException {
+        output.close();
+        String name = file.getFileName().toString();
+        Path rolled = file.resolveSibling(name.substring(0, name.length() - ".jsonl".length())
+                + "-" + System.currentTimeMillis() + ".jsonl");
+        Files.move(file, rolled, StandardCopyOption.ATOMIC_MOVE);
+        openFile();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (output != null) {
+            output.close();
+        }
+    }
+}
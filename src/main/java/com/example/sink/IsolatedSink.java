@@ -0,0 +1,238 @@
+package com.example.sink;
+
+import com.example.SensorData;
+import com.example.SensorDataSerializer;
+import org.apache.flink.api.common.state.ListState;
+import org.apache.flink.api.common.state.ListStateDescriptor;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.runtime.state.FunctionInitializationContext;
+import org.apache.flink.runtime.state.FunctionSnapshotContext;
+import org.apache.flink.streaming.api.checkpoint.CheckpointedFunction;
+import org.apache.flink.streaming.api.functions.sink.RichSinkFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.function.IntSupplier;
+
+/**
+ * 与其他分支隔离的Sink：算子线程只把读数放入分支自己的有界队列，由分支的写出线程按批写出
+ * - 写出慢或失败不阻塞算子线程，共享同一数据源的其他分支不受影响；队列写满时按溢出策略丢弃（或选择反压）
+ * - 写出失败按退避重试，仍失败时按失败策略丢弃该批或让作业失败
+ * - 队列中和正在写出的读数随检查点保存，恢复后重新写出（至少一次，恢复时可能重复）
+ */
+public class IsolatedSink extends RichSinkFunction<SensorData> implements CheckpointedFunction {
+    private static final Logger LOG = LoggerFactory.getLogger(IsolatedSink.class);
+    private static final long serialVersionUID = 1L;
+
+    private static final long POLL_INTERVAL_MS = 50;
+    private static final long MAX_BACKOFF_MS = 30_000;
+    private static final long CLOSE_TIMEOUT_MS = 10_000;
+
+    private final String branch;
+    private final BranchWriter writer;
+    private final BranchPolicy policy;
+
+    private transient ArrayBlockingQueue<SensorData> queue;
+    private transient volatile List<SensorData> writing;
+    // 写出线程从队列取出一批并发布为writing、与检查点读取writing和队列，两者在这把锁内互斥
+    private transient Object handover;
+    private transient volatile boolean idle;
+    private transient Thread worker;
+    private transient volatile boolean running;
+    private transient volatile Exception failure;
+    private transient SinkBranchStats stats;
+    private transient IntSupplier queueSize;
+
+    private transient ListState<SensorData> pendingState;
+    private transient List<SensorData> restored;
+
+    public IsolatedSink(String branch, BranchWriter writer, BranchPolicy policy) {
+        this.branch = branch;
+        this.writer = writer;
+        this.policy = policy;
+    }
+
+    @Override
+    public void initializeState(FunctionInitializationContext context) throws Exception {
+        pendingState = context.getOperatorStateStore()
+                .getListState(new ListStateDescriptor<>("sink-" + branch, SensorDataSerializer.INSTANCE));
+        restored = new ArrayList<>();
+        if (context.isRestored()) {
+            for (SensorData data : pendingState.get()) {
+                restored.add(data);
+            }
+        }
+    }
+
+    @Override
+    public void snapshotState(FunctionSnapshotContext context) throws Exception {
+        List<SensorData> pending;
+        synchronized (handover) {
+            pending = new ArrayList<>(writing);
+            Collections.addAll(pending, queue.toArray(new SensorData[0]));
+        }
+        pendingState.update(pending);
+    }
+
+    @Override
+    public void open(Configuration parameters) throws Exception {
+        int subtask = getRuntimeContext().getIndexOfThisSubtask();
+        writer.open(subtask, getRuntimeContext().getNumberOfParallelSubtasks());
+        queue = new ArrayBlockingQueue<>(policy.capacity());
+        writing = List.of();
+        handover = new Object();
+        if (restored != null) {
+            restored.forEach(this::enqueue);
+            if (!restored.isEmpty()) {
+                LOG.info("Sink分支 {} 从检查点恢复 {} 条待写出的读数", branch, restored.size());
+            }
+            restored = null;
+        }
+        stats = SinkBranchStats.of(branch);
+        queueSize = queue::size;
+        stats.register(queueSize);
+
+        running = true;
+        worker = new Thread(this::writeLoop, "sink-" + branch + "-" + subtask);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void invoke(SensorData value, Context context) throws Exception {
+        Exception error = failure;
+        if (error != null) {
+            throw new IOException("Sink分支 " + branch + " 写出失败", error);
+        }
+        stats.received.increment();
+        enqueue(value);
+        if (idle) {
+            synchronized (handover) {
+                handover.notify();
+            }
+        }
+    }
+
+    private void enqueue(SensorData value) {
+        switch (policy.overflow()) {
+            case DROP_NEWEST -> {
+                if (!queue.offer(value)) {
+                    stats.overflowDropped.increment();
+                }
+            }
+            case DROP_OLDEST -> {
+                while (!queue.offer(value)) {
+                    if (queue.poll() != null) {
+                        stats.overflowDropped.increment();
+                    }
+                }
+            }
+            case BLOCK -> {
+                try {
+                    queue.put(value);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Sink分支 " + branch + " 等待队列时被中断", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 写出循环：关闭时先写完队列中剩余的读数；失败策略为FAIL时记录错误后退出
+     */
+    private void writeLoop() {
+        while ((running || !queue.isEmpty()) && failure == null) {
+            try {
+                List<SensorData> batch = takeBatch();
+                if (batch == null) {
+                    continue;
+                }
+                writeWithRetry(batch);
+                writing = List.of();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * 在交接锁内从队列取出一批并发布为writing，检查点不会看到读数已出队但尚未发布的中间状态；
+     * 队列为空时在锁上等待（等待期间释放锁），有新读数时由invoke唤醒
+     *
+     * @return 队列为空时返回null
+     */
+    private List<SensorData> takeBatch() throws InterruptedException {
+        synchronized (handover) {
+            SensorData first = queue.poll();
+            if (first == null) {
+                idle = true;
+                if (queue.isEmpty()) {
+                    handover.wait(POLL_INTERVAL_MS);
+                }
+                idle = false;
+                return null;
+            }
+            List<SensorData> batch = new ArrayList<>(policy.batchSize());
+            batch.add(first);
+            queue.drainTo(batch, policy.batchSize() - 1);
+            writing = batch;
+            return batch;
+        }
+    }
+
+    private void writeWithRetry(List<SensorData> batch) throws InterruptedException {
+        long backoff = policy.retryBackoffMs();
+        for (int attempt = 0; ; attempt++) {
+            long start = System.nanoTime();
+            try {
+                writer.write(batch);
+                stats.writeNanos.add(System.nanoTime() - start);
+                stats.written.add(batch.size());
+                return;
+            } catch (Exception e) {
+                stats.failures.increment();
+                if (attempt >= policy.maxRetries() || !running) {
+                    onFailure(batch, e);
+                    return;
+                }
+                stats.retries.increment();
+                LOG.warn("Sink分支 {} 写出失败，{}毫秒后重试: {}", branch, backoff, e.getMessage());
+                Thread.sleep(backoff);
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+            }
+        }
+    }
+
+    private void onFailure(List<SensorData> batch, Exception e) {
+        if (policy.failure() == BranchPolicy.Failure.FAIL) {
+            LOG.error("Sink分支 {} 写出失败，作业将从检查点恢复", branch, e);
+            failure = e;
+        } else {
+            stats.failureDropped.add(batch.size());
+            LOG.warn("Sink分支 {} 写出失败，丢弃 {} 条读数: {}", branch, batch.size(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        running = false;
+        if (worker != null) {
+            worker.join(CLOSE_TIMEOUT_MS);
+            if (worker.isAlive()) {
+                worker.interrupt();
+                LOG.warn("Sink分支 {} 关闭超时，放弃 {} 条未写出的读数", branch, queue.size());
+            }
+        }
+        if (stats != null) {
+            stats.unregister(queueSize);
+        }
+        writer.close();
+    }
+}
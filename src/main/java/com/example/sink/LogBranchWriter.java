@@ -0,0 +1,38 @@
+package com.example.sink;
+
+import com.example.SensorData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * 把读数写入日志，每条一行，用于排查和对账
+ * 使用单独的日志名，可在日志配置中单独调整级别或输出到独立文件
+ */
+public class LogBranchWriter implements BranchWriter {
+    private static final long serialVersionUID = 1L;
+
+    public static final String LOGGER_NAME = "sensor.readings";
+
+    private transient Logger log;
+
+    @Override
+    public void open(int subtask, int parallelism) {
+        log = LoggerFactory.getLogger(LOGGER_NAME);
+    }
+
+    @Override
+    public void write(List<SensorData> batch) {
+        if (!log.isInfoEnabled()) {
+            return;
+        }
+        for (SensorData data : batch) {
+            log.info("{} {} {} {}", data.deviceId(), data.timestamp(), data.value(), data.unit());
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.sink;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * 进程内Sink分支的计数，按分支名汇总同一JVM内的所有子任务
+ * 计数直接累加在分支共享的对象上，作业重启或调整并行度后不会回退
+ */
+public final class SinkBranchStats {
+
+    private static final Map<String, SinkBranchStats> BRANCHES = new ConcurrentHashMap<>();
+
+    final LongAdder received = new LongAdder();
+    final LongAdder written = new LongAdder();
+    final LongAdder overflowDropped = new LongAdder();
+    final LongAdder failureDropped = new LongAdder();
+    final LongAdder failures = new LongAdder();
+    final LongAdder retries = new LongAdder();
+    final LongAdder writeNanos = new LongAdder();
+    private final Set<IntSupplier> queues = ConcurrentHashMap.newKeySet();
+
+    private SinkBranchStats() {
+    }
+
+    public static SinkBranchStats of(String branch) {
+        return BRANCHES.computeIfAbsent(branch, name -> new SinkBranchStats());
+    }
+
+    void register(IntSupplier queueSize) {
+        queues.add(queueSize);
+    }
+
+    void unregister(IntSupplier queueSize) {
+        queues.remove(queueSize);
+    }
+
+    public long getWritten() {
+        return written.sum();
+    }
+
+    public long getDropped() {
+        return overflowDropped.sum() + failureDropped.sum();
+    }
+
+    public int getQueued() {
+        int total = 0;
+        for (IntSupplier queue : queues) {
+            total += queue.getAsInt();
+        }
+        return total;
+    }
+
+    Map<String, Object> toMap() {
+        Map<String, Object> stats = new TreeMap<>();
+        long count = written.sum();
+        stats.put("received", received.sum());
+        stats.put("written", count);
+        stats.put("queued", getQueued());
+        stats.put("subtasks", queues.size());
+        stats.put("overflowDropped", overflowDropped.sum());
+        stats.put("failureDropped", failureDropped.sum());
+        stats.put("failures", failures.sum());
+        stats.put("retries", retries.sum());
+        stats.put("avgWriteMicros", count > 0 ? writeNanos.sum() / 1000 / count : 0);
+        return stats;
+    }
+
+    /**
+     * 所有分支的计数，供Actuator端点使用
+     */
+    public static Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new TreeMap<>();
+        BRANCHES.forEach((name, stats) -> snapshot.put(name, stats.toMap()));
+        return snapshot;
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.sink;
+
+import com.example.SensorData;
+import com.example.SensorType;
+import org.apache.flink.api.common.functions.FilterFunction;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Sink分支的路由规则，决定哪些读数进入该分支
+ * 规则由分号分隔的条件组成，条件之间为“且”，条件内用|分隔的取值为“或”：
+ * - type=temperature|humidity：按传感器类型（标签名）
+ * - device=device_1*|pressure-sensor-3：按设备ID，*匹配任意字符
+ * 空规则或*匹配全部读数
+ *
+ * @param types 允许的传感器类型，为null时不限制
+ * @param devicePatterns 设备ID模式，为空时不限制
+ */
+public record SinkRoute(Set<SensorType> types, List<String> devicePatterns) implements FilterFunction<SensorData> {
+
+    public static final SinkRoute ALL = new SinkRoute(null, List.of());
+
+    public SinkRoute {
+        types = types == null ? null : Set.copyOf(types);
+        devicePatterns = List.copyOf(devicePatterns);
+    }
+
+    /**
+     * @throws IllegalArgumentException 条件名或传感器类型未知时抛出
+     */
+    public static SinkRoute parse(String rule) {
+        if (rule == null || rule.isBlank() || rule.trim().equals("*")) {
+            return ALL;
+        }
+        Set<SensorType> types = null;
+        List<String> devices = new ArrayList<>();
+        for (String clause : rule.split(";")) {
+            if (clause.isBlank()) {
+                continue;
+            }
+            int separator = clause.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("路由条件缺少'=': " + clause);
+            }
+            String key = clause.substring(0, separator).trim().toLowerCase(Locale.ROOT);
+            String[] values = clause.substring(separator + 1).split("\\|");
+            switch (key) {
+                case "type" -> {
+                    types = EnumSet.noneOf(SensorType.class);
+                    for (String value : values) {
+                        types.add(type(value.trim()));
+                    }
+                }
+                case "device" -> {
+                    for (String value : values) {
+                        if (!value.isBlank()) {
+                            devices.add(value.trim());
+                        }
+                    }
+                }
+                default -> throw new IllegalArgumentException("不支持的路由条件: " + key);
+            }
+        }
+        return new SinkRoute(types, devices);
+    }
+
+    private static SensorType type(String label) {
+        for (SensorType type : SensorType.values()) {
+            if (type.label().equalsIgnoreCase(label)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("未知的传感器类型: " + label);
+    }
+
+    public boolean matchesAll() {
+        return types == null && devicePatterns.isEmpty();
+    }
+
+    @Override
+    public boolean filter(SensorData data) {
+        if (types != null && (data.type() == null || !types.contains(data.type()))) {
+            return false;
+        }
+        if (devicePatterns.isEmpty()) {
+            return true;
+        }
+        for (String pattern : devicePatterns) {
+            if (glob(pattern, data.deviceId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 只支持*通配符的匹配，按*切分后依次查找各段
+     */
+    static boolean glob(String pattern, String text) {
+        int star = pattern.indexOf('*');
+        if (star < 0) {
+            return pattern.equals(text);
+        }
+        if (!text.startsWith(pattern.substring(0, star))) {
+            return false;
+        }
+        int position = star;
+        String[] parts = pattern.substring(star + 1).split("\\*", -1);
+        for (int i = 0; i < parts.length; i++) {
+            String part = parts[i];
+            if (i == parts.length - 1) {
+                return text.length() - part.length() >= position && text.endsWith(part);
+            }
+            int found = text.indexOf(part, position);
+            if (found < 0) {
+                return false;
+            }
+            position = found + part.length();
+        }
+        return true;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.sink;
+
+import com.example.SensorData;
+import com.example.spill.MappedSpillLog;
+import com.example.spill.SpillQueue;
+import com.example.spill.SpillQueues;
+
+import java.util.List;
+
+/**
+ * 把读数写入本地磁盘溢出日志（与HTTP溢出相同的64字节定长记录），供下游恢复后离线取回
+ * 日志容量有限，写满时丢弃最旧的读数；调整并行度后由对应子任务接管多出的日志
+ */
+public class SpillBranchWriter implements BranchWriter {
+    private static final long serialVersionUID = 1L;
+
+    private final String directory;
+    private final int segmentRecords;
+    private final long capacity;
+
+    private transient SpillQueue log;
+
+    public SpillBranchWriter(String directory, int segmentRecords, long capacity) {
+        if (directory == null || directory.isBlank()) {
+            throw new IllegalArgumentException("spill分支需要配置目录");
+        }
+        this.directory = directory;
+        this.segmentRecords = segmentRecords;
+        this.capacity = capacity;
+    }
+
+    @Override
+    public void open(int subtask, int parallelism) throws Exception {
+        log = SpillQueues.forSubtask(directory, subtask, parallelism, segmentRecords, capacity);
+    }
+
+    @Override
+    public void write(List<SensorData> batch) {
+        for (SensorData data : batch) {
+            log.offer(data);
+        }
+        if (log instanceof MappedSpillLog mapped) {
+            mapped.flush();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (log != null) {
+            log.close();
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.example.spill;
+
+import com.example.SensorData;
+import com.example.bridge.SensorFrameCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 基于内存映射文件的追加式溢出日志
+ * - 每条读数按SensorFrameCodec编码为64字节定长记录，按全局序号定位，不需要索引
+ * - 日志由固定大小的段文件组成（文件名为段内首条记录的序号），写满后滚动到新段，读完的段直接删除
+ * - 读游标保存在映射的cursor文件中，进程重启后从上次的位置继续读
+ * - 记录中的设备ID长度字节存为长度+1，非零即表示槽位已写入（设备ID可以为空）；旧格式的段在恢复时就地转换
+ * - 总容量有限，写满时丢弃最旧的读数，堆内只保存段的元数据
+ * 进程崩溃时已写入映射区的数据由操作系统页缓存落盘；断电时最后一次flush之后的记录可能丢失
+ */
+public class MappedSpillLog implements SpillQueue {
+    private static final Logger LOG = LoggerFactory.getLogger(MappedSpillLog.class);
+
+    private static final int RECORD_SIZE = SensorFrameCodec.FRAME_SIZE;
+    // 设备ID长度所在的字节，写入时加1，该字节为0表示槽位尚未写入
+    private static final int ID_LENGTH_OFFSET = 17;
+    // cursor文件布局：读游标(8) | 记录格式(4)；格式0的长度字节未加1
+    private static final int FORMAT_OFFSET = Long.BYTES;
+    private static final int FORMAT = 1;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String CURSOR_FILE = "cursor";
+
+    private final Path directory;
+    private final int segmentRecords;
+    private final long capacity;
+
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    private final MappedByteBuffer cursor;
+    private final FileChannel cursorChannel;
+    private long readSequence;
+    private long writeSequence;
+    private long droppedCount;
+    private long unencodableCount;
+    private final ByteBuffer frame = ByteBuffer.allocate(RECORD_SIZE);
+    private boolean closed;
+
+    /**
+     * 段文件
+     */
+    private static final class Segment {
+        final long base;
+        final Path path;
+        MappedByteBuffer buffer;
+
+        Segment(long base, Path path) {
+            this.base = base;
+            this.path = path;
+        }
+    }
+
+    /**
+     * @param directory 日志目录，不存在时创建
+     * @param segmentRecords 每个段的记录数
+     * @param capacity 最多保留的未读记录数
+     */
+    public MappedSpillLog(Path directory, int segmentRecords, long capacity) throws IOException {
+        if (segmentRecords < 1 || capacity < 1) {
+            throw new IllegalArgumentException("段大小和容量必须大于0");
+        }
+        this.directory = directory;
+        this.segmentRecords = segmentRecords;
+        this.capacity = capacity;
+        Files.createDirectories(directory);
+
+        cursorChannel = FileChannel.open(directory.resolve(CURSOR_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        cursor = cursorChannel.map(FileChannel.MapMode.READ_WRITE, 0, FORMAT_OFFSET + Integer.BYTES);
+        recover(cursor.getLong(0), cursor.getInt(FORMAT_OFFSET));
+    }
+
+    /**
+     * 按段文件和游标恢复读写位置
+     */
+    private void recover(long savedCursor, int format) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .forEach(path -> {
+                        String name = path.getFileName().toString();
+                        long base = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                        segments.addLast(new Segment(base, path));
+                    });
+        }
+
+        if (format != FORMAT) {
+            segments.forEach(this::upgrade);
+            cursor.putInt(FORMAT_OFFSET, FORMAT);
+        }
+        if (segments.isEmpty()) {
+            readSequence = savedCursor;
+            writeSequence = savedCursor;
+            segments.addLast(createSegment(savedCursor));
+        } else {
+            Segment tail = segments.peekLast();
+            writeSequence = tail.base + countWritten(map(tail));
+            readSequence = Math.min(Math.max(savedCursor, segments.peekFirst().base), writeSequence);
+            releaseConsumedSegments();
+        }
+        saveCursor();
+        if (size() > 0) {
+            LOG.info("溢出日志 {} 恢复 {} 条未读记录 (读位置: {}, 写位置: {})",
+                    directory, size(), readSequence, writeSequence);
+        }
+    }
+
+    /**
+     * 把旧格式段中已写入记录的长度字节加1
+     */
+    private void upgrade(Segment segment) {
+        MappedByteBuffer buffer = map(segment);
+        for (int i = 0; i < segmentRecords; i++) {
+            int offset = i * RECORD_SIZE + ID_LENGTH_OFFSET;
+            byte length = buffer.get(offset);
+            if (length == 0) {
+                break;
+            }
+            buffer.put(offset, (byte) (length + 1));
+        }
+        buffer.force();
+    }
+
+    private int countWritten(MappedByteBuffer buffer) {
+        int count = 0;
+        while (count < segmentRecords && buffer.get(count * RECORD_SIZE + ID_LENGTH_OFFSET) != 0) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 追加读数；设备ID超过帧容量的读数无法编码，丢弃这一条并计数
+     */
+    @Override
+    public synchronized boolean offer(SensorData data) {
+        ensureOpen();
+        if (!SensorFrameCodec.fits(data.deviceId())) {
+            droppedCount++;
+            unencodableCount++;
+            return false;
+        }
+        boolean dropped = false;
+        if (writeSequence - readSequence >= capacity) {
+            readSequence++;
+            droppedCount++;
+            dropped = true;
+            releaseConsumedSegments();
+            saveCursor();
+        }
+        append(data);
+        return !dropped;
+    }
+
+    /**
+     * 磁盘日志只能追加，归还的读数写到队尾
+     */
+    @Override
+    public void pushBack(SensorData data) {
+        offer(data);
+    }
+
+    private void append(SensorData data) {
+        Segment tail = segments.peekLast();
+        if (writeSequence - tail.base >= segmentRecords) {
+            // 写满的段不再需要保持映射，读到时再重新映射
+            if (tail != segments.peekFirst()) {
+                tail.buffer = null;
+            }
+            tail = createSegment(writeSequence);
+            segments.addLast(tail);
+        }
+        ByteBuffer slot = map(tail).duplicate();
+        int position = (int) (writeSequence - tail.base) * RECORD_SIZE;
+        slot.position(position);
+        SensorFrameCodec.encode(data, slot);
+        slot.put(position + ID_LENGTH_OFFSET, (byte) (slot.get(position + ID_LENGTH_OFFSET) + 1));
+        writeSequence++;
+    }
+
+    @Override
+    public synchronized SensorData poll() {
+        ensureOpen();
+        if (readSequence >= writeSequence) {
+            return null;
+        }
+        Segment head = segments.peekFirst();
+        int position = (int) (readSequence - head.base) * RECORD_SIZE;
+        frame.clear();
+        frame.put(0, map(head), position, RECORD_SIZE);
+        frame.put(ID_LENGTH_OFFSET, (byte) (frame.get(ID_LENGTH_OFFSET) - 1));
+        SensorData data = SensorFrameCodec.decode(frame);
+        readSequence++;
+        releaseConsumedSegments();
+        saveCursor();
+        return data;
+    }
+
+    /**
+     * 删除已读完的段（正在写入的段除外）
+     */
+    private void releaseConsumedSegments() {
+        while (segments.size() > 1 && readSequence >= segments.peekFirst().base + segmentRecords) {
+            Segment consumed = segments.pollFirst();
+            consumed.buffer = null;
+            try {
+                Files.deleteIfExists(consumed.path);
+            } catch (IOException e) {
+                LOG.warn("删除溢出日志段 {} 失败: {}", consumed.path, e.getMessage());
+            }
+        }
+    }
+
+    private Segment createSegment(long base) {
+        Segment segment = new Segment(base, directory.resolve(String.format("%020d%s", base, SEGMENT_SUFFIX)));
+        map(segment);
+        return segment;
+    }
+
+    private MappedByteBuffer map(Segment segment) {
+        if (segment.buffer == null) {
+            try (FileChannel channel = FileChannel.open(segment.path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                segment.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) segmentRecords * RECORD_SIZE);
+            } catch (IOException e) {
+                throw new UncheckedIOException("无法映射溢出日志段 " + segment.path, e);
+            }
+        }
+        return segment.buffer;
+    }
+
+    private void saveCursor() {
+        cursor.putLong(0, readSequence);
+    }
+
+    /**
+     * 把映射区的修改和游标刷到磁盘
+     */
+    public synchronized void flush() {
+        if (closed) {
+            return;
+        }
+        Segment tail = segments.peekLast();
+        if (tail.buffer != null) {
+            tail.buffer.force();
+        }
+        cursor.force();
+    }
+
+    @Override
+    public synchronized long size() {
+        return writeSequence - readSequence;
+    }
+
+    @Override
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * 因设备ID无法编码而丢弃的读数，已计入{@link #getDroppedCount()}
+     */
+    public synchronized long getUnencodableCount() {
+        return unencodableCount;
+    }
+
+    @Override
+    public List<SensorData> checkpointContents() {
+        flush();
+        return Collections.emptyList();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("溢出日志已关闭: " + directory);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        flush();
+        closed = true;
+        segments.forEach(segment -> segment.buffer = null);
+        try {
+            cursorChannel.close();
+        } catch (IOException e) {
+            LOG.warn("关闭溢出日志游标失败: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.spill;
+
+import com.example.SensorData;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 有界的内存溢出队列
+ * 内容不落盘，需要随检查点保存才能在重启后保留
+ */
+public class MemorySpillQueue implements SpillQueue {
+
+    private final int capacity;
+    private final ArrayDeque<SensorData> records;
+    private long droppedCount;
+
+    public MemorySpillQueue(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("溢出队列容量必须大于0");
+        }
+        this.capacity = capacity;
+        this.records = new ArrayDeque<>(Math.min(capacity, 1024));
+    }
+
+    @Override
+    public synchronized boolean offer(SensorData data) {
+        boolean dropped = false;
+        if (records.size() >= capacity) {
+            records.pollFirst();
+            droppedCount++;
+            dropped = true;
+        }
+        records.addLast(data);
+        return !dropped;
+    }
+
+    /**
+     * 放回队首，下次优先取出
+     */
+    @Override
+    public synchronized void pushBack(SensorData data) {
+        if (records.size() >= capacity) {
+            droppedCount++;
+            return;
+        }
+        records.addFirst(data);
+    }
+
+    @Override
+    public synchronized SensorData poll() {
+        return records.pollFirst();
+    }
+
+    @Override
+    public synchronized long size() {
+        return records.size();
+    }
+
+    @Override
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    @Override
+    public synchronized List<SensorData> checkpointContents() {
+        return new ArrayList<>(records);
+    }
+}
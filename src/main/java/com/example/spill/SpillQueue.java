@@ -0,0 +1,44 @@
+package com.example.spill;
+
+import com.example.SensorData;
+
+import java.io.Closeable;
+import java.util.List;
+
+/**
+ * 无法投递的读数的暂存队列
+ * 下游不可用时写入，恢复后由投递方按速率取出重放；容量有限，写满时丢弃最旧的读数并计数
+ */
+public interface SpillQueue extends Closeable {
+
+    /**
+     * 追加读数
+     *
+     * @return false表示有读数被丢弃：队列已满时为最旧的一条，读数无法保存（如磁盘日志放不下设备ID）时为这一条
+     */
+    boolean offer(SensorData data);
+
+    /**
+     * 归还取出但未能发送的读数
+     */
+    void pushBack(SensorData data);
+
+    /**
+     * 取出下一条读数，队列为空时返回null
+     */
+    SensorData poll();
+
+    long size();
+
+    long getDroppedCount();
+
+    /**
+     * 需要随Flink检查点保存的内容
+     * 内存队列返回全部读数；磁盘队列自身持久化，只需刷盘并返回空列表
+     */
+    List<SensorData> checkpointContents();
+
+    @Override
+    default void close() {
+    }
+}
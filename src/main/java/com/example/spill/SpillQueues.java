@@ -0,0 +1,90 @@
+package com.example.spill;
+
+import com.example.SensorData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 溢出队列的创建
+ */
+public final class SpillQueues {
+    private static final Logger LOG = LoggerFactory.getLogger(SpillQueues.class);
+
+    private static final String SUBTASK_PREFIX = "subtask-";
+
+    private SpillQueues() {
+    }
+
+    /**
+     * 为Flink子任务创建溢出队列
+     * 未配置目录时使用内存队列；否则每个子任务使用 directory/subtask-N 下的磁盘日志，
+     * 并行度调小后，编号超出并行度的子任务目录由 N % 并行度 对应的子任务接管并搬入自己的日志
+     */
+    public static SpillQueue forSubtask(String directory, int subtask, int parallelism,
+                                        int segmentRecords, long capacity) throws IOException {
+        if (directory == null || directory.isBlank()) {
+            return new MemorySpillQueue((int) Math.min(Integer.MAX_VALUE, capacity));
+        }
+        Path base = Paths.get(directory);
+        MappedSpillLog log = new MappedSpillLog(base.resolve(SUBTASK_PREFIX + subtask), segmentRecords, capacity);
+        for (Path orphan : orphans(base, subtask, parallelism)) {
+            adopt(orphan, log, segmentRecords, capacity);
+        }
+        return log;
+    }
+
+    private static List<Path> orphans(Path base, int subtask, int parallelism) throws IOException {
+        try (Stream<Path> dirs = Files.list(base)) {
+            return dirs.filter(Files::isDirectory)
+                    .filter(dir -> {
+                        int index = subtaskIndex(dir);
+                        return index >= parallelism && index % parallelism == subtask;
+                    })
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static void adopt(Path orphan, MappedSpillLog target, int segmentRecords, long capacity)
+            throws IOException {
+        long moved = 0;
+        try (MappedSpillLog source = new MappedSpillLog(orphan, segmentRecords, capacity)) {
+            SensorData data;
+            while ((data = source.poll()) != null) {
+                target.offer(data);
+                moved++;
+            }
+        }
+        target.flush();
+        deleteRecursively(orphan);
+        LOG.info("接管溢出日志 {}，搬入 {} 条未读记录", orphan, moved);
+    }
+
+    private static int subtaskIndex(Path dir) {
+        String name = dir.getFileName().toString();
+        if (!name.startsWith(SUBTASK_PREFIX)) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(name.substring(SUBTASK_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
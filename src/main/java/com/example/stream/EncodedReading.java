@@ -0,0 +1,61 @@
+package com.example.stream;
+
+import com.example.SensorData;
+import com.example.payload.SensorJsonCodec;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 一条读数及其编码结果，由全部连接共享
+ * JSON和SSE帧在第一次使用时编码，之后所有WebSocket、SSE和长轮询客户端复用同一个字节数组；
+ * 并发的首次访问可能重复编码，结果相同，不加锁
+ */
+public final class EncodedReading {
+    private final long sequence;
+    private final SensorData data;
+    private volatile byte[] json;
+    private volatile byte[] sseFrame;
+
+    public EncodedReading(long sequence, SensorData data) {
+        this.sequence = sequence;
+        this.data = data;
+    }
+
+    public long sequence() {
+        return sequence;
+    }
+
+    public SensorData data() {
+        return data;
+    }
+
+    /**
+     * 读数的JSON编码（UTF-8）
+     */
+    public byte[] json() {
+        byte[] encoded = json;
+        if (encoded == null) {
+            encoded = SensorJsonCodec.encode(data);
+            json = encoded;
+        }
+        return encoded;
+    }
+
+    /**
+     * SSE事件帧：id为序号，便于客户端断线后用Last-Event-ID续传
+     */
+    public byte[] sseFrame() {
+        byte[] frame = sseFrame;
+        if (frame == null) {
+            byte[] head = ("id: " + sequence + "\nevent: reading\ndata: ").getBytes(StandardCharsets.UTF_8);
+            byte[] body = json();
+            frame = new byte[head.length + body.length + 2];
+            System.arraycopy(head, 0, frame, 0, head.length);
+            System.arraycopy(body, 0, frame, head.length, body.length);
+            frame[frame.length - 2] = '\n';
+            frame[frame.length - 1] = '\n';
+            sseFrame = frame;
+        }
+        return frame;
+    }
+}
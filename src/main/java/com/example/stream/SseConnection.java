@@ -0,0 +1,162 @@
+package com.example.stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+
+/**
+ * 一个SSE连接，基于异步Servlet的非阻塞输出
+ * 连接不占用线程：广播线程只把共享的帧放入队列，在输出流可写时立即写出；
+ * 不可写时由容器在可写后回调{@link #onWritePossible()}继续写出。队列满时丢弃新帧并计数
+ */
+final class SseConnection implements WriteListener, AsyncListener {
+    private static final Logger LOG = LoggerFactory.getLogger(SseConnection.class);
+
+    private final AsyncContext context;
+    private final ServletOutputStream out;
+    private final SubscriptionFilter filter;
+    private final int maxQueued;
+    private final Consumer<SseConnection> onClose;
+    private final ArrayDeque<byte[]> queue = new ArrayDeque<>();
+    private final long connectedAt = System.currentTimeMillis();
+    private boolean flushPending;
+    private boolean closed;
+    private long sent;
+    private long dropped;
+    private volatile long replayedThrough;
+
+    SseConnection(AsyncContext context, ServletOutputStream out, SubscriptionFilter filter, int maxQueued,
+                  Consumer<SseConnection> onClose) {
+        this.context = context;
+        this.out = out;
+        this.filter = filter;
+        this.maxQueued = maxQueued;
+        this.onClose = onClose;
+    }
+
+    SubscriptionFilter filter() {
+        return filter;
+    }
+
+    /**
+     * 注册时已补发（或早于连接建立）的最大序号，序号不大于它的读数不再推送
+     */
+    long replayedThrough() {
+        return replayedThrough;
+    }
+
+    void replayedThrough(long sequence) {
+        this.replayedThrough = sequence;
+    }
+
+    /**
+     * 放入一帧并尽量写出，可以从任意线程调用
+     */
+    synchronized void send(byte[] frame) {
+        if (closed) {
+            return;
+        }
+        if (queue.size() >= maxQueued) {
+            dropped++;
+            return;
+        }
+        queue.add(frame);
+        drain();
+    }
+
+    /**
+     * 在输出流可写期间写出队列中的帧，队列写空后刷新；不可写时等待容器回调
+     */
+    private void drain() {
+        try {
+            while (out.isReady()) {
+                byte[] frame = queue.poll();
+                if (frame == null) {
+                    if (!flushPending) {
+                        return;
+                    }
+                    flushPending = false;
+                    out.flush();
+                    continue;
+                }
+                out.write(frame);
+                sent++;
+                flushPending = true;
+            }
+        } catch (IOException | IllegalStateException e) {
+            LOG.debug("SSE连接写出失败，关闭连接: {}", e.getMessage());
+            close();
+        }
+    }
+
+    @Override
+    public synchronized void onWritePossible() {
+        if (!closed) {
+            drain();
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        close();
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+        close();
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+        close();
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+        close();
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+    }
+
+    void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.clear();
+        }
+        onClose.accept(this);
+        try {
+            context.complete();
+        } catch (IllegalStateException e) {
+            // 容器已经结束了异步请求
+        }
+    }
+
+    synchronized int queued() {
+        return queue.size();
+    }
+
+    synchronized long sent() {
+        return sent;
+    }
+
+    synchronized long dropped() {
+        return dropped;
+    }
+
+    long connectedAt() {
+        return connectedAt;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * SSE推送Servlet，作为无法升级WebSocket的网络环境下的降级方案
+ * 直接注册为异步Servlet，不经过Spring MVC：请求线程在启动异步上下文后立即返回，
+ * 之后由{@link SseConnection}以非阻塞方式写出，连接数不受线程数限制
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class SseStreamServlet extends HttpServlet {
+
+    private final transient StreamFanout fanout;
+
+    // 每个连接最多排队的帧数，超出后丢弃新帧
+    @Value("${sensor.stream.sse.max-queued:256}")
+    private int maxQueued;
+
+    public SseStreamServlet(StreamFanout fanout) {
+        this.fanout = fanout;
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        SubscriptionFilter filter;
+        try {
+            filter = SubscriptionFilter.of(values(request, "type"), values(request, "device"),
+                    request.getParameter("prefix"));
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+        Long lastEventId;
+        try {
+            lastEventId = parseLastEventId(request);
+        } catch (NumberFormatException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Last-Event-ID无效");
+            return;
+        }
+
+        response.setContentType("text/event-stream");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader("Cache-Control", "no-cache");
+        // 要求nginx不缓冲该响应
+        response.setHeader("X-Accel-Buffering", "no");
+        response.flushBuffer();
+
+        AsyncContext context = request.startAsync();
+        // 连接一直保持到客户端断开，空闲由心跳维持
+        context.setTimeout(0);
+        ServletOutputStream out = response.getOutputStream();
+        SseConnection connection = new SseConnection(context, out, filter, maxQueued, fanout::unregister);
+        context.addListener(connection);
+        out.setWriteListener(connection);
+        fanout.register(connection, lastEventId);
+    }
+
+    private static List<String> values(HttpServletRequest request, String name) {
+        String[] values = request.getParameterValues(name);
+        return values == null ? null : Arrays.asList(values);
+    }
+
+    /**
+     * 浏览器重连时带Last-Event-ID请求头，也可以用lastEventId参数指定
+     */
+    private static Long parseLastEventId(HttpServletRequest request) {
+        String value = request.getHeader("Last-Event-ID");
+        if (value == null || value.isBlank()) {
+            value = request.getParameter("lastEventId");
+        }
+        return value == null || value.isBlank() ? null : Long.parseLong(value.trim());
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.stream;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 注册SSE推送Servlet，路径与REST接口同在/api/stream下
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class StreamConfig {
+
+    @Bean
+    public ServletRegistrationBean<SseStreamServlet> sseStreamServletRegistration(SseStreamServlet servlet) {
+        ServletRegistrationBean<SseStreamServlet> registration =
+                new ServletRegistrationBean<>(servlet, "/api/stream/sse");
+        registration.setAsyncSupported(true);
+        registration.setName("sseStream");
+        return registration;
+    }
+}
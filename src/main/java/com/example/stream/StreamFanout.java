@@ -0,0 +1,275 @@
+package com.example.stream;
+
+import com.example.SensorData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import javax.annotation.PostConstruct;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 实时读数的共享扇出缓冲区
+ * 每条读数分配递增序号，保存在固定容量的环形缓冲区中，只编码一次（{@link EncodedReading}），
+ * 由WebSocket、SSE和长轮询客户端共享；SSE客户端可用Last-Event-ID、长轮询客户端可用since从环形缓冲区续传
+ */
+@Component
+public class StreamFanout {
+    private static final Logger LOG = LoggerFactory.getLogger(StreamFanout.class);
+
+    // SSE注释行，用于保持经过代理的空闲连接
+    private static final byte[] HEARTBEAT = ":\n\n".getBytes(StandardCharsets.UTF_8);
+
+    @Value("${sensor.stream.buffer-size:4096}")
+    private int bufferSize;
+
+    // 每个长轮询应答最多返回的读数
+    @Value("${sensor.stream.poll.max-readings:1000}")
+    private int maxPollReadings;
+
+    // 长轮询的最长挂起时间（毫秒）
+    @Value("${sensor.stream.poll.max-timeout:60000}")
+    private long maxPollTimeout;
+
+    private EncodedReading[] ring;
+    private long sequence;
+
+    private final Set<SseConnection> sseConnections = ConcurrentHashMap.newKeySet();
+    private final ConcurrentLinkedQueue<PollWaiter> pollWaiters = new ConcurrentLinkedQueue<>();
+    // 进程内的读数监听器，例如响应式服务端的WebSocket数据流
+    private final List<Consumer<EncodedReading>> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong totalSseConnections = new AtomicLong();
+    private final AtomicLong completedPolls = new AtomicLong();
+
+    /**
+     * 等待新读数的长轮询请求
+     */
+    private static final class PollWaiter {
+        final long since;
+        final SubscriptionFilter filter;
+        final DeferredResult<ResponseEntity<byte[]>> result;
+
+        PollWaiter(long since, SubscriptionFilter filter, DeferredResult<ResponseEntity<byte[]>> result) {
+            this.since = since;
+            this.filter = filter;
+            this.result = result;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        ring = new EncodedReading[Math.max(16, bufferSize)];
+    }
+
+    /**
+     * 发布一条读数：写入环形缓冲区，推送给匹配的SSE连接和监听器，并唤醒匹配的长轮询请求
+     *
+     * @return 共享的编码结果，供WebSocket广播复用
+     */
+    public EncodedReading publish(SensorData sensorData) {
+        EncodedReading reading;
+        synchronized (this) {
+            reading = new EncodedReading(++sequence, sensorData);
+            ring[(int) (reading.sequence() % ring.length)] = reading;
+        }
+        for (SseConnection connection : sseConnections) {
+            if (reading.sequence() > connection.replayedThrough() && connection.filter().matches(sensorData)) {
+                connection.send(reading.sseFrame());
+            }
+        }
+        for (Consumer<EncodedReading> listener : listeners) {
+            listener.accept(reading);
+        }
+        if (!pollWaiters.isEmpty()) {
+            Iterator<PollWaiter> iterator = pollWaiters.iterator();
+            while (iterator.hasNext()) {
+                PollWaiter waiter = iterator.next();
+                if (waiter.filter.matches(sensorData) && pollWaiters.remove(waiter)) {
+                    complete(waiter.result, waiter.since, waiter.filter);
+                }
+            }
+        }
+        return reading;
+    }
+
+    /**
+     * 注册读数监听器，在发布线程中回调，监听器不应阻塞
+     */
+    public void addListener(Consumer<EncodedReading> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * 当前最新的序号
+     */
+    public synchronized long currentSequence() {
+        return sequence;
+    }
+
+    /**
+     * 读出序号大于since且满足过滤条件的读数，最多max条
+     *
+     * @param missed 输出：since之后已被环形缓冲区覆盖的读数条数
+     */
+    synchronized List<EncodedReading> since(long since, SubscriptionFilter filter, int max, long[] missed) {
+        long oldest = Math.max(1, sequence - ring.length + 1);
+        long start = Math.max(since + 1, oldest);
+        missed[0] = Math.max(0, oldest - since - 1);
+        List<EncodedReading> readings = new ArrayList<>();
+        for (long next = start; next <= sequence && readings.size() < max; next++) {
+            EncodedReading reading = ring[(int) (next % ring.length)];
+            if (filter.matches(reading.data())) {
+                readings.add(reading);
+            }
+        }
+        return readings;
+    }
+
+    /**
+     * 注册SSE连接，先补发Last-Event-ID之后的读数
+     * 补发与加入连接集合在发布使用的同一把锁内完成，其间不会有读数被分配序号；
+     * 锁外仍在推送的、序号不大于补发终点的读数由publish按replayedThrough跳过，既不遗漏也不重复
+     */
+    void register(SseConnection connection, Long lastEventId) {
+        connection.send(("retry: 3000\n\n").getBytes(StandardCharsets.UTF_8));
+        synchronized (this) {
+            if (lastEventId != null) {
+                for (EncodedReading reading : since(lastEventId, connection.filter(), ring.length, new long[1])) {
+                    connection.send(reading.sseFrame());
+                }
+            }
+            connection.replayedThrough(sequence);
+            sseConnections.add(connection);
+        }
+        totalSseConnections.incrementAndGet();
+        LOG.info("新的SSE连接已建立 (当前SSE连接数: {})", sseConnections.size());
+    }
+
+    void unregister(SseConnection connection) {
+        if (sseConnections.remove(connection)) {
+            LOG.info("SSE连接已关闭 (剩余SSE连接数: {})", sseConnections.size());
+        }
+    }
+
+    /**
+     * 长轮询：since之后已有匹配的读数时立即返回，否则挂起到有新读数或超时，期间不占用线程
+     *
+     * @param since 上次应答中的sequence，为null时从当前位置开始等待
+     * @param timeout 最长挂起时间（毫秒），不超过sensor.stream.poll.max-timeout
+     */
+    public DeferredResult<ResponseEntity<byte[]>> poll(Long since, SubscriptionFilter filter, long timeout) {
+        long start = since != null ? since : currentSequence();
+        DeferredResult<ResponseEntity<byte[]>> result = new DeferredResult<>(Math.min(timeout, maxPollTimeout));
+        PollWaiter waiter = new PollWaiter(start, filter, result);
+        result.onTimeout(() -> {
+            pollWaiters.remove(waiter);
+            complete(result, start, filter);
+        });
+        result.onError(error -> pollWaiters.remove(waiter));
+        if (!complete(result, start, filter, false)) {
+            pollWaiters.add(waiter);
+            // 注册前可能刚有读数发布，再检查一次
+            if (complete(result, start, filter, false)) {
+                pollWaiters.remove(waiter);
+            }
+        }
+        return result;
+    }
+
+    private void complete(DeferredResult<ResponseEntity<byte[]>> result, long since, SubscriptionFilter filter) {
+        complete(result, since, filter, true);
+    }
+
+    /**
+     * 用since之后的读数完成长轮询，应答体直接拼接共享的JSON编码：
+     * {"sequence":最新序号,"missed":被覆盖的条数,"readings":[...]}
+     *
+     * @param allowEmpty 没有读数时是否也完成
+     * @return 是否完成了请求
+     */
+    private boolean complete(DeferredResult<ResponseEntity<byte[]>> result, long since, SubscriptionFilter filter,
+                             boolean allowEmpty) {
+        long[] missed = new long[1];
+        long latest;
+        List<EncodedReading> readings;
+        synchronized (this) {
+            latest = sequence;
+            readings = since(since, filter, maxPollReadings, missed);
+        }
+        if (readings.isEmpty() && !allowEmpty) {
+            return false;
+        }
+        // 返回的读数被截断时从最后一条继续
+        long next = readings.size() == maxPollReadings ? readings.get(readings.size() - 1).sequence() : latest;
+        ByteArrayOutputStream body = new ByteArrayOutputStream(64 + readings.size() * 128);
+        body.writeBytes(("{\"sequence\":" + next + ",\"missed\":" + missed[0] + ",\"readings\":[")
+                .getBytes(StandardCharsets.UTF_8));
+        for (int i = 0; i < readings.size(); i++) {
+            if (i > 0) {
+                body.write(',');
+            }
+            body.writeBytes(readings.get(i).json());
+        }
+        body.writeBytes("]}".getBytes(StandardCharsets.UTF_8));
+        boolean completed = result.setResult(ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body.toByteArray()));
+        if (completed) {
+            completedPolls.incrementAndGet();
+        }
+        return completed;
+    }
+
+    /**
+     * 定期向SSE连接发送注释行，防止代理因空闲断开连接
+     */
+    @Scheduled(fixedDelayString = "${sensor.stream.sse.heartbeat-interval:15000}")
+    public void heartbeat() {
+        for (SseConnection connection : sseConnections) {
+            connection.send(HEARTBEAT);
+        }
+    }
+
+    public int getSseConnectionCount() {
+        return sseConnections.size();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long sent = 0;
+        long dropped = 0;
+        int queued = 0;
+        for (SseConnection connection : sseConnections) {
+            sent += connection.sent();
+            dropped += connection.dropped();
+            queued += connection.queued();
+        }
+        stats.put("sequence", currentSequence());
+        stats.put("bufferSize", ring.length);
+        stats.put("sseConnections", sseConnections.size());
+        stats.put("totalSseConnections", totalSseConnections.get());
+        stats.put("sseFramesSent", sent);
+        stats.put("sseFramesDropped", dropped);
+        stats.put("sseFramesQueued", queued);
+        stats.put("pollWaiters", pollWaiters.size());
+        stats.put("completedPolls", completedPolls.get());
+        return stats;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.stream;
+
+import com.example.SensorData;
+import com.example.SensorType;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 实时数据流的订阅过滤条件，WebSocket、SSE和长轮询共用
+ * 参数：type（传感器类型）、device（设备ID）可重复或以逗号分隔，prefix为设备ID前缀；未指定的条件不限制
+ */
+public final class SubscriptionFilter {
+
+    public static final SubscriptionFilter ALL = new SubscriptionFilter(null, null, null);
+
+    // 为null时不限制
+    private final boolean[] typeMask;
+    private final Set<String> deviceIds;
+    private final String prefix;
+
+    private SubscriptionFilter(boolean[] typeMask, Set<String> deviceIds, String prefix) {
+        this.typeMask = typeMask;
+        this.deviceIds = deviceIds;
+        this.prefix = prefix;
+    }
+
+    /**
+     * @throws IllegalArgumentException 类型名称未知时抛出
+     */
+    public static SubscriptionFilter of(Collection<String> types, Collection<String> devices, String prefix) {
+        boolean[] typeMask = null;
+        Set<SensorType> parsedTypes = EnumSet.noneOf(SensorType.class);
+        for (String label : split(types)) {
+            SensorType type = SensorType.fromLabel(label);
+            // fromLabel把未知名称归为GENERIC，这里要求名称精确匹配
+            if (!type.label().equalsIgnoreCase(label)) {
+                throw new IllegalArgumentException("未知的传感器类型: " + label);
+            }
+            parsedTypes.add(type);
+        }
+        if (!parsedTypes.isEmpty()) {
+            typeMask = new boolean[SensorType.values().length];
+            for (SensorType type : parsedTypes) {
+                typeMask[type.code()] = true;
+            }
+        }
+        Set<String> deviceIds = split(devices);
+        String normalizedPrefix = prefix == null || prefix.isBlank() ? null : prefix.trim();
+        if (typeMask == null && deviceIds.isEmpty() && normalizedPrefix == null) {
+            return ALL;
+        }
+        return new SubscriptionFilter(typeMask, deviceIds.isEmpty() ? null : deviceIds, normalizedPrefix);
+    }
+
+    /**
+     * 从查询参数构造，例如WebSocket握手URI中的参数
+     */
+    public static SubscriptionFilter fromParameters(Map<String, List<String>> parameters) {
+        List<String> prefixes = parameters.get("prefix");
+        return of(parameters.get("type"), parameters.get("device"),
+                prefixes == null || prefixes.isEmpty() ? null : prefixes.get(0));
+    }
+
+    private static Set<String> split(Collection<String> values) {
+        Set<String> result = new HashSet<>();
+        if (values != null) {
+            for (String value : values) {
+                if (value == null) {
+                    continue;
+                }
+                for (String part : value.split(",")) {
+                    if (!part.isBlank()) {
+                        result.add(part.trim());
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    public boolean matches(SensorData sensorData) {
+        if (typeMask != null && !typeMask[sensorData.type().code()]) {
+            return false;
+        }
+        if (deviceIds != null && !deviceIds.contains(sensorData.deviceId())) {
+            return false;
+        }
+        return prefix == null || sensorData.deviceId().startsWith(prefix);
+    }
+
+    public boolean isAll() {
+        return this == ALL;
+    }
+
+    /**
+     * 条件相同的过滤器相等，用于把订阅条件相同的连接分为一组
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SubscriptionFilter)) {
+            return false;
+        }
+        SubscriptionFilter other = (SubscriptionFilter) o;
+        return Arrays.equals(typeMask, other.typeMask)
+                && Objects.equals(deviceIds, other.deviceIds)
+                && Objects.equals(prefix, other.prefix);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * Arrays.hashCode(typeMask) + Objects.hashCode(deviceIds)) + Objects.hashCode(prefix);
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.websocket;
+
+import com.example.SensorType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 批量消息的DEFLATE压缩（encoding=deflate的会话）
+ * 输出为原始DEFLATE格式（RFC 1951，无zlib头尾），每条消息独立压缩、不接管上下文，
+ * 因此同一批次对所有会话产生相同的字节，只需压缩一次；
+ * 读数JSON中反复出现的键名、类型和单位放在预置字典中，几条读数的小批次也能压缩，客户端从/api/stream/dictionary获取字典
+ *
+ * 非线程安全，由批量发送线程独占
+ */
+public final class DeflateCodec {
+
+    private static final byte[] DICTIONARY = buildDictionary();
+
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    private byte[] buffer = new byte[4096];
+
+    /**
+     * 预置字典：zlib优先匹配字典末尾的内容，出现最多的片段放在最后
+     */
+    private static byte[] buildDictionary() {
+        StringBuilder dictionary = new StringBuilder();
+        SensorType[] types = SensorType.values();
+        for (int i = types.length - 1; i >= 0; i--) {
+            SensorType type = types[i];
+            dictionary.append("{\"deviceId\":\"").append(type.label()).append("-sensor-\",\"value\":")
+                    .append(",\"unit\":\"").append(type.unit()).append("\",\"type\":\"").append(type.label())
+                    .append("\",\"timestamp\":").append("},");
+        }
+        dictionary.append("[{\"deviceId\":\"device_\",\"value\":,\"unit\":\"\",\"type\":\"\",\"timestamp\":17},");
+        return dictionary.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 预置字典的副本
+     */
+    public static byte[] dictionary() {
+        return DICTIONARY.clone();
+    }
+
+    /**
+     * 用预置字典独立压缩一条消息
+     */
+    public byte[] compress(byte[] input) {
+        deflater.reset();
+        deflater.setDictionary(DICTIONARY);
+        deflater.setInput(input);
+        deflater.finish();
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            length += deflater.deflate(buffer, length, buffer.length - length);
+        }
+        return Arrays.copyOf(buffer, length);
+    }
+
+    /**
+     * 解压{@link #compress}的输出，供Java客户端和测试使用
+     *
+     * @throws DataFormatException 数据不是用同一字典压缩的DEFLATE流
+     */
+    public static byte[] decompress(byte[] compressed) throws DataFormatException {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setDictionary(DICTIONARY);
+            inflater.setInput(compressed);
+            byte[] output = new byte[Math.max(256, compressed.length * 8)];
+            int length = 0;
+            while (!inflater.finished()) {
+                if (length == output.length) {
+                    output = Arrays.copyOf(output, output.length * 2);
+                }
+                int inflated = inflater.inflate(output, length, output.length - length);
+                if (inflated == 0 && inflater.needsInput()) {
+                    throw new DataFormatException("DEFLATE流不完整");
+                }
+                length += inflated;
+            }
+            return Arrays.copyOf(output, length);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * 释放Deflater的本地内存
+     */
+    public void close() {
+        deflater.end();
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.websocket;
+
+import com.example.stream.EncodedReading;
+import com.example.stream.SubscriptionFilter;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiPredicate;
+
+/**
+ * 批量推送：握手参数batch=true或encoding=deflate的会话不逐条接收读数，而是每个周期接收一条消息
+ * 广播线程只把读数放入待发送队列；定时发送时把周期内的读数按订阅条件和编码分组，每组只编码（和压缩）一次，
+ * 同一条消息发给组内所有会话：batch会话收到JSON数组的文本消息，deflate会话收到{@link DeflateCodec}压缩的二进制消息
+ */
+final class FrameBatcher {
+
+    // 会话属性中保存批量编码的键，没有该属性的会话逐条接收读数
+    static final String ENCODING = "batchEncoding";
+
+    enum Encoding {
+        JSON, DEFLATE
+    }
+
+    private record Group(SubscriptionFilter filter, Encoding encoding) {
+    }
+
+    private final int maxReadings;
+    private final ConcurrentLinkedQueue<EncodedReading> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final DeflateCodec codec = new DeflateCodec();
+
+    // 统计信息：rawBytes为JSON字节数，wireBytes为实际发出的消息字节数，均按会话累计
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong droppedReadings = new AtomicLong();
+    private final AtomicLong rawBytes = new AtomicLong();
+    private final AtomicLong wireBytes = new AtomicLong();
+    private final AtomicLong compressNanos = new AtomicLong();
+
+    /**
+     * @param maxReadings 每个周期最多保留的读数，超出时丢弃最早的读数
+     */
+    FrameBatcher(int maxReadings) {
+        this.maxReadings = Math.max(1, maxReadings);
+    }
+
+    /**
+     * 从握手参数解析批量编码：encoding=deflate为压缩批量，batch=true为JSON批量，都未指定时返回null
+     *
+     * @throws IllegalArgumentException 编码名称未知时抛出
+     */
+    static Encoding parse(Map<String, List<String>> parameters) {
+        List<String> encoding = parameters.get("encoding");
+        if (encoding != null && !encoding.isEmpty()) {
+            if ("deflate".equalsIgnoreCase(encoding.get(0))) {
+                return Encoding.DEFLATE;
+            }
+            if (!"json".equalsIgnoreCase(encoding.get(0))) {
+                throw new IllegalArgumentException("不支持的编码: " + encoding.get(0));
+            }
+        }
+        List<String> batch = parameters.get("batch");
+        return batch != null && !batch.isEmpty() && Boolean.parseBoolean(batch.get(0)) ? Encoding.JSON : null;
+    }
+
+    void add(EncodedReading reading) {
+        pending.add(reading);
+        if (pendingCount.incrementAndGet() > maxReadings && pending.poll() != null) {
+            pendingCount.decrementAndGet();
+            droppedReadings.incrementAndGet();
+        }
+    }
+
+    /**
+     * 发出一个周期内的读数
+     *
+     * @param sessions 批量模式的会话
+     * @param sender 向单个会话发送消息，返回是否成功
+     */
+    synchronized void flush(Collection<WebSocketSession> sessions,
+                            BiPredicate<WebSocketSession, WebSocketMessage<?>> sender) {
+        List<EncodedReading> readings = drain();
+        if (readings.isEmpty() || sessions.isEmpty()) {
+            return;
+        }
+        Map<Group, List<WebSocketSession>> groups = new HashMap<>();
+        for (WebSocketSession session : sessions) {
+            if (!session.isOpen()) {
+                continue;
+            }
+            Object filter = session.getAttributes().get(SensorWebSocketHandler.SUBSCRIPTION);
+            Group group = new Group(filter != null ? (SubscriptionFilter) filter : SubscriptionFilter.ALL,
+                    (Encoding) session.getAttributes().get(ENCODING));
+            groups.computeIfAbsent(group, key -> new ArrayList<>()).add(session);
+        }
+        for (Map.Entry<Group, List<WebSocketSession>> entry : groups.entrySet()) {
+            byte[] json = encode(readings, entry.getKey().filter());
+            if (json == null) {
+                continue;
+            }
+            WebSocketMessage<?> message;
+            if (entry.getKey().encoding() == Encoding.DEFLATE) {
+                long started = System.nanoTime();
+                message = new BinaryMessage(codec.compress(json));
+                compressNanos.addAndGet(System.nanoTime() - started);
+            } else {
+                message = new TextMessage(json);
+            }
+            batches.incrementAndGet();
+            for (WebSocketSession session : entry.getValue()) {
+                if (sender.test(session, message)) {
+                    rawBytes.addAndGet(json.length);
+                    wireBytes.addAndGet(message.getPayloadLength());
+                }
+            }
+        }
+    }
+
+    private List<EncodedReading> drain() {
+        List<EncodedReading> readings = new ArrayList<>(Math.min(pendingCount.get(), maxReadings));
+        EncodedReading reading;
+        while ((reading = pending.poll()) != null) {
+            pendingCount.decrementAndGet();
+            readings.add(reading);
+        }
+        return readings;
+    }
+
+    /**
+     * 把匹配订阅条件的读数拼接为JSON数组，复用每条读数共享的编码；没有匹配的读数时返回null
+     */
+    private static byte[] encode(List<EncodedReading> readings, SubscriptionFilter filter) {
+        ByteArrayOutputStream out = null;
+        for (EncodedReading reading : readings) {
+            if (!filter.matches(reading.data())) {
+                continue;
+            }
+            if (out == null) {
+                out = new ByteArrayOutputStream(readings.size() * 128);
+                out.write('[');
+            } else {
+                out.write(',');
+            }
+            out.writeBytes(reading.json());
+        }
+        if (out == null) {
+            return null;
+        }
+        out.write(']');
+        return out.toByteArray();
+    }
+
+    void close() {
+        codec.close();
+    }
+
+    Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long raw = rawBytes.get();
+        long wire = wireBytes.get();
+        stats.put("batches", batches.get());
+        stats.put("pendingReadings", pendingCount.get());
+        stats.put("droppedReadings", droppedReadings.get());
+        stats.put("rawBytes", raw);
+        stats.put("wireBytes", wire);
+        stats.put("compressionRatio", wire > 0 ? Math.round(raw * 100.0 / wire) / 100.0 : 1.0);
+        stats.put("compressMillis", compressNanos.get() / 1_000_000);
+        return stats;
+    }
+}
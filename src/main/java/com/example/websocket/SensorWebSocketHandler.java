@@ -1,17 +1,31 @@
 package com.example.websocket;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.SensorData;
+import com.example.concurrent.VirtualThreads;
+import com.example.history.TimeSeriesStore;
+import com.example.ingest.IngestService;
+import com.example.stream.EncodedReading;
+import com.example.stream.SubscriptionFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -20,19 +34,99 @@ import java.util.concurrent.atomic.AtomicInteger;
 @Component
 public class SensorWebSocketHandler extends TextWebSocketHandler {
     private static final Logger logger = LoggerFactory.getLogger(SensorWebSocketHandler.class);
-    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // 会话属性中保存订阅条件的键
+    static final String SUBSCRIPTION = "subscription";
+
+    // 会话属性中保存未到齐的分片消息的键
+    private static final String PARTIAL = "partialMessage";
+
+    // 客户端请求（降采样、修改订阅）的处理
+    private final WebSocketActions actions;
     
     // 保存所有活跃的WebSocket会话
     private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
     
+    // 虚拟线程模式下每个会话一个写出线程
+    private final Map<String, SessionWriter> writers = new ConcurrentHashMap<>();
+    
+    // 批量推送的会话，同时也在sessions中
+    private final Map<String, WebSocketSession> batchSessions = new ConcurrentHashMap<>();
+    
+    @Value("${sensor.threads.virtual:false}")
+    private boolean virtualThreads;
+    
+    // 每个会话写出队列的最大消息数
+    @Value("${sensor.websocket.writer.max-queued:256}")
+    private int writerMaxQueued;
+    
+    // 客户端单条消息的最大字符数，超过容器消息缓冲区的消息分片到达后在此拼接
+    @Value("${sensor.websocket.max-inbound-message:65536}")
+    private int maxInboundMessage;
+    
+    // 为null时在广播线程中直接发送
+    private ThreadFactory writerThreadFactory;
+    
+    // 批量推送每个周期最多保留的读数
+    @Value("${sensor.websocket.batch.max-readings:1000}")
+    private int batchMaxReadings;
+    
+    private FrameBatcher batcher;
+    
     // 统计信息
     private final AtomicInteger totalConnections = new AtomicInteger(0);
     private final AtomicInteger messagesSent = new AtomicInteger(0);
+
+    public SensorWebSocketHandler() {
+        this(null, null);
+    }
+
+    @Autowired
+    public SensorWebSocketHandler(TimeSeriesStore timeSeriesStore, IngestService ingestService) {
+        this.actions = new WebSocketActions(timeSeriesStore, ingestService);
+    }
+    
+    @PostConstruct
+    public void init() {
+        if (virtualThreads && VirtualThreads.available()) {
+            writerThreadFactory = VirtualThreads.newThreadFactory("ws-writer-");
+            logger.info("WebSocket写出使用虚拟线程，每个会话一个写出线程");
+        }
+        batcher = new FrameBatcher(batchMaxReadings);
+    }
+    
+    @PreDestroy
+    public void close() {
+        if (batcher != null) {
+            batcher.close();
+        }
+    }
     
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
         String sessionId = session.getId();
+        SessionWriter.bindSendLock(session);
+        // 握手URI中的type/device/prefix参数作为初始订阅条件，与SSE和长轮询一致；batch/encoding参数选择批量推送
+        FrameBatcher.Encoding batchEncoding = null;
+        if (session.getUri() != null) {
+            try {
+                Map<String, List<String>> parameters =
+                        UriComponentsBuilder.fromUri(session.getUri()).build().getQueryParams();
+                session.getAttributes().put(SUBSCRIPTION, SubscriptionFilter.fromParameters(parameters));
+                batchEncoding = FrameBatcher.parse(parameters);
+            } catch (IllegalArgumentException e) {
+                session.close(CloseStatus.BAD_DATA.withReason(e.getMessage()));
+                return;
+            }
+        }
         sessions.put(sessionId, session);
+        if (batchEncoding != null && batcher != null) {
+            session.getAttributes().put(FrameBatcher.ENCODING, batchEncoding);
+            batchSessions.put(sessionId, session);
+        }
+        if (writerThreadFactory != null) {
+            writers.put(sessionId, new SessionWriter(session, writerMaxQueued, writerThreadFactory));
+        }
         
         totalConnections.incrementAndGet();
         
@@ -44,18 +138,56 @@ public class SensorWebSocketHandler extends TextWebSocketHandler {
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
         String sessionId = session.getId();
         sessions.remove(sessionId);
+        batchSessions.remove(sessionId);
+        SessionWriter writer = writers.remove(sessionId);
+        if (writer != null) {
+            writer.close();
+        }
         
         logger.info("WebSocket连接已关闭: {} (状态: {}, 剩余活跃连接数: {})", 
                 sessionId, status, sessions.size());
     }
     
+    /**
+     * 容器只为每个会话保留较小的消息缓冲区，较长的客户端请求分片交给处理器，在{@link #handleTextMessage}中按需拼接
+     */
+    @Override
+    public boolean supportsPartialMessages() {
+        return true;
+    }
+    
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
         String payload = message.getPayload();
+        StringBuilder partial = (StringBuilder) session.getAttributes().get(PARTIAL);
+        if (partial != null || !message.isLast()) {
+            if (partial == null) {
+                partial = new StringBuilder(payload.length() * 2);
+                session.getAttributes().put(PARTIAL, partial);
+            }
+            if (partial.length() + payload.length() > maxInboundMessage) {
+                session.getAttributes().remove(PARTIAL);
+                session.close(CloseStatus.TOO_BIG_TO_PROCESS.withReason("消息超过" + maxInboundMessage + "个字符"));
+                return;
+            }
+            partial.append(payload);
+            if (!message.isLast()) {
+                return;
+            }
+            session.getAttributes().remove(PARTIAL);
+            payload = partial.toString();
+        }
         logger.debug("接收到来自会话 {} 的消息: {}", session.getId(), payload);
-        
-        // 这里可以处理客户端发送的消息，例如配置请求等
-        // 在此示例中，我们不需要处理客户端消息
+        reply(session, actions.handle(payload, filter -> session.getAttributes().put(SUBSCRIPTION, filter)));
+    }
+
+    private void reply(WebSocketSession session, String response) throws IOException {
+        if (!session.isOpen()) {
+            return;
+        }
+        TextMessage message = new TextMessage(response);
+        // 应答与广播可能来自不同线程，同一会话不允许并发发送
+        SessionWriter.send(session, message);
     }
     
     @Override
@@ -73,23 +205,32 @@ public class SensorWebSocketHandler extends TextWebSocketHandler {
      * @param sensorData 传感器数据对象
      */
     public void broadcastSensorData(SensorData sensorData) {
+        broadcast(new EncodedReading(0, sensorData));
+    }
+
+    /**
+     * 向订阅条件匹配的客户端广播读数，复用共享的JSON编码
+     */
+    public void broadcast(EncodedReading reading) {
         if (sessions.isEmpty()) {
             return; // 没有活跃连接，不广播
         }
+        if (!batchSessions.isEmpty()) {
+            batcher.add(reading);
+        }
         
         try {
-            String jsonData = objectMapper.writeValueAsString(sensorData);
-            TextMessage message = new TextMessage(jsonData);
+            TextMessage message = null;
             
             int successCount = 0;
             for (WebSocketSession session : sessions.values()) {
-                if (session.isOpen()) {
-                    try {
-                        session.sendMessage(message);
+                if (session.isOpen() && !session.getAttributes().containsKey(FrameBatcher.ENCODING)
+                        && matches(session, reading.data())) {
+                    if (message == null) {
+                        message = new TextMessage(reading.json());
+                    }
+                    if (send(session, message)) {
                         successCount++;
-                    } catch (IOException e) {
-                        logger.warn("向会话 {} 发送消息失败: {}", session.getId(), e.getMessage());
-                        // 不要在循环中关闭会话，可能导致ConcurrentModificationException
                     }
                 }
             }
@@ -102,6 +243,53 @@ public class SensorWebSocketHandler extends TextWebSocketHandler {
             logger.error("序列化传感器数据或广播失败: {}", e.getMessage(), e);
         }
     }
+
+    /**
+     * 定期向批量推送的会话发出一个周期内的读数
+     */
+    @Scheduled(fixedDelayString = "${sensor.websocket.batch.interval:200}")
+    public void flushBatches() {
+        if (batcher == null) {
+            return;
+        }
+        batcher.flush(batchSessions.values(), (session, message) -> {
+            boolean sent = send(session, message);
+            if (sent) {
+                messagesSent.incrementAndGet();
+            }
+            return sent;
+        });
+    }
+
+    /**
+     * 发送一条推送消息：虚拟线程模式下放入会话的写出队列，否则在当前线程中发送
+     */
+    private boolean send(WebSocketSession session, WebSocketMessage<?> message) {
+        SessionWriter writer = writers.get(session.getId());
+        if (writer != null) {
+            return writer.offer(message);
+        }
+        try {
+            SessionWriter.send(session, message);
+            return true;
+        } catch (IOException e) {
+            logger.warn("向会话 {} 发送消息失败: {}", session.getId(), e.getMessage());
+            // 不要在循环中关闭会话，可能导致ConcurrentModificationException
+            return false;
+        }
+    }
+
+    private static boolean matches(WebSocketSession session, SensorData sensorData) {
+        Object filter = session.getAttributes().get(SUBSCRIPTION);
+        return filter == null || ((SubscriptionFilter) filter).matches(sensorData);
+    }
+    
+    /**
+     * 获取当前活跃会话数
+     */
+    public int getActiveSessionCount() {
+        return sessions.size();
+    }
     
     /**
      * 获取客户端IP地址
@@ -129,18 +317,55 @@ public class SensorWebSocketHandler extends TextWebSocketHandler {
         stats.put("activeConnections", sessions.size());
         stats.put("totalConnections", totalConnections.get());
         stats.put("messagesSent", messagesSent.get());
+        stats.put("virtualThreadWriters", writerThreadFactory != null);
+        if (batcher != null) {
+            Map<String, Object> batch = batcher.getStats();
+            batch.put("sessions", batchSessions.size());
+            stats.put("batch", batch);
+        }
+        if (writerThreadFactory != null) {
+            long dropped = 0;
+            for (SessionWriter writer : writers.values()) {
+                dropped += writer.getDropped();
+            }
+            stats.put("writerDropped", dropped);
+        }
         
-        // 收集会话信息
+        // 收集会话信息和每个会话的内存估算
         Map<String, Map<String, Object>> sessionInfo = new ConcurrentHashMap<>();
+        long containerBytes = 0;
+        long pendingBytes = 0;
+        int deflateSessions = 0;
         for (Map.Entry<String, WebSocketSession> entry : sessions.entrySet()) {
             WebSocketSession session = entry.getValue();
             Map<String, Object> info = new ConcurrentHashMap<>();
             info.put("ip", getClientIp(session));
             info.put("creationTime", session.getAttributes().getOrDefault("creationTime", "未知"));
             
+            boolean deflate = SessionMemory.deflate(session);
+            SessionWriter writer = writers.get(entry.getKey());
+            long container = SessionMemory.containerBytes(
+                    session.getTextMessageSizeLimit(), session.getBinaryMessageSizeLimit(), deflate);
+            long pending = SessionMemory.pendingBytes((StringBuilder) session.getAttributes().get(PARTIAL),
+                    writer != null ? writer.getQueued() : 0);
+            info.put("memoryBytes", container + pending);
+            info.put("deflate", deflate);
+            containerBytes += container;
+            pendingBytes += pending;
+            if (deflate) {
+                deflateSessions++;
+            }
+            
             sessionInfo.put(entry.getKey(), info);
         }
         
+        Map<String, Object> memory = new ConcurrentHashMap<>();
+        memory.put("ioBufferSize", SessionMemory.ioBufferSize());
+        memory.put("containerBytes", containerBytes);
+        memory.put("pendingBytes", pendingBytes);
+        memory.put("bytesPerSession", sessions.isEmpty() ? 0 : (containerBytes + pendingBytes) / sessions.size());
+        memory.put("deflateSessions", deflateSessions);
+        stats.put("sessionMemory", memory);
         stats.put("sessions", sessionInfo);
         return stats;
     }
@@ -0,0 +1,63 @@
+package com.example.websocket;
+
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * Tomcat WebSocket会话的内存估算，用于统计端点
+ * 容器为每个会话分配：读缓冲、写出缓冲和UTF-8编码缓冲各一个（大小由系统属性{@value #IO_BUFFER_PROPERTY}决定），
+ * 文本消息缓冲（每字符2字节）、二进制消息缓冲和控制帧缓冲；协商了permessage-deflate时另有两个缓冲和zlib的本地内存
+ */
+final class SessionMemory {
+
+    static final String IO_BUFFER_PROPERTY = "org.apache.tomcat.websocket.DEFAULT_BUFFER_SIZE";
+
+    private static final int TOMCAT_DEFAULT_IO_BUFFER = 8 * 1024;
+
+    // 控制帧最多125字节：二进制和文本（每字符2字节）各一个缓冲，另有14字节的帧头缓冲
+    private static final int CONTROL_BUFFERS = 125 + 125 * 2 + 14;
+
+    // zlib默认参数（windowBits=15, memLevel=8）下Deflater约256KB、Inflater约39KB本地内存
+    private static final int DEFLATE_NATIVE = (1 << 17) + (1 << 17) + (1 << 15) + 7 * 1024;
+
+    // 写出队列中每条消息的链表节点，消息本身由所有会话共享
+    private static final int QUEUE_NODE = 32;
+
+    private SessionMemory() {
+    }
+
+    /**
+     * Tomcat实际使用的每会话读写缓冲区大小
+     */
+    static int ioBufferSize() {
+        return Integer.getInteger(IO_BUFFER_PROPERTY, TOMCAT_DEFAULT_IO_BUFFER);
+    }
+
+    static boolean deflate(WebSocketSession session) {
+        for (WebSocketExtension extension : session.getExtensions()) {
+            if ("permessage-deflate".equals(extension.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 容器为会话分配的缓冲区字节数
+     */
+    static long containerBytes(int textBuffer, int binaryBuffer, boolean deflate) {
+        long io = ioBufferSize();
+        long bytes = 3 * io + textBuffer * 2L + binaryBuffer + CONTROL_BUFFERS;
+        if (deflate) {
+            bytes += 2 * io + DEFLATE_NATIVE;
+        }
+        return bytes;
+    }
+
+    /**
+     * 应用按需分配的字节数：拼接中的分片消息和写出队列
+     */
+    static long pendingBytes(StringBuilder partial, int queued) {
+        return (partial != null ? partial.capacity() * 2L : 0) + (long) queued * QUEUE_NODE;
+    }
+}
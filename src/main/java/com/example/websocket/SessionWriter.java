@@ -0,0 +1,103 @@
+package com.example.websocket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 单个WebSocket会话的专用写出线程（虚拟线程模式）
+ * 广播线程只把消息放入有界队列，阻塞的sendMessage在会话自己的线程中执行，慢客户端不拖慢其他会话；
+ * 同一会话的消息按放入顺序写出，队列满时丢弃新消息并计数；队列按需分配节点，空闲会话不预留队列容量
+ */
+final class SessionWriter implements Runnable {
+    private static final Logger LOG = LoggerFactory.getLogger(SessionWriter.class);
+
+    // 会话属性中保存发送锁的键
+    private static final String SEND_LOCK = "sendLock";
+
+    private final WebSocketSession session;
+    private final BlockingQueue<WebSocketMessage<?>> queue;
+    private final Thread thread;
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile boolean running = true;
+
+    SessionWriter(WebSocketSession session, int maxQueued, ThreadFactory threadFactory) {
+        this.session = session;
+        this.queue = new LinkedBlockingQueue<>(maxQueued);
+        this.thread = threadFactory.newThread(this);
+        this.thread.start();
+    }
+
+    /**
+     * @return 队列已满时返回false
+     */
+    boolean offer(WebSocketMessage<?> message) {
+        if (!running || !queue.offer(message)) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            WebSocketMessage<?> message;
+            try {
+                message = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                // 与请求应答共用会话的发送锁，同一会话不会并发发送
+                send(session, message);
+            } catch (IOException | IllegalStateException e) {
+                LOG.warn("向会话 {} 发送消息失败: {}", session.getId(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 为会话创建发送锁，须在会话加入广播之前调用
+     */
+    static void bindSendLock(WebSocketSession session) {
+        session.getAttributes().put(SEND_LOCK, new ReentrantLock());
+    }
+
+    /**
+     * 持有会话的发送锁发送一条消息
+     * 使用ReentrantLock而不是synchronized：阻塞在sendMessage中的虚拟线程不会钉住载体线程
+     */
+    static void send(WebSocketSession session, WebSocketMessage<?> message) throws IOException {
+        ReentrantLock lock = (ReentrantLock) session.getAttributes().get(SEND_LOCK);
+        lock.lock();
+        try {
+            session.sendMessage(message);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void close() {
+        running = false;
+        thread.interrupt();
+        queue.clear();
+    }
+
+    long getDropped() {
+        return dropped.get();
+    }
+
+    int getQueued() {
+        return queue.size();
+    }
+}
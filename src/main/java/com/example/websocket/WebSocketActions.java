@@ -0,0 +1,186 @@
+package com.example.websocket;
+
+import com.example.SensorData;
+import com.example.history.Downsampler;
+import com.example.history.SeriesResult;
+import com.example.history.TimeSeriesStore;
+import com.example.ingest.IngestService;
+import com.example.stream.SubscriptionFilter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * WebSocket客户端请求（{"action":...}）的处理，Servlet和响应式两种服务端共用
+ * 支持的操作：downsample（历史数据降采样）、subscribe（修改订阅条件）、ingest（设备上报读数）
+ */
+public class WebSocketActions {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // 降采样请求未指定起始时间时默认查询最近一小时
+    private static final long DEFAULT_RANGE_MS = TimeUnit.HOURS.toMillis(1);
+
+    // 历史存储，为null时不支持降采样请求
+    private final TimeSeriesStore timeSeriesStore;
+
+    // 设备上报入口，为null时不支持上报请求
+    private final IngestService ingestService;
+
+    public WebSocketActions(TimeSeriesStore timeSeriesStore, IngestService ingestService) {
+        this.timeSeriesStore = timeSeriesStore;
+        this.ingestService = ingestService;
+    }
+
+    /**
+     * 处理一条客户端消息
+     *
+     * @param subscriber 接收subscribe操作解析出的订阅条件
+     * @return 应答JSON
+     */
+    public String handle(String payload, Consumer<SubscriptionFilter> subscriber) {
+        ObjectNode response;
+        JsonNode request;
+        try {
+            request = objectMapper.readTree(payload);
+        } catch (IOException e) {
+            return encode(error(null, "消息不是合法的JSON"));
+        }
+        String action = request.path("action").asText();
+        if ("downsample".equals(action)) {
+            response = downsample(request);
+        } else if ("subscribe".equals(action)) {
+            response = subscribe(request, subscriber);
+        } else if ("ingest".equals(action)) {
+            response = ingest(request);
+        } else {
+            response = error(request.get("requestId"), "不支持的操作: " + action);
+        }
+        return encode(response);
+    }
+
+    /**
+     * 处理降采样请求，参数与REST接口/api/series/{deviceId}/downsample一致：
+     * {"action":"downsample","requestId":1,"deviceId":"...","from":...,"to":...,"width":800,"pointsPerPixel":1,"algorithm":"lttb"}
+     */
+    private ObjectNode downsample(JsonNode request) {
+        JsonNode requestId = request.get("requestId");
+        if (timeSeriesStore == null) {
+            return error(requestId, "历史数据未启用");
+        }
+        String deviceId = request.path("deviceId").asText(null);
+        long end = request.path("to").asLong(System.currentTimeMillis());
+        long start = request.path("from").asLong(end - DEFAULT_RANGE_MS);
+        int width = request.path("width").asInt(800);
+        double pointsPerPixel = request.path("pointsPerPixel").asDouble(1);
+        int targetPoints = (int) Math.min(Integer.MAX_VALUE, Math.round(width * pointsPerPixel));
+        if (deviceId == null || start > end || width <= 0 || pointsPerPixel <= 0 || targetPoints <= 0) {
+            return error(requestId, "参数无效");
+        }
+        Downsampler.Algorithm algorithm;
+        try {
+            algorithm = Downsampler.Algorithm.parse(request.path("algorithm").asText(null));
+        } catch (IllegalArgumentException e) {
+            return error(requestId, "不支持的降采样算法");
+        }
+        SeriesResult result = timeSeriesStore.downsample(deviceId, start, end, targetPoints, algorithm);
+        if (result == null) {
+            return error(requestId, "设备不存在: " + deviceId);
+        }
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("type", "downsample");
+        response.set("requestId", requestId);
+        response.set("result", objectMapper.valueToTree(result));
+        return response;
+    }
+
+    /**
+     * 修改会话的订阅条件：{"action":"subscribe","types":["temperature"],"devices":["..."],"prefix":"..."}
+     * 省略的条件不限制，全部省略时恢复接收所有读数
+     */
+    private ObjectNode subscribe(JsonNode request, Consumer<SubscriptionFilter> subscriber) {
+        JsonNode requestId = request.get("requestId");
+        SubscriptionFilter filter;
+        try {
+            filter = SubscriptionFilter.of(textValues(request.get("types")), textValues(request.get("devices")),
+                    request.path("prefix").asText(null));
+        } catch (IllegalArgumentException e) {
+            return error(requestId, e.getMessage());
+        }
+        subscriber.accept(filter);
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("type", "subscribed");
+        response.set("requestId", requestId);
+        return response;
+    }
+
+    /**
+     * 上报读数，与REST接口/api/ingest共用限速：{"action":"ingest","requestId":1,"readings":[{"deviceId":"...","value":...}]}
+     * 应答为{"type":"ingested","requestId":1,"accepted":...,"rejected":...,"rejectedByReason":{...}}
+     */
+    private ObjectNode ingest(JsonNode request) {
+        JsonNode requestId = request.get("requestId");
+        if (ingestService == null) {
+            return error(requestId, "读数上报未启用");
+        }
+        JsonNode readings = request.path("readings");
+        if (!readings.isArray() || readings.isEmpty()) {
+            return error(requestId, "缺少读数");
+        }
+        if (readings.size() > ingestService.getMaxBatch()) {
+            return error(requestId, "单次最多上报" + ingestService.getMaxBatch() + "条读数");
+        }
+        List<SensorData> parsed = new ArrayList<>(readings.size());
+        try {
+            for (JsonNode reading : readings) {
+                SensorData data = objectMapper.treeToValue(reading, SensorData.class);
+                if (data == null) {
+                    return error(requestId, "读数无效");
+                }
+                parsed.add(data);
+            }
+        } catch (JsonProcessingException e) {
+            return error(requestId, "读数无效");
+        }
+        ObjectNode response = objectMapper.valueToTree(ingestService.ingest(parsed));
+        response.put("type", "ingested");
+        response.set("requestId", requestId);
+        return response;
+    }
+
+    private static List<String> textValues(JsonNode node) {
+        List<String> values = new ArrayList<>();
+        if (node == null || node.isNull()) {
+            return values;
+        }
+        if (node.isArray()) {
+            node.forEach(element -> values.add(element.asText()));
+        } else {
+            values.add(node.asText());
+        }
+        return values;
+    }
+
+    private ObjectNode error(JsonNode requestId, String message) {
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("type", "error");
+        response.set("requestId", requestId);
+        response.put("message", message);
+        return response;
+    }
+
+    private String encode(ObjectNode response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
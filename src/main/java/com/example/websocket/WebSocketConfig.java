@@ -1,6 +1,10 @@
 package com.example.websocket;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
@@ -20,14 +24,23 @@ import java.util.Map;
  * - 启用WebSocket支持
  * - 注册处理器到路径"/wx-socket"
  * - 允许跨域访问
- * - 配置消息缓冲区大小为512KB
+ * - 按客户端请求的大小配置每个会话的缓冲区，较长的请求分片后由处理器拼接
+ * - 只用于默认的Servlet服务端，reactive配置文件下由{@link com.example.reactive.ReactiveServerConfig}注册
  */
 @Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @EnableWebSocket
 public class WebSocketConfig implements WebSocketConfigurer {
 
+    // 客户端协议不使用二进制消息（收到时关闭会话），二进制缓冲区取控制帧的最大长度
+    private static final int BINARY_BUFFER_SIZE = 125;
+
     private final SensorWebSocketHandler sensorWebSocketHandler;
 
+    // 容器为每个会话分配的文本消息缓冲区（字符数），覆盖订阅、降采样等客户端请求
+    @Value("${sensor.websocket.inbound-buffer:1024}")
+    private int inboundBuffer;
+
     public WebSocketConfig(SensorWebSocketHandler sensorWebSocketHandler) {
         this.sensorWebSocketHandler = sensorWebSocketHandler;
     }
@@ -81,7 +94,7 @@ public class WebSocketConfig implements WebSocketConfigurer {
 
     /**
      * 配置WebSocket容器
-     * - 设置消息缓冲区大小为512KB
+     * - 按客户端请求的大小设置消息缓冲区，Tomcat在每个会话建立时即分配
      * - 设置会话空闲超时
      * - 设置异步发送超时
      */
@@ -89,9 +102,9 @@ public class WebSocketConfig implements WebSocketConfigurer {
     public ServletServerContainerFactoryBean createWebSocketContainer() {
         ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
         
-        // 设置消息缓冲区大小为512KB (512 * 1024)
-        container.setMaxTextMessageBufferSize(512 * 1024);
-        container.setMaxBinaryMessageBufferSize(512 * 1024);
+        // 服务端推送的读数约120字节，客户端只发送较小的JSON请求，不需要为每个会话预留512KB
+        container.setMaxTextMessageBufferSize(inboundBuffer);
+        container.setMaxBinaryMessageBufferSize(BINARY_BUFFER_SIZE);
         
         // 设置会话空闲超时为60秒
         container.setMaxSessionIdleTimeout(60000L);
@@ -101,4 +114,18 @@ public class WebSocketConfig implements WebSocketConfigurer {
         
         return container;
     }
+
+    /**
+     * Tomcat每个会话的读缓冲、写出缓冲和编码缓冲大小（默认8KB）只能通过系统属性设置，需在Tomcat启动前生效；
+     * 较长的消息分多次读写。启动参数中已指定该系统属性时以启动参数为准
+     */
+    @Bean
+    public static WebServerFactoryCustomizer<TomcatServletWebServerFactory> webSocketIoBufferCustomizer(
+            @Value("${sensor.websocket.io-buffer-size:2048}") int ioBufferSize) {
+        return factory -> {
+            if (System.getProperty(SessionMemory.IO_BUFFER_PROPERTY) == null) {
+                System.setProperty(SessionMemory.IO_BUFFER_PROPERTY, String.valueOf(ioBufferSize));
+            }
+        };
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,93 @@
+package com.example.bridge;
+
+import com.example.SensorData;
+import com.example.SensorType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 桥接环形队列和定长帧编码测试
+ */
+public class SensorRingBufferTest {
+
+    @Test
+    @DisplayName("队列满时拒绝写入并按FIFO顺序取出")
+    public void testBoundedFifo() {
+        SensorRingBuffer buffer = new SensorRingBuffer(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(new SensorData("device_" + i, i, i)));
+        }
+        assertFalse(buffer.offerOrDrop(new SensorData("device_overflow", 0, 0)));
+        assertEquals(1, buffer.getDroppedCount());
+
+        List<SensorData> drained = new ArrayList<>();
+        assertEquals(4, buffer.drain(drained::add, 10));
+        for (int i = 0; i < 4; i++) {
+            assertEquals("device_" + i, drained.get(i).deviceId());
+        }
+        assertNull(buffer.poll());
+    }
+
+    @Test
+    @DisplayName("多生产者并发写入时不丢失也不重复")
+    public void testConcurrentProducers() throws Exception {
+        int producers = 4;
+        int perProducer = 50_000;
+        SensorRingBuffer buffer = new SensorRingBuffer(1024);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch done = new CountDownLatch(producers);
+
+        for (int p = 0; p < producers; p++) {
+            final String deviceId = "device_" + p;
+            executor.submit(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    SensorData data = new SensorData(deviceId, i, i);
+                    while (!buffer.offer(data)) {
+                        Thread.onSpinWait();
+                    }
+                }
+                done.countDown();
+            });
+        }
+
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        AtomicInteger received = new AtomicInteger();
+        while (received.get() < producers * perProducer) {
+            buffer.drain(data -> {
+                assertTrue(seen.add(data.deviceId() + ":" + data.timestamp()), "重复读数: " + data);
+                received.incrementAndGet();
+            }, 256);
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertEquals(producers * perProducer, seen.size());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    @DisplayName("定长帧编码往返一致")
+    public void testFrameRoundTrip() {
+        SensorData data = new SensorData("humidity-sensor-2", 1_700_000_000_123L, 48.25, SensorType.HUMIDITY);
+        ByteBuffer frame = ByteBuffer.allocate(SensorFrameCodec.FRAME_SIZE);
+        SensorFrameCodec.encode(data, frame);
+        assertEquals(SensorFrameCodec.FRAME_SIZE, frame.position());
+
+        frame.flip();
+        assertEquals(data, SensorFrameCodec.decode(frame));
+        assertEquals("%", data.unit());
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.cluster;
+
+import com.example.SensorData;
+import com.example.SensorType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 多实例扇出的传输和去重测试
+ */
+public class ClusterTransportTest {
+
+    private static ClusterMessage message(String node, long sequence) {
+        return ClusterMessage.reading(node, 42L, sequence,
+                new SensorData("device_" + sequence, 1_700_000_000_000L + sequence, 20.5, SensorType.TEMPERATURE));
+    }
+
+    @Test
+    @DisplayName("TCP传输在两个节点之间双向投递读数、心跳和退出通知，帧内容不变")
+    public void testTcpRoundTrip() throws Exception {
+        List<ClusterMessage> receivedByA = new CopyOnWriteArrayList<>();
+        List<ClusterMessage> receivedByB = new CopyOnWriteArrayList<>();
+        TcpLoopbackTransport a = new TcpLoopbackTransport("127.0.0.1", 0, 1024);
+        TcpLoopbackTransport b = new TcpLoopbackTransport("127.0.0.1", 0, 1024);
+        try {
+            a.start(receivedByA::add);
+            b.start(receivedByB::add);
+            a.addPeer(new InetSocketAddress("127.0.0.1", b.getLocalPort()));
+            b.addPeer(new InetSocketAddress("127.0.0.1", a.getLocalPort()));
+
+            for (int i = 1; i <= 100; i++) {
+                a.publish(message("node-a", i));
+            }
+            b.publish(message("node-b", 1));
+            b.publish(ClusterMessage.heartbeat("node-b", 7L, List.of("node-a", "node-b")));
+            b.publish(ClusterMessage.leave("node-b", 7L));
+
+            await().atMost(10, TimeUnit.SECONDS).until(() -> receivedByB.size() == 100 && receivedByA.size() == 3);
+            for (int i = 0; i < 100; i++) {
+                assertEquals(message("node-a", i + 1), receivedByB.get(i));
+            }
+            assertEquals(message("node-b", 1), receivedByA.get(0));
+            assertEquals(ClusterMessage.heartbeat("node-b", 7L, List.of("node-a", "node-b")), receivedByA.get(1));
+            assertEquals(ClusterMessage.leave("node-b", 7L), receivedByA.get(2));
+        } finally {
+            a.close();
+            b.close();
+        }
+    }
+
+    @Test
+    @DisplayName("按来源序号去重：允许窗口内乱序，重复和过旧的序号被丢弃，滑出窗口的缺失序号计为缺口")
+    public void testDeduplication() {
+        SequenceDeduplicator deduplicator = new SequenceDeduplicator();
+        assertTrue(deduplicator.accept("node-a", 1, 10));
+        assertTrue(deduplicator.accept("node-a", 1, 12));
+        assertTrue(deduplicator.accept("node-a", 1, 11));
+        assertFalse(deduplicator.accept("node-a", 1, 12));
+        assertFalse(deduplicator.accept("node-a", 1, 9));
+        assertEquals(2, deduplicator.duplicates());
+
+        // 13未到达，滑出窗口后计为缺口；15之后跳过的序号仍在窗口内，可能稍后到达
+        assertTrue(deduplicator.accept("node-a", 1, 14));
+        assertTrue(deduplicator.accept("node-a", 1, 14 + SequenceDeduplicator.WINDOW));
+        assertEquals(1, deduplicator.gaps());
+        assertTrue(deduplicator.accept("node-a", 1, 14 + SequenceDeduplicator.WINDOW * 2));
+        assertEquals(1 + SequenceDeduplicator.WINDOW - 1, deduplicator.gaps());
+
+        // 重启后的节点和其他节点各自从头计数
+        assertTrue(deduplicator.accept("node-a", 2, 1));
+        assertTrue(deduplicator.accept("node-b", 1, 1));
+        assertEquals(3, deduplicator.origins());
+    }
+
+    @Test
+    @DisplayName("进程内传输投递给同一主题的其他节点，不回送给自己")
+    public void testInProcessTopic() {
+        List<ClusterMessage> receivedByA = new CopyOnWriteArrayList<>();
+        List<ClusterMessage> receivedByB = new CopyOnWriteArrayList<>();
+        List<ClusterMessage> receivedByOther = new CopyOnWriteArrayList<>();
+        InProcessTransport a = new InProcessTransport("test-topic");
+        InProcessTransport b = new InProcessTransport("test-topic");
+        InProcessTransport other = new InProcessTransport("other-topic");
+        try {
+            a.start(receivedByA::add);
+            b.start(receivedByB::add);
+            other.start(receivedByOther::add);
+
+            a.publish(message("node-a", 1));
+            assertTrue(receivedByA.isEmpty());
+            assertEquals(List.of(message("node-a", 1)), receivedByB);
+            assertTrue(receivedByOther.isEmpty());
+
+            b.close();
+            a.publish(message("node-a", 2));
+            assertEquals(1, receivedByB.size());
+        } finally {
+            a.close();
+            b.close();
+            other.close();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.cluster;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 一致性哈希环测试
+ */
+public class ConsistentHashRingTest {
+
+    private static final int DEVICES = 20_000;
+
+    private static Map<String, Integer> distribution(ConsistentHashRing ring) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 1; i <= DEVICES; i++) {
+            counts.merge(ring.owner("device_" + i), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    @Test
+    @DisplayName("虚拟节点使设备在节点间大致均匀分布")
+    public void testBalance() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("node-a", "node-b", "node-c", "node-d"), 128);
+        Map<String, Integer> counts = distribution(ring);
+        assertEquals(4, counts.size());
+        for (int count : counts.values()) {
+            assertTrue(Math.abs(count - DEVICES / 4) < DEVICES / 4 * 0.2, "分布偏差过大: " + counts);
+        }
+    }
+
+    @Test
+    @DisplayName("节点加入时只有约1/N的设备移动，且都移到新节点；离开时只移动该节点的设备")
+    public void testMinimalMovement() {
+        ConsistentHashRing before = new ConsistentHashRing(List.of("node-a", "node-b", "node-c"), 128);
+        ConsistentHashRing after = new ConsistentHashRing(List.of("node-a", "node-b", "node-c", "node-d"), 128);
+        int moved = 0;
+        for (int i = 1; i <= DEVICES; i++) {
+            String device = "device_" + i;
+            String oldOwner = before.owner(device);
+            String newOwner = after.owner(device);
+            if (!oldOwner.equals(newOwner)) {
+                assertEquals("node-d", newOwner, "设备只应移到新节点: " + device);
+                moved++;
+            }
+        }
+        assertTrue(Math.abs(moved - DEVICES / 4) < DEVICES / 4 * 0.2, "移动的设备数: " + moved);
+
+        // 反过来看就是node-d离开：只有它的设备改变归属
+        for (int i = 1; i <= DEVICES; i++) {
+            String device = "device_" + i;
+            if (!"node-d".equals(after.owner(device))) {
+                assertEquals(after.owner(device), before.owner(device));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("相同成员得到相同的环，与加入顺序无关；空环没有归属")
+    public void testDeterministic() {
+        ConsistentHashRing first = new ConsistentHashRing(List.of("node-a", "node-b", "node-c"), 64);
+        ConsistentHashRing second = new ConsistentHashRing(List.of("node-c", "node-a", "node-b"), 64);
+        for (int i = 1; i <= 1000; i++) {
+            assertEquals(first.owner("device_" + i), second.owner("device_" + i));
+        }
+        assertNull(new ConsistentHashRing(List.of(), 64).owner("device_1"));
+        assertEquals("node-a", new ConsistentHashRing(List.of("node-a"), 1).owner("device_1"));
+    }
+}
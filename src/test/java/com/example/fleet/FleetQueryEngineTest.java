@@ -0,0 +1,136 @@
+package com.example.fleet;
+
+import com.example.SensorData;
+import com.example.SensorType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 跨设备查询的分片扫描、分组汇总和Top-K测试
+ */
+public class FleetQueryEngineTest {
+
+    private static final int DEVICES = 100_000;
+    private static final SensorType[] TYPES = {SensorType.TEMPERATURE, SensorType.HUMIDITY, SensorType.PRESSURE};
+
+    private final FleetIndex index = new FleetIndex();
+    private final double[] latest = new double[DEVICES];
+    private ForkJoinPool pool;
+
+    @BeforeEach
+    public void setUp() {
+        pool = new ForkJoinPool(4);
+        Random random = new Random(7);
+        for (int i = 0; i < DEVICES; i++) {
+            latest[i] = random.nextDouble() * 100;
+            index.update(new SensorData("device-" + i, 1_000_000L + i, latest[i], TYPES[i % TYPES.length]));
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("并行Top-K与全量排序的结果一致，升序返回最低的设备")
+    public void testTopKMatchesSort() {
+        Integer[] order = new Integer[DEVICES];
+        for (int i = 0; i < DEVICES; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingDouble(i -> -latest[i]));
+
+        FleetResult result = run(query(FleetQuery.Metric.LATEST, null, false, 20, false), null);
+
+        assertEquals(DEVICES, result.matchedDevices());
+        List<FleetResult.Device> top = result.top();
+        assertEquals(20, top.size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals("device-" + order[i], top.get(i).deviceId());
+            assertEquals(latest[order[i]], top.get(i).value());
+        }
+
+        FleetResult lowest = run(query(FleetQuery.Metric.LATEST, null, false, 5, true), null);
+        for (int i = 0; i < 5; i++) {
+            assertEquals("device-" + order[DEVICES - 1 - i], lowest.top().get(i).deviceId());
+        }
+    }
+
+    @Test
+    @DisplayName("按类型分组的设备数、平均值与逐个累加一致，类型过滤只统计对应的组")
+    public void testGroupByType() {
+        FleetResult result = run(query(FleetQuery.Metric.LATEST, null, true, 0, false), null);
+
+        assertEquals(TYPES.length, result.groups().size());
+        for (FleetResult.Group group : result.groups()) {
+            int typeIndex = Arrays.asList(TYPES).indexOf(SensorType.fromLabel(group.key()));
+            double sum = 0;
+            double max = Double.NEGATIVE_INFINITY;
+            long devices = 0;
+            for (int i = typeIndex; i < DEVICES; i += TYPES.length) {
+                sum += latest[i];
+                max = Math.max(max, latest[i]);
+                devices++;
+            }
+            assertEquals(devices, group.devices());
+            assertEquals(sum / devices, group.avg(), 1e-9);
+            assertEquals(max, group.max());
+        }
+
+        FleetQuery humidityOnly = new FleetQuery(FleetQuery.Metric.LATEST, 0, EnumSet.of(SensorType.HUMIDITY),
+                null, 50.0, null, true, 10, false);
+        FleetResult filtered = run(humidityOnly, null);
+        assertEquals(1, filtered.groups().size());
+        assertEquals("humidity", filtered.groups().get(0).key());
+        assertTrue(filtered.groups().get(0).min() >= 50);
+        filtered.top().forEach(device -> assertEquals("humidity", device.type()));
+    }
+
+    @Test
+    @DisplayName("窗口指标来自汇总回调，窗口内没有读数的设备被跳过")
+    public void testWindowMetric() {
+        // 偶数设备在窗口内有读数，最大值为最新值加上设备序号的千分之一
+        FleetScan.Summarizer summarizer = (deviceId, stats) -> {
+            int i = Integer.parseInt(deviceId.substring("device-".length()));
+            if (i % 2 != 0) {
+                return false;
+            }
+            stats[0] = 0;
+            stats[1] = latest[i] + i / 1000.0;
+            stats[2] = latest[i];
+            stats[3] = 1;
+            return true;
+        };
+
+        FleetResult result = run(query(FleetQuery.Metric.MAX, null, false, 1, false), summarizer);
+
+        assertEquals(DEVICES / 2, result.matchedDevices());
+        double expected = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < DEVICES; i += 2) {
+            expected = Math.max(expected, latest[i] + i / 1000.0);
+        }
+        assertEquals(expected, result.top().get(0).value());
+    }
+
+    private FleetQuery query(FleetQuery.Metric metric, String prefix, boolean groupByType, int limit,
+                             boolean ascending) {
+        return new FleetQuery(metric, 0, null, prefix, null, null, groupByType, limit, ascending);
+    }
+
+    private FleetResult run(FleetQuery query, FleetScan.Summarizer summarizer) {
+        return FleetQueryEngine.run(pool, index, query, 0, Long.MAX_VALUE, summarizer, 1024, "latest",
+                System.nanoTime());
+    }
+}
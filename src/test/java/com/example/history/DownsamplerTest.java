@@ -0,0 +1,96 @@
+package com.example.history;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LTTB和M4降采样测试
+ */
+public class DownsamplerTest {
+
+    private static final int SIZE = 10_000;
+
+    @Test
+    @DisplayName("LTTB输出恰好threshold个点，保留首尾点和孤立尖峰")
+    public void testLttbKeepsSpike() {
+        long[] timestamps = new long[SIZE];
+        double[] values = new double[SIZE];
+        Random random = new Random(42);
+        for (int i = 0; i < SIZE; i++) {
+            timestamps[i] = 1_000_000L + i * 1000L;
+            values[i] = 20 + random.nextDouble();
+        }
+        values[5_432] = 95;
+
+        PointBuffer sampled = Downsampler.lttb(timestamps, values, SIZE, 200);
+
+        assertEquals(200, sampled.size());
+        assertEquals(timestamps[0], sampled.timestampArray()[0]);
+        assertEquals(timestamps[SIZE - 1], sampled.timestampArray()[199]);
+        boolean spikeKept = false;
+        for (int i = 0; i < sampled.size(); i++) {
+            if (i > 0) {
+                assertTrue(sampled.timestampArray()[i] > sampled.timestampArray()[i - 1], "输出应按时间递增");
+            }
+            spikeKept |= sampled.timestampArray()[i] == timestamps[5_432] && sampled.valueArray()[i] == 95;
+        }
+        assertTrue(spikeKept, "尖峰应被保留");
+    }
+
+    @Test
+    @DisplayName("M4每列保留最小值和最大值，输出不超过threshold个点")
+    public void testM4KeepsColumnExtremes() {
+        long[] timestamps = new long[SIZE];
+        double[] values = new double[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            timestamps[i] = i * 100L;
+            values[i] = Math.sin(i / 50.0) * 10;
+        }
+        int threshold = 400;
+        int columns = threshold / 4;
+
+        PointBuffer sampled = Downsampler.m4(timestamps, values, SIZE, threshold);
+
+        assertTrue(sampled.size() <= threshold);
+        assertEquals(timestamps[0], sampled.timestampArray()[0]);
+        assertEquals(timestamps[SIZE - 1], sampled.timestampArray()[sampled.size() - 1]);
+
+        double span = timestamps[SIZE - 1] - timestamps[0];
+        double[] expectedMin = new double[columns];
+        double[] expectedMax = new double[columns];
+        double[] actualMin = new double[columns];
+        double[] actualMax = new double[columns];
+        for (int c = 0; c < columns; c++) {
+            expectedMin[c] = actualMin[c] = Double.POSITIVE_INFINITY;
+            expectedMax[c] = actualMax[c] = Double.NEGATIVE_INFINITY;
+        }
+        for (int i = 0; i < SIZE; i++) {
+            int c = Math.min(columns - 1, (int) (timestamps[i] / span * columns));
+            expectedMin[c] = Math.min(expectedMin[c], values[i]);
+            expectedMax[c] = Math.max(expectedMax[c], values[i]);
+        }
+        for (int i = 0; i < sampled.size(); i++) {
+            int c = Math.min(columns - 1, (int) (sampled.timestampArray()[i] / span * columns));
+            actualMin[c] = Math.min(actualMin[c], sampled.valueArray()[i]);
+            actualMax[c] = Math.max(actualMax[c], sampled.valueArray()[i]);
+        }
+        assertArrayEquals(expectedMin, actualMin);
+        assertArrayEquals(expectedMax, actualMax);
+    }
+
+    @Test
+    @DisplayName("点数不超过threshold时原样返回")
+    public void testSmallInputCopied() {
+        long[] timestamps = {1, 2, 3};
+        double[] values = {1.5, 2.5, 3.5};
+
+        assertEquals(3, Downsampler.downsample(Downsampler.Algorithm.LTTB, timestamps, values, 3, 10).size());
+        assertEquals(3, Downsampler.downsample(Downsampler.Algorithm.M4, timestamps, values, 3, 10).size());
+        assertEquals(Downsampler.Algorithm.M4, Downsampler.Algorithm.parse(" m4 "));
+        assertThrows(IllegalArgumentException.class, () -> Downsampler.Algorithm.parse("avg"));
+    }
+}
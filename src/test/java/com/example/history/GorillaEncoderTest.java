@@ -0,0 +1,135 @@
+package com.example.history;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Gorilla压缩编码和设备时间序列测试
+ */
+public class GorillaEncoderTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("不规则时间间隔和任意浮点值可以无损还原")
+    public void testRoundTrip() {
+        Random random = new Random(42);
+        int points = 2000;
+        long[] timestamps = new long[points];
+        double[] values = new double[points];
+        long timestamp = 1_700_000_000_000L;
+        for (int i = 0; i < points; i++) {
+            // 覆盖各个delta-of-delta区间，包括时间戳相同和长时间间隔
+            timestamp += switch (i % 7) {
+                case 0 -> 1000;
+                case 1 -> 0;
+                case 2 -> 1000 + random.nextInt(100);
+                case 3 -> random.nextInt(5000);
+                case 4 -> 86_400_000L * (1 + random.nextInt(40));
+                default -> 1000;
+            };
+            timestamps[i] = timestamp;
+            values[i] = switch (i % 5) {
+                case 0 -> 20 + random.nextGaussian() * 5;
+                case 1 -> values[Math.max(0, i - 1)];
+                case 2 -> -random.nextDouble() * 1e12;
+                case 3 -> i % 2 == 0 ? Double.NaN : Double.MIN_VALUE;
+                default -> Math.round(random.nextDouble() * 100) / 10.0;
+            };
+        }
+
+        GorillaEncoder encoder = new GorillaEncoder(points);
+        for (int i = 0; i < points; i++) {
+            assertTrue(encoder.append(timestamps[i], values[i]));
+        }
+        assertFalse(encoder.append(timestamp, 0));
+
+        for (GorillaDecoder decoder : List.of(encoder.decoder(), encoder.seal().decoder())) {
+            for (int i = 0; i < points; i++) {
+                assertTrue(decoder.next());
+                assertEquals(timestamps[i], decoder.timestamp());
+                assertEquals(Double.doubleToRawLongBits(values[i]), Double.doubleToRawLongBits(decoder.value()));
+            }
+            assertFalse(decoder.next());
+        }
+    }
+
+    @Test
+    @DisplayName("等间隔采样的慢变读数每点约1到2字节")
+    public void testCompressionRatio() {
+        GorillaEncoder encoder = new GorillaEncoder(1024);
+        long timestamp = 1_700_000_000_000L;
+        for (int i = 0; i < 1024; i++) {
+            // 一位小数的温度，每分钟变化一次
+            encoder.append(timestamp + i * 1000L, 20 + (i / 60) * 0.1);
+        }
+        double bytesPerPoint = (double) encoder.seal().getSizeInBytes() / 1024;
+        assertTrue(bytesPerPoint < 2, "每点字节数: " + bytesPerPoint);
+    }
+
+    @Test
+    @DisplayName("跨块的范围查询按时间顺序返回，乱序读数被丢弃")
+    public void testDeviceSeriesScan() {
+        DeviceSeries series = new DeviceSeries("device_1", 16);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(series.append(i * 10L, i));
+        }
+        assertFalse(series.append(5, -1));
+        assertEquals(1, series.getOutOfOrderCount());
+        assertEquals(100, series.getPointCount());
+        assertEquals(7, series.getChunkCount());
+
+        List<Long> scanned = new ArrayList<>();
+        series.scan(155, 400, (timestamp, value) -> {
+            assertEquals(timestamp / 10.0, value);
+            scanned.add(timestamp);
+            return true;
+        });
+        assertEquals(25, scanned.size());
+        assertEquals(160L, scanned.get(0));
+        assertEquals(400L, scanned.get(scanned.size() - 1));
+    }
+
+    @Test
+    @DisplayName("块文件写入后可以读回，尾部不完整的记录被截掉")
+    public void testSeriesFileRecovery() throws Exception {
+        DeviceSeries series = new DeviceSeries("device/1", 8);
+        for (int i = 0; i < 20; i++) {
+            series.append(i, i * 1.5);
+        }
+        Path file = SeriesFile.pathOf(directory, series.getDeviceId());
+        SeriesFile.append(file, series.takeUnpersisted(true));
+        assertEquals("device/1", SeriesFile.deviceIdOf(file));
+
+        long validSize = Files.size(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x47, 0x4f, 0x52, 0x31, 0, 0, 0}));
+        }
+
+        List<SeriesChunk> chunks = SeriesFile.read(file);
+        assertEquals(3, chunks.size());
+        assertEquals(validSize, Files.size(file));
+
+        DeviceSeries restored = new DeviceSeries("device/1", 8);
+        chunks.forEach(restored::restore);
+        assertEquals(20, restored.getPointCount());
+        assertTrue(restored.takeUnpersisted(false).isEmpty());
+        restored.scan(0, Long.MAX_VALUE, (timestamp, value) -> {
+            assertEquals(timestamp * 1.5, value);
+            return true;
+        });
+    }
+}
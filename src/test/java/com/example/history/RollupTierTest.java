@@ -0,0 +1,108 @@
+package com.example.history;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 预聚合层级和查询层级选择测试
+ */
+public class RollupTierTest {
+
+    private static final long[] RETENTION = {
+            TimeUnit.HOURS.toMillis(24), TimeUnit.DAYS.toMillis(7), TimeUnit.DAYS.toMillis(90)
+    };
+
+    @Test
+    @DisplayName("选择分辨率不超过步长的最粗层级，步长向上取整，细层级过期时退到粗层级")
+    public void testPlanner() {
+        long now = TimeUnit.DAYS.toMillis(1000);
+        long recent = now - TimeUnit.HOURS.toMillis(1);
+
+        assertNull(QueryPlanner.plan(5_000, recent, now, RETENTION).tier());
+        assertEquals(5_000, QueryPlanner.plan(5_000, recent, now, RETENTION).step());
+
+        assertEquals(RollupTier.TEN_SECONDS, QueryPlanner.plan(30_000, recent, now, RETENTION).tier());
+        assertEquals(RollupTier.ONE_MINUTE, QueryPlanner.plan(60_000, recent, now, RETENTION).tier());
+
+        QueryPlanner.Plan plan = QueryPlanner.plan(90_000, recent, now, RETENTION);
+        assertEquals(RollupTier.ONE_MINUTE, plan.tier());
+        assertEquals(120_000, plan.step());
+
+        assertEquals(RollupTier.ONE_HOUR, QueryPlanner.plan(TimeUnit.DAYS.toMillis(1), recent, now, RETENTION).tier());
+
+        plan = QueryPlanner.plan(30_000, now - TimeUnit.DAYS.toMillis(3), now, RETENTION);
+        assertEquals(RollupTier.ONE_MINUTE, plan.tier());
+        assertEquals(60_000, plan.step());
+    }
+
+    @Test
+    @DisplayName("由预聚合层级合并的结果与直接聚合原始点一致")
+    public void testRollupMatchesRawAggregation() throws Exception {
+        Random random = new Random(7);
+        DeviceSeries series = new DeviceSeries("device_1", 256);
+        long timestamp = 1_700_000_000_000L;
+        for (int i = 0; i < 20_000; i++) {
+            timestamp += 200 + random.nextInt(1600);
+            series.append(timestamp, 20 + random.nextGaussian() * 5);
+        }
+        long from = 1_700_000_000_000L;
+        long to = timestamp;
+
+        for (RollupTier tier : RollupTier.values()) {
+            long step = tier.resolution() * 2;
+            BucketAggregator raw = new BucketAggregator(step, 1024, Integer.MAX_VALUE);
+            series.scan(from, to, raw);
+            BucketAggregator rolled = new BucketAggregator(step, 1024, Integer.MAX_VALUE);
+            series.scanRollup(tier, from, to, rolled);
+
+            SeriesResult expected = raw.toResult("device_1", from, to, "raw");
+            SeriesResult actual = rolled.toResult("device_1", from, to, tier.label());
+            assertArrayEquals(expected.timestamps(), actual.timestamps());
+            assertArrayEquals(expected.count(), actual.count());
+            assertArrayEquals(expected.min(), actual.min());
+            assertArrayEquals(expected.max(), actual.max());
+            assertArrayEquals(expected.values(), actual.values(), 1e-9);
+        }
+
+        // 快照写出后读回，快照已覆盖全部原始点，无需补算
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        series.writeRollups(new DataOutputStream(bytes));
+        DeviceSeries restored = new DeviceSeries("device_1", 256);
+        restored.readRollups(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(0, restored.rebuildRollups());
+        for (RollupTier tier : RollupTier.values()) {
+            assertEquals(series.getRollupBucketCount(tier), restored.getRollupBucketCount(tier));
+        }
+    }
+
+    @Test
+    @DisplayName("过期的桶从头部移除，不影响后续写入")
+    public void testExpire() {
+        RollupSeries rollup = new RollupSeries(RollupTier.TEN_SECONDS);
+        for (int i = 0; i < 100; i++) {
+            rollup.add(i * 10_000L, i);
+        }
+        rollup.expire(500_000);
+        assertEquals(50, rollup.size());
+        for (int i = 100; i < 200; i++) {
+            rollup.add(i * 10_000L, i);
+        }
+        assertEquals(150, rollup.size());
+        long[] first = new long[1];
+        rollup.scan(0, Long.MAX_VALUE, (start, min, max, sum, count) -> {
+            if (first[0] == 0) {
+                first[0] = start;
+            }
+        });
+        assertEquals(500_000, first[0]);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.ingest;
+
+import com.example.SensorApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.StringJoiner;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 上报接口对无效读数和大量伪造设备ID的处理
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = SensorApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "sensor.ingest.max-devices=64")
+public class IngestApiTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private IngestService ingestService;
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    @Test
+    @DisplayName("无效读数被拒绝（全部无效时返回400），大量伪造的设备ID只有上限以内的被接入")
+    public void testInvalidReadingsAndDeviceFlood() throws Exception {
+        String blank = "{\"deviceId\":\"  \",\"value\":1}";
+        String tooLong = "{\"deviceId\":\"" + "d".repeat(47) + "\",\"value\":1}";
+        String nan = "{\"deviceId\":\"temp-nan\",\"value\":\"NaN\"}";
+        String infinite = "{\"deviceId\":\"temp-inf\",\"value\":1e400}";
+
+        HttpResponse<String> response = post("[" + blank + "," + tooLong + "," + nan + "," + infinite + "]");
+        assertEquals(400, response.statusCode());
+        JsonNode result = OBJECT_MAPPER.readTree(response.body());
+        assertEquals(0, result.path("accepted").asInt());
+        assertEquals(4, result.path("rejectedByReason").path("invalid").asInt());
+
+        String valid = "{\"deviceId\":\"temp-" + "d".repeat(41) + "\",\"value\":1}";
+        response = post("[" + valid + "," + blank + "," + nan + "]");
+        assertEquals(202, response.statusCode());
+        result = OBJECT_MAPPER.readTree(response.body());
+        assertEquals(1, result.path("accepted").asInt(), "46字节的设备ID可以放进桥接帧");
+        assertEquals(2, result.path("rejectedByReason").path("invalid").asInt());
+
+        // 大量伪造的设备ID：只有上限以内的设备被接入，下游按设备保存的状态不随之增长
+        int accepted = 0;
+        int refused = 0;
+        for (int batch = 0; batch < 20; batch++) {
+            StringJoiner readings = new StringJoiner(",", "[", "]");
+            for (int i = 0; i < 500; i++) {
+                readings.add("{\"deviceId\":\"flood-" + batch + "-" + i + "\",\"value\":1}");
+            }
+            result = OBJECT_MAPPER.readTree(post(readings.toString()).body());
+            accepted += result.path("accepted").asInt();
+            refused += result.path("rejectedByReason").path("too-many-devices").asInt();
+        }
+        IngestLimiter limiter = ingestService.getLimiter();
+        assertTrue(limiter.getRegisteredDevices() <= 64, "接入设备数: " + limiter.getRegisteredDevices());
+        assertTrue(accepted <= 63, "准入条数: " + accepted);
+        assertTrue(refused > 9000, "上限之后的新设备被拒绝: " + refused);
+    }
+
+    private HttpResponse<String> post(String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/ingest"))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(10))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.ingest;
+
+import com.example.SensorData;
+import com.example.SensorType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 上报读数的按设备限速、按类型优先级的全局卸载和接入设备数上限
+ */
+public class IngestLimiterTest {
+
+    private static final List<SensorType> PRIORITY =
+            List.of(SensorType.TEMPERATURE, SensorType.PRESSURE, SensorType.HUMIDITY, SensorType.GENERIC);
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.SECONDS.toNanos(100));
+
+    private static SensorData reading(String deviceId, SensorType type) {
+        return new SensorData(deviceId, 1, 20.0, type);
+    }
+
+    @Test
+    @DisplayName("单个设备100倍突发只消耗自己的令牌，其他设备不受影响")
+    public void testDeviceBurst() {
+        IngestLimiter limiter = new IngestLimiter(10, 20, 1024, 1000, 2000, PRIORITY, 0.5, clock::get);
+
+        int flooded = 0;
+        int others = 0;
+        for (int i = 0; i < 2000; i++) {
+            if (limiter.admit(reading("temp-flood", SensorType.TEMPERATURE)) == IngestLimiter.Decision.ADMITTED) {
+                flooded++;
+            }
+            if (i % 40 == 0 && limiter.admit(reading("humid-" + i, SensorType.HUMIDITY)) == IngestLimiter.Decision.ADMITTED) {
+                others++;
+            }
+        }
+        assertEquals(20, flooded, "只准入突发量");
+        assertEquals(50, others, "其他设备全部准入");
+        assertEquals(1980, limiter.count(IngestLimiter.Decision.DEVICE_LIMITED, SensorType.TEMPERATURE));
+        assertEquals(0, limiter.count(IngestLimiter.Decision.GLOBAL_SHED, SensorType.TEMPERATURE));
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        flooded = 0;
+        for (int i = 0; i < 200; i++) {
+            if (limiter.admit(reading("temp-flood", SensorType.TEMPERATURE)) == IngestLimiter.Decision.ADMITTED) {
+                flooded++;
+            }
+        }
+        assertEquals(10, flooded, "一秒后按速率补充");
+        assertEquals(Long.valueOf(2170), limiter.getRejected().get("device-limited").get("temperature"));
+    }
+
+    @Test
+    @DisplayName("全局令牌不足时先卸载低优先级类型")
+    public void testPriorityShedding() {
+        IngestLimiter limiter = new IngestLimiter(10, 20, 1024, 1, 100, PRIORITY, 0.5, clock::get);
+
+        int generic = 0;
+        for (int i = 0; i < 200; i++) {
+            if (limiter.admit(reading("device-" + i, SensorType.GENERIC)) == IngestLimiter.Decision.ADMITTED) {
+                generic++;
+            }
+        }
+        assertEquals(50, generic, "最低优先级保留一半全局令牌");
+        assertEquals(150, limiter.count(IngestLimiter.Decision.GLOBAL_SHED, SensorType.GENERIC));
+
+        int humidity = 0;
+        for (int i = 0; i < 100; i++) {
+            if (limiter.admit(reading("humid-" + i, SensorType.HUMIDITY)) == IngestLimiter.Decision.ADMITTED) {
+                humidity++;
+            }
+        }
+        assertEquals(16, humidity, "第三级保留三分之一全局令牌");
+
+        int temperature = 0;
+        for (int i = 0; i < 100; i++) {
+            if (limiter.admit(reading("temp-" + i, SensorType.TEMPERATURE)) == IngestLimiter.Decision.ADMITTED) {
+                temperature++;
+            }
+        }
+        assertEquals(34, temperature, "最高优先级可以用尽剩余令牌");
+        assertEquals(66, limiter.count(IngestLimiter.Decision.GLOBAL_SHED, SensorType.TEMPERATURE));
+    }
+
+    @Test
+    @DisplayName("接入设备数达到上限后拒绝新设备，已接入的设备不受影响")
+    public void testDeviceTableBound() {
+        IngestLimiter limiter = new IngestLimiter(1, 1, 64, 1_000_000, 1_000_000, PRIORITY, 0.5, clock::get);
+
+        for (int i = 0; i < 10_000; i++) {
+            limiter.admit(reading("device-" + i, SensorType.GENERIC));
+        }
+        assertEquals(64, limiter.getRegisteredDevices(), "接入的设备数等于上限");
+        assertEquals(64, limiter.getAdmitted());
+        assertTrue(limiter.getTrackedDevices() <= 64, "登记的令牌桶不超过上限");
+        assertTrue(limiter.count(IngestLimiter.Decision.TOO_MANY_DEVICES, SensorType.GENERIC) > 9000,
+                "上限之后的新设备被拒绝");
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        long refused = limiter.count(IngestLimiter.Decision.TOO_MANY_DEVICES, SensorType.GENERIC);
+        int admitted = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (limiter.admit(reading("device-" + i, SensorType.GENERIC)) == IngestLimiter.Decision.ADMITTED) {
+                admitted++;
+            }
+        }
+        assertTrue(admitted > 0, "已接入的设备补充令牌后照常准入");
+        assertEquals(refused + 10_000 - 64, limiter.count(IngestLimiter.Decision.TOO_MANY_DEVICES, SensorType.GENERIC),
+                "只有未接入的设备被拒绝");
+        assertEquals(IngestLimiter.Decision.TOO_MANY_DEVICES, limiter.admit(reading("device-new", SensorType.GENERIC)));
+        assertEquals(64, limiter.getRegisteredDevices());
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.kafka;
+
+import kafka.server.KafkaConfig;
+import kafka.server.KafkaServer;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.network.ListenerName;
+import org.apache.kafka.common.utils.Time;
+import org.apache.zookeeper.server.ServerCnxnFactory;
+import org.apache.zookeeper.server.ZooKeeperServer;
+import scala.Option;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
+
+/**
+ * 进程内的单节点Kafka代理（含ZooKeeper），监听回环地址的随机端口，数据目录在关闭时删除
+ * 事务状态日志和位点主题的副本数为1，支持事务写入
+ */
+public final class EmbeddedKafkaBroker implements AutoCloseable {
+
+    private final Path directory;
+    private final ZooKeeperServer zookeeper;
+    private final ServerCnxnFactory zookeeperFactory;
+    private final KafkaServer kafka;
+    private final String bootstrapServers;
+
+    public EmbeddedKafkaBroker() throws IOException, InterruptedException {
+        directory = Files.createTempDirectory("embedded-kafka");
+        zookeeper = new ZooKeeperServer(directory.resolve("zk").toFile(), directory.resolve("zk").toFile(), 500);
+        zookeeperFactory = ServerCnxnFactory.createFactory(new InetSocketAddress("127.0.0.1", 0), 64);
+        zookeeperFactory.startup(zookeeper);
+
+        Properties properties = new Properties();
+        properties.setProperty("broker.id", "0");
+        properties.setProperty("zookeeper.connect", "127.0.0.1:" + zookeeperFactory.getLocalPort());
+        properties.setProperty("listeners", "PLAINTEXT://127.0.0.1:0");
+        properties.setProperty("log.dirs", directory.resolve("kafka").toString());
+        properties.setProperty("offsets.topic.replication.factor", "1");
+        properties.setProperty("offsets.topic.num.partitions", "1");
+        properties.setProperty("transaction.state.log.replication.factor", "1");
+        properties.setProperty("transaction.state.log.min.isr", "1");
+        properties.setProperty("transaction.state.log.num.partitions", "1");
+        properties.setProperty("group.initial.rebalance.delay.ms", "0");
+        properties.setProperty("auto.create.topics.enable", "false");
+        // 测试读数使用固定的历史时间戳，关闭按时间的保留，避免段被删除
+        properties.setProperty("log.retention.ms", "-1");
+        kafka = new KafkaServer(new KafkaConfig(properties), Time.SYSTEM, Option.empty(), false);
+        kafka.startup();
+        bootstrapServers = "127.0.0.1:" + kafka.boundPort(ListenerName.normalised("PLAINTEXT"));
+    }
+
+    public String bootstrapServers() {
+        return bootstrapServers;
+    }
+
+    public void createTopic(String topic, int partitions) throws ExecutionException, InterruptedException {
+        try (Admin admin = Admin.create(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers))) {
+            admin.createTopics(List.of(new NewTopic(topic, partitions, (short) 1))).all().get();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        kafka.shutdown();
+        kafka.awaitShutdown();
+        zookeeperFactory.shutdown();
+        zookeeper.shutdown();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.kafka;
+
+import com.example.SensorData;
+import com.example.SensorDataSerializer;
+import com.example.SensorType;
+import org.apache.flink.api.common.eventtime.WatermarkStrategy;
+import org.apache.flink.api.common.functions.MapFunction;
+import org.apache.flink.api.common.restartstrategy.RestartStrategies;
+import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Kafka Sink和Source对进程内代理的集成测试
+ */
+public class KafkaLogTest {
+
+    private static final int READINGS = 2000;
+
+    private static EmbeddedKafkaBroker broker;
+
+    @BeforeAll
+    public static void startBroker() throws Exception {
+        broker = new EmbeddedKafkaBroker();
+    }
+
+    @AfterAll
+    public static void stopBroker() throws Exception {
+        broker.close();
+    }
+
+    private static List<SensorData> readings(int count) {
+        List<SensorData> readings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            readings.add(new SensorData("device_" + (i % 50), 1_700_000_000_000L + i, i, SensorType.TEMPERATURE));
+        }
+        return readings;
+    }
+
+    private static StreamExecutionEnvironment environment(int parallelism) {
+        StreamExecutionEnvironment env = StreamExecutionEnvironment.getExecutionEnvironment();
+        SensorDataSerializer.configure(env.getConfig());
+        env.setParallelism(parallelism);
+        return env;
+    }
+
+    private static List<SensorData> consumeCommitted(String topic, int expected) {
+        Map<String, Object> config = Map.of(
+                ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.bootstrapServers(),
+                ConsumerConfig.GROUP_ID_CONFIG, "verify-" + topic,
+                ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest",
+                ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+        SensorRecordSchema schema = new SensorRecordSchema(topic);
+        List<SensorData> consumed = new ArrayList<>();
+        try (KafkaConsumer<byte[], byte[]> consumer =
+                     new KafkaConsumer<>(config, new ByteArrayDeserializer(), new ByteArrayDeserializer())) {
+            consumer.subscribe(List.of(topic));
+            long deadline = System.currentTimeMillis() + 30_000;
+            int emptyPolls = 0;
+            while (System.currentTimeMillis() < deadline && (consumed.size() < expected || emptyPolls < 3)) {
+                int polled = 0;
+                for (ConsumerRecord<byte[], byte[]> record : consumer.poll(Duration.ofMillis(500))) {
+                    SensorData data = schema.deserialize(record.value());
+                    assertEquals(data.deviceId(), new String(record.key()), "键应为设备ID");
+                    consumed.add(data);
+                    polled++;
+                }
+                emptyPolls = polled == 0 ? emptyPolls + 1 : 0;
+            }
+        }
+        return consumed;
+    }
+
+    /**
+     * 处理到一半时失败一次，作业从最近的检查点恢复
+     */
+    private static final class FailOnce implements MapFunction<SensorData, SensorData> {
+        static final AtomicBoolean FAILED = new AtomicBoolean();
+
+        @Override
+        public SensorData map(SensorData value) throws Exception {
+            Thread.sleep(1);
+            if (value.timestamp() == 1_700_000_000_000L + READINGS / 2 && FAILED.compareAndSet(false, true)) {
+                throw new IllegalStateException("模拟故障");
+            }
+            return value;
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"lz4", "zstd"})
+    @DisplayName("exactly-once写入：作业中途失败恢复后，已提交的记录与输入一一对应，没有重复")
+    public void testExactlyOnceSinkAcrossFailure(String compression) throws Exception {
+        String topic = "readings-" + compression;
+        broker.createTopic(topic, 3);
+        KafkaLogSettings settings = KafkaLogSettings.defaults(broker.bootstrapServers(), topic)
+                .withCompression(compression);
+        FailOnce.FAILED.set(false);
+
+        StreamExecutionEnvironment env = environment(2);
+        env.enableCheckpointing(100);
+        env.setRestartStrategy(RestartStrategies.fixedDelayRestart(1, 0));
+        env.fromCollection(readings(READINGS)).setParallelism(1)
+                .map(new FailOnce())
+                .sinkTo(KafkaLog.sink(settings));
+        env.execute("kafka-sink-" + compression);
+
+        assertTrue(FailOnce.FAILED.get(), "作业应经历一次失败");
+        List<SensorData> consumed = consumeCommitted(topic, READINGS);
+        assertEquals(READINGS, consumed.size(), "已提交的记录数应等于输入");
+        assertEquals(new HashSet<>(readings(READINGS)), new HashSet<>(consumed));
+    }
+
+    @Test
+    @DisplayName("Source只读取已提交的事务，放弃的事务不可见")
+    public void testSourceReadsCommittedOnly() throws Exception {
+        // 单分区保证顺序：提交100条、放弃1条、再提交100条，放弃的读数若可见会出现在前201条中
+        String topic = "readings-source";
+        broker.createTopic(topic, 1);
+        SensorRecordSchema schema = new SensorRecordSchema(topic);
+        Map<String, Object> config = Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.bootstrapServers(),
+                ProducerConfig.TRANSACTIONAL_ID_CONFIG, "test-producer");
+        List<SensorData> committed = readings(200);
+        try (KafkaProducer<byte[], byte[]> producer =
+                     new KafkaProducer<>(config, new ByteArraySerializer(), new ByteArraySerializer())) {
+            producer.initTransactions();
+            send(producer, schema, committed.subList(0, 100));
+            producer.commitTransaction();
+            send(producer, schema, List.of(new SensorData("aborted", 1, 1)));
+            producer.flush();
+            producer.abortTransaction();
+            send(producer, schema, committed.subList(100, 200));
+            producer.commitTransaction();
+        }
+
+        KafkaLogSettings settings = KafkaLogSettings.defaults(broker.bootstrapServers(), topic);
+        StreamExecutionEnvironment env = environment(1);
+        List<SensorData> consumed = env
+                .fromSource(KafkaLog.source(settings), WatermarkStrategy.noWatermarks(), "kafka-source")
+                .executeAndCollect(committed.size());
+        assertEquals(committed, consumed);
+    }
+
+    private static void send(KafkaProducer<byte[], byte[]> producer, SensorRecordSchema schema,
+                             List<SensorData> readings) {
+        producer.beginTransaction();
+        for (SensorData data : readings) {
+            producer.send(schema.serialize(data, null, null));
+        }
+    }
+}
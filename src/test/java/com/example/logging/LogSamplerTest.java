@@ -0,0 +1,58 @@
+package com.example.logging;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 逐条日志的采样和限速
+ */
+public class LogSamplerTest {
+
+    @AfterEach
+    public void tearDown() {
+        LogSampler.configure(1000, 5);
+    }
+
+    @Test
+    @DisplayName("采样记录第一条和每N条，返回此前省略的条数")
+    public void testSampling() {
+        LogSampler.configure(10, 1000);
+        LogSampler sampler = LogSampler.sampled("test.sampling");
+        List<Long> skipped = new ArrayList<>();
+        for (int i = 0; i < 35; i++) {
+            long result = sampler.sample();
+            if (result >= 0) {
+                skipped.add(result);
+            }
+        }
+        assertEquals(List.of(0L, 8L, 9L, 9L), skipped, "第1、10、20、30条");
+        assertEquals(4, sampler.getLogged());
+        assertEquals(31, sampler.getSuppressed());
+    }
+
+    @Test
+    @DisplayName("限速：每秒最多记录max-per-second条，不采样")
+    public void testRateLimit() {
+        LogSampler.configure(1000, 3);
+        LogSampler sampler = LogSampler.rateLimited("test.rate-limit");
+        int logged = 0;
+        long started = System.currentTimeMillis() / 1000;
+        for (int i = 0; i < 100; i++) {
+            if (sampler.sample() >= 0) {
+                logged++;
+            }
+        }
+        if (System.currentTimeMillis() / 1000 == started) {
+            assertEquals(3, logged);
+        } else {
+            assertTrue(logged <= 6, "跨过一秒边界时最多两个窗口");
+        }
+        assertSame(sampler, LogSampler.rateLimited("test.rate-limit"));
+    }
+}
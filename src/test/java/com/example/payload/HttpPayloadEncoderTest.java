@@ -0,0 +1,158 @@
+package com.example.payload;
+
+import com.example.HttpSender;
+import com.example.SensorData;
+import com.example.SensorType;
+import com.example.resilience.HttpPushPolicy;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.luben.zstd.Zstd;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.TaskInfo;
+import org.apache.flink.api.common.functions.util.RuntimeUDFContext;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.metrics.groups.UnregisteredMetricsGroup;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * HTTP请求体的二进制编码、压缩、缓冲区复用和415降级
+ */
+public class HttpPayloadEncoderTest {
+
+    private static List<SensorData> batch(int count) {
+        List<SensorData> readings = new ArrayList<>();
+        SensorType[] types = SensorType.values();
+        for (int i = 0; i < count; i++) {
+            readings.add(new SensorData("device_" + (i % 7), 1_700_000_000_000L + i * 37L - (i % 3) * 50,
+                    20 + i * 0.125, types[i % types.length]));
+        }
+        return readings;
+    }
+
+    @Test
+    @DisplayName("二进制编码往返一致，单条读数远小于JSON")
+    public void testBinaryRoundTrip() throws Exception {
+        HttpPayloadEncoder encoder = new HttpPayloadEncoder(HttpPayloadEncoder.Format.BINARY,
+                HttpPayloadEncoder.Compression.NONE, 512, 4);
+        SensorData single = new SensorData("温度-1", 1_700_000_000_123L, -3.5, SensorType.TEMPERATURE);
+        try (Payload payload = encoder.encode(single)) {
+            byte[] bytes = payload.toByteArray();
+            assertEquals(List.of(single), SensorBinaryCodec.decode(bytes, 0, bytes.length));
+            int json = new ObjectMapper().writeValueAsBytes(single).length;
+            assertTrue(bytes.length * 3 < json, "二进制 " + bytes.length + " 字节，JSON " + json + " 字节");
+            assertNull(payload.contentEncoding());
+        }
+        List<SensorData> readings = batch(200);
+        try (Payload payload = encoder.encode(readings)) {
+            byte[] bytes = payload.toByteArray();
+            assertEquals(readings, SensorBinaryCodec.decode(bytes, 0, bytes.length), "时间戳增量可以为负");
+            assertTrue(payload.contentType().startsWith("application/vnd.sensor.readings+binary"));
+        }
+        assertThrows(IllegalArgumentException.class, () -> SensorBinaryCodec.decode(new byte[]{1, 1, 3}, 0, 3));
+        encoder.close();
+    }
+
+    @Test
+    @DisplayName("gzip和zstd压缩的请求体可以解压还原，小请求体不压缩")
+    public void testCompression() throws Exception {
+        List<SensorData> readings = batch(500);
+        try (HttpPayloadEncoder gzip = new HttpPayloadEncoder(HttpPayloadEncoder.Format.JSON,
+                HttpPayloadEncoder.Compression.GZIP, 512, 4);
+             HttpPayloadEncoder zstd = new HttpPayloadEncoder(HttpPayloadEncoder.Format.BINARY,
+                     HttpPayloadEncoder.Compression.ZSTD, 512, 4)) {
+            try (Payload payload = gzip.encode(readings)) {
+                assertEquals("gzip", payload.contentEncoding());
+                assertTrue(payload.wireBytes() * 5 < payload.rawBytes());
+                byte[] json;
+                try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(payload.toByteArray()))) {
+                    json = in.readAllBytes();
+                }
+                assertEquals(payload.rawBytes(), json.length);
+                assertEquals(readings.size(), new ObjectMapper().readTree(json).size());
+            }
+            try (Payload payload = zstd.encode(readings)) {
+                assertEquals("zstd", payload.contentEncoding());
+                byte[] binary = Zstd.decompress(payload.toByteArray(), payload.rawBytes());
+                assertEquals(readings, SensorBinaryCodec.decode(binary, 0, binary.length));
+            }
+            try (Payload payload = gzip.encode(readings.get(0))) {
+                assertNull(payload.contentEncoding(), "单条读数低于压缩阈值");
+                assertEquals(payload.rawBytes(), payload.wireBytes());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("请求体归还后被复用，不重新分配缓冲区")
+    public void testPayloadReuse() throws Exception {
+        HttpPayloadEncoder encoder = new HttpPayloadEncoder(HttpPayloadEncoder.Format.BINARY,
+                HttpPayloadEncoder.Compression.NONE, 512, 1);
+        Payload first = encoder.encode(batch(10));
+        byte[] buffer = first.body.array();
+        first.close();
+        try (Payload second = encoder.encode(batch(10))) {
+            assertSame(first, second);
+            assertSame(buffer, second.body.array());
+        }
+        encoder.close();
+    }
+
+    @Test
+    @DisplayName("端点返回415时依次取消压缩、退回JSON，之后的请求使用协商后的编码")
+    public void testNegotiationFallsBackToJson() throws Exception {
+        List<String> received = new CopyOnWriteArrayList<>();
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 16);
+        server.createContext("/ingest", exchange -> {
+            String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+            String encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+            byte[] body;
+            try (InputStream in = exchange.getRequestBody()) {
+                body = in.readAllBytes();
+            }
+            boolean json = contentType != null && contentType.startsWith("application/json");
+            if (!json || encoding != null) {
+                received.add("415 " + contentType + " " + encoding);
+                exchange.sendResponseHeaders(415, -1);
+            } else {
+                received.add(new String(body));
+                exchange.sendResponseHeaders(204, -1);
+            }
+            exchange.close();
+        });
+        server.start();
+        HttpSender sender = new HttpSender("http://127.0.0.1:" + server.getAddress().getPort() + "/ingest", 3, 5000,
+                HttpPushPolicy.defaults(), HttpPayloadEncoder.Format.BINARY, HttpPayloadEncoder.Compression.GZIP, 0);
+        sender.setRuntimeContext(new RuntimeUDFContext(new TaskInfo("http", 1, 0, 1, 0),
+                getClass().getClassLoader(), new ExecutionConfig(), new HashMap<>(), new HashMap<>(),
+                UnregisteredMetricsGroup.createOperatorMetricGroup()));
+        try {
+            sender.open(new Configuration());
+            sender.map(new SensorData("device_1", 1, 1.5, SensorType.TEMPERATURE));
+            await().atMost(5, TimeUnit.SECONDS).until(() -> received.size() == 3);
+            sender.map(new SensorData("device_2", 2, 2.5, SensorType.HUMIDITY));
+            await().atMost(5, TimeUnit.SECONDS).until(() -> received.size() == 4);
+        } finally {
+            sender.close();
+            server.stop(0);
+        }
+        assertTrue(received.get(0).contains("binary") && received.get(0).endsWith("gzip"), received.get(0));
+        assertTrue(received.get(1).contains("binary") && received.get(1).endsWith("null"), received.get(1));
+        assertTrue(received.get(2).contains("\"deviceId\":\"device_1\""), received.get(2));
+        assertTrue(received.get(3).contains("\"deviceId\":\"device_2\""), "协商结果应保留: " + received.get(3));
+    }
+}
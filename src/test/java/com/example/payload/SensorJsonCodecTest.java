@@ -0,0 +1,61 @@
+package com.example.payload;
+
+import com.example.SensorData;
+import com.example.SensorType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 流式JSON编码与ObjectMapper输出一致
+ */
+public class SensorJsonCodecTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("单条读数与ObjectMapper逐字节一致，含转义、非ASCII设备ID和特殊double")
+    public void testMatchesObjectMapper() throws Exception {
+        List<SensorData> readings = List.of(
+                new SensorData("temperature-sensor-1", 1_700_000_000_123L, 23.45, SensorType.TEMPERATURE),
+                new SensorData("温度-\"1\"\\\n", 0, -0.0, SensorType.HUMIDITY),
+                new SensorData("device_2", Long.MAX_VALUE, 1013.25, SensorType.PRESSURE),
+                new SensorData("device_3", 42, Double.NaN),
+                new SensorData("device_4", 42, Double.POSITIVE_INFINITY),
+                new SensorData("device_5", 42, 1e-7),
+                new SensorData("device_6", 42, 1.0E21));
+        for (SensorData data : readings) {
+            assertEquals(objectMapper.writeValueAsString(data),
+                    new String(SensorJsonCodec.encode(data), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    @DisplayName("批量编码为JSON数组和JSON Lines，解析后与原读数相同")
+    public void testBatchAndLines() throws Exception {
+        List<SensorData> batch = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            batch.add(new SensorData("device_" + i, 1_700_000_000_000L + i, i * 0.1 + 20,
+                    SensorType.values()[i % SensorType.values().length]));
+        }
+        PayloadBuffer buffer = new PayloadBuffer(64);
+        SensorJsonCodec.encode(batch, buffer);
+        assertEquals(objectMapper.writeValueAsString(batch),
+                new String(buffer.toByteArray(), StandardCharsets.UTF_8));
+
+        buffer.reset();
+        SensorJsonCodec.encodeLines(batch, buffer);
+        String[] lines = new String(buffer.toByteArray(), StandardCharsets.UTF_8).split("\n", -1);
+        assertEquals(batch.size() + 1, lines.length);
+        assertEquals("", lines[batch.size()]);
+        for (int i = 0; i < batch.size(); i++) {
+            assertEquals(batch.get(i), objectMapper.readValue(lines[i], SensorData.class));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.profiling;
+
+import jdk.jfr.Recording;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JFR录制汇总：锁竞争和分配归到应用中的调用位置，GC停顿计数
+ */
+public class RecordingSummaryTest {
+
+    private final LinkedList<Long> recent = new LinkedList<>();
+
+    private void contend() throws InterruptedException {
+        synchronized (recent) {
+            recent.addFirst(System.nanoTime());
+            Thread.sleep(5);
+        }
+    }
+
+    private static List<byte[]> allocate() {
+        List<byte[]> chunks = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            chunks.add(new byte[1024]);
+        }
+        return chunks;
+    }
+
+    @Test
+    @DisplayName("录制文件汇总出锁竞争、分配热点和GC停顿")
+    @SuppressWarnings("unchecked")
+    public void testSummary(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("profile.jfr");
+        try (Recording recording = JfrProfiler.newRecording("default", Duration.ofMillis(1), "1000/s")) {
+            recording.setDestination(file);
+            recording.start();
+
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                Thread thread = new Thread(() -> {
+                    try {
+                        for (int i = 0; i < 20; i++) {
+                            contend();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+                thread.start();
+                threads.add(thread);
+            }
+            long retained = 0;
+            for (int i = 0; i < 20; i++) {
+                retained += allocate().size();
+            }
+            System.gc();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertTrue(retained > 0);
+            recording.stop();
+        }
+
+        Map<String, Object> summary = RecordingSummary.summarize(file, "com.example", 5);
+
+        List<Map<String, Object>> contention = (List<Map<String, Object>>) summary.get("contention");
+        assertFalse(contention.isEmpty(), "应记录到锁竞争");
+        assertEquals("RecordingSummaryTest.contend:26", contention.get(0).get("site"));
+        assertEquals("java.util.LinkedList", contention.get(0).get("monitor"));
+        assertTrue((long) contention.get(0).get("count") > 0);
+
+        Map<String, Object> allocation = (Map<String, Object>) summary.get("allocation");
+        assertTrue((long) allocation.get("sampledBytes") > 0);
+        List<Map<String, Object>> sites = (List<Map<String, Object>>) allocation.get("top");
+        assertTrue(sites.stream().anyMatch(site -> ((String) site.get("site")).startsWith("RecordingSummaryTest.allocate")),
+                sites.toString());
+        assertTrue(sites.size() <= 5);
+
+        Map<String, Object> gc = (Map<String, Object>) summary.get("gc");
+        assertTrue((long) gc.get("count") > 0, "System.gc()应产生一次GC");
+    }
+}
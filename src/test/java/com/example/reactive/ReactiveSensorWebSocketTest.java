@@ -0,0 +1,16 @@
+package com.example.reactive;
+
+import com.example.SensorApplication;
+import com.example.websocket.SensorWebSocketTest;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * 在响应式服务端（WebFlux + Reactor Netty）上运行与Servlet服务端相同的WebSocket测试场景
+ * 测试框架在加载配置文件之前决定服务端类型，因此除reactive配置文件外还要直接指定web-application-type
+ */
+@SpringBootTest(classes = SensorApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.main.web-application-type=reactive")
+@ActiveProfiles("reactive")
+public class ReactiveSensorWebSocketTest extends SensorWebSocketTest {
+}
@@ -0,0 +1,96 @@
+package com.example.resilience;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 熔断器状态转换和自适应并发限制测试
+ */
+public class CircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private CircuitBreaker breaker() {
+        return new CircuitBreaker("test", 3, 1000, 1, now::get);
+    }
+
+    @Test
+    @DisplayName("连续失败达到阈值后打开，成功会清零失败计数")
+    public void testOpensAfterConsecutiveFailures() {
+        CircuitBreaker breaker = breaker();
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+        assertEquals(1, breaker.getOpenCount());
+    }
+
+    @Test
+    @DisplayName("打开时长过后只放行一个探测，探测成功则关闭、失败则重新打开")
+    public void testHalfOpenProbe() {
+        CircuitBreaker breaker = breaker();
+        for (int i = 0; i < 3; i++) {
+            breaker.onFailure();
+        }
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire(), "半开状态只允许一个探测");
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+        assertTrue(breaker.tryAcquire());
+        breaker.release();
+        assertTrue(breaker.tryAcquire(), "归还的探测许可可以再次使用");
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("并发限制随排队延迟上调或下调，失败时快速回退")
+    public void testAdaptiveLimit() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 100);
+        long baseline = TimeUnit.MILLISECONDS.toNanos(5);
+
+        // 延迟稳定在基线且并发跑满：逐步上调
+        for (int i = 0; i < 20; i++) {
+            while (limit.tryAcquire()) {
+                // 占满当前限制
+            }
+            int inFlight = limit.getInFlight();
+            for (int j = 0; j < inFlight; j++) {
+                limit.onSuccess(baseline);
+            }
+        }
+        int grown = limit.getLimit();
+        assertTrue(grown > 10, "延迟无变化时限制应上调: " + grown);
+
+        // 延迟翻倍，说明下游开始排队：下调
+        for (int i = 0; i < 20; i++) {
+            assertTrue(limit.tryAcquire());
+            limit.onSuccess(baseline * 2);
+        }
+        assertTrue(limit.getLimit() < grown, "排队时限制应下调: " + limit.getLimit());
+
+        int beforeDrop = limit.getLimit();
+        assertTrue(limit.tryAcquire());
+        limit.onDropped();
+        assertTrue(limit.getLimit() < beforeDrop);
+        assertEquals(0, limit.getInFlight());
+    }
+}
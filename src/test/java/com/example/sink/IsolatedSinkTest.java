@@ -0,0 +1,255 @@
+package com.example.sink;
+
+import com.example.SensorData;
+import com.example.SensorType;
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.TaskInfo;
+import org.apache.flink.api.common.functions.util.RuntimeUDFContext;
+import org.apache.flink.api.common.state.ListState;
+import org.apache.flink.api.common.state.ListStateDescriptor;
+import org.apache.flink.api.common.state.OperatorStateStore;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.metrics.groups.UnregisteredMetricsGroup;
+import org.apache.flink.runtime.state.FunctionInitializationContext;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 隔离Sink分支：写出慢或失败时算子线程不被阻塞，按策略丢弃和重试
+ */
+public class IsolatedSinkTest {
+
+    /**
+     * 写出线程在闸门打开前一直阻塞，模拟无响应的下游
+     */
+    private static final class GatedWriter implements BranchWriter {
+        static final List<SensorData> WRITTEN = new CopyOnWriteArrayList<>();
+        static volatile CountDownLatch gate;
+
+        @Override
+        public void open(int subtask, int parallelism) {
+        }
+
+        @Override
+        public void write(List<SensorData> batch) throws InterruptedException {
+            gate.await();
+            WRITTEN.addAll(batch);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * 每次写出都失败，记录收到的不同批次（重试时是同一个批次对象）
+     */
+    private static final class FailingWriter implements BranchWriter {
+        final Set<List<SensorData>> batches = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+
+        @Override
+        public void open(int subtask, int parallelism) {
+        }
+
+        @Override
+        public void write(List<SensorData> batch) throws IOException {
+            batches.add(batch);
+            throw new IOException("下游不可用");
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * 内存中的算子状态，保存最近一次检查点写入的读数
+     */
+    private static final class MemoryListState implements ListState<SensorData> {
+        private List<SensorData> values = new ArrayList<>();
+
+        @Override
+        public Iterable<SensorData> get() {
+            return values;
+        }
+
+        @Override
+        public void add(SensorData value) {
+            values.add(value);
+        }
+
+        @Override
+        public void update(List<SensorData> values) {
+            this.values = new ArrayList<>(values);
+        }
+
+        @Override
+        public void addAll(List<SensorData> values) {
+            this.values.addAll(values);
+        }
+
+        @Override
+        public void clear() {
+            values = new ArrayList<>();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static IsolatedSink openWithState(String branch, BranchWriter writer, BranchPolicy policy,
+                                              MemoryListState state) throws Exception {
+        OperatorStateStore store = mock(OperatorStateStore.class);
+        when(store.getListState(any(ListStateDescriptor.class))).thenReturn(state);
+        FunctionInitializationContext context = mock(FunctionInitializationContext.class);
+        when(context.getOperatorStateStore()).thenReturn(store);
+        IsolatedSink sink = new IsolatedSink(branch, writer, policy);
+        sink.initializeState(context);
+        return open(sink, branch);
+    }
+
+    private static IsolatedSink open(String branch, BranchWriter writer, BranchPolicy policy) throws Exception {
+        return open(new IsolatedSink(branch, writer, policy), branch);
+    }
+
+    private static IsolatedSink open(IsolatedSink sink, String branch) throws Exception {
+        sink.setRuntimeContext(new RuntimeUDFContext(new TaskInfo(branch, 1, 0, 1, 0),
+                IsolatedSinkTest.class.getClassLoader(), new ExecutionConfig(), new HashMap<>(), new HashMap<>(),
+                UnregisteredMetricsGroup.createOperatorMetricGroup()));
+        sink.open(new Configuration());
+        return sink;
+    }
+
+    private static SensorData reading(int i) {
+        return new SensorData("device_" + i, i, i, SensorType.TEMPERATURE);
+    }
+
+    @Test
+    @DisplayName("下游无响应时写入不阻塞，队列满后丢弃最旧的读数，恢复后写出最新的读数")
+    public void testStalledWriterDoesNotBlock() throws Exception {
+        GatedWriter.WRITTEN.clear();
+        GatedWriter.gate = new CountDownLatch(1);
+        IsolatedSink sink = open("stalled", new GatedWriter(),
+                new BranchPolicy(100, 10, BranchPolicy.Overflow.DROP_OLDEST, BranchPolicy.Failure.DROP, 0, 1));
+        SinkBranchStats stats = SinkBranchStats.of("stalled");
+
+        long started = System.nanoTime();
+        for (int i = 0; i < 10_000; i++) {
+            sink.invoke(reading(i), null);
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        assertTrue(elapsedMs < 2000, "下游阻塞时写入不应等待: " + elapsedMs + "ms");
+        // 写出线程取走了一批（阻塞在写出中），其余读数受队列容量限制
+        assertTrue(stats.getDropped() >= 10_000 - 100 - 10, "丢弃计数: " + stats.getDropped());
+        assertEquals(100, stats.getQueued());
+
+        GatedWriter.gate.countDown();
+        sink.close();
+        assertEquals(10_000, GatedWriter.WRITTEN.size() + stats.getDropped());
+        assertEquals(reading(9_999), GatedWriter.WRITTEN.get(GatedWriter.WRITTEN.size() - 1), "最新的读数应被保留");
+        assertEquals(0, stats.getQueued(), "关闭后注销队列");
+    }
+
+    @Test
+    @DisplayName("写出失败按退避重试，DROP策略丢弃该批后继续运行")
+    public void testFailureDropsBatch() throws Exception {
+        FailingWriter writer = new FailingWriter();
+        IsolatedSink sink = open("failing-drop", writer,
+                new BranchPolicy(100, 10, BranchPolicy.Overflow.DROP_NEWEST, BranchPolicy.Failure.DROP, 2, 1));
+        SinkBranchStats stats = SinkBranchStats.of("failing-drop");
+        for (int i = 0; i < 10; i++) {
+            sink.invoke(reading(i), null);
+        }
+        await().atMost(5, TimeUnit.SECONDS).until(() -> stats.getDropped() == 10);
+        // 写出线程可能在读数陆续到达时分成多批取出，每批各重试2次、失败3次
+        int batches = writer.batches.size();
+        assertTrue(batches >= 1 && batches <= 10, "批次数: " + batches);
+        assertEquals(2L * batches, stats.retries.sum());
+        assertEquals(3L * batches, stats.failures.sum());
+        sink.invoke(reading(10), null);
+        sink.close();
+    }
+
+    @Test
+    @DisplayName("FAIL策略下写出失败后，下一次写入抛出异常让作业恢复")
+    public void testFailurePropagates() throws Exception {
+        IsolatedSink sink = open("failing-fail", new FailingWriter(),
+                new BranchPolicy(100, 10, BranchPolicy.Overflow.DROP_OLDEST, BranchPolicy.Failure.FAIL, 0, 1));
+        SinkBranchStats stats = SinkBranchStats.of("failing-fail");
+        sink.invoke(reading(0), null);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> stats.failures.sum() == 1);
+        IOException error = assertThrows(IOException.class, () -> sink.invoke(reading(1), null));
+        assertEquals("下游不可用", error.getCause().getMessage());
+        sink.close();
+    }
+
+    @Test
+    @DisplayName("写出线程阻塞在一批中时，检查点包含正在写出的一批和队列中的读数")
+    public void testSnapshotWhileWriterBlocked() throws Exception {
+        GatedWriter.WRITTEN.clear();
+        GatedWriter.gate = new CountDownLatch(1);
+        MemoryListState state = new MemoryListState();
+        IsolatedSink sink = openWithState("snapshot-blocked", new GatedWriter(),
+                new BranchPolicy(100, 10, BranchPolicy.Overflow.DROP_NEWEST, BranchPolicy.Failure.DROP, 0, 1), state);
+        SinkBranchStats stats = SinkBranchStats.of("snapshot-blocked");
+
+        for (int i = 0; i < 25; i++) {
+            sink.invoke(reading(i), null);
+        }
+        // 写出线程取走一批后阻塞在闸门上，不会再取；这一批可能在读数陆续到达时取出，条数不定
+        await().atMost(5, TimeUnit.SECONDS).until(() -> stats.getQueued() < 25);
+        sink.snapshotState(null);
+        List<SensorData> pending = new ArrayList<>();
+        state.get().forEach(pending::add);
+        assertEquals(25, pending.size(), "正在写出的一批和队列中的读数都应保存");
+        for (int i = 0; i < 25; i++) {
+            assertTrue(pending.contains(reading(i)), "缺少读数 " + i);
+        }
+
+        GatedWriter.gate.countDown();
+        sink.close();
+        assertEquals(25, GatedWriter.WRITTEN.size());
+    }
+
+    @Test
+    @DisplayName("写出线程不断取批时反复打检查点，已写入的读数要么已写出要么在检查点中")
+    public void testSnapshotNeverLosesHandover() throws Exception {
+        GatedWriter.WRITTEN.clear();
+        GatedWriter.gate = new CountDownLatch(0);
+        MemoryListState state = new MemoryListState();
+        IsolatedSink sink = openWithState("snapshot-race", new GatedWriter(),
+                new BranchPolicy(10_000, 1, BranchPolicy.Overflow.BLOCK, BranchPolicy.Failure.DROP, 0, 1), state);
+
+        for (int i = 0; i < 50_000; i++) {
+            sink.invoke(reading(i), null);
+            if (i % 2 == 0) {
+                sink.snapshotState(null);
+                // 单个写出线程按队列顺序写出，已写出的读数是从0开始的前缀
+                int written = GatedWriter.WRITTEN.size();
+                Set<SensorData> pending = new HashSet<>();
+                state.get().forEach(pending::add);
+                for (int j = written; j <= i; j++) {
+                    assertTrue(pending.contains(reading(j)), "检查点丢失了读数 " + j);
+                }
+            }
+        }
+        sink.close();
+        assertEquals(50_000, GatedWriter.WRITTEN.size());
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.sink;
+
+import com.example.SensorData;
+import com.example.SensorType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sink分支路由规则的解析和匹配
+ */
+public class SinkRouteTest {
+
+    private static SensorData reading(String deviceId, SensorType type) {
+        return new SensorData(deviceId, 1L, 1.0, type);
+    }
+
+    @Test
+    @DisplayName("空规则匹配全部读数")
+    public void testEmptyRuleMatchesAll() {
+        assertTrue(SinkRoute.parse("").matchesAll());
+        assertTrue(SinkRoute.parse("*").matchesAll());
+        assertTrue(SinkRoute.parse(null).filter(reading("device_1", SensorType.PRESSURE)));
+    }
+
+    @Test
+    @DisplayName("类型和设备条件同时满足才进入分支")
+    public void testTypeAndDevice() {
+        SinkRoute route = SinkRoute.parse("type=temperature|humidity; device=device_1*|*-sensor-3");
+        assertTrue(route.filter(reading("device_12", SensorType.TEMPERATURE)));
+        assertTrue(route.filter(reading("humidity-sensor-3", SensorType.HUMIDITY)));
+        assertFalse(route.filter(reading("device_12", SensorType.PRESSURE)), "类型不匹配");
+        assertFalse(route.filter(reading("device_2", SensorType.TEMPERATURE)), "设备不匹配");
+        assertFalse(route.filter(reading("humidity-sensor-31", SensorType.HUMIDITY)), "*只能出现在模式中的位置");
+    }
+
+    @Test
+    @DisplayName("通配符匹配")
+    public void testGlob() {
+        assertTrue(SinkRoute.glob("device_1", "device_1"));
+        assertFalse(SinkRoute.glob("device_1", "device_10"));
+        assertTrue(SinkRoute.glob("*", "anything"));
+        assertTrue(SinkRoute.glob("a*b*c", "axxbyyc"));
+        assertFalse(SinkRoute.glob("a*b*c", "axxcyyb"));
+        assertFalse(SinkRoute.glob("ab*ba", "aba"), "前缀和后缀不能重叠");
+    }
+
+    @Test
+    @DisplayName("未知的条件或类型报错")
+    public void testInvalidRule() {
+        assertThrows(IllegalArgumentException.class, () -> SinkRoute.parse("region=north"));
+        assertThrows(IllegalArgumentException.class, () -> SinkRoute.parse("type=voltage"));
+        assertThrows(IllegalArgumentException.class, () -> SinkRoute.parse("temperature"));
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.spill;
+
+import com.example.SensorData;
+import com.example.SensorType;
+import com.example.bridge.SensorFrameCodec;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 磁盘溢出日志测试
+ */
+public class MappedSpillLogTest {
+
+    @TempDir
+    Path directory;
+
+    private static SensorData reading(int i) {
+        return new SensorData("device_" + i, 1_700_000_000_000L + i, i * 0.5, SensorType.TEMPERATURE);
+    }
+
+    private long segmentFiles() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(".seg")).count();
+        }
+    }
+
+    @Test
+    @DisplayName("跨段写入后按FIFO顺序读出，读完的段被删除")
+    public void testRollOverSegments() throws Exception {
+        try (MappedSpillLog log = new MappedSpillLog(directory, 4, 100)) {
+            for (int i = 0; i < 10; i++) {
+                assertTrue(log.offer(reading(i)));
+            }
+            assertEquals(10, log.size());
+            assertEquals(3, segmentFiles());
+
+            for (int i = 0; i < 10; i++) {
+                assertEquals(reading(i), log.poll());
+            }
+            assertNull(log.poll());
+            assertEquals(0, log.size());
+            assertEquals(1, segmentFiles());
+        }
+    }
+
+    @Test
+    @DisplayName("重新打开后从保存的游标继续读取未读记录")
+    public void testRecoverAfterReopen() throws Exception {
+        try (MappedSpillLog log = new MappedSpillLog(directory, 4, 100)) {
+            for (int i = 0; i < 7; i++) {
+                log.offer(reading(i));
+            }
+            assertEquals(reading(0), log.poll());
+            assertEquals(reading(1), log.poll());
+        }
+
+        try (MappedSpillLog log = new MappedSpillLog(directory, 4, 100)) {
+            assertEquals(5, log.size());
+            log.offer(reading(7));
+            for (int i = 2; i < 8; i++) {
+                assertEquals(reading(i), log.poll());
+            }
+            assertNull(log.poll());
+        }
+    }
+
+    @Test
+    @DisplayName("达到容量时丢弃最旧的记录")
+    public void testDropOldestWhenFull() throws Exception {
+        try (MappedSpillLog log = new MappedSpillLog(directory, 2, 3)) {
+            assertTrue(log.offer(reading(0)));
+            assertTrue(log.offer(reading(1)));
+            assertTrue(log.offer(reading(2)));
+            assertFalse(log.offer(reading(3)));
+            assertFalse(log.offer(reading(4)));
+
+            assertEquals(3, log.size());
+            assertEquals(2, log.getDroppedCount());
+            assertEquals(reading(2), log.poll());
+            assertEquals(reading(3), log.poll());
+            assertEquals(reading(4), log.poll());
+        }
+    }
+
+    @Test
+    @DisplayName("设备ID为空的记录不截断恢复，过长的设备ID丢弃并计数")
+    public void testEmptyAndLongDeviceIds() throws Exception {
+        SensorData empty = new SensorData("", 1_700_000_000_000L, 1.0, SensorType.GENERIC);
+        try (MappedSpillLog log = new MappedSpillLog(directory, 4, 100)) {
+            log.offer(reading(0));
+            assertTrue(log.offer(empty));
+            log.offer(reading(2));
+            assertFalse(log.offer(new SensorData("d".repeat(47), 1, 1.0, SensorType.GENERIC)));
+            assertEquals(1, log.getUnencodableCount());
+            assertEquals(1, log.getDroppedCount());
+            assertEquals(3, log.size());
+        }
+
+        try (MappedSpillLog log = new MappedSpillLog(directory, 4, 100)) {
+            assertEquals(3, log.size(), "空设备ID之后的记录也要恢复");
+            log.offer(reading(3));
+            assertEquals(reading(0), log.poll());
+            assertEquals(empty, log.poll());
+            assertEquals(reading(2), log.poll());
+            assertEquals(reading(3), log.poll());
+            assertNull(log.poll());
+        }
+    }
+
+    @Test
+    @DisplayName("旧格式（长度字节未加1）的段在恢复时转换")
+    public void testUpgradeOldFormat() throws Exception {
+        ByteBuffer segment = ByteBuffer.allocate(4 * SensorFrameCodec.FRAME_SIZE);
+        SensorFrameCodec.encode(reading(0), segment);
+        SensorFrameCodec.encode(reading(1), segment);
+        Files.write(directory.resolve(String.format("%020d.seg", 0)), segment.array());
+        Files.write(directory.resolve("cursor"), new byte[Long.BYTES]);
+
+        try (MappedSpillLog log = new MappedSpillLog(directory, 4, 100)) {
+            assertEquals(2, log.size());
+            assertEquals(reading(0), log.poll());
+        }
+        try (MappedSpillLog log = new MappedSpillLog(directory, 4, 100)) {
+            assertEquals(1, log.size(), "转换只做一次");
+            assertEquals(reading(1), log.poll());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.stream;
+
+import com.example.SensorApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SSE和长轮询降级通道测试，读数来自测试环境中匀速输出的Flink数据源
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = SensorApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class SensorStreamTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @LocalServerPort
+    private int port;
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    @Test
+    @DisplayName("SSE连续推送带递增序号的读数事件")
+    public void testSseStream() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri("/api/stream/sse"))
+                .timeout(Duration.ofSeconds(30)).build();
+        HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("text/event-stream"));
+
+        List<Long> ids = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+            long lastId = -1;
+            String line;
+            while (ids.size() < 5 && (line = reader.readLine()) != null) {
+                if (line.startsWith("id: ")) {
+                    lastId = Long.parseLong(line.substring(4));
+                } else if (line.startsWith("data: ")) {
+                    JsonNode data = OBJECT_MAPPER.readTree(line.substring(6));
+                    assertTrue(data.hasNonNull("deviceId"), "事件数据应为读数JSON");
+                    ids.add(lastId);
+                }
+            }
+        }
+        assertEquals(5, ids.size());
+        for (int i = 1; i < ids.size(); i++) {
+            assertTrue(ids.get(i) > ids.get(i - 1), "序号应递增");
+        }
+    }
+
+    @Test
+    @DisplayName("长轮询用上次应答的sequence续传，读数不重复")
+    public void testLongPoll() throws Exception {
+        JsonNode first = poll("/api/stream/poll?timeout=10000");
+        assertFalse(first.get("readings").isEmpty(), "数据源运行时应在超时前返回读数");
+
+        long since = first.get("sequence").asLong();
+        JsonNode second = poll("/api/stream/poll?timeout=10000&since=" + since);
+        assertFalse(second.get("readings").isEmpty());
+        assertTrue(second.get("sequence").asLong() > since);
+    }
+
+    @Test
+    @DisplayName("没有匹配订阅条件的读数时长轮询超时返回空列表，未知类型返回400")
+    public void testPollFilter() throws Exception {
+        JsonNode empty = poll("/api/stream/poll?timeout=500&prefix=no-such-device-");
+        assertTrue(empty.get("readings").isEmpty());
+
+        HttpResponse<String> invalid = client.send(HttpRequest.newBuilder(uri("/api/stream/poll?type=unknown")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, invalid.statusCode());
+    }
+
+    private JsonNode poll(String path) throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri(path))
+                .timeout(Duration.ofSeconds(30)).build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        return OBJECT_MAPPER.readTree(response.body());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
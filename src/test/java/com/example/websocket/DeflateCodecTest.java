@@ -0,0 +1,83 @@
+package com.example.websocket;
+
+import com.example.SensorData;
+import com.example.SensorType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 批量消息压缩测试
+ */
+public class DeflateCodecTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final DeflateCodec codec = new DeflateCodec();
+
+    @AfterEach
+    public void cleanup() {
+        codec.close();
+    }
+
+    @Test
+    @DisplayName("压缩后可用同一字典解压还原")
+    public void testRoundTrip() throws Exception {
+        byte[] json = batch(50);
+        assertArrayEquals(json, DeflateCodec.decompress(codec.compress(json)));
+        // 超过初始输出缓冲区的消息
+        byte[] large = batch(5000);
+        assertArrayEquals(large, DeflateCodec.decompress(codec.compress(large)));
+    }
+
+    @Test
+    @DisplayName("每条消息独立压缩，相同输入的输出相同，可由所有会话共享")
+    public void testIndependentMessages() throws Exception {
+        byte[] first = codec.compress(batch(10));
+        codec.compress(batch(200));
+        assertArrayEquals(first, codec.compress(batch(10)));
+        DeflateCodec other = new DeflateCodec();
+        try {
+            assertArrayEquals(first, other.compress(batch(10)));
+        } finally {
+            other.close();
+        }
+    }
+
+    @Test
+    @DisplayName("预置字典使小批次压缩得更小")
+    public void testDictionary() throws Exception {
+        byte[] json = batch(3);
+        Deflater plain = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        plain.setInput(json);
+        plain.finish();
+        byte[] buffer = new byte[json.length * 2];
+        int plainLength = plain.deflate(buffer);
+        plain.end();
+
+        int length = codec.compress(json).length;
+        assertTrue(length < plainLength, "有字典 " + length + " 字节，无字典 " + plainLength + " 字节");
+        assertTrue(length < json.length / 2, "三条读数的批次应压缩到一半以下: " + length + "/" + json.length);
+    }
+
+    private static byte[] batch(int count) throws Exception {
+        StringBuilder json = new StringBuilder("[");
+        SensorType[] types = {SensorType.TEMPERATURE, SensorType.HUMIDITY, SensorType.PRESSURE};
+        long now = 1_700_000_000_000L;
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            SensorType type = types[i % types.length];
+            json.append(OBJECT_MAPPER.writeValueAsString(
+                    new SensorData("device_" + (i % 16), now + i * 100L, 20.0 + (i % 50) * 0.37, type)));
+        }
+        return json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
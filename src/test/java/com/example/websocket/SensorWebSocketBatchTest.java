@@ -0,0 +1,111 @@
+package com.example.websocket;
+
+import com.example.SensorApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.java_websocket.client.WebSocketClient;
+import org.java_websocket.handshake.ServerHandshake;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * WebSocket批量推送测试：batch=true接收JSON数组，encoding=deflate接收用预置字典压缩的二进制消息
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = SensorApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class SensorWebSocketBatchTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final int TIMEOUT_SECONDS = 30;
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    @DisplayName("batch=true的会话每个周期接收一条JSON数组消息")
+    public void testJsonBatch() throws Exception {
+        RecordingClient client = connect("/wx-socket?batch=true");
+        try {
+            await().atMost(TIMEOUT_SECONDS, TimeUnit.SECONDS).until(() -> client.text.size() >= 3);
+            for (String message : client.text) {
+                JsonNode batch = OBJECT_MAPPER.readTree(message);
+                assertTrue(batch.isArray() && batch.size() > 0, "批量消息应为非空数组: " + message);
+                assertTrue(batch.get(0).hasNonNull("deviceId"));
+            }
+            assertTrue(client.binary.isEmpty());
+        } finally {
+            client.closeBlocking();
+        }
+    }
+
+    @Test
+    @DisplayName("encoding=deflate的会话接收可用预置字典解压的二进制消息")
+    public void testDeflateBatch() throws Exception {
+        RecordingClient client = connect("/wx-socket?encoding=deflate&type=temperature");
+        try {
+            await().atMost(TIMEOUT_SECONDS, TimeUnit.SECONDS).until(() -> client.binary.size() >= 3);
+            for (byte[] message : client.binary) {
+                JsonNode batch = OBJECT_MAPPER.readTree(DeflateCodec.decompress(message));
+                assertTrue(batch.isArray() && batch.size() > 0);
+                for (JsonNode reading : batch) {
+                    assertEquals("temperature", reading.get("type").asText(), "批量消息应按订阅条件过滤");
+                }
+            }
+            assertTrue(client.text.isEmpty(), "deflate会话不应收到逐条读数");
+        } finally {
+            client.closeBlocking();
+        }
+    }
+
+    private RecordingClient connect(String path) throws Exception {
+        RecordingClient client = new RecordingClient(new URI("ws://localhost:" + port + path));
+        assertTrue(client.connectBlocking(TIMEOUT_SECONDS, TimeUnit.SECONDS), "WebSocket客户端应该成功连接");
+        return client;
+    }
+
+    private static class RecordingClient extends WebSocketClient {
+        final List<String> text = new CopyOnWriteArrayList<>();
+        final List<byte[]> binary = new CopyOnWriteArrayList<>();
+
+        RecordingClient(URI serverUri) {
+            super(serverUri);
+        }
+
+        @Override
+        public void onOpen(ServerHandshake handshake) {
+        }
+
+        @Override
+        public void onMessage(String message) {
+            text.add(message);
+        }
+
+        @Override
+        public void onMessage(ByteBuffer bytes) {
+            byte[] message = new byte[bytes.remaining()];
+            bytes.get(message);
+            binary.add(message);
+        }
+
+        @Override
+        public void onClose(int code, String reason, boolean remote) {
+        }
+
+        @Override
+        public void onError(Exception ex) {
+        }
+    }
+}
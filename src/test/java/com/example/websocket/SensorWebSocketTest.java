@@ -2,6 +2,7 @@ package com.example.websocket;
 
 import com.example.SensorApplication;
 import com.example.SensorData;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.java_websocket.client.WebSocketClient;
 import org.java_websocket.handshake.ServerHandshake;
@@ -120,11 +121,13 @@ public class SensorWebSocketTest {
         boolean allReceivedMessages = messageLatch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
         assertTrue(allReceivedMessages, "所有客户端应该接收到至少" + MIN_MESSAGES_PER_CLIENT + "条消息");
         
-        // 确认每个客户端都接收到了消息
-        for (TestWebSocketClient client : testClients) {
-            assertTrue(client.getReceivedMessages().size() >= MIN_MESSAGES_PER_CLIENT, 
-                    "客户端 " + client.getClientId() + " 应该接收到至少" + MIN_MESSAGES_PER_CLIENT + "条消息");
-        }
+        // 确认每个客户端都接收到了消息（消息计数是所有客户端共享的，晚连接的客户端可能还差几条）
+        await().atMost(TIMEOUT_SECONDS, TimeUnit.SECONDS).untilAsserted(() -> {
+            for (TestWebSocketClient client : testClients) {
+                assertTrue(client.getReceivedMessages().size() >= MIN_MESSAGES_PER_CLIENT, 
+                        "客户端 " + client.getClientId() + " 应该接收到至少" + MIN_MESSAGES_PER_CLIENT + "条消息");
+            }
+        });
         
         LOG.info("10个并发WebSocket连接测试完成");
     }
@@ -149,8 +152,11 @@ public class SensorWebSocketTest {
         assertTrue(connectionLatch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS), "WebSocket客户端应该成功连接");
         assertTrue(messageLatch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS), "WebSocket客户端应该接收到消息");
         
-        // 获取接收到的消息
-        List<String> messages = client.getReceivedMessages();
+        // 获取接收到的消息（复制一份，遍历期间客户端仍在接收）
+        List<String> messages;
+        synchronized (client.getReceivedMessages()) {
+            messages = new ArrayList<>(client.getReceivedMessages());
+        }
         assertFalse(messages.isEmpty(), "应该接收到传感器数据消息");
         
         // 验证所有消息的格式和时间戳
@@ -274,6 +280,69 @@ public class SensorWebSocketTest {
         LOG.info("压力测试和内存泄露检测完成");
     }
 
+    /**
+     * 测试超过容器消息缓冲区的客户端请求
+     * - 较长的订阅请求分片到达后拼接处理，返回subscribed应答
+     */
+    @Test
+    @DisplayName("测试超过消息缓冲区的客户端请求")
+    public void testLargeClientRequest() throws Exception {
+        CountDownLatch connectionLatch = new CountDownLatch(1);
+        TestWebSocketClient client = createAndConnectClient(0, connectionLatch, new CountDownLatch(0));
+        testClients.add(client);
+        assertTrue(connectionLatch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS), "WebSocket客户端应该成功连接");
+        
+        // 约8KB的订阅请求，远大于默认1024字符的消息缓冲区
+        StringJoiner devices = new StringJoiner(",", "[", "]");
+        for (int i = 0; i < 600; i++) {
+            devices.add("\"device_" + i + "\"");
+        }
+        client.send("{\"action\":\"subscribe\",\"requestId\":7,\"devices\":" + devices + "}");
+        
+        await().atMost(TIMEOUT_SECONDS, TimeUnit.SECONDS).until(() -> {
+            synchronized (client.getReceivedMessages()) {
+                return client.getReceivedMessages().stream().anyMatch(message -> message.contains("\"subscribed\""));
+            }
+        });
+        assertTrue(client.isOpen(), "较长的请求不应导致连接关闭");
+    }
+
+    /**
+     * 测试设备通过WebSocket上报读数
+     * - 单个设备一次上报5倍突发量，只准入突发量，其余按设备限速拒绝
+     * - 准入的读数经桥接队列广播给所有连接
+     */
+    @Test
+    @DisplayName("测试WebSocket上报读数和按设备限速")
+    public void testIngestAction() throws Exception {
+        CountDownLatch connectionLatch = new CountDownLatch(1);
+        TestWebSocketClient client = createAndConnectClient(0, connectionLatch, new CountDownLatch(0));
+        testClients.add(client);
+        assertTrue(connectionLatch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS), "WebSocket客户端应该成功连接");
+
+        StringJoiner readings = new StringJoiner(",", "[", "]");
+        for (int i = 0; i < 100; i++) {
+            readings.add("{\"deviceId\":\"temp-ws-ingest\",\"value\":" + (20 + i * 0.1) + "}");
+        }
+        client.send("{\"action\":\"ingest\",\"requestId\":9,\"readings\":" + readings + "}");
+
+        await().atMost(TIMEOUT_SECONDS, TimeUnit.SECONDS).until(() -> {
+            synchronized (client.getReceivedMessages()) {
+                return client.getReceivedMessages().stream().anyMatch(message -> message.contains("\"ingested\""))
+                        && client.getReceivedMessages().stream().anyMatch(message -> message.contains("temp-ws-ingest"));
+            }
+        });
+        String response;
+        synchronized (client.getReceivedMessages()) {
+            response = client.getReceivedMessages().stream()
+                    .filter(message -> message.contains("\"ingested\"")).findFirst().orElseThrow();
+        }
+        JsonNode result = OBJECT_MAPPER.readTree(response);
+        assertEquals(9, result.path("requestId").asInt());
+        assertEquals(20, result.path("accepted").asInt(), "只准入设备的突发量");
+        assertEquals(80, result.path("rejectedByReason").path("device-limited").asInt());
+    }
+
     /**
      * 创建并连接一个WebSocket测试客户端
      */